@@ -0,0 +1,451 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous front-end of a NetworkingSystem.
+ *
+ * Operations are queued per Network and return a CompletableFuture. The
+ * queue of a Network is drained by a single task of the executor at a time,
+ * which applies all the queued operations (up to MAX_BATCH_SIZE) within a
+ * single MapperSpace. A burst of operations on a Network thus only pays for
+ * one MapperSpace, while the operations of different Networks run in
+ * parallel.
+ *
+ * Since the updates of a MapperSpace are only applied when it is closed,
+ * the creations of Links connected to an interface and the deletions of
+ * Nodes and Links close the current MapperSpace after them: the following
+ * operations are validated against the updated Network. Operations on
+ * Hosts and interfaces, whose deferred updates can fail (e.g., on a
+ * duplicate address), are applied alone in their MapperSpace, so that such
+ * a failure only fails their future. In a Network with striped locking,
+ * each operation gets its own MapperSpace, since the stripes of an
+ * operation are held until its MapperSpace is closed. The futures are
+ * completed once the MapperSpace of their operation is closed.
+ *
+ * The operations of a Network are applied in the order in which they were
+ * submitted.
+ *
+ * @author Amaury Van Bemten
+ */
+public class AsyncNetworkingSystem implements AutoCloseable {
+	/**
+	 * Maximum number of operations applied within one MapperSpace.
+	 */
+	public static final int MAX_BATCH_SIZE = 4096;
+
+	/**
+	 * Logger of the asynchronous front-end.
+	 */
+	private static final Logger logger = LogManager.getLogger(AsyncNetworkingSystem.class);
+
+	/**
+	 * NetworkingSystem applying the operations.
+	 */
+	private final NetworkingSystem networkingSystem;
+
+	/**
+	 * Executor draining the queues.
+	 */
+	private final Executor executor;
+
+	/**
+	 * Whether the executor has been created by this object (and must be shut
+	 * down by close()).
+	 */
+	private final boolean ownedExecutor;
+
+	/**
+	 * Queues of pending operations, per Network.
+	 */
+	private final ConcurrentHashMap<Network, OperationQueue> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates an asynchronous front-end with its own pool of daemon threads.
+	 * @param networkingSystem NetworkingSystem applying the operations.
+	 */
+	AsyncNetworkingSystem(NetworkingSystem networkingSystem) {
+		this(networkingSystem, Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "async-networking-system");
+			thread.setDaemon(true);
+			return thread;
+		}), true);
+	}
+
+	/**
+	 * Creates an asynchronous front-end.
+	 * @param networkingSystem NetworkingSystem applying the operations.
+	 * @param executor executor draining the queues of operations (not shut
+	 *                 down by close()).
+	 */
+	public AsyncNetworkingSystem(NetworkingSystem networkingSystem, Executor executor) {
+		this(networkingSystem, executor, false);
+	}
+
+	private AsyncNetworkingSystem(NetworkingSystem networkingSystem, Executor executor, boolean ownedExecutor) {
+		this.networkingSystem = networkingSystem;
+		this.executor = executor;
+		this.ownedExecutor = ownedExecutor;
+	}
+
+	/**
+	 * Creates a Node.
+	 * @param network Network.
+	 * @param name name of the Node.
+	 * @return the future NetworkNode.
+	 */
+	public CompletableFuture<NetworkNode> createNode(Network network, String name) {
+		return submit(network, () -> networkingSystem.createNode(network, name), () -> false);
+	}
+
+	/**
+	 * Deletes a Node and the Links connected to it.
+	 * @param node NetworkNode.
+	 * @return the future completion.
+	 */
+	public CompletableFuture<Void> deleteNode(NetworkNode node) {
+		return submit(node.getNetwork(), () -> {
+			networkingSystem.deleteNode(node);
+			return null;
+		}, () -> true);
+	}
+
+	/**
+	 * Creates a Link with a single Queue.
+	 * @param srcNode source of the Link.
+	 * @param dstNode destination of the Link.
+	 * @param rate rate of the Link (bytes/s).
+	 * @param delay delay of the Link (s).
+	 * @param queueSize size of the Queue (bytes).
+	 * @return the future Link.
+	 */
+	public CompletableFuture<Link> createLink(NetworkNode srcNode, NetworkNode dstNode, double rate, double delay, double queueSize) {
+		return submit(srcNode.getNetwork(), () -> networkingSystem.createLink(srcNode, dstNode, rate, delay, queueSize), () -> isInterface(srcNode) || isInterface(dstNode));
+	}
+
+	/**
+	 * Creates a Link with priority scheduling.
+	 * @param srcNode source of the Link.
+	 * @param dstNode destination of the Link.
+	 * @param rate rate of the Link (bytes/s).
+	 * @param delay delay of the Link (s).
+	 * @param queueSizes sizes of the Queues (bytes), highest priority first.
+	 * @return the future Link.
+	 */
+	public CompletableFuture<Link> createLinkWithPriorityScheduling(NetworkNode srcNode, NetworkNode dstNode, double rate, double delay, double[] queueSizes) {
+		return submit(srcNode.getNetwork(), () -> networkingSystem.createLinkWithPriorityScheduling(srcNode, dstNode, rate, delay, queueSizes), () -> isInterface(srcNode) || isInterface(dstNode));
+	}
+
+	/**
+	 * Creates a Link with WFQ scheduling.
+	 * @param srcNode source of the Link.
+	 * @param dstNode destination of the Link.
+	 * @param rate rate of the Link (bytes/s).
+	 * @param delay delay of the Link (s).
+	 * @param queueSizes sizes of the Queues (bytes).
+	 * @param weights weights of the Queues.
+	 * @return the future Link.
+	 */
+	public CompletableFuture<Link> createLinkWithWFQScheduling(NetworkNode srcNode, NetworkNode dstNode, double rate, double delay, double[] queueSizes, double[] weights) {
+		return submit(srcNode.getNetwork(), () -> networkingSystem.createLinkWithWFQScheduling(srcNode, dstNode, rate, delay, queueSizes, weights), () -> isInterface(srcNode) || isInterface(dstNode));
+	}
+
+	/**
+	 * Deletes a Link.
+	 * @param link Link.
+	 * @return the future completion.
+	 */
+	public CompletableFuture<Void> deleteLink(Link link) {
+		return submit(link.getNetwork(), () -> {
+			networkingSystem.deleteLink(link);
+			return null;
+		}, () -> true);
+	}
+
+	/**
+	 * Sets the propagation delay of a Link.
+	 * @param link Link.
+	 * @param delay new delay (s).
+	 * @return the future completion.
+	 */
+	public CompletableFuture<Void> setDelay(Link link, double delay) {
+		return submit(link.getNetwork(), () -> {
+			networkingSystem.setDelay(link, delay);
+			return null;
+		}, () -> false);
+	}
+
+	/**
+	 * Creates a Host.
+	 * @param network Network.
+	 * @param name name of the Host.
+	 * @return the future Host.
+	 */
+	public CompletableFuture<Host> createHost(Network network, String name) {
+		return submitAlone(network, () -> networkingSystem.createHost(network, name));
+	}
+
+	/**
+	 * Deletes a Host with its interfaces.
+	 * @param host Host.
+	 * @return the future completion.
+	 */
+	public CompletableFuture<Void> deleteHost(Host host) {
+		return submitAlone(host.getNetwork(), () -> {
+			networkingSystem.deleteHost(host);
+			return null;
+		});
+	}
+
+	/**
+	 * Adds an interface to a Host.
+	 * @param host Host.
+	 * @param ifc interface.
+	 * @return the future NetworkNode representing the interface.
+	 */
+	public CompletableFuture<NetworkNode> addInterface(Host host, NetworkInterface ifc) {
+		return submitAlone(host.getNetwork(), () -> networkingSystem.addInterface(host, ifc));
+	}
+
+	/**
+	 * Deletes an interface from a Host, with its NetworkNode and Links.
+	 * @param host Host.
+	 * @param ifc interface.
+	 * @return the future completion.
+	 */
+	public CompletableFuture<Void> deleteInterface(Host host, NetworkInterface ifc) {
+		return submitAlone(host.getNetwork(), () -> {
+			networkingSystem.deleteInterface(host, ifc);
+			return null;
+		});
+	}
+
+	/**
+	 * Shuts the executor down if it has been created by this object. The
+	 * operations already queued are still applied. If this object is the one
+	 * returned by NetworkingSystem.async(), the next call to async() creates
+	 * a new one.
+	 */
+	@Override
+	public void close() {
+		if(ownedExecutor) {
+			((ExecutorService) executor).shutdown();
+			networkingSystem.asyncClosed(this);
+		}
+	}
+
+	/**
+	 * Queues an operation.
+	 * @param network Network modified by the operation.
+	 * @param operation operation.
+	 * @param barrier tells, just before the operation is applied, whether the
+	 *                MapperSpace must be closed after it.
+	 * @param <T> type of the result of the operation.
+	 * @return the future result of the operation.
+	 */
+	private <T> CompletableFuture<T> submit(Network network, Supplier<T> operation, BooleanSupplier barrier) {
+		return submit(network, new Operation<>(operation, barrier, false));
+	}
+
+	/**
+	 * Queues an operation to be applied alone in its MapperSpace, because its
+	 * deferred updates can fail (e.g., on a duplicate address).
+	 * @param network Network modified by the operation.
+	 * @param operation operation.
+	 * @param <T> type of the result of the operation.
+	 * @return the future result of the operation.
+	 */
+	private <T> CompletableFuture<T> submitAlone(Network network, Supplier<T> operation) {
+		return submit(network, new Operation<>(operation, () -> true, true));
+	}
+
+	/**
+	 * Queues an operation.
+	 * @param network Network modified by the operation.
+	 * @param queued operation.
+	 * @param <T> type of the result of the operation.
+	 * @return the future result of the operation.
+	 */
+	private <T> CompletableFuture<T> submit(Network network, Operation<T> queued) {
+		OperationQueue queue = queues.computeIfAbsent(network, OperationQueue::new);
+		queue.operations.add(queued);
+		if(queue.scheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(queue::drain);
+			} catch(RejectedExecutionException e) {
+				queue.scheduled.set(false);
+				queued.future.completeExceptionally(new NetworkException("The asynchronous NetworkingSystem is closed"));
+			}
+		}
+		return queued.future;
+	}
+
+	/**
+	 * Tells whether a NetworkNode represents an interface of a Host.
+	 * @param node NetworkNode.
+	 * @return true if it does.
+	 */
+	private static boolean isInterface(NetworkNode node) {
+		return node.getNetwork().getHostNodesToHost().containsKey(node);
+	}
+
+	/**
+	 * Queued operation.
+	 */
+	private static final class Operation<T> {
+		/**
+		 * Operation.
+		 */
+		private final Supplier<T> operation;
+
+		/**
+		 * Whether the MapperSpace must be closed after the operation.
+		 */
+		private final BooleanSupplier barrier;
+
+		/**
+		 * Whether the operation must be applied alone in its MapperSpace.
+		 */
+		private final boolean alone;
+
+		/**
+		 * Future result of the operation.
+		 */
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+
+		/**
+		 * Result of the operation.
+		 */
+		private T result;
+
+		/**
+		 * Exception thrown by the operation (null if none).
+		 */
+		private RuntimeException failure;
+
+		Operation(Supplier<T> operation, BooleanSupplier barrier, boolean alone) {
+			this.operation = operation;
+			this.barrier = barrier;
+			this.alone = alone;
+		}
+
+		/**
+		 * Applies the operation.
+		 * @return true if the MapperSpace must be closed after it.
+		 */
+		boolean apply() {
+			boolean closeSpace = barrier.getAsBoolean();
+			try {
+				result = operation.get();
+			} catch(RuntimeException e) {
+				failure = e;
+			}
+			return closeSpace;
+		}
+
+		/**
+		 * Records a failure of the MapperSpace of the operation.
+		 * @param e failure.
+		 */
+		void fail(RuntimeException e) {
+			if(failure == null)
+				failure = e;
+		}
+
+		/**
+		 * Completes the future of the operation.
+		 */
+		void complete() {
+			if(failure != null)
+				future.completeExceptionally(failure);
+			else
+				future.complete(result);
+		}
+	}
+
+	/**
+	 * Pending operations of a Network.
+	 */
+	private final class OperationQueue {
+		/**
+		 * Network of the operations.
+		 */
+		private final Network network;
+
+		/**
+		 * Pending operations, in submission order.
+		 */
+		private final ConcurrentLinkedQueue<Operation<?>> operations = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Whether a drain of the queue is scheduled or running.
+		 */
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		OperationQueue(Network network) {
+			this.network = network;
+		}
+
+		/**
+		 * Applies the pending operations until the queue is empty.
+		 */
+		void drain() {
+			List<Operation<?>> batch = new ArrayList<>();
+			while(true) {
+				Operation<?> operation;
+				while(batch.size() < MAX_BATCH_SIZE && (operation = operations.poll()) != null)
+					batch.add(operation);
+
+				if(batch.isEmpty()) {
+					scheduled.set(false);
+					// An operation may have been queued after the last poll.
+					if(operations.isEmpty() || !scheduled.compareAndSet(false, true))
+						return;
+					continue;
+				}
+
+				apply(batch);
+				batch.clear();
+			}
+		}
+
+		/**
+		 * Applies a batch of operations, in as few MapperSpaces as possible.
+		 * @param batch operations.
+		 */
+		private void apply(List<Operation<?>> batch) {
+			int spaces = 0;
+			int next = 0;
+			while(next < batch.size()) {
+				int first = next;
+				try(NetworkingSystem.OperationSpace ms = networkingSystem.startOperationSpace()) {
+					while(next < batch.size()) {
+						if(batch.get(next).alone && next > first)
+							break;
+						if(batch.get(next++).apply() || network.hasStripedLocking())
+							break;
+					}
+				} catch(RuntimeException e) {
+					for(int i = first; i < next; i++)
+						batch.get(i).fail(e);
+				}
+				spaces++;
+				for(int i = first; i < next; i++)
+					batch.get(i).complete();
+			}
+
+			if(logger.isDebugEnabled())
+				logger.debug(batch.size() + " asynchronous operations on " + network + " applied in " + spaces + " mapper spaces.");
+		}
+	}
+}
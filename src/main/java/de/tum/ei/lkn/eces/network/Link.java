@@ -20,9 +20,16 @@ public class Link extends Component {
 	private Edge linkEdge;
 
 	/**
-	 * Queue-level Edges corresponding to the Link.
+	 * Queue-level Edges corresponding to the Link (null as long as they have
+	 * not been materialized, see Network.hasLazyQueueGraph()).
 	 */
-	private Edge[] queueEdges;
+	private volatile Edge[] queueEdges;
+
+	/**
+	 * Whether the Link has been deleted (its queue-level Edges are then not
+	 * created anymore).
+	 */
+	private volatile boolean deleted;
 
 	/**
 	 * Network to which the Node belongs.
@@ -67,13 +74,51 @@ public class Link extends Component {
 	}
 
 	/**
-	 * Gets the queue-level Edge corresponding to the Edge.
+	 * Gets the queue-level Edge corresponding to the Edge. If the queue-level
+	 * Graph of the Network is lazy, the queue-level Edges are created on the
+	 * first call. A deleted Link whose queue-level Edges had not been created
+	 * has none.
 	 * @return the link-level Edge.
 	 */
 	public Edge[] getQueueEdges() {
+		Edge[] edges = queueEdges;
+		if(edges == null)
+			edges = network.materializeQueueEdges(this);
+		return edges;
+	}
+
+	/**
+	 * Gets the queue-level Edges of the Link without materializing them.
+	 * @return the queue-level Edges or null if they have not been created yet.
+	 */
+	Edge[] getMaterializedQueueEdges() {
 		return queueEdges;
 	}
 
+	/**
+	 * Sets the queue-level Edges of the Link once they have been created.
+	 * @param queueEdges queue-level Edges.
+	 */
+	void setQueueEdges(Edge[] queueEdges) {
+		this.queueEdges = queueEdges;
+	}
+
+	/**
+	 * Tells whether the Link has been deleted.
+	 * @return true if the Link has been deleted.
+	 */
+	boolean isDeleted() {
+		return deleted;
+	}
+
+	/**
+	 * Marks the Link as deleted: its queue-level Edges are not created
+	 * anymore.
+	 */
+	void markDeleted() {
+		deleted = true;
+	}
+
 	/**
 	 * Gets the name of the Link.
 	 * @return Edge name.
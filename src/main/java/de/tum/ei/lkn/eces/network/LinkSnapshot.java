@@ -0,0 +1,168 @@
+package de.tum.ei.lkn.eces.network;
+
+/**
+ * Immutable state of a Link in a TopologySnapshot: its end points and the
+ * values of its Rate, Delay, Scheduler and Queues when it was recorded.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class LinkSnapshot {
+	/**
+	 * Link.
+	 */
+	private final Link link;
+
+	/**
+	 * Source of the Link.
+	 */
+	private final NetworkNode source;
+
+	/**
+	 * Destination of the Link.
+	 */
+	private final NetworkNode destination;
+
+	/**
+	 * Rate of the Link (bytes/s).
+	 */
+	private final double rate;
+
+	/**
+	 * Delay of the Link (s).
+	 */
+	private final double delay;
+
+	/**
+	 * Class of the Scheduler of the Link.
+	 */
+	private final Class<? extends Scheduler> schedulerType;
+
+	/**
+	 * Sizes of the Queues of the Link (bytes).
+	 */
+	private final double[] queueSizes;
+
+	/**
+	 * Weights of the Queues of the Link (null if the Scheduler is not a
+	 * WFQScheduler).
+	 */
+	private final double[] weights;
+
+	/**
+	 * Records the state of a Link.
+	 * @param link Link.
+	 * @param source source of the Link.
+	 * @param destination destination of the Link.
+	 * @param rate Rate of the Link.
+	 * @param delay Delay of the Link.
+	 * @param scheduler Scheduler of the Link.
+	 */
+	LinkSnapshot(Link link, NetworkNode source, NetworkNode destination, Rate rate, Delay delay, Scheduler scheduler) {
+		this(link, source, destination, rate.getRate(), delay.getDelay(), scheduler, scheduler instanceof WFQScheduler ? ((WFQScheduler) scheduler).getWeights() : null);
+	}
+
+	/**
+	 * Records the state of a Link.
+	 * @param link Link.
+	 * @param source source of the Link.
+	 * @param destination destination of the Link.
+	 * @param rate rate of the Link (bytes/s).
+	 * @param delay delay of the Link (s).
+	 * @param scheduler Scheduler of the Link.
+	 * @param weights weights of the Queues (null if the Scheduler is not a
+	 *                WFQScheduler).
+	 */
+	LinkSnapshot(Link link, NetworkNode source, NetworkNode destination, double rate, double delay, Scheduler scheduler, double[] weights) {
+		this.link = link;
+		this.source = source;
+		this.destination = destination;
+		this.rate = rate;
+		this.delay = delay;
+		this.schedulerType = scheduler.getClass();
+		Queue[] queues = scheduler.getQueues();
+		this.queueSizes = new double[queues.length];
+		for(int i = 0; i < queues.length; i++)
+			queueSizes[i] = queues[i].getSize();
+		this.weights = weights == null ? null : weights.clone();
+	}
+
+	/**
+	 * Gets the Link.
+	 * @return the Link.
+	 */
+	public Link getLink() {
+		return link;
+	}
+
+	/**
+	 * Gets the source of the Link.
+	 * @return the source NetworkNode.
+	 */
+	public NetworkNode getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the destination of the Link.
+	 * @return the destination NetworkNode.
+	 */
+	public NetworkNode getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the rate of the Link.
+	 * @return the rate (bytes/s).
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Gets the delay of the Link.
+	 * @return the delay (s).
+	 */
+	public double getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Gets the class of the Scheduler of the Link.
+	 * @return the class of the Scheduler.
+	 */
+	public Class<? extends Scheduler> getSchedulerType() {
+		return schedulerType;
+	}
+
+	/**
+	 * Gets the number of Queues of the Link, i.e., its number of queue-level
+	 * Edges.
+	 * @return the number of Queues.
+	 */
+	public int getNumberOfQueues() {
+		return queueSizes.length;
+	}
+
+	/**
+	 * Gets the size of a Queue of the Link.
+	 * @param queue index of the Queue.
+	 * @return the size (bytes).
+	 */
+	public double getQueueSize(int queue) {
+		return queueSizes[queue];
+	}
+
+	/**
+	 * Gets the weight of a Queue of the Link.
+	 * @param queue index of the Queue.
+	 * @return the weight or NaN if the Scheduler is not a WFQScheduler.
+	 */
+	public double getWeight(int queue) {
+		return weights == null ? Double.NaN : weights[queue];
+	}
+
+	@Override
+	public String toString() {
+		return link + " (" + source + " -> " + destination + ")";
+	}
+}
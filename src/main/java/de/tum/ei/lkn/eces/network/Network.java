@@ -2,14 +2,15 @@ package de.tum.ei.lkn.eces.network;
 
 import de.tum.ei.lkn.eces.core.Component;
 import de.tum.ei.lkn.eces.core.annotations.ComponentBelongsTo;
+import de.tum.ei.lkn.eces.graph.Edge;
 import de.tum.ei.lkn.eces.graph.Graph;
 import de.tum.ei.lkn.eces.graph.Node;
 import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
-import de.tum.ei.lkn.eces.network.util.IPAddress;
-import de.tum.ei.lkn.eces.network.util.MACAddress;
-import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+import de.tum.ei.lkn.eces.network.util.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A network is represented by two graphs:
@@ -47,6 +48,35 @@ public class Network extends Component {
 	 */
 	private final Map<IPAddress, NetworkNode> ipAddresses;
 
+	/**
+	 * Longest-prefix-match indices of the IPv4 and IPv6 addresses of the
+	 * Interfaces and of the prefixes of the Network.
+	 */
+	private final PrefixTrie<NetworkNode> ipv4Prefixes;
+	private final PrefixTrie<NetworkNode> ipv6Prefixes;
+
+	/**
+	 * Kind of the link-level and queue-level Nodes of the Network.
+	 */
+	private final NodeKindIndex nodeKinds;
+
+	/**
+	 * Pool from which addresses are allocated to new Interfaces (null if
+	 * addresses are only assigned manually).
+	 */
+	private volatile AddressPool addressPool;
+
+	/**
+	 * Whether the Queues of the Network have a Reservation.
+	 */
+	private volatile boolean reservations;
+
+	/**
+	 * Lock stripes of the NetworkNodes (null unless striped locking is
+	 * enabled).
+	 */
+	private volatile NodeLockStripes nodeLocks;
+
 	/**
 	 * Map of NetworkNodes to their corresponding Host if the Node actually
 	 * belongs to a Host.
@@ -58,24 +88,213 @@ public class Network extends Component {
 	 */
 	private final Set<Host> hosts;
 
+	/**
+	 * Whether the queue-level Graph is materialized lazily.
+	 */
+	private final boolean lazyQueueGraph;
+
+	/**
+	 * Materializer of the queue-level Graph (null if the queue-level Graph is
+	 * not lazy).
+	 */
+	private final QueueGraphMaterializer queueGraphMaterializer;
+
+	/**
+	 * Whether all the queue-level Edges of the Network exist.
+	 */
+	private volatile boolean queueGraphMaterialized;
+
+	/**
+	 * Recorder of the initial state of the Network for its first snapshot
+	 * (null if the Network is not managed by a NetworkingSystem).
+	 */
+	private final SnapshotRecorder snapshotRecorder;
+
+	/**
+	 * Changes since the last snapshot (null until the first snapshot).
+	 */
+	private volatile SnapshotJournal snapshotJournal;
+
+	/**
+	 * Whether the journal contains the whole state of the Network.
+	 */
+	private volatile boolean snapshotJournalComplete;
+
+	/**
+	 * Lock for the creation of the journal.
+	 */
+	private final Object snapshotLock = new Object();
+
+	/**
+	 * Lock held by the NetworkTransaction in progress on the Network.
+	 */
+	private final ReentrantLock transactionLock = new ReentrantLock();
+
 	public Network(Graph linkGraph, Graph queueGraph) {
+		this(linkGraph, queueGraph, null, null);
+	}
+
+	/**
+	 * Creates a new Network.
+	 * @param linkGraph link-level Graph.
+	 * @param queueGraph queue-level Graph.
+	 * @param queueGraphMaterializer materializer of the queue-level Graph if
+	 *                               it is built lazily, null otherwise.
+	 * @param snapshotRecorder recorder of the state of the Network for its
+	 *                         first snapshot.
+	 */
+	Network(Graph linkGraph, Graph queueGraph, QueueGraphMaterializer queueGraphMaterializer, SnapshotRecorder snapshotRecorder) {
 		super();
-		this.hostNodesToHost = new HashMap<>();
-		this.macAddresses = new HashMap<>();
-		this.ipAddresses = new HashMap<>();
-		this.hosts = new HashSet<>();
+		this.hostNodesToHost = new ConcurrentHashMap<>();
+		this.macAddresses = new ConcurrentHashMap<>();
+		this.ipAddresses = new ConcurrentHashMap<>();
+		this.nodeKinds = new NodeKindIndex();
+		this.ipv4Prefixes = new PrefixTrie<>(32);
+		this.ipv6Prefixes = new PrefixTrie<>(128);
+		this.hosts = ConcurrentHashMap.newKeySet();
 		this.linkGraph = linkGraph;
 		this.queueGraph = queueGraph;
+		this.lazyQueueGraph = queueGraphMaterializer != null;
+		this.queueGraphMaterializer = queueGraphMaterializer;
+		this.queueGraphMaterialized = queueGraphMaterializer == null;
+		this.snapshotRecorder = snapshotRecorder;
 	}
 
 	/**
-	 * Gets the queue-level Graph of the Network.
+	 * Gets the queue-level Graph of the Network. If the queue-level Graph is
+	 * lazy, the queue-level Edges of all the Links are created on the first
+	 * call.
 	 * @return the queue-level Graph.
 	 */
 	public Graph getQueueGraph() {
+		if(!queueGraphMaterialized)
+			queueGraphMaterializer.materialize(this);
 		return queueGraph;
 	}
 
+	/**
+	 * Gets the queue-level Graph of the Network without materializing it.
+	 * @return the queue-level Graph.
+	 */
+	Graph getQueueGraphWithoutMaterialization() {
+		return queueGraph;
+	}
+
+	/**
+	 * Tells whether the queue-level Graph of the Network is materialized
+	 * lazily, i.e., whether the queue-level Edges of a Link are only created
+	 * when they are first accessed (see Link.getQueueEdges()) or when the
+	 * queue-level Graph is first accessed.
+	 * @return true if the queue-level Graph is lazy.
+	 */
+	public boolean hasLazyQueueGraph() {
+		return lazyQueueGraph;
+	}
+
+	/**
+	 * Tells whether the queue-level Graph has been fully materialized. This is
+	 * always the case if the queue-level Graph is not lazy.
+	 * @return true if all the queue-level Edges of the Network exist.
+	 */
+	public boolean isQueueGraphMaterialized() {
+		return queueGraphMaterialized;
+	}
+
+	/**
+	 * Marks the queue-level Graph as fully materialized.
+	 */
+	void queueGraphMaterialized() {
+		queueGraphMaterialized = true;
+	}
+
+	/**
+	 * Creates the queue-level Edges of a Link of the Network, even if the
+	 * queue-level Graph has already been marked as fully materialized.
+	 * @param link Link.
+	 * @return the queue-level Edges of the Link (empty if the Link has been
+	 *         deleted before they were created).
+	 */
+	Edge[] materializeQueueEdges(Link link) {
+		if(queueGraphMaterializer == null)
+			return link.getMaterializedQueueEdges();
+		return queueGraphMaterializer.materialize(link);
+	}
+
+	/**
+	 * Takes an immutable snapshot of the NetworkNodes and Links of the
+	 * Network and of the values of their Rate, Delay, Scheduler and Queues.
+	 * The snapshot can then be read without any lock.
+	 *
+	 * The first call records the whole Network. From then on, the
+	 * NetworkingSystem records the changes of the Network and a new snapshot
+	 * only applies the changes since the previous one, sharing everything
+	 * else with it. Changes of Delays and WFQ weights are only recorded if
+	 * they are done with NetworkingSystem.setDelay() and
+	 * NetworkingSystem.setWeights().
+	 * @return the snapshot.
+	 * @throws NetworkException if the Network has not been created by a
+	 *         NetworkingSystem.
+	 */
+	public TopologySnapshot snapshot() {
+		if(!snapshotJournalComplete) {
+			synchronized(snapshotLock) {
+				if(!snapshotJournalComplete) {
+					if(snapshotRecorder == null)
+						throw new NetworkException("Snapshots are only available for Networks created by a NetworkingSystem");
+					/* Changes done during the recording are journaled as
+					 * well and take precedence over the recorded state. */
+					SnapshotJournal journal = new SnapshotJournal(this);
+					snapshotJournal = journal;
+					snapshotRecorder.recordAll(this, journal);
+					snapshotJournalComplete = true;
+				}
+			}
+		}
+		return snapshotJournal.snapshot();
+	}
+
+	/**
+	 * Tells whether link and node mutations of the Network lock the stripes
+	 * of the involved NetworkNodes instead of the whole Network.
+	 * @return true if striped locking is enabled.
+	 */
+	public boolean hasStripedLocking() {
+		return nodeLocks != null;
+	}
+
+	/**
+	 * Enables striped locking.
+	 */
+	protected void enableStripedLocking() {
+		if(nodeLocks == null)
+			nodeLocks = new NodeLockStripes();
+	}
+
+	/**
+	 * Gets the lock stripes of the NetworkNodes.
+	 * @return the stripes or null if striped locking is not enabled.
+	 */
+	NodeLockStripes getNodeLocks() {
+		return nodeLocks;
+	}
+
+	/**
+	 * Gets the lock held by the NetworkTransaction in progress on the
+	 * Network.
+	 * @return the lock.
+	 */
+	ReentrantLock getTransactionLock() {
+		return transactionLock;
+	}
+
+	/**
+	 * Gets the journal of the changes since the last snapshot.
+	 * @return the journal or null if no snapshot has been taken yet.
+	 */
+	SnapshotJournal getSnapshotJournal() {
+		return snapshotJournal;
+	}
+
 	/**
 	 * Gets the link-level Graph of the Network.
 	 * @return the link-level Graph.
@@ -131,8 +350,11 @@ public class Network extends Component {
 		MACAddress mac = ifc.getMACAddress();
 
 		// IP checks.
-		if(ip.equals(IPAddress.valueOf("0.0.0.0")))
+		if(ip.equals(IPAddress.valueOf("0.0.0.0"))) {
+			if(addressPool != null)
+				addressPool.reserve(mac);
 			return; // We do not add the undefined IP address.
+		}
 		if(ipAddresses.containsKey(ip))
 			throw new NetworkException("A given IP address can only be present once in a network (" + ip + " already present)");
 
@@ -143,19 +365,233 @@ public class Network extends Component {
 		ipAddresses.put(ip, node);
 		macAddresses.put(mac, node);
 		hostNodesToHost.put(node, host);
+		setNodeKind(node, NodeKind.HOST_INTERFACE);
+		putPrefix(ip, ip.getLength() * 8, node);
+		if(addressPool != null) {
+			addressPool.reserve(ip);
+			addressPool.reserve(mac);
+		}
 	}
 
 	/**
-	 * Removes an Interface from the Network.
+	 * Removes an Interface from the Network. Its addresses are only released
+	 * if they are registered for this Interface: an Interface whose addition
+	 * failed (duplicate IP or MAC address) does not own them.
 	 * @param ifc Interface to remove.
+	 * @param node NetworkNode representing the Interface.
 	 */
-	protected void removeInterface(NetworkInterface ifc) {
-		NetworkNode node = ipAddresses.get(ifc.getIPAddress());
-		if(node == null)
+	protected void removeInterface(NetworkInterface ifc, NetworkNode node) {
+		IPAddress ip = ifc.getIPAddress();
+		MACAddress mac = ifc.getMACAddress();
+		if(ip.equals(IPAddress.valueOf("0.0.0.0"))) {
+			if(addressPool != null && !macAddresses.containsKey(mac))
+				addressPool.release(mac);
 			return;
-		ipAddresses.remove(ifc.getIPAddress());
-		macAddresses.remove(ifc.getMACAddress());
+		}
+
+		if(node == null || ipAddresses.get(ip) != node)
+			return;
+		ipAddresses.remove(ip);
+		boolean ownsMAC = macAddresses.get(mac) == node;
+		if(ownsMAC)
+			macAddresses.remove(mac);
 		hostNodesToHost.remove(node);
+		if(getNodeKind(node.getLinkNode()) == NodeKind.HOST_INTERFACE)
+			setNodeKind(node, NodeKind.SWITCH);
+		if(getPrefix(ip, ip.getLength() * 8) == node)
+			removePrefix(ip, ip.getLength() * 8);
+		if(addressPool != null) {
+			addressPool.release(ip);
+			if(ownsMAC)
+				addressPool.release(mac);
+		}
+	}
+
+	/**
+	 * Gets the kind of a Graph Node in the Network in constant time.
+	 * @param node link-level or queue-level Node.
+	 * @return the kind of the Node (UNASSIGNED if it does not belong to the
+	 *         Network).
+	 */
+	public NodeKind getNodeKind(Node node) {
+		return nodeKinds.get(node.getEntity().getId());
+	}
+
+	/**
+	 * Sets the kind of the link-level and queue-level Nodes of a NetworkNode.
+	 * @param node NetworkNode.
+	 * @param kind kind.
+	 */
+	void setNodeKind(NetworkNode node, NodeKind kind) {
+		nodeKinds.set(node.getLinkNode().getEntity().getId(), kind);
+		nodeKinds.set(node.getQueueNode().getEntity().getId(), kind);
+	}
+
+	/**
+	 * Gets the pool from which addresses are allocated to new Interfaces.
+	 * @return the pool or null if addresses are only assigned manually.
+	 */
+	public AddressPool getAddressPool() {
+		return addressPool;
+	}
+
+	/**
+	 * Sets the pool from which addresses are allocated to new Interfaces. The
+	 * addresses of the existing Interfaces are reserved in the pool.
+	 * @param addressPool pool (null to remove the pool).
+	 */
+	protected void setAddressPool(AddressPool addressPool) {
+		if(addressPool != null) {
+			for(Host host : hosts) {
+				for(NetworkInterface ifc : host.getInterfaces()) {
+					addressPool.reserve(ifc.getIPAddress());
+					addressPool.reserve(ifc.getMACAddress());
+				}
+			}
+		}
+		this.addressPool = addressPool;
+	}
+
+	/**
+	 * Tells whether the queue-level Edges of the Network have a Reservation.
+	 * @return true if reservations have been enabled.
+	 */
+	public boolean hasReservations() {
+		return reservations;
+	}
+
+	/**
+	 * Marks the Network as having a Reservation on its queue-level Edges.
+	 */
+	protected void enableReservations() {
+		this.reservations = true;
+	}
+
+	/**
+	 * Associates an IP prefix to a NetworkNode for longest-prefix matching.
+	 * The addresses of the Interfaces are automatically associated to their
+	 * NetworkNode as host prefixes (/32 or /128).
+	 * @param prefix IP prefix (bits beyond its length are ignored).
+	 * @param length length of the prefix.
+	 * @param node NetworkNode.
+	 * @return the NetworkNode previously associated to the prefix, if any.
+	 */
+	protected NetworkNode putPrefix(IPAddress prefix, int length, NetworkNode node) {
+		return getPrefixes(prefix).put(upperBits(prefix), lowerBits(prefix), length, node);
+	}
+
+	/**
+	 * Removes an IP prefix from the longest-prefix-match index.
+	 * @param prefix IP prefix.
+	 * @param length length of the prefix.
+	 * @return the NetworkNode associated to the prefix, if any.
+	 */
+	protected NetworkNode removePrefix(IPAddress prefix, int length) {
+		return getPrefixes(prefix).remove(upperBits(prefix), lowerBits(prefix), length);
+	}
+
+	/**
+	 * Gets the NetworkNode associated to an IP prefix (exact match).
+	 * @param prefix IP prefix.
+	 * @param length length of the prefix.
+	 * @return the NetworkNode or null if the prefix is not associated to any.
+	 */
+	public NetworkNode getPrefix(IPAddress prefix, int length) {
+		return getPrefixes(prefix).get(upperBits(prefix), lowerBits(prefix), length);
+	}
+
+	/**
+	 * Gets the NetworkNode associated to the longest prefix containing an IP
+	 * address.
+	 * @param ip IP address.
+	 * @return the NetworkNode (the Interface having this address if there is
+	 *         one) or null if no prefix contains the address.
+	 */
+	public NetworkNode getLongestPrefixMatch(IPAddress ip) {
+		return getPrefixes(ip).getLongestPrefixMatch(upperBits(ip), lowerBits(ip));
+	}
+
+	/**
+	 * Gets the NetworkNode associated to the longest prefix containing an
+	 * IPv4 address.
+	 * @param ip IPv4 address (most significant byte first).
+	 * @return the NetworkNode or null if no prefix contains the address.
+	 */
+	public NetworkNode getLongestPrefixMatchIPv4(int ip) {
+		return ipv4Prefixes.getLongestPrefixMatch(((long) ip) << 32, 0);
+	}
+
+	/**
+	 * Gets the NetworkNode associated to the longest prefix containing an
+	 * IPv6 address.
+	 * @param upper upper 64 bits of the IPv6 address.
+	 * @param lower lower 64 bits of the IPv6 address.
+	 * @return the NetworkNode or null if no prefix contains the address.
+	 */
+	public NetworkNode getLongestPrefixMatchIPv6(long upper, long lower) {
+		return ipv6Prefixes.getLongestPrefixMatch(upper, lower);
+	}
+
+	/**
+	 * Visits the prefixes (including Interface addresses) contained in an IP
+	 * prefix. For IPv4, the prefixes are given to the visitor in the upper 32
+	 * bits of the upper long.
+	 * @param prefix IP prefix.
+	 * @param length length of the prefix.
+	 * @param visitor visitor (null to only count the prefixes).
+	 * @return the number of prefixes contained in the prefix.
+	 */
+	public int forEachInPrefix(IPAddress prefix, int length, PrefixTrie.Visitor<? super NetworkNode> visitor) {
+		return getPrefixes(prefix).forEachInPrefix(upperBits(prefix), lowerBits(prefix), length, visitor);
+	}
+
+	/**
+	 * Gets the prefix index of the version of an IP address.
+	 * @param ip IP address.
+	 * @return the index.
+	 */
+	private PrefixTrie<NetworkNode> getPrefixes(IPAddress ip) {
+		return ip instanceof IPv4Address ? ipv4Prefixes : ipv6Prefixes;
+	}
+
+	/**
+	 * Gets the upper 64 bits of the key of an IP address in its prefix index.
+	 * @param ip IP address.
+	 * @return the upper 64 bits.
+	 */
+	private static long upperBits(IPAddress ip) {
+		if(ip instanceof IPv4Address)
+			return ((long) ((IPv4Address) ip).toInt()) << 32;
+		return ((IPv6Address) ip).getUpperBits();
+	}
+
+	/**
+	 * Gets the lower 64 bits of the key of an IP address in its prefix index.
+	 * @param ip IP address.
+	 * @return the lower 64 bits.
+	 */
+	private static long lowerBits(IPAddress ip) {
+		if(ip instanceof IPv4Address)
+			return 0;
+		return ((IPv6Address) ip).getLowerBits();
+	}
+
+	/**
+	 * Checks whether an IP address is already used in the Network.
+	 * @param ip IP address.
+	 * @return true if an Interface of the Network has this IP address.
+	 */
+	protected boolean containsIPAddress(IPAddress ip) {
+		return ipAddresses.containsKey(ip);
+	}
+
+	/**
+	 * Checks whether a MAC address is already used in the Network.
+	 * @param mac MAC address.
+	 * @return true if an Interface of the Network has this MAC address.
+	 */
+	protected boolean containsMACAddress(MACAddress mac) {
+		return macAddresses.containsKey(mac);
 	}
 
 	/**
@@ -0,0 +1,447 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.network.events.NetworkEventDispatcher;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Group of creations and deletions in a Network which are either all kept
+ * (commit()) or all undone (rollback()).
+ *
+ * Each operation is applied immediately, through the NetworkingSystem, so
+ * that the next operations are validated against the updated Network. Its
+ * inverse is pushed to an undo log. If an operation fails, or if the
+ * transaction is closed without having been committed, the undo log is
+ * replayed in reverse order and the exception is rethrown.
+ *
+ * Deleted elements are recreated by the rollback with the same parameters
+ * (name, interfaces, rate, delay, Scheduler type, Queue sizes and WFQ
+ * weights), but as new objects: getReplacement() gives the new object of a
+ * recreated element. Other Components attached to them (e.g., Reservations)
+ * are not restored.
+ *
+ * A transaction holds the transaction lock of its Network from its creation
+ * to its end, so that concurrent transactions on a Network are serialized,
+ * and holds back the events of its operations until its end. The events
+ * are published if the transaction is committed and dropped if it is
+ * rolled back (including those of the rollback itself). A transaction must
+ * only be used by the thread that created it.
+ *
+ * @author Amaury Van Bemten
+ */
+public class NetworkTransaction implements AutoCloseable {
+	/**
+	 * NetworkingSystem applying the operations.
+	 */
+	private final NetworkingSystem networkingSystem;
+
+	/**
+	 * Network of the transaction.
+	 */
+	private final Network network;
+
+	/**
+	 * Inverses of the operations done so far, the last one first.
+	 */
+	private final Deque<Runnable> undoLog = new ArrayDeque<>();
+
+	/**
+	 * New objects of the elements recreated by the rollback.
+	 */
+	private final Map<Object, Object> replacements = new HashMap<>();
+
+	/**
+	 * Scope holding back the events of the transaction.
+	 */
+	private final NetworkEventDispatcher.Scope eventScope;
+
+	/**
+	 * Whether the transaction has been committed or rolled back.
+	 */
+	private boolean finished;
+
+	/**
+	 * Starts a transaction.
+	 * @param networkingSystem NetworkingSystem applying the operations.
+	 * @param network Network of the transaction.
+	 */
+	NetworkTransaction(NetworkingSystem networkingSystem, Network network) {
+		this.networkingSystem = networkingSystem;
+		this.network = network;
+		network.getTransactionLock().lock();
+		this.eventScope = networkingSystem.getEventDispatcher().open();
+	}
+
+	/**
+	 * Gets the Network of the transaction.
+	 * @return the Network.
+	 */
+	public Network getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Gets the number of operations done in the transaction.
+	 * @return the number of operations.
+	 */
+	public int size() {
+		return undoLog.size();
+	}
+
+	/**
+	 * Tells whether the transaction has been committed or rolled back.
+	 * @return true if the transaction is over.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Creates a Node.
+	 * @param name name of the Node.
+	 * @return the created NetworkNode.
+	 */
+	public NetworkNode createNode(String name) {
+		return apply(() -> {
+			NetworkNode node = networkingSystem.createNode(network, name);
+			undoLog.push(() -> networkingSystem.deleteNode(resolve(node)));
+			return node;
+		});
+	}
+
+	/**
+	 * Creates a Host.
+	 * @param name name of the Host.
+	 * @return the created Host.
+	 */
+	public Host createHost(String name) {
+		return apply(() -> {
+			Host host = networkingSystem.createHost(network, name);
+			undoLog.push(() -> networkingSystem.deleteHost(resolve(host)));
+			return host;
+		});
+	}
+
+	/**
+	 * Adds an interface to a Host.
+	 * @param host Host.
+	 * @param ifc interface.
+	 * @return the NetworkNode representing the interface.
+	 */
+	public NetworkNode addInterface(Host host, NetworkInterface ifc) {
+		return apply(() -> {
+			checkNetwork(host.getNetwork(), host);
+			/* Duplicate addresses are only detected once the Network is
+			 * updated, i.e., after the creation of the NetworkNode. */
+			if(!ifc.getIPAddress().equals(IPAddress.valueOf("0.0.0.0")) && network.containsIPAddress(ifc.getIPAddress()))
+				throw new NetworkException("A given IP address can only be present once in a network (" + ifc.getIPAddress() + " already present)");
+			if(network.containsMACAddress(ifc.getMACAddress()))
+				throw new NetworkException("A given MAC address can only be present once in a network (" + ifc.getMACAddress() + " already present)");
+			NetworkNode node = networkingSystem.addInterface(host, ifc);
+			undoLog.push(() -> networkingSystem.deleteInterface(resolve(host), ifc));
+			return node;
+		});
+	}
+
+	/**
+	 * Creates a Link with a single Queue.
+	 * @param srcNode source of the Link.
+	 * @param dstNode destination of the Link.
+	 * @param rate rate of the Link (bytes/s).
+	 * @param delay delay of the Link (s).
+	 * @param queueSize size of the Queue (bytes).
+	 * @return the created Link.
+	 */
+	public Link createLink(NetworkNode srcNode, NetworkNode dstNode, double rate, double delay, double queueSize) {
+		return createLink(srcNode, dstNode, () -> networkingSystem.createLink(srcNode, dstNode, rate, delay, queueSize));
+	}
+
+	/**
+	 * Creates a Link with priority scheduling.
+	 * @param srcNode source of the Link.
+	 * @param dstNode destination of the Link.
+	 * @param rate rate of the Link (bytes/s).
+	 * @param delay delay of the Link (s).
+	 * @param queueSizes sizes of the Queues (bytes), highest priority first.
+	 * @return the created Link.
+	 */
+	public Link createLinkWithPriorityScheduling(NetworkNode srcNode, NetworkNode dstNode, double rate, double delay, double[] queueSizes) {
+		return createLink(srcNode, dstNode, () -> networkingSystem.createLinkWithPriorityScheduling(srcNode, dstNode, rate, delay, queueSizes));
+	}
+
+	/**
+	 * Creates a Link with WFQ scheduling.
+	 * @param srcNode source of the Link.
+	 * @param dstNode destination of the Link.
+	 * @param rate rate of the Link (bytes/s).
+	 * @param delay delay of the Link (s).
+	 * @param queueSizes sizes of the Queues (bytes).
+	 * @param weights weights of the Queues.
+	 * @return the created Link.
+	 */
+	public Link createLinkWithWFQScheduling(NetworkNode srcNode, NetworkNode dstNode, double rate, double delay, double[] queueSizes, double[] weights) {
+		return createLink(srcNode, dstNode, () -> networkingSystem.createLinkWithWFQScheduling(srcNode, dstNode, rate, delay, queueSizes, weights));
+	}
+
+	/**
+	 * Deletes a Link.
+	 * @param link Link.
+	 */
+	public void deleteLink(Link link) {
+		apply(() -> {
+			checkNetwork(link.getNetwork(), link);
+			LinkSnapshot state = networkingSystem.getLinkState(link);
+			networkingSystem.deleteLink(link);
+			undoLog.push(() -> recreate(state));
+			return null;
+		});
+	}
+
+	/**
+	 * Deletes a Node and the Links connected to it.
+	 * @param node NetworkNode (not representing an interface).
+	 */
+	public void deleteNode(NetworkNode node) {
+		apply(() -> {
+			checkNetwork(node.getNetwork(), node);
+			List<LinkSnapshot> links = getLinkStates(node);
+			String name = node.getName();
+			networkingSystem.deleteNode(node);
+			undoLog.push(() -> {
+				replacements.put(node, networkingSystem.createNode(network, name));
+				for(LinkSnapshot link : links)
+					recreate(link);
+			});
+			return null;
+		});
+	}
+
+	/**
+	 * Deletes an interface from a Host, with its NetworkNode and Links.
+	 * @param host Host.
+	 * @param ifc interface.
+	 */
+	public void deleteInterface(Host host, NetworkInterface ifc) {
+		apply(() -> {
+			checkNetwork(host.getNetwork(), host);
+			NetworkNode node = host.getNetworkNode(ifc);
+			List<LinkSnapshot> links = getLinkStates(node);
+			networkingSystem.deleteInterface(host, ifc);
+			undoLog.push(() -> {
+				replacements.put(node, networkingSystem.addInterface(resolve(host), ifc));
+				for(LinkSnapshot link : links)
+					recreate(link);
+			});
+			return null;
+		});
+	}
+
+	/**
+	 * Deletes a Host with its interfaces.
+	 * @param host Host.
+	 */
+	public void deleteHost(Host host) {
+		apply(() -> {
+			checkNetwork(host.getNetwork(), host);
+			String name = host.getName();
+			Map<NetworkInterface, NetworkNode> interfaces = new LinkedHashMap<>();
+			List<LinkSnapshot> links = new ArrayList<>();
+			for(NetworkInterface ifc : host.getInterfaces()) {
+				NetworkNode node = host.getNetworkNode(ifc);
+				interfaces.put(ifc, node);
+				links.addAll(getLinkStates(node));
+			}
+			networkingSystem.deleteHost(host);
+			undoLog.push(() -> {
+				Host newHost = networkingSystem.createHost(network, name);
+				replacements.put(host, newHost);
+				for(Map.Entry<NetworkInterface, NetworkNode> entry : interfaces.entrySet())
+					replacements.put(entry.getValue(), networkingSystem.addInterface(newHost, entry.getKey()));
+				for(LinkSnapshot link : links)
+					recreate(link);
+			});
+			return null;
+		});
+	}
+
+	/**
+	 * Gets the object by which an element deleted in the transaction has
+	 * been replaced by the rollback.
+	 * @param element NetworkNode, Link or Host.
+	 * @param <T> type of the element.
+	 * @return the new object or the element itself if it has not been
+	 *         recreated.
+	 */
+	public <T> T getReplacement(T element) {
+		return resolve(element);
+	}
+
+	/**
+	 * Keeps all the operations of the transaction and ends it.
+	 * @throws NetworkException if the transaction is already over.
+	 */
+	public void commit() {
+		checkActive();
+		undoLog.clear();
+		end();
+	}
+
+	/**
+	 * Undoes all the operations of the transaction, the last one first, and
+	 * ends it.
+	 * @throws NetworkException if the transaction is already over or if an
+	 *         operation cannot be undone (the remaining ones are undone
+	 *         anyway).
+	 */
+	public void rollback() {
+		checkActive();
+		RuntimeException failure = null;
+		while(!undoLog.isEmpty()) {
+			try {
+				undoLog.pop().run();
+			} catch(RuntimeException e) {
+				if(failure == null)
+					failure = e;
+			}
+		}
+		eventScope.discard();
+		end();
+		if(failure != null)
+			throw new NetworkException("The rollback of a transaction on " + network + " failed: " + failure.getMessage());
+	}
+
+	/**
+	 * Rolls the transaction back if it has not been committed.
+	 */
+	@Override
+	public void close() {
+		if(!finished)
+			rollback();
+	}
+
+	/**
+	 * Creates a Link and logs its deletion.
+	 * @param srcNode source of the Link.
+	 * @param dstNode destination of the Link.
+	 * @param creation creation of the Link.
+	 * @return the created Link.
+	 */
+	private Link createLink(NetworkNode srcNode, NetworkNode dstNode, Supplier<Link> creation) {
+		return apply(() -> {
+			checkNetwork(srcNode.getNetwork(), srcNode);
+			checkNetwork(dstNode.getNetwork(), dstNode);
+			Link link = creation.get();
+			undoLog.push(() -> networkingSystem.deleteLink(resolve(link)));
+			return link;
+		});
+	}
+
+	/**
+	 * Recreates a deleted Link between the current objects of its end
+	 * points.
+	 * @param state state of the Link when it was deleted.
+	 */
+	private void recreate(LinkSnapshot state) {
+		NetworkNode src = resolve(state.getSource());
+		NetworkNode dst = resolve(state.getDestination());
+		double[] queueSizes = new double[state.getNumberOfQueues()];
+		for(int i = 0; i < queueSizes.length; i++)
+			queueSizes[i] = state.getQueueSize(i);
+
+		Link link;
+		if(WFQScheduler.class.isAssignableFrom(state.getSchedulerType())) {
+			double[] weights = new double[queueSizes.length];
+			for(int i = 0; i < weights.length; i++)
+				weights[i] = state.getWeight(i);
+			link = networkingSystem.createLinkWithWFQScheduling(src, dst, state.getRate(), state.getDelay(), queueSizes, weights);
+		}
+		else if(PriorityScheduler.class.isAssignableFrom(state.getSchedulerType()) || queueSizes.length != 1) {
+			link = networkingSystem.createLinkWithPriorityScheduling(src, dst, state.getRate(), state.getDelay(), queueSizes);
+		}
+		else {
+			link = networkingSystem.createLink(src, dst, state.getRate(), state.getDelay(), queueSizes[0]);
+		}
+		replacements.put(state.getLink(), link);
+	}
+
+	/**
+	 * Gets the states of the Links connected to a NetworkNode.
+	 * @param node NetworkNode.
+	 * @return the states of the Links.
+	 */
+	private List<LinkSnapshot> getLinkStates(NetworkNode node) {
+		List<LinkSnapshot> states = new ArrayList<>();
+		for(Link link : networkingSystem.getLinks(node))
+			states.add(networkingSystem.getLinkState(link));
+		return states;
+	}
+
+	/**
+	 * Applies an operation, rolling the transaction back if it fails.
+	 * @param operation operation.
+	 * @param <T> type of the result of the operation.
+	 * @return the result of the operation.
+	 * @throws NetworkException if the transaction is already over.
+	 */
+	private <T> T apply(Supplier<T> operation) {
+		checkActive();
+		try {
+			return operation.get();
+		} catch(RuntimeException e) {
+			try {
+				rollback();
+			} catch(RuntimeException rollbackFailure) {
+				e.addSuppressed(rollbackFailure);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the current object of an element.
+	 * @param element element.
+	 * @param <T> type of the element.
+	 * @return the current object.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T resolve(T element) {
+		Object current = element;
+		Object replacement;
+		while((replacement = replacements.get(current)) != null)
+			current = replacement;
+		return (T) current;
+	}
+
+	/**
+	 * Checks that an element belongs to the Network of the transaction.
+	 * @param elementNetwork Network of the element.
+	 * @param element element.
+	 * @throws NetworkException if it does not.
+	 */
+	private void checkNetwork(Network elementNetwork, Object element) {
+		if(elementNetwork != network)
+			throw new NetworkException(element + " does not belong to " + network);
+	}
+
+	/**
+	 * Checks that the transaction is not over.
+	 * @throws NetworkException if it is.
+	 */
+	private void checkActive() {
+		if(finished)
+			throw new NetworkException("The transaction on " + network + " is already over");
+	}
+
+	/**
+	 * Ends the transaction.
+	 */
+	private void end() {
+		finished = true;
+		eventScope.close();
+		network.getTransactionLock().unlock();
+	}
+}
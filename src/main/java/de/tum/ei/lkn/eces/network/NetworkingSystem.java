@@ -10,16 +10,22 @@ import de.tum.ei.lkn.eces.graph.GraphSystem;
 import de.tum.ei.lkn.eces.graph.Node;
 import de.tum.ei.lkn.eces.graph.mappers.EdgeMapper;
 import de.tum.ei.lkn.eces.graph.mappers.NodeMapper;
+import de.tum.ei.lkn.eces.network.events.NetworkEvent;
+import de.tum.ei.lkn.eces.network.events.NetworkEventDispatcher;
+import de.tum.ei.lkn.eces.network.events.NetworkEventListener;
 import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
 import de.tum.ei.lkn.eces.network.mappers.*;
+import de.tum.ei.lkn.eces.network.util.AddressPool;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.MACAddress;
 import de.tum.ei.lkn.eces.network.util.NetworkInterface;
 import org.jscience.physics.amount.Amount;
 
 import javax.measure.quantity.DataAmount;
 import javax.measure.quantity.DataRate;
 import javax.measure.quantity.Duration;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static javax.measure.unit.NonSI.BYTE;
 import static javax.measure.unit.SI.SECOND;
@@ -46,9 +52,56 @@ public class NetworkingSystem extends RootSystem {
 	private QueueMapper queueMapper;
 	private RateMapper rateMapper;
 	private SchedulerMapper schedulerMapper;
+	private ReservationMapper reservationMapper;
 	private NodeMapper nodeMapper;
 	private EdgeMapper edgeMapper;
 
+	/**
+	 * Materializer used by the Networks with a lazy queue-level Graph.
+	 */
+	private final QueueGraphMaterializer queueGraphMaterializer = new QueueGraphMaterializer() {
+		@Override
+		public void materialize(Network network) {
+			materializeQueueGraph(network);
+		}
+
+		@Override
+		public Edge[] materialize(Link link) {
+			return materializeQueueEdges(link);
+		}
+	};
+
+	/**
+	 * Recorder of the state of a Network when its first snapshot is taken.
+	 */
+	private final SnapshotRecorder snapshotRecorder = new SnapshotRecorder() {
+		@Override
+		public void recordAll(Network network, SnapshotJournal journal) {
+			recordSnapshotState(network, journal);
+		}
+	};
+
+	/**
+	 * Dispatcher of the topology changes to the NetworkEventListeners.
+	 */
+	private final NetworkEventDispatcher events = new NetworkEventDispatcher();
+
+	/**
+	 * Stripes locked by the operations of the current thread, released when
+	 * its outermost OperationSpace is closed.
+	 */
+	private final ThreadLocal<Deque<NodeLockStripes.Held>> heldStripes = ThreadLocal.withInitial(ArrayDeque::new);
+
+	/**
+	 * Number of open OperationSpaces of the current thread.
+	 */
+	private final ThreadLocal<int[]> operationDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+	/**
+	 * Asynchronous front-end, created on first use.
+	 */
+	private volatile AsyncNetworkingSystem async;
+
 	/**
 	 * Creates a new NetworkingSystem.
 	 * @param controller Controller responsible for the NetworkingSystem.
@@ -71,6 +124,7 @@ public class NetworkingSystem extends RootSystem {
 		this.queueMapper = new QueueMapper(controller);
 		this.rateMapper = new RateMapper(controller);
 		this.schedulerMapper = new SchedulerMapper(controller);
+		this.reservationMapper = new ReservationMapper(controller);
 		this.linkMapper = new LinkMapper(controller);
 		this.hostMapper = new HostMapper(controller);
 		this.networkNodeMapper = new NetworkNodeMapper(controller);
@@ -78,19 +132,127 @@ public class NetworkingSystem extends RootSystem {
 		this.edgeMapper = new EdgeMapper(controller);
 	}
 
+	/**
+	 * Registers a listener of the topology changes (creation and deletion of
+	 * Networks, Nodes, Links, Hosts and interfaces and updates of the Delays
+	 * and WFQ weights of Links) done through this
+	 * NetworkingSystem. The listener receives the events in batches, from a
+	 * dispatching thread, once the MapperSpace of the operation which caused
+	 * them is closed.
+	 * @param listener listener.
+	 */
+	public void addEventListener(NetworkEventListener listener) {
+		events.addListener(listener);
+	}
+
+	/**
+	 * Unregisters a listener of the topology changes.
+	 * @param listener listener.
+	 * @return false if the listener was not registered.
+	 */
+	public boolean removeEventListener(NetworkEventListener listener) {
+		return events.removeListener(listener);
+	}
+
+	/**
+	 * Gets the dispatcher of the topology changes, e.g., to wait for the
+	 * delivery of the events with flush().
+	 * @return the dispatcher.
+	 */
+	public NetworkEventDispatcher getEventDispatcher() {
+		return events;
+	}
+
+	/**
+	 * Gets the asynchronous front-end of this NetworkingSystem. Its
+	 * operations return futures and the operations queued on a Network are
+	 * applied in batches, within single MapperSpaces, by daemon threads.
+	 * Once it is closed, the next call returns a new one.
+	 * @return the asynchronous front-end.
+	 */
+	public AsyncNetworkingSystem async() {
+		AsyncNetworkingSystem result = async;
+		if(result == null) {
+			synchronized(this) {
+				result = async;
+				if(result == null)
+					async = result = new AsyncNetworkingSystem(this);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Forgets the asynchronous front-end once it is closed.
+	 * @param closed closed front-end.
+	 */
+	synchronized void asyncClosed(AsyncNetworkingSystem closed) {
+		if(async == closed)
+			async = null;
+	}
+
+	/**
+	 * Starts the MapperSpace of a topology operation. The events published
+	 * within it are held back until the outermost one is closed, and dropped
+	 * if its deferred updates fail.
+	 * @return the OperationSpace, to be closed by the same thread.
+	 */
+	OperationSpace startOperationSpace() {
+		return startOperationSpace(null);
+	}
+
+	/**
+	 * Starts the MapperSpace of a topology operation holding lock stripes.
+	 * The stripes are released when the outermost OperationSpace of the
+	 * thread is closed, i.e., once the deferred updates are applied.
+	 * @param held held stripes (null if none).
+	 * @return the OperationSpace, to be closed by the same thread.
+	 */
+	OperationSpace startOperationSpace(NodeLockStripes.Held held) {
+		operationDepth.get()[0]++;
+		if(held != null)
+			heldStripes.get().push(held);
+		return new OperationSpace(events.open(), controller.startMapperSpace());
+	}
+
+	/**
+	 * Keeps lock stripes until the outermost OperationSpace of the thread is
+	 * closed. The caller must have started an OperationSpace.
+	 * @param held held stripes (null if none).
+	 */
+	private void holdStripes(NodeLockStripes.Held held) {
+		if(held != null)
+			heldStripes.get().push(held);
+	}
+
 	/**
 	 * Creates a new Network as a Component of a new Entity.
 	 * @return the new Network.
 	 */
 	public Network createNetwork() {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		return createNetwork(false);
+	}
+
+	/**
+	 * Creates a new Network as a Component of a new Entity.
+	 * @param lazyQueueGraph if true, the queue-level Edges of a Link (and
+	 *                       their Queue and ToNetwork Components) are only
+	 *                       created when they are first accessed using
+	 *                       Link.getQueueEdges() or when the queue-level
+	 *                       Graph is first accessed using
+	 *                       Network.getQueueGraph(). This saves memory and
+	 *                       time for users of the link-level Graph only.
+	 * @return the new Network.
+	 */
+	public Network createNetwork(boolean lazyQueueGraph) {
+		try(OperationSpace ms = startOperationSpace()) {
 			// Create Graphs.
 			Graph linkGraph = graphSystem.createGraph();
 			Graph queueGraph = graphSystem.createGraph();
 
 			// Create Network.
 			Entity networkEntity = controller.createEntity();
-			Network network = new Network(linkGraph, queueGraph);
+			Network network = new Network(linkGraph, queueGraph, lazyQueueGraph ? queueGraphMaterializer : null, snapshotRecorder);
 			networkMapper.attachComponent(networkEntity, network);
 
 			// Attach references.
@@ -100,6 +262,7 @@ public class NetworkingSystem extends RootSystem {
 			queueGraphToNetwork.setNetworkEntity(networkEntity);
 			toNetworkMapper.attachComponent(linkGraph, linkGraphToNetwork);
 			toNetworkMapper.attachComponent(queueGraph, queueGraphToNetwork);
+			events.publish(NetworkEvent.network(true, network));
 
 			logger.info(network + " creation triggered.");
 			return network;
@@ -111,7 +274,7 @@ public class NetworkingSystem extends RootSystem {
 	 * @param network Network to delete.
 	 */
 	public void deleteNetwork(Network network) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace()) {
 			networkMapper.acquireReadLock(network);
 
 			// Deleting all the Hosts of the Network.
@@ -149,25 +312,117 @@ public class NetworkingSystem extends RootSystem {
 
 					// Remove Node from Network.
 					networkNodeMapper.detachComponent(node);
+					events.publish(NetworkEvent.node(false, node));
+					SnapshotJournal journal = network.getSnapshotJournal();
+					if(journal != null)
+						journal.nodeDeleted(node);
 				}
 			}
 
 			// Deleting the underlying Graphs.
 			graphSystem.deleteGraph(network.getLinkGraph());
-			graphSystem.deleteGraph(network.getQueueGraph());
+			graphSystem.deleteGraph(network.getQueueGraphWithoutMaterialization());
 
 			networkMapper.detachComponent(network);
+			events.publish(NetworkEvent.network(false, network));
 
 			logger.info(network + " deletion trigerred.");
 		}
 	}
 
+	/**
+	 * Deletes a Network, all its Components and the underlying Graphs, as
+	 * deleteNetwork() does but in a single pass over the Graphs and without
+	 * any per-element locking or validation: the Components are directly
+	 * detached, the Network and its Hosts are not updated before being
+	 * detached (i.e., no update event is triggered for them) and a single
+	 * log line is emitted. The Network must not be used concurrently: the
+	 * deletion is refused if a NetworkTransaction is in progress on it or, with
+	 * striped locking, if some of its nodes are locked by an operation, and
+	 * both are prevented until it is done.
+	 * @param network Network to delete.
+	 * @throws NetworkException if the Network is in use.
+	 */
+	public void bulkDeleteNetwork(Network network) {
+		ReentrantLock transactionLock = network.getTransactionLock();
+		if(transactionLock.isLocked() || !transactionLock.tryLock())
+			throw new NetworkException(network + " cannot be bulk deleted during a transaction");
+		try {
+			bulkDeleteNetworkExclusively(network);
+		} finally {
+			transactionLock.unlock();
+		}
+	}
+
+	/**
+	 * Bulk deletes a Network while no NetworkTransaction is in progress on
+	 * it, once all its stripes are locked.
+	 * @param network Network to delete.
+	 * @throws NetworkException if nodes of the Network are locked.
+	 */
+	private void bulkDeleteNetworkExclusively(Network network) {
+		NodeLockStripes locks = network.getNodeLocks();
+		NodeLockStripes.Held held = null;
+		if(locks != null) {
+			held = heldStripes.get().isEmpty() ? locks.tryLockAll() : null;
+			if(held == null)
+				throw new NetworkException(network + " cannot be bulk deleted while some of its nodes are locked");
+		}
+
+		try(OperationSpace ms = startOperationSpace(held)) {
+			networkMapper.acquireReadLock(network);
+			int links = 0;
+			int nodes = 0;
+
+			// Links (including the ones of the NetworkInterfaces).
+			for(Edge edge : network.getLinkGraph().getEdges()) {
+				Link link = linkMapper.get(toNetworkMapper.get(edge.getEntity()).getNetworkEntity());
+				Edge[] queueEdges = markDeleted(link);
+				if(queueEdges != null) {
+					for(Edge queueEdge : queueEdges) {
+						toNetworkMapper.detachComponent(queueEdge);
+						queueMapper.detachComponent(queueEdge);
+						if(reservationMapper.isIn(queueEdge.getEntity()))
+							reservationMapper.detachComponent(queueEdge);
+					}
+				}
+				toNetworkMapper.detachComponent(edge);
+				schedulerMapper.detachComponent(edge);
+				delayMapper.detachComponent(edge);
+				rateMapper.detachComponent(edge);
+				linkMapper.detachComponent(link);
+				links++;
+			}
+
+			// Nodes (including the ones of the NetworkInterfaces).
+			for(Node graphNode : network.getLinkGraph().getNodes()) {
+				NetworkNode node = networkNodeMapper.get(toNetworkMapper.get(graphNode.getEntity()).getNetworkEntity());
+				toNetworkMapper.detachComponent(node.getLinkNode());
+				toNetworkMapper.detachComponent(node.getQueueNode());
+				networkNodeMapper.detachComponent(node);
+				nodes++;
+			}
+
+			for(Host host : network.getHosts())
+				hostMapper.detachComponent(host);
+
+			// Deleting the underlying Graphs.
+			graphSystem.deleteGraph(network.getLinkGraph());
+			graphSystem.deleteGraph(network.getQueueGraphWithoutMaterialization());
+
+			networkMapper.detachComponent(network);
+			events.publish(NetworkEvent.network(false, network));
+
+			logger.info("Bulk deletion of " + network + " (" + nodes + " nodes, " + links + " links and " + network.getHosts().size() + " hosts) triggered.");
+		}
+	}
+
 	/**
 	 * Deletes a Network, all its Components and the underlying Graphs.
 	 * @param entity Entity containing the Network to be deleted.
 	 */
 	public void deleteNetwork(Entity entity) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace()) {
 			deleteNetwork(networkMapper.get(entity));
 		}
 	}
@@ -181,26 +436,10 @@ public class NetworkingSystem extends RootSystem {
 	public NetworkNode createNode(Network network, String name) {
 		NetworkNode node;
 
-		try(MapperSpace ms = controller.startMapperSpace()) {
-			// Create Graph nodes equivalent.
-			networkMapper.acquireReadLock(network);
-			Graph linkGraph = network.getLinkGraph();
-			Graph queueGraph = network.getQueueGraph();
-			Node linkNode = graphSystem.createNode(linkGraph, name);
-			Node queueNode = graphSystem.createNode(queueGraph, name);
-
-			// Create NetworkNode.
-			Entity nodeEntity = controller.createEntity();
-			node = new NetworkNode(name, linkNode, queueNode, network);
-			networkNodeMapper.attachComponent(nodeEntity, node);
-
-			// Attaching the toNetwork Components.
-			ToNetwork linkLevelToNetwork = new ToNetwork();
-			ToNetwork queueLevelToNetwork = new ToNetwork();
-			linkLevelToNetwork.setNetworkEntity(nodeEntity);
-			queueLevelToNetwork.setNetworkEntity(nodeEntity);
-			toNetworkMapper.attachComponent(linkNode, linkLevelToNetwork);
-			toNetworkMapper.attachComponent(queueNode, queueLevelToNetwork);
+		try(OperationSpace ms = startOperationSpace()) {
+			if(!network.hasStripedLocking())
+				networkMapper.acquireReadLock(network);
+			node = createNodeUnlocked(network, name);
 
 			logger.info(node + " creation in " + network + " triggered.");
 		}
@@ -208,6 +447,41 @@ public class NetworkingSystem extends RootSystem {
 		return node;
 	}
 
+	/**
+	 * Creates a Node in a Network. The caller must have started a MapperSpace
+	 * and acquired a read lock on the Network.
+	 * @param network Network in which to create the Node.
+	 * @param name name of the Node.
+	 * @return the created NetworkingNode.
+	 */
+	NetworkNode createNodeUnlocked(Network network, String name) {
+		// Create Graph nodes equivalent.
+		Graph linkGraph = network.getLinkGraph();
+		Graph queueGraph = network.getQueueGraphWithoutMaterialization();
+		Node linkNode = graphSystem.createNode(linkGraph, name);
+		Node queueNode = graphSystem.createNode(queueGraph, name);
+
+		// Create NetworkNode.
+		Entity nodeEntity = controller.createEntity();
+		NetworkNode node = new NetworkNode(name, linkNode, queueNode, network);
+		networkNodeMapper.attachComponent(nodeEntity, node);
+
+		// Attaching the toNetwork Components.
+		ToNetwork linkLevelToNetwork = new ToNetwork();
+		ToNetwork queueLevelToNetwork = new ToNetwork();
+		linkLevelToNetwork.setNetworkEntity(nodeEntity);
+		queueLevelToNetwork.setNetworkEntity(nodeEntity);
+		toNetworkMapper.attachComponent(linkNode, linkLevelToNetwork);
+		toNetworkMapper.attachComponent(queueNode, queueLevelToNetwork);
+		network.setNodeKind(node, NodeKind.SWITCH);
+		events.publish(NetworkEvent.node(true, node));
+		SnapshotJournal journal = network.getSnapshotJournal();
+		if(journal != null)
+			journal.nodeCreated(node);
+
+		return node;
+	}
+
 	/**
 	 * Creates a Node in a Network.
 	 * @param network Network in which to create the Node.
@@ -217,6 +491,88 @@ public class NetworkingSystem extends RootSystem {
 		return createNode(network, "");
 	}
 
+	/**
+	 * Creates a new batch of Nodes, Hosts, NetworkInterfaces and Links to be
+	 * added to a Network. Nothing is created until commit() is called on the
+	 * returned batch. Committing a batch is much cheaper than calling the
+	 * create*() methods for each element since everything is done in a single
+	 * MapperSpace, with a single validation pass and without per-element
+	 * locking and logging.
+	 * @param network Network to which the batch applies.
+	 * @return the new (empty) batch.
+	 */
+	public TopologyBatch batch(Network network) {
+		return new TopologyBatch(this, network);
+	}
+
+	/**
+	 * Creates all the elements of a batch.
+	 * @param batch batch to commit.
+	 * @throws NetworkException if the batch is not valid. In this case,
+	 * nothing is created.
+	 */
+	void commitBatch(TopologyBatch batch) {
+		Network network = batch.getNetwork();
+
+		try(OperationSpace ms = startOperationSpace()) {
+			networkMapper.acquireReadLock(network);
+			batch.validate();
+
+			// Creating Hosts.
+			List<Host> newHosts = new ArrayList<>();
+			for(int i = 0; i < batch.hosts.size(); i++) {
+				if(batch.hosts.get(i) == null) {
+					Host host = new Host(network, batch.hostNames.get(i));
+					hostMapper.attachComponent(controller.createEntity(), host);
+					batch.hosts.set(i, host);
+					newHosts.add(host);
+					events.publish(NetworkEvent.host(true, host));
+				}
+			}
+
+			// Creating Nodes (including the ones representing NetworkInterfaces).
+			List<Integer> interfaceNodes = new ArrayList<>();
+			for(int i = 0; i < batch.nodes.size(); i++) {
+				if(batch.nodes.get(i) == null)
+					batch.nodes.set(i, createNodeUnlocked(network, batch.nodeNames.get(i)));
+				if(batch.nodeInterfaces.get(i) != null)
+					interfaceNodes.add(i);
+			}
+
+			// Creating Links.
+			for(int i = 0; i < batch.linkSources.size(); i++) {
+				NetworkNode src = batch.nodes.get(batch.linkSources.get(i));
+				NetworkNode dst = batch.nodes.get(batch.linkDestinations.get(i));
+				Scheduler scheduler = batch.createScheduler(i);
+				batch.links.add(createLinkUnlocked(network, src, dst, new Rate(batch.linkRates.get(i)), new Delay(batch.linkDelays.get(i)), scheduler));
+			}
+
+			// Registering Hosts and NetworkInterfaces.
+			Map<Host, List<Integer>> interfacesPerHost = new HashMap<>();
+			for(int node : interfaceNodes)
+				interfacesPerHost.computeIfAbsent(batch.hosts.get(batch.nodeHosts.get(node)), k -> new ArrayList<>()).add(node);
+			for(Map.Entry<Host, List<Integer>> entry : interfacesPerHost.entrySet()) {
+				Host host = entry.getKey();
+				hostMapper.updateComponent(host, () -> {
+					for(int node : entry.getValue())
+						host.addInterface(batch.nodeInterfaces.get(node), batch.nodes.get(node));
+				});
+			}
+			if(!newHosts.isEmpty() || !interfaceNodes.isEmpty()) {
+				networkMapper.updateComponent(network, () -> {
+					for(Host host : newHosts)
+						network.addHost(host);
+					for(int node : interfaceNodes)
+						network.addInterface(batch.hosts.get(batch.nodeHosts.get(node)), batch.nodeInterfaces.get(node), batch.nodes.get(node));
+				});
+			}
+			for(int node : interfaceNodes)
+				events.publish(NetworkEvent.networkInterface(true, batch.hosts.get(batch.nodeHosts.get(node)), batch.nodeInterfaces.get(node), batch.nodes.get(node)));
+
+			logger.info("Batch creation of " + (batch.getNumberOfNodes() - interfaceNodes.size()) + " nodes, " + newHosts.size() + " hosts, " + interfaceNodes.size() + " interfaces and " + batch.getNumberOfLinks() + " links in " + network + " triggered.");
+		}
+	}
+
 	/**
 	 * Deletes a Node and all links connected to it. This method cannot be
 	 * called on a Node belonging to a Host's NetworkInterface. To delete
@@ -227,7 +583,7 @@ public class NetworkingSystem extends RootSystem {
 	 * method.
 	 */
 	public void deleteNode(NetworkNode node) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace(lockNeighborhood(node))) {
 			deleteNodeWithoutGraph(node);
 			graphSystem.deleteNode(node.getQueueNode());
 			graphSystem.deleteNode(node.getLinkNode());
@@ -249,7 +605,8 @@ public class NetworkingSystem extends RootSystem {
 		try(MapperSpace ms = controller.startMapperSpace()) {
 			nodeMapper.acquireReadLock(node);
 			Network network = node.getNetwork();
-			networkNodeMapper.acquireReadLock(network);
+			if(!network.hasStripedLocking())
+				networkNodeMapper.acquireReadLock(network);
 
 			// Do not delete Nodes belonging to a Host.
 			if(network.getHostNodesToHost().containsKey(node))
@@ -286,7 +643,8 @@ public class NetworkingSystem extends RootSystem {
 		try(MapperSpace ms = controller.startMapperSpace()) {
 			networkNodeMapper.acquireReadLock(node);
 			Network network = node.getNetwork();
-			networkMapper.acquireReadLock(network);
+			if(!network.hasStripedLocking())
+				networkMapper.acquireReadLock(network);
 
 			// Getting link-edges connected to the Node.
 			List<Edge> edges = new LinkedList<>(node.getLinkNode().getOutgoingConnections());
@@ -304,7 +662,12 @@ public class NetworkingSystem extends RootSystem {
 			toNetworkMapper.detachComponent(node.getQueueNode());
 
 			// Remove Node from Network.
+			network.setNodeKind(node, NodeKind.UNASSIGNED);
 			networkNodeMapper.detachComponent(node);
+			events.publish(NetworkEvent.node(false, node));
+			SnapshotJournal journal = network.getSnapshotJournal();
+			if(journal != null)
+				journal.nodeDeleted(node);
 		}
 	}
 
@@ -317,7 +680,7 @@ public class NetworkingSystem extends RootSystem {
 	 * method.
 	 */
 	public void deleteNode(Entity entity) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace()) {
 			deleteNode(networkNodeMapper.get(entity));
 		}
 	}
@@ -539,23 +902,31 @@ public class NetworkingSystem extends RootSystem {
 	 * @param scheduler Scheduler managing the Queues to be added.
 	 * @return The newly created Link.
 	 * @throws NetworkException if we try to create a Link on a NetworkInterface
-	 * of a host that already has a Link in this direction or if we try to
-	 * create a Link between two NetworkInterface.
+	 * of a host that already has a Link in this direction, if we try to
+	 * create a Link between two NetworkInterface or if a Node has been
+	 * deleted.
 	 */
 	private Link createLinkWithScheduler(NetworkNode srcNode, NetworkNode dstNode, Amount<DataRate> rate, Amount<Duration> delay, Scheduler scheduler) {
 		Link link;
 
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		NodeLockStripes.Held held = lockNodes(srcNode, dstNode);
+		try(OperationSpace ms = startOperationSpace(held)) {
 			// Checking Nodes belong to the same Network.
 			networkNodeMapper.acquireReadLock(srcNode);
 			networkNodeMapper.acquireReadLock(dstNode);
 			if(srcNode.getNetwork() != dstNode.getNetwork())
 				throw new NetworkException("Impossible to create a Link between two Nodes of different Networks (" + srcNode + " belongs to " + srcNode.getNetwork() + " while " + dstNode + " belongs to " + dstNode.getNetwork());
+			if(!networkNodeMapper.isIn(srcNode.getEntity()) || !networkNodeMapper.isIn(dstNode.getEntity()))
+				throw new NetworkException("Impossible to create a Link from or to a deleted Node (" + srcNode + " -> " + dstNode + ")");
 			Network network = srcNode.getNetwork();
 
+			/* With striped locking, the stripes of both Nodes make the checks
+			 * and the creation atomic and the Network is not locked. */
+			if(held == null)
+				networkMapper.acquireReadLock(network);
+
 			/* We throw a NetworkException if the user tries to create a Link on
 			 * an interface that already has a Link in this direction. */
-			networkMapper.acquireReadLock(network);
 			if(network.getHostNodesToHost().containsKey(srcNode)) {
 				/* The source node is a NetworkInterface, we check that it
 				 * has no uplink yet. */
@@ -579,58 +950,213 @@ public class NetworkingSystem extends RootSystem {
 			if(network.getHostNodesToHost().containsKey(srcNode) && network.getHostNodesToHost().containsKey(dstNode))
 				throw new NetworkException("It is not allowed to create a Link between two host interfaces");
 
-			// Getting link- and queue-level Graphs and Nodes.
-			networkMapper.acquireReadLock(network);
-			Node linkSrcNode = srcNode.getLinkNode();
-			Node queueSrcNode = srcNode.getQueueNode();
-			Node linkDstNode = dstNode.getLinkNode();
-			Node queueDstNode = dstNode.getQueueNode();
-
-			// Creating link-level Edge and adding Rate, Delay and Scheduler to it.
-			Edge linkEdge;
-			if(linkSrcNode.getName().compareTo("") != 0 && linkDstNode.getName().compareTo("") != 0)
-				linkEdge = graphSystem.createEdge(linkSrcNode, linkDstNode, linkSrcNode.getName() + "->" + linkDstNode.getName());
-			else
-				linkEdge = graphSystem.createEdge(linkSrcNode, linkDstNode);
-			rateMapper.attachComponent(linkEdge, new Rate(rate));
-			delayMapper.attachComponent(linkEdge, new Delay(delay));
-			schedulerMapper.attachComponent(linkEdge, scheduler);
-
-			// Creating queue-level Edges and adding Queues to them.
-			schedulerMapper.acquireReadLock(scheduler);
-			Queue[] queues = scheduler.getQueues();
-			Edge[] queueEdges = new Edge[queues.length];
-			for(int i = 0; i < queueEdges.length; i++) {
-				if(queueSrcNode.getName().compareTo("") != 0 && queueDstNode.getName().compareTo("") != 0)
-					queueEdges[i] = graphSystem.createEdge(queueSrcNode, queueDstNode, queueSrcNode.getName() + "->" + queueDstNode.getName() + "#" + i);
-				else
-					queueEdges[i] = graphSystem.createEdge(queueSrcNode, queueDstNode);
-				queueMapper.attachComponent(queueEdges[i], queues[i]);
+			link = createLinkUnlocked(network, srcNode, dstNode, new Rate(rate), new Delay(delay), scheduler);
+
+			logger.info(link + " (" + srcNode + " -> " + dstNode + " - " + scheduler + " - " + scheduler.getQueues().length + " queues) creation in " + network + " triggered.");
+		}
+
+		return link;
+	}
+
+	/**
+	 * Creates a Link with a specific Scheduler without any validity check.
+	 * The caller must have started a MapperSpace, acquired a read lock on the
+	 * Network and checked that the Link is allowed.
+	 * @param network Network containing both Nodes.
+	 * @param srcNode Source of the Link.
+	 * @param dstNode Destination of the Link.
+	 * @param rate Rate of the Link.
+	 * @param delay Delay of the Link.
+	 * @param scheduler Scheduler managing the Queues to be added.
+	 * @return The newly created Link.
+	 */
+	Link createLinkUnlocked(Network network, NetworkNode srcNode, NetworkNode dstNode, Rate rate, Delay delay, Scheduler scheduler) {
+		/* As long as the queue-level Graph is lazy and not materialized, the
+		 * Link is created under the monitor of the Network, so that a
+		 * concurrent materialization either sees the whole Link or runs
+		 * before the check of createLinkComponents(). Once materialized, the
+		 * queue-level Edges are created directly and the monitor is not
+		 * needed anymore. */
+		Link link;
+		if(network.isQueueGraphMaterialized())
+			link = createLinkComponents(network, srcNode, dstNode, rate, delay, scheduler);
+		else {
+			synchronized(network) {
+				link = createLinkComponents(network, srcNode, dstNode, rate, delay, scheduler);
 			}
+		}
+		events.publish(NetworkEvent.link(true, link));
+		SnapshotJournal journal = network.getSnapshotJournal();
+		if(journal != null)
+			journal.linkUpdated(new LinkSnapshot(link, srcNode, dstNode, rate, delay, scheduler));
+
+		return link;
+	}
 
-			// Creating Link.
-			if(srcNode.getName().compareTo("") != 0 && dstNode.getName().compareTo("") != 0)
-				link = new Link(linkEdge, queueEdges, network, srcNode.getName() + "->" + dstNode.getName());
+	/**
+	 * Creates the graph Edges and the Components of a Link.
+	 * @param network Network containing both Nodes.
+	 * @param srcNode Source of the Link.
+	 * @param dstNode Destination of the Link.
+	 * @param rate Rate of the Link.
+	 * @param delay Delay of the Link.
+	 * @param scheduler Scheduler managing the Queues to be added.
+	 * @return The newly created Link.
+	 */
+	private Link createLinkComponents(Network network, NetworkNode srcNode, NetworkNode dstNode, Rate rate, Delay delay, Scheduler scheduler) {
+		// Getting link-level Nodes.
+		Node linkSrcNode = srcNode.getLinkNode();
+		Node linkDstNode = dstNode.getLinkNode();
+
+		// Creating link-level Edge and adding Rate, Delay and Scheduler to it.
+		Edge linkEdge;
+		if(linkSrcNode.getName().compareTo("") != 0 && linkDstNode.getName().compareTo("") != 0)
+			linkEdge = graphSystem.createEdge(linkSrcNode, linkDstNode, linkSrcNode.getName() + "->" + linkDstNode.getName());
+		else
+			linkEdge = graphSystem.createEdge(linkSrcNode, linkDstNode);
+		rateMapper.attachComponent(linkEdge, rate);
+		delayMapper.attachComponent(linkEdge, delay);
+		schedulerMapper.attachComponent(linkEdge, scheduler);
+
+		// Creating queue-level Edges (unless the queue-level Graph is lazy).
+		Entity linkEntity = controller.createEntity();
+		Edge[] queueEdges = null;
+		if(network.isQueueGraphMaterialized())
+			queueEdges = createQueueEdges(srcNode, dstNode, scheduler, linkEntity);
+
+		// Creating Link.
+		Link link;
+		if(srcNode.getName().compareTo("") != 0 && dstNode.getName().compareTo("") != 0)
+			link = new Link(linkEdge, queueEdges, network, srcNode.getName() + "->" + dstNode.getName());
+		else
+			link = new Link(linkEdge, queueEdges, network);
+		linkMapper.attachComponent(linkEntity, link);
+
+		// Creating reference from link-level Edge to Link.
+		ToNetwork linkEdgeToNetwork = new ToNetwork();
+		linkEdgeToNetwork.setNetworkEntity(linkEntity);
+		toNetworkMapper.attachComponent(linkEdge, linkEdgeToNetwork);
+
+		return link;
+	}
+
+	/**
+	 * Creates the queue-level Edges of a Link, attaches the Queues of its
+	 * Scheduler (and a Reservation if the Network has reservations) to them
+	 * and references the Link from them. The caller must
+	 * have started a MapperSpace.
+	 * @param srcNode Source of the Link.
+	 * @param dstNode Destination of the Link.
+	 * @param scheduler Scheduler of the Link.
+	 * @param linkEntity Entity of the Link.
+	 * @return the queue-level Edges.
+	 */
+	private Edge[] createQueueEdges(NetworkNode srcNode, NetworkNode dstNode, Scheduler scheduler, Entity linkEntity) {
+		Node queueSrcNode = srcNode.getQueueNode();
+		Node queueDstNode = dstNode.getQueueNode();
+
+		schedulerMapper.acquireReadLock(scheduler);
+		Queue[] queues = scheduler.getQueues();
+		Edge[] queueEdges = new Edge[queues.length];
+		for(int i = 0; i < queueEdges.length; i++) {
+			if(queueSrcNode.getName().compareTo("") != 0 && queueDstNode.getName().compareTo("") != 0)
+				queueEdges[i] = graphSystem.createEdge(queueSrcNode, queueDstNode, queueSrcNode.getName() + "->" + queueDstNode.getName() + "#" + i);
 			else
-				link = new Link(linkEdge, queueEdges, network);
-			Entity linkEntity = controller.createEntity();
-			linkMapper.attachComponent(linkEntity, link);
-
-			// Creating reference from link- queue- level Edges to Link.
-			ToNetwork linkEdgeToNetwork = new ToNetwork();
-			linkEdgeToNetwork.setNetworkEntity(linkEntity);
-			toNetworkMapper.attachComponent(linkEdge, linkEdgeToNetwork);
-
-			for(int i = 0; i < queues.length; i++) {
-				ToNetwork queueEdgeToNetwork = new ToNetwork();
-				queueEdgeToNetwork.setNetworkEntity(linkEntity);
-				toNetworkMapper.attachComponent(queueEdges[i], queueEdgeToNetwork);
+				queueEdges[i] = graphSystem.createEdge(queueSrcNode, queueDstNode);
+			queueMapper.attachComponent(queueEdges[i], queues[i]);
+			if(srcNode.getNetwork().hasReservations())
+				reservationMapper.attachComponent(queueEdges[i], new Reservation());
+
+			ToNetwork queueEdgeToNetwork = new ToNetwork();
+			queueEdgeToNetwork.setNetworkEntity(linkEntity);
+			toNetworkMapper.attachComponent(queueEdges[i], queueEdgeToNetwork);
+		}
+
+		return queueEdges;
+	}
+
+	/**
+	 * Creates the queue-level Edges of a Link of a Network with a lazy
+	 * queue-level Graph, if they do not exist yet.
+	 * @param link Link.
+	 * @return the queue-level Edges of the Link (empty if the Link has been
+	 *         deleted before they were created).
+	 */
+	private Edge[] materializeQueueEdges(Link link) {
+		Network network = link.getNetwork();
+		synchronized(network) {
+			Edge[] queueEdges = link.getMaterializedQueueEdges();
+			if(queueEdges != null)
+				return queueEdges;
+
+			/* The deletion of the Link would not delete Edges created now and
+			 * its Components may already be detached. */
+			if(link.isDeleted())
+				return new Edge[0];
+
+			try(MapperSpace ms = controller.startMapperSpace()) {
+				Edge linkEdge = link.getLinkEdge();
+				NetworkNode srcNode = networkNodeMapper.get(toNetworkMapper.get(linkEdge.getSource().getEntity()).getNetworkEntity());
+				NetworkNode dstNode = networkNodeMapper.get(toNetworkMapper.get(linkEdge.getDestination().getEntity()).getNetworkEntity());
+				queueEdges = createQueueEdges(srcNode, dstNode, schedulerMapper.get(linkEdge.getEntity()), link.getEntity());
+				link.setQueueEdges(queueEdges);
+				return queueEdges;
 			}
+		}
+	}
 
-			logger.info(link + " (" + srcNode + " -> " + dstNode + " - " + scheduler + " - " + scheduler.getQueues().length + " queues) creation in " + network + " triggered.");
+	/**
+	 * Marks a Link as deleted, so that its queue-level Edges are not created
+	 * anymore.
+	 * @param link Link.
+	 * @return the queue-level Edges of the Link or null if they have not been
+	 *         created.
+	 */
+	private Edge[] markDeleted(Link link) {
+		/* As long as the queue-level Graph is lazy and not materialized, this
+		 * is done under the monitor of the Network, so that a concurrent
+		 * materialization of the Link either happens before (and its Edges
+		 * are returned) or does not create them. */
+		Network network = link.getNetwork();
+		if(network.isQueueGraphMaterialized()) {
+			link.markDeleted();
+			return link.getMaterializedQueueEdges();
+		}
+		synchronized(network) {
+			link.markDeleted();
+			return link.getMaterializedQueueEdges();
 		}
+	}
 
-		return link;
+	/**
+	 * Creates the queue-level Edges of all the Links of a Network with a lazy
+	 * queue-level Graph. Links created afterwards get their queue-level Edges
+	 * directly.
+	 * @param network Network.
+	 */
+	private void materializeQueueGraph(Network network) {
+		int materialized = 0;
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			// The read lock is taken before the monitor, as in createLink().
+			networkMapper.acquireReadLock(network);
+			synchronized(network) {
+				if(network.isQueueGraphMaterialized())
+					return;
+
+				for(Edge edge : network.getLinkGraph().getEdges()) {
+					// Links being deleted may already be detached.
+					ToNetwork toNetwork = toNetworkMapper.get(edge.getEntity());
+					Link link = toNetwork == null ? null : linkMapper.get(toNetwork.getNetworkEntity());
+					if(link != null && link.getMaterializedQueueEdges() == null && !link.isDeleted()) {
+						materializeQueueEdges(link);
+						materialized++;
+					}
+				}
+				network.queueGraphMaterialized();
+			}
+		}
+
+		logger.info("Materialization of the queue-level Graph of " + network + " (" + materialized + " links) triggered.");
 	}
 
 	/**
@@ -638,7 +1164,7 @@ public class NetworkingSystem extends RootSystem {
 	 * @param entity Entity to which the Link is attached.
 	 */
 	public void deleteLink(Entity entity) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace()) {
 			deleteLink(linkMapper.get(entity));
 		}
 	}
@@ -648,14 +1174,16 @@ public class NetworkingSystem extends RootSystem {
 	 * @param link Link to delete.
 	 */
 	public void deleteLink(Link link) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace(lockEndPoints(link))) {
 			deleteLinkWithoutGraph(link);
 
 			// Deleting the underlying Graph part of the Link.
 			linkMapper.acquireReadLock(link);
 
-			for(Edge edge : link.getQueueEdges())
-				graphSystem.deleteEdge(edge);
+			Edge[] queueEdges = link.getMaterializedQueueEdges();
+			if(queueEdges != null)
+				for(Edge edge : queueEdges)
+					graphSystem.deleteEdge(edge);
 			graphSystem.deleteEdge(link.getLinkEdge());
 
 			logger.info(link + " deletion from " + link.getNetwork() + " triggered.");
@@ -670,13 +1198,17 @@ public class NetworkingSystem extends RootSystem {
 	private void deleteLinkWithoutGraph(Link link) {
 		try(MapperSpace ms = controller.startMapperSpace()) {
 			linkMapper.acquireReadLock(link);
-			Edge[] queueEdges = link.getQueueEdges();
+			Edge[] queueEdges = markDeleted(link);
 			Edge linkEdge = link.getLinkEdge();
 
-			// Remove the toNetwork and Queues from queue-level Edges and then delete them.
-			for(Edge edge : queueEdges) {
-				toNetworkMapper.detachComponent(edge);
-				queueMapper.detachComponent(edge);
+			// Remove the toNetwork, Queues and Reservations from queue-level Edges (if they have been created) and then delete them.
+			if(queueEdges != null) {
+				for(Edge edge : queueEdges) {
+					toNetworkMapper.detachComponent(edge);
+					queueMapper.detachComponent(edge);
+					if(reservationMapper.isIn(edge.getEntity()))
+						reservationMapper.detachComponent(edge);
+				}
 			}
 
 			// Remove the toNetwork, Scheduler, Delay and Rate from the link-level Edge and then delete it.
@@ -687,7 +1219,278 @@ public class NetworkingSystem extends RootSystem {
 
 			// Destroying link.
 			linkMapper.detachComponent(link);
+			events.publish(NetworkEvent.link(false, link));
+			SnapshotJournal journal = link.getNetwork().getSnapshotJournal();
+			if(journal != null)
+				journal.linkDeleted(link);
+		}
+	}
+
+	/**
+	 * Sets the propagation delay of a Link.
+	 * @param link Link.
+	 * @param delay new delay (s).
+	 */
+	public void setDelay(Link link, double delay) {
+		try(OperationSpace ms = startOperationSpace(lockEndPoints(link))) {
+			Delay delayComponent = delayMapper.get(link.getLinkEdge().getEntity());
+			delayMapper.updateComponent(delayComponent, ()->delayComponent.setDelay(delay));
+			events.publish(NetworkEvent.linkUpdated(link));
+			recordSnapshotState(link, null, delay);
+
+			logger.info("Delay of " + link + " set to " + delay + " s.");
+		}
+	}
+
+	/**
+	 * Sets the weights of the Queues of a Link with a WFQScheduler.
+	 * @param link Link.
+	 * @param weights new weights (one per Queue).
+	 * @throws NetworkException if the Scheduler of the Link is not a
+	 *         WFQScheduler or if the number of weights is not the number of
+	 *         Queues.
+	 */
+	public void setWeights(Link link, double[] weights) {
+		try(OperationSpace ms = startOperationSpace(lockEndPoints(link))) {
+			Scheduler scheduler = schedulerMapper.get(link.getLinkEdge().getEntity());
+			if(!(scheduler instanceof WFQScheduler))
+				throw new NetworkException(link + " does not have a WFQ scheduler");
+			if(weights.length != scheduler.getQueues().length)
+				throw new NetworkException("The number of weights of a WFQ scheduler must be equal to the number of queues");
+			double[] copy = weights.clone();
+			schedulerMapper.updateComponent(scheduler, ()->((WFQScheduler) scheduler).setWeights(copy));
+			events.publish(NetworkEvent.linkUpdated(link));
+			recordSnapshotState(link, copy, Double.NaN);
+
+			logger.info("Weights of " + link + " set to " + Arrays.toString(weights) + ".");
+		}
+	}
+
+	/**
+	 * Records the new state of a Link in the snapshot journal of its Network
+	 * (if any). The new values are given since the update of the Components
+	 * may be deferred.
+	 * @param link Link.
+	 * @param weights new WFQ weights (null if unchanged).
+	 * @param delay new delay (NaN if unchanged).
+	 */
+	private void recordSnapshotState(Link link, double[] weights, double delay) {
+		SnapshotJournal journal = link.getNetwork().getSnapshotJournal();
+		if(journal == null)
+			return;
+		Entity edgeEntity = link.getLinkEdge().getEntity();
+		Scheduler scheduler = schedulerMapper.get(edgeEntity);
+		if(weights == null && scheduler instanceof WFQScheduler)
+			weights = ((WFQScheduler) scheduler).getWeights();
+		if(Double.isNaN(delay))
+			delay = delayMapper.get(edgeEntity).getDelay();
+		journal.linkUpdated(new LinkSnapshot(link, getEndPoint(link.getLinkEdge().getSource()), getEndPoint(link.getLinkEdge().getDestination()), rateMapper.get(edgeEntity).getRate(), delay, scheduler, weights));
+	}
+
+	/**
+	 * Records all the NetworkNodes and Links of a Network in its snapshot
+	 * journal.
+	 * @param network Network.
+	 * @param journal journal of the Network.
+	 */
+	private void recordSnapshotState(Network network, SnapshotJournal journal) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.acquireReadLock(network);
+			for(Node graphNode : network.getLinkGraph().getNodes())
+				journal.recordInitial(getEndPoint(graphNode));
+			for(Edge edge : network.getLinkGraph().getEdges()) {
+				Link link = linkMapper.get(toNetworkMapper.get(edge.getEntity()).getNetworkEntity());
+				Entity edgeEntity = edge.getEntity();
+				journal.recordInitial(new LinkSnapshot(link, getEndPoint(edge.getSource()), getEndPoint(edge.getDestination()), rateMapper.get(edgeEntity), delayMapper.get(edgeEntity), schedulerMapper.get(edgeEntity)));
+			}
+		}
+	}
+
+	/**
+	 * Gets the current state of a Link.
+	 * @param link Link.
+	 * @return the state of the Link.
+	 */
+	LinkSnapshot getLinkState(Link link) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			linkMapper.acquireReadLock(link);
+			Edge edge = link.getLinkEdge();
+			Entity edgeEntity = edge.getEntity();
+			return new LinkSnapshot(link, getEndPoint(edge.getSource()), getEndPoint(edge.getDestination()), rateMapper.get(edgeEntity), delayMapper.get(edgeEntity), schedulerMapper.get(edgeEntity));
+		}
+	}
+
+	/**
+	 * Gets the Links leaving or arriving at a NetworkNode.
+	 * @param node NetworkNode.
+	 * @return the Links.
+	 */
+	List<Link> getLinks(NetworkNode node) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			nodeMapper.acquireReadLock(node.getLinkNode());
+			List<Link> links = new ArrayList<>();
+			for(Edge edge : node.getLinkNode().getOutgoingConnections())
+				links.add(linkMapper.get(toNetworkMapper.get(edge.getEntity()).getNetworkEntity()));
+			for(Edge edge : node.getLinkNode().getIncomingConnections())
+				links.add(linkMapper.get(toNetworkMapper.get(edge.getEntity()).getNetworkEntity()));
+			return links;
+		}
+	}
+
+	/**
+	 * Enables striped locking in a Network: the creation and deletion of
+	 * Nodes and Links lock the stripes of the involved NetworkNodes (and the
+	 * Links and Nodes themselves) instead of the whole Network, so that
+	 * disjoint parts of the Network are modified in parallel. The operations
+	 * on Hosts and interfaces also lock the stripes of the NetworkNodes of
+	 * the interfaces and of their neighbors.
+	 *
+	 * The stripes of an operation are released once its deferred updates
+	 * are applied, i.e., when the outermost operation of the thread ends.
+	 * Such operations must hence not be called within a MapperSpace started
+	 * by the caller. An operation nested in another one is refused if it
+	 * needs stripes locked by another thread.
+	 * @param network Network.
+	 */
+	public void enableStripedLocking(Network network) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.updateComponent(network, ()->network.enableStripedLocking());
 		}
+
+		logger.info("Striped locking enabled in " + network + ".");
+	}
+
+	/**
+	 * Locks the stripes of NetworkNodes of a Network with striped locking.
+	 * @param nodes NetworkNodes (of the same Network).
+	 * @return the held stripes or null if the Network does not have striped
+	 *         locking.
+	 */
+	private NodeLockStripes.Held lockNodes(NetworkNode... nodes) {
+		NodeLockStripes locks = nodes[0].getNetwork().getNodeLocks();
+		return locks == null ? null : lock(locks, nodes);
+	}
+
+	/**
+	 * Locks the stripes of NetworkNodes. If the thread already holds stripes
+	 * (of an enclosing operation, only released when its OperationSpace is
+	 * closed), blocking on other stripes could deadlock: the operation is
+	 * then refused if a stripe is locked by another thread.
+	 * @param locks stripes of the Network.
+	 * @param nodes NetworkNodes.
+	 * @return the held stripes.
+	 * @throws NetworkException if the operation is refused.
+	 */
+	private NodeLockStripes.Held lock(NodeLockStripes locks, NetworkNode... nodes) {
+		if(heldStripes.get().isEmpty())
+			return locks.lock(nodes);
+		NodeLockStripes.Held held = locks.tryLock(nodes);
+		if(held == null)
+			throw new NetworkException("The nodes of a nested operation in " + nodes[0].getNetwork() + " are locked by another thread");
+		return held;
+	}
+
+	/**
+	 * Locks the stripes of the end points of a Link of a Network with
+	 * striped locking.
+	 * @param link Link.
+	 * @return the held stripes or null if the Network does not have striped
+	 *         locking.
+	 */
+	private NodeLockStripes.Held lockEndPoints(Link link) {
+		NodeLockStripes locks = link.getNetwork().getNodeLocks();
+		if(locks == null)
+			return null;
+		Edge edge = link.getLinkEdge();
+		return lock(locks, getEndPoint(edge.getSource()), getEndPoint(edge.getDestination()));
+	}
+
+	/**
+	 * Locks the stripes of a NetworkNode and of its neighbors in a Network
+	 * with striped locking.
+	 * @param node NetworkNode.
+	 * @return the held stripes or null if the Network does not have striped
+	 *         locking.
+	 */
+	private NodeLockStripes.Held lockNeighborhood(NetworkNode node) {
+		return lockNeighborhood(node.getNetwork(), Collections.singletonList(node));
+	}
+
+	/**
+	 * Locks the stripes of NetworkNodes and of their neighbors in a Network
+	 * with striped locking.
+	 * @param network Network of the NetworkNodes.
+	 * @param nodes NetworkNodes.
+	 * @return the held stripes or null if the Network does not have striped
+	 *         locking.
+	 */
+	private NodeLockStripes.Held lockNeighborhood(Network network, Collection<NetworkNode> nodes) {
+		NodeLockStripes locks = network.getNodeLocks();
+		if(locks == null)
+			return null;
+
+		/* Links are only created and deleted with the stripes of their end
+		 * points, so the neighbors cannot change once locked. If they changed
+		 * before, we try again. */
+		while(true) {
+			Set<NetworkNode> neighborhood = getNeighborhood(nodes);
+			NodeLockStripes.Held held = lock(locks, neighborhood.toArray(new NetworkNode[0]));
+			if(getNeighborhood(nodes).equals(neighborhood))
+				return held;
+			held.close();
+		}
+	}
+
+	/**
+	 * Gets NetworkNodes and their neighbors.
+	 * @param nodes NetworkNodes.
+	 * @return the NetworkNodes and the ones connected to them by a Link.
+	 */
+	private Set<NetworkNode> getNeighborhood(Collection<NetworkNode> nodes) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			Set<NetworkNode> neighborhood = new HashSet<>();
+			for(NetworkNode node : nodes) {
+				nodeMapper.acquireReadLock(node.getLinkNode());
+				neighborhood.add(node);
+				for(Edge edge : node.getLinkNode().getOutgoingConnections())
+					neighborhood.add(getEndPoint(edge.getDestination()));
+				for(Edge edge : node.getLinkNode().getIncomingConnections())
+					neighborhood.add(getEndPoint(edge.getSource()));
+			}
+			return neighborhood;
+		}
+	}
+
+	/**
+	 * Gets the NetworkNodes of the interfaces of a Host.
+	 * @param host Host.
+	 * @return the NetworkNodes.
+	 */
+	private List<NetworkNode> getInterfaceNodes(Host host) {
+		List<NetworkNode> nodes = new ArrayList<>();
+		for(NetworkInterface ifc : host.getInterfaces())
+			nodes.add(host.getNetworkNode(ifc));
+		return nodes;
+	}
+
+	/**
+	 * Starts a transaction on a Network: the operations done through the
+	 * returned NetworkTransaction are undone if one of them fails or if the
+	 * transaction is closed without having been committed.
+	 * @param network Network.
+	 * @return the transaction, to be used by the current thread only.
+	 */
+	public NetworkTransaction beginTransaction(Network network) {
+		return new NetworkTransaction(this, network);
+	}
+
+	/**
+	 * Gets the NetworkNode of a link-level Node.
+	 * @param node link-level Node.
+	 * @return the NetworkNode.
+	 */
+	private NetworkNode getEndPoint(Node node) {
+		return networkNodeMapper.get(toNetworkMapper.get(node.getEntity()).getNetworkEntity());
 	}
 
 	/**
@@ -698,9 +1501,10 @@ public class NetworkingSystem extends RootSystem {
 	 */
 	public Host createHost(Network network, String name) {
 		Host host = new Host(network, name);
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace()) {
 			hostMapper.attachComponent(controller.createEntity(), host);
 			networkMapper.updateComponent(network, ()->network.addHost(host));
+			events.publish(NetworkEvent.host(true, host));
 
 			logger.info(host + " creation in " + network + " triggered.");
 		}
@@ -718,7 +1522,7 @@ public class NetworkingSystem extends RootSystem {
 	 * @param host Host to delete.
 	 */
 	public void deleteHost(Host host) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace(lockNeighborhood(host.getNetwork(), getInterfaceNodes(host)))) {
 			deleteHostWithoutGraph(host);
 			hostMapper.acquireReadLock(host);
 
@@ -751,6 +1555,7 @@ public class NetworkingSystem extends RootSystem {
 
 			networkMapper.updateComponent(network, ()->network.removeHost(host));
 			hostMapper.detachComponent(host);
+			events.publish(NetworkEvent.host(false, host));
 
 			logger.info(host + " deletion from " + network + " triggered.");
 		}
@@ -762,7 +1567,7 @@ public class NetworkingSystem extends RootSystem {
 	 * @param entity Entity to which the Host is attached.
 	 */
 	public void deleteHost(Entity entity) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace()) {
 			deleteHost(hostMapper.get(entity));
 		}
 	}
@@ -774,14 +1579,19 @@ public class NetworkingSystem extends RootSystem {
 	 */
 	public NetworkNode addInterface(Host host, NetworkInterface ifc) {
 		NetworkNode ifcNode;
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace()) {
 			// Creating the Node representing the Interface.
 			hostMapper.acquireReadLock(host);
 			Network network = host.getNetwork();
 			ifcNode = createNode(network, host.getName() + ":" + ifc.getName());
 
+			/* Links created on the Node wait until it is registered as an
+			 * interface. */
+			holdStripes(lockNodes(ifcNode));
+
 			hostMapper.updateComponent(host, ()->host.addInterface(ifc, ifcNode));
 			networkMapper.updateComponent(network, ()->network.addInterface(host, ifc, ifcNode));
+			events.publish(NetworkEvent.networkInterface(true, host, ifc, ifcNode));
 
 			logger.info("Addition of " + ifc + " (" + ifcNode + ") to " + host + " triggered.");
 		}
@@ -789,6 +1599,94 @@ public class NetworkingSystem extends RootSystem {
 		return ifcNode;
 	}
 
+	/**
+	 * Adds an interface to a Host, with a MAC address and, if the pool has
+	 * IPv4 blocks, an IP address allocated from the AddressPool of the
+	 * Network of the Host. The addresses are given back to the pool if the
+	 * interface cannot be added.
+	 * @param host Host to which an interface must be added.
+	 * @param name name of the interface.
+	 * @return the NetworkNode representing the interface.
+	 */
+	public NetworkNode addInterface(Host host, String name) {
+		AddressPool pool = host.getNetwork().getAddressPool();
+		if(pool == null || !pool.hasMACRange())
+			throw new NetworkException("No MAC addresses can be allocated in " + host.getNetwork());
+
+		MACAddress mac = pool.allocateMAC();
+		if(mac == null)
+			throw new NetworkException("No MAC address left in the pool of " + host.getNetwork());
+		IPAddress ip = IPAddress.valueOf("0.0.0.0");
+		boolean allocatedIP = pool.hasIPv4Blocks();
+		if(allocatedIP) {
+			ip = pool.allocateIPv4();
+			if(ip == null) {
+				pool.release(mac);
+				throw new NetworkException("No IP address left in the pool of " + host.getNetwork());
+			}
+		}
+
+		try {
+			return addInterface(host, new NetworkInterface(name, mac, ip));
+		} catch(RuntimeException e) {
+			// The addresses go back to the pool unless the Network registered them.
+			Network network = host.getNetwork();
+			if(!network.containsMACAddress(mac))
+				pool.release(mac);
+			if(allocatedIP && !network.containsIPAddress(ip))
+				pool.release(ip);
+			throw e;
+		}
+	}
+
+	/**
+	 * Sets the pool from which addresses are allocated to the interfaces
+	 * added with addInterface(Host, String). The addresses of the existing
+	 * interfaces of the Network are reserved in the pool.
+	 * @param network Network.
+	 * @param pool pool (null to remove the pool of the Network).
+	 */
+	public void setAddressPool(Network network, AddressPool pool) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.updateComponent(network, ()->network.setAddressPool(pool));
+			logger.info("Address pool of " + network + " set.");
+		}
+	}
+
+	/**
+	 * Enables reservations in a Network: a Reservation is attached to all the
+	 * existing and future queue-level Edges of the Network. With a lazy
+	 * queue-level Graph, the Reservations are attached when the queue-level
+	 * Edges are created.
+	 * @param network Network.
+	 */
+	public void enableReservations(Network network) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.updateComponent(network, ()->network.enableReservations());
+		}
+
+		/* Links created from now on get their Reservations directly, the
+		 * existing ones are completed. */
+		int reservations = 0;
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.acquireReadLock(network);
+			for(Edge edge : network.getLinkGraph().getEdges()) {
+				Link link = linkMapper.get(toNetworkMapper.get(edge.getEntity()).getNetworkEntity());
+				Edge[] queueEdges = link.getMaterializedQueueEdges();
+				if(queueEdges == null)
+					continue;
+				for(Edge queueEdge : queueEdges) {
+					if(!reservationMapper.isIn(queueEdge.getEntity())) {
+						reservationMapper.attachComponent(queueEdge, new Reservation());
+						reservations++;
+					}
+				}
+			}
+		}
+
+		logger.info("Reservations enabled in " + network + " (" + reservations + " queues).");
+	}
+
 	/**
 	 * Deletes an interface from a Host. The NetworkNode representing the
 	 * interface and the Links connecting it to the network are also deleted.
@@ -796,7 +1694,7 @@ public class NetworkingSystem extends RootSystem {
 	 * @param ifc Interface from the Host that has to be removed.
 	 */
 	public void deleteInterface(Host host, NetworkInterface ifc) {
-		try(MapperSpace ms = controller.startMapperSpace()) {
+		try(OperationSpace ms = startOperationSpace(lockNeighborhood(host.getNetwork(), Collections.singletonList(host.getNetworkNode(ifc))))) {
 			deleteInterfaceWithoutGraph(host, ifc);
 
 			// Deleting the Graph Nodes.
@@ -810,6 +1708,40 @@ public class NetworkingSystem extends RootSystem {
 		}
 	}
 
+	/**
+	 * Associates an IP prefix (e.g., a subnet) to a NetworkNode of a Network,
+	 * for longest-prefix matching with Network.getLongestPrefixMatch(). The
+	 * addresses of the Interfaces of the Hosts are associated automatically.
+	 * @param network Network.
+	 * @param prefix IP prefix (bits beyond its length are ignored).
+	 * @param length length of the prefix.
+	 * @param node NetworkNode owning the prefix.
+	 */
+	public void addPrefix(Network network, IPAddress prefix, int length, NetworkNode node) {
+		if(node.getNetwork() != network)
+			throw new NetworkException(node + " does not belong to " + network);
+		if(length < 0 || length > prefix.getLength() * 8)
+			throw new NetworkException("Invalid prefix length: " + length);
+
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.updateComponent(network, ()->network.putPrefix(prefix, length, node));
+			logger.info("Addition of " + prefix + "/" + length + " (" + node + ") to " + network + " triggered.");
+		}
+	}
+
+	/**
+	 * Removes an IP prefix added with addPrefix().
+	 * @param network Network.
+	 * @param prefix IP prefix.
+	 * @param length length of the prefix.
+	 */
+	public void deletePrefix(Network network, IPAddress prefix, int length) {
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.updateComponent(network, ()->network.removePrefix(prefix, length));
+			logger.info("Deletion of " + prefix + "/" + length + " from " + network + " triggered.");
+		}
+	}
+
 	/**
 	 * Check if a graph node corresponds to a host in a network.
 	 * @param network given Network.
@@ -819,22 +1751,7 @@ public class NetworkingSystem extends RootSystem {
 	 *         false otherwise.
 	 */
 	public boolean isAHost(Network network, Node node) {
-		// check that there is a mapping to a network
-		if(!toNetworkMapper.isIn(node.getEntity()))
-			return false;
-
-		// check that this mapping leads to a network node
-		Entity networkEntity = toNetworkMapper.get(node.getEntity()).getNetworkEntity();
-		if (!networkNodeMapper.isIn(networkEntity))
-			return false;
-
-		// check that the network node is in the given network
-		NetworkNode networkNode = networkNodeMapper.get(networkEntity);
-		if (networkNode.getNetwork() != network)
-			return false;
-
-		// check that the network node is an interface of the network
-		return network.getHostNodesToHost().containsKey(networkNode);
+		return network.getNodeKind(node) == NodeKind.HOST_INTERFACE;
 	}
 
 	/**
@@ -852,10 +1769,55 @@ public class NetworkingSystem extends RootSystem {
 
 			// Update associated data structures.
 			hostMapper.updateComponent(host, ()->host.removeInterface(ifc));
-			networkMapper.updateComponent(network, ()->network.removeInterface(ifc));
+			networkMapper.updateComponent(network, ()->network.removeInterface(ifc, ifcNode));
+			events.publish(NetworkEvent.networkInterface(false, host, ifc, ifcNode));
 
 			// Delete the Node representing the interface.
 			deleteAnyNodeWithoutGraph(ifcNode);
 		}
 	}
+
+	/**
+	 * MapperSpace of a topology operation with the Scope holding back its
+	 * events.
+	 */
+	final class OperationSpace implements AutoCloseable {
+		/**
+		 * Scope holding back the events of the operation.
+		 */
+		private final NetworkEventDispatcher.Scope scope;
+
+		/**
+		 * MapperSpace of the operation.
+		 */
+		private final MapperSpace mapperSpace;
+
+		private OperationSpace(NetworkEventDispatcher.Scope scope, MapperSpace mapperSpace) {
+			this.scope = scope;
+			this.mapperSpace = mapperSpace;
+		}
+
+		/**
+		 * Closes the MapperSpace (which applies the deferred updates if it is
+		 * the outermost one) and then the Scope. The events of the operation
+		 * are dropped if the deferred updates fail. If it is the outermost
+		 * OperationSpace of the thread, the held stripes are released.
+		 */
+		@Override
+		public void close() {
+			try {
+				mapperSpace.close();
+			} catch(RuntimeException e) {
+				scope.discard();
+				throw e;
+			} finally {
+				scope.close();
+				if(--operationDepth.get()[0] == 0) {
+					Deque<NodeLockStripes.Held> held = heldStripes.get();
+					while(!held.isEmpty())
+						held.pop().close();
+				}
+			}
+		}
+	}
 }
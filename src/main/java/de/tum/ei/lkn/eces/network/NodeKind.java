@@ -0,0 +1,25 @@
+package de.tum.ei.lkn.eces.network;
+
+/**
+ * Kind of a Graph Node with respect to a Network.
+ *
+ * @author Amaury Van Bemten
+ */
+public enum NodeKind {
+	/**
+	 * The Node does not belong to the Network.
+	 */
+	UNASSIGNED,
+
+	/**
+	 * The Node belongs to a NetworkNode of the Network which is not the
+	 * Interface of a Host.
+	 */
+	SWITCH,
+
+	/**
+	 * The Node belongs to a NetworkNode representing the Interface of a Host
+	 * of the Network.
+	 */
+	HOST_INTERFACE
+}
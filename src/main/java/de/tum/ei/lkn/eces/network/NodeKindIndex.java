@@ -0,0 +1,63 @@
+package de.tum.ei.lkn.eces.network;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Index of the NodeKind of Graph Nodes, keyed by the ID of the Entity of
+ * the Node. Each kind is stored on two bits of an array covering all the
+ * IDs up to the largest ID set. Entity IDs are global to the Controller, so
+ * the index of a Network uses about m / 4 bytes, m being the largest Entity
+ * ID of its Nodes: every Entity of the Controller created before (Entities
+ * of other Networks, Edges, other Components) counts, not only the Nodes of
+ * the Network.
+ *
+ * Reads are lock-free and writes are serialized.
+ *
+ * @author Amaury Van Bemten
+ */
+class NodeKindIndex {
+	/**
+	 * Values of the kinds.
+	 */
+	private static final NodeKind[] KINDS = NodeKind.values();
+
+	/**
+	 * Kinds, 32 per long.
+	 */
+	private volatile AtomicLongArray kinds = new AtomicLongArray(16);
+
+	/**
+	 * Gets the kind of a Node.
+	 * @param id ID of the Entity of the Node.
+	 * @return the kind (UNASSIGNED if the Node has not been set).
+	 */
+	NodeKind get(long id) {
+		AtomicLongArray current = kinds;
+		int word = (int) (id >>> 5);
+		if(id < 0 || word >= current.length())
+			return NodeKind.UNASSIGNED;
+		return KINDS[(int) (current.get(word) >>> ((id & 31) << 1)) & 3];
+	}
+
+	/**
+	 * Sets the kind of a Node.
+	 * @param id ID of the Entity of the Node.
+	 * @param kind kind.
+	 */
+	synchronized void set(long id, NodeKind kind) {
+		if(id < 0 || (id >>> 5) > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid Entity ID: " + id);
+		int word = (int) (id >>> 5);
+		AtomicLongArray current = kinds;
+		if(word >= current.length()) {
+			if(kind == NodeKind.UNASSIGNED)
+				return;
+			AtomicLongArray grown = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, Math.max(2L * current.length(), word + 1L)));
+			for(int i = 0; i < current.length(); i++)
+				grown.set(i, current.get(i));
+			kinds = current = grown;
+		}
+		int shift = (int) ((id & 31) << 1);
+		current.set(word, (current.get(word) & ~(3L << shift)) | ((long) kind.ordinal() << shift));
+	}
+}
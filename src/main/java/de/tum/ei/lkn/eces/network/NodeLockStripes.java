@@ -0,0 +1,95 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.network.util.LockStripes;
+
+/**
+ * Lock stripes of the NetworkNodes of a Network with striped locking (see
+ * NetworkingSystem.enableStripedLocking()).
+ *
+ * Each NetworkNode is mapped to one of a fixed number of stripes. The
+ * stripes of an operation are always locked in ascending order, so that
+ * operations on disjoint parts of the Network run in parallel and
+ * overlapping operations never deadlock.
+ *
+ * @author Amaury Van Bemten
+ */
+final class NodeLockStripes {
+	/**
+	 * Number of lock stripes (power of two).
+	 */
+	private static final int STRIPES = 1024;
+
+	/**
+	 * Lock stripes.
+	 */
+	private final LockStripes locks = new LockStripes(STRIPES);
+
+	/**
+	 * Locks the stripes of NetworkNodes.
+	 * @param nodes NetworkNodes.
+	 * @return the held stripes, to be closed by the same thread.
+	 */
+	Held lock(NetworkNode... nodes) {
+		int[] stripes = getStripes(nodes);
+		locks.lock(stripes);
+		return new Held(stripes);
+	}
+
+	/**
+	 * Locks the stripes of NetworkNodes if none of them is locked by another
+	 * thread.
+	 * @param nodes NetworkNodes.
+	 * @return the held stripes, to be closed by the same thread, or null if
+	 *         a stripe is locked by another thread.
+	 */
+	Held tryLock(NetworkNode... nodes) {
+		int[] stripes = getStripes(nodes);
+		return locks.tryLock(stripes) ? new Held(stripes) : null;
+	}
+
+	/**
+	 * Locks all the stripes if none of them is locked by another thread.
+	 * @return the held stripes, to be closed by the same thread, or null if
+	 *         a stripe is locked by another thread.
+	 */
+	Held tryLockAll() {
+		int[] stripes = new int[STRIPES];
+		for(int i = 0; i < STRIPES; i++)
+			stripes[i] = i;
+		return locks.tryLock(stripes) ? new Held(stripes) : null;
+	}
+
+	/**
+	 * Gets the stripes of NetworkNodes.
+	 * @param nodes NetworkNodes.
+	 * @return the distinct stripes, in ascending order.
+	 */
+	private int[] getStripes(NetworkNode... nodes) {
+		long[] ids = new long[nodes.length];
+		for(int i = 0; i < nodes.length; i++)
+			ids[i] = nodes[i].getEntity().getId();
+		return locks.getStripes(ids);
+	}
+
+	/**
+	 * Stripes held by a thread.
+	 */
+	final class Held implements AutoCloseable {
+		/**
+		 * Held stripes, in ascending order.
+		 */
+		private final int[] stripes;
+
+		private Held(int[] stripes) {
+			this.stripes = stripes;
+		}
+
+		/**
+		 * Unlocks the stripes.
+		 */
+		@Override
+		public void close() {
+			locks.unlock(stripes);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.graph.Edge;
+
+/**
+ * Builds, on demand, the queue-level part of a Network whose queue-level
+ * Graph is materialized lazily.
+ *
+ * @author Amaury Van Bemten
+ */
+interface QueueGraphMaterializer {
+	/**
+	 * Creates the queue-level Edges of all the Links of a Network.
+	 * @param network Network.
+	 */
+	void materialize(Network network);
+
+	/**
+	 * Creates the queue-level Edges of a Link.
+	 * @param link Link.
+	 * @return the queue-level Edges (empty if the Link has been deleted
+	 *         before they were created).
+	 */
+	Edge[] materialize(Link link);
+}
@@ -0,0 +1,162 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.core.Component;
+import de.tum.ei.lkn.eces.core.annotations.ComponentBelongsTo;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resources reserved at a Queue: sum of the rates and bursts of the flows
+ * using the Queue and number of such flows.
+ *
+ * The reserved rate and burst are rounded up to whole bytes (per second).
+ * They are kept, with the number of flows, in an immutable state swapped
+ * with a compare-and-set, so that a reservation is checked against limits
+ * and applied atomically, without going through the locks of the Mapper.
+ * The three values are not packed into a single primitive (they would not
+ * fit in 64 bits with useful ranges): each update allocates a new state.
+ *
+ * @author Amaury Van Bemten
+ */
+@ComponentBelongsTo(system = NetworkingSystem.class)
+public class Reservation extends Component {
+	/**
+	 * Reserved rate, reserved burst and number of flows.
+	 */
+	private final AtomicReference<State> state = new AtomicReference<>(State.EMPTY);
+
+	/**
+	 * Reserves resources for a flow.
+	 * @param rate rate of the flow in bytes/s.
+	 * @param burst burst of the flow in bytes.
+	 * @return false if the reserved rate or burst would overflow (nothing is
+	 *         then reserved).
+	 */
+	public boolean reserve(double rate, double burst) {
+		return reserve(rate, burst, Long.MAX_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Reserves resources for a flow if the reserved resources remain within
+	 * limits.
+	 * @param rate rate of the flow in bytes/s.
+	 * @param burst burst of the flow in bytes.
+	 * @param rateLimit maximum reserved rate in bytes/s.
+	 * @param burstLimit maximum reserved burst in bytes.
+	 * @return false if the reservation would exceed a limit (nothing is then
+	 *         reserved).
+	 */
+	public boolean reserve(double rate, double burst, double rateLimit, double burstLimit) {
+		long rateBytes = toBytes(rate);
+		long burstBytes = toBytes(burst);
+		long maxRate = (long) Math.floor(Math.max(0, rateLimit));
+		long maxBurst = (long) Math.floor(Math.max(0, burstLimit));
+		while(true) {
+			State current = state.get();
+			// Compared without adding, so that the sums cannot overflow.
+			if(current.rate > maxRate - rateBytes || current.burst > maxBurst - burstBytes || current.flows == Integer.MAX_VALUE)
+				return false;
+			if(state.compareAndSet(current, new State(current.rate + rateBytes, current.burst + burstBytes, current.flows + 1)))
+				return true;
+		}
+	}
+
+	/**
+	 * Releases the resources of a flow.
+	 * @param rate rate of the flow in bytes/s.
+	 * @param burst burst of the flow in bytes.
+	 * @throws NetworkException if more than the reserved resources are
+	 *         released.
+	 */
+	public void release(double rate, double burst) {
+		long rateBytes = toBytes(rate);
+		long burstBytes = toBytes(burst);
+		while(true) {
+			State current = state.get();
+			long newRate = current.rate - rateBytes;
+			long newBurst = current.burst - burstBytes;
+			if(newRate < 0 || newBurst < 0 || current.flows == 0)
+				throw new NetworkException("Impossible to release more than the reserved resources of " + this);
+			if(state.compareAndSet(current, new State(newRate, newBurst, current.flows - 1)))
+				return;
+		}
+	}
+
+	/**
+	 * Gets the reserved rate.
+	 * @return reserved rate in bytes/s.
+	 */
+	public double getReservedRate() {
+		return state.get().rate;
+	}
+
+	/**
+	 * Gets the reserved burst.
+	 * @return reserved burst in bytes.
+	 */
+	public double getReservedBurst() {
+		return state.get().burst;
+	}
+
+	/**
+	 * Gets the number of flows having reserved resources.
+	 * @return number of flows.
+	 */
+	public int getFlowCount() {
+		return state.get().flows;
+	}
+
+	/**
+	 * Rounds a rate or burst up to whole bytes.
+	 * @param value rate in bytes/s or burst in bytes.
+	 * @return the rounded value.
+	 */
+	private static long toBytes(double value) {
+		if(!(value >= 0) || value >= Long.MAX_VALUE)
+			throw new NetworkException("Invalid reservation amount: " + value);
+		return (long) Math.ceil(value);
+	}
+
+	@Override
+	public JSONObject toJSONObject() {
+		JSONObject obj = super.toJSONObject();
+		State current = state.get();
+		obj.put("rate", current.rate * 8 / 1000.0); // Kbps
+		obj.put("burst", current.burst); // bytes
+		obj.put("flows", current.flows);
+		return obj;
+	}
+
+	/**
+	 * Immutable reserved resources.
+	 */
+	private static final class State {
+		/**
+		 * No reserved resources.
+		 */
+		static final State EMPTY = new State(0, 0, 0);
+
+		/**
+		 * Reserved rate (bytes/s).
+		 */
+		final long rate;
+
+		/**
+		 * Reserved burst (bytes).
+		 */
+		final long burst;
+
+		/**
+		 * Number of flows.
+		 */
+		final int flows;
+
+		State(long rate, long burst, int flows) {
+			this.rate = rate;
+			this.burst = burst;
+			this.flows = flows;
+		}
+	}
+}
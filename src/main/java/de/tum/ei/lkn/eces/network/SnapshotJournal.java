@@ -0,0 +1,166 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.network.util.PersistentLongMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Changes of a Network since its last TopologySnapshot.
+ *
+ * Only the last change of each NetworkNode and Link is kept, so that taking
+ * a snapshot costs O(c log(n)) for c changed elements in a Network of n
+ * elements. The journal of a Network only exists once a first snapshot has
+ * been taken.
+ *
+ * @author Amaury Van Bemten
+ */
+final class SnapshotJournal {
+	/**
+	 * Marker of a deleted element.
+	 */
+	private static final Object REMOVED = new Object();
+
+	/**
+	 * Network of the journal.
+	 */
+	private final Network network;
+
+	/**
+	 * Added (NetworkNode) or deleted (REMOVED) NetworkNodes, by Entity ID.
+	 */
+	private final Map<Long, Object> nodes = new HashMap<>();
+
+	/**
+	 * Added or modified (LinkSnapshot) or deleted (REMOVED) Links, by Entity
+	 * ID.
+	 */
+	private final Map<Long, Object> links = new HashMap<>();
+
+	/**
+	 * Last snapshot taken.
+	 */
+	private TopologySnapshot last;
+
+	/**
+	 * Creates an empty journal.
+	 * @param network Network of the journal.
+	 */
+	SnapshotJournal(Network network) {
+		this.network = network;
+		this.last = new TopologySnapshot(network, 0, PersistentLongMap.empty(), PersistentLongMap.empty());
+	}
+
+	/**
+	 * Records the creation of a NetworkNode.
+	 * @param node NetworkNode.
+	 */
+	synchronized void nodeCreated(NetworkNode node) {
+		nodes.put(node.getEntity().getId(), node);
+	}
+
+	/**
+	 * Records the deletion of a NetworkNode.
+	 * @param node NetworkNode.
+	 */
+	synchronized void nodeDeleted(NetworkNode node) {
+		nodes.put(node.getEntity().getId(), REMOVED);
+	}
+
+	/**
+	 * Records the creation or the modification of a Link.
+	 * @param link new state of the Link.
+	 */
+	synchronized void linkUpdated(LinkSnapshot link) {
+		links.put(link.getLink().getEntity().getId(), link);
+	}
+
+	/**
+	 * Records the deletion of a Link.
+	 * @param link Link.
+	 */
+	synchronized void linkDeleted(Link link) {
+		links.put(link.getEntity().getId(), REMOVED);
+	}
+
+	/**
+	 * Records an existing NetworkNode, unless a change has already been
+	 * recorded for it (the recorded change is more recent).
+	 * @param node NetworkNode.
+	 */
+	synchronized void recordInitial(NetworkNode node) {
+		nodes.putIfAbsent(node.getEntity().getId(), node);
+	}
+
+	/**
+	 * Records an existing Link, unless a change has already been recorded for
+	 * it (the recorded change is more recent).
+	 * @param link state of the Link.
+	 */
+	synchronized void recordInitial(LinkSnapshot link) {
+		links.putIfAbsent(link.getLink().getEntity().getId(), link);
+	}
+
+	/**
+	 * Applies the recorded changes to the last snapshot.
+	 * @return the new snapshot (the last one if nothing changed).
+	 */
+	synchronized TopologySnapshot snapshot() {
+		if(nodes.isEmpty() && links.isEmpty())
+			return last;
+
+		PersistentLongMap<TopologySnapshot.NodeEntry> nodeEntries = last.getNodeEntries();
+		PersistentLongMap<LinkSnapshot> linkEntries = last.getLinkEntries();
+
+		// New NetworkNodes first, so that new Links find their end points.
+		for(Map.Entry<Long, Object> entry : nodes.entrySet())
+			if(entry.getValue() != REMOVED && !nodeEntries.containsKey(entry.getKey()))
+				nodeEntries = nodeEntries.with(entry.getKey(), new TopologySnapshot.NodeEntry((NetworkNode) entry.getValue(), new long[0], new long[0]));
+
+		for(Map.Entry<Long, Object> entry : links.entrySet()) {
+			long id = entry.getKey();
+			LinkSnapshot previous = linkEntries.get(id);
+			if(entry.getValue() == REMOVED) {
+				if(previous == null)
+					continue;
+				linkEntries = linkEntries.without(id);
+				nodeEntries = adjacency(nodeEntries, previous, id, false);
+			}
+			else {
+				linkEntries = linkEntries.with(id, (LinkSnapshot) entry.getValue());
+				if(previous == null)
+					nodeEntries = adjacency(nodeEntries, (LinkSnapshot) entry.getValue(), id, true);
+			}
+		}
+
+		// Deleted NetworkNodes last, their Links are gone by now.
+		for(Map.Entry<Long, Object> entry : nodes.entrySet())
+			if(entry.getValue() == REMOVED)
+				nodeEntries = nodeEntries.without(entry.getKey());
+
+		nodes.clear();
+		links.clear();
+		last = new TopologySnapshot(network, last.getVersion() + 1, nodeEntries, linkEntries);
+		return last;
+	}
+
+	/**
+	 * Adds or removes a Link from the adjacencies of its end points.
+	 * @param nodeEntries NetworkNodes.
+	 * @param link state of the Link.
+	 * @param id Link Entity ID.
+	 * @param add true to add the Link, false to remove it.
+	 * @return the updated NetworkNodes.
+	 */
+	private static PersistentLongMap<TopologySnapshot.NodeEntry> adjacency(PersistentLongMap<TopologySnapshot.NodeEntry> nodeEntries, LinkSnapshot link, long id, boolean add) {
+		long source = link.getSource().getEntity().getId();
+		long destination = link.getDestination().getEntity().getId();
+		TopologySnapshot.NodeEntry entry = nodeEntries.get(source);
+		if(entry != null)
+			nodeEntries = nodeEntries.with(source, entry.with(id, true, add));
+		entry = nodeEntries.get(destination);
+		if(entry != null)
+			nodeEntries = nodeEntries.with(destination, entry.with(id, false, add));
+		return nodeEntries;
+	}
+}
@@ -0,0 +1,17 @@
+package de.tum.ei.lkn.eces.network;
+
+/**
+ * Records the whole state of a Network in its SnapshotJournal when the first
+ * snapshot of the Network is taken.
+ *
+ * @author Amaury Van Bemten
+ */
+interface SnapshotRecorder {
+	/**
+	 * Records all the NetworkNodes and Links of a Network with
+	 * SnapshotJournal.recordInitial().
+	 * @param network Network.
+	 * @param journal journal of the Network.
+	 */
+	void recordAll(Network network, SnapshotJournal journal);
+}
@@ -0,0 +1,491 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.MACAddress;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import java.util.*;
+
+/**
+ * Batch of Nodes, Hosts, NetworkInterfaces and Links to be added to a Network
+ * at once.
+ *
+ * The elements are only collected when they are added to the batch. They are
+ * all created by commit(), within a single MapperSpace, after a single
+ * validation pass and with a single log line. If the validation fails, nothing
+ * is created.
+ *
+ * Elements are referenced by integer handles returned by the add*() methods.
+ * Nodes already present in the Network can be referenced by adding them with
+ * addNode(NetworkNode).
+ *
+ * @author Amaury Van Bemten
+ */
+public class TopologyBatch {
+	/**
+	 * Scheduling policies of the Links of the batch.
+	 */
+	enum SchedulingPolicy {
+		DEFAULT,
+		PRIORITY,
+		WFQ
+	}
+
+	/**
+	 * NetworkingSystem used to commit the batch.
+	 */
+	private final NetworkingSystem networkingSystem;
+
+	/**
+	 * Network to which the batch applies.
+	 */
+	private final Network network;
+
+	/**
+	 * Names of the Nodes (null for already existing Nodes).
+	 */
+	final List<String> nodeNames;
+
+	/**
+	 * NetworkNodes of the batch (null for Nodes not created yet).
+	 */
+	final List<NetworkNode> nodes;
+
+	/**
+	 * Host handle of the Nodes representing a NetworkInterface (-1 for
+	 * switches).
+	 */
+	final List<Integer> nodeHosts;
+
+	/**
+	 * NetworkInterfaces represented by the Nodes (null for switches).
+	 */
+	final List<NetworkInterface> nodeInterfaces;
+
+	/**
+	 * Names of the Hosts.
+	 */
+	final List<String> hostNames;
+
+	/**
+	 * Hosts of the batch (null for Hosts not created yet).
+	 */
+	final List<Host> hosts;
+
+	/**
+	 * Source handles of the Links.
+	 */
+	final List<Integer> linkSources;
+
+	/**
+	 * Destination handles of the Links.
+	 */
+	final List<Integer> linkDestinations;
+
+	/**
+	 * Rates of the Links in bytes/s.
+	 */
+	final List<Double> linkRates;
+
+	/**
+	 * Delays of the Links in seconds.
+	 */
+	final List<Double> linkDelays;
+
+	/**
+	 * Queue sizes of the Links in bytes.
+	 */
+	final List<double[]> linkQueueSizes;
+
+	/**
+	 * WFQ weights of the Links (null if not a WFQ Link).
+	 */
+	final List<double[]> linkWeights;
+
+	/**
+	 * Scheduling policies of the Links.
+	 */
+	final List<SchedulingPolicy> linkPolicies;
+
+	/**
+	 * Created Links (filled at commit).
+	 */
+	final List<Link> links;
+
+	/**
+	 * Whether the batch has already been committed.
+	 */
+	private boolean committed;
+
+	/**
+	 * Creates a new empty batch. Batches are obtained using
+	 * NetworkingSystem.batch().
+	 * @param networkingSystem NetworkingSystem used to commit the batch.
+	 * @param network Network to which the batch applies.
+	 */
+	TopologyBatch(NetworkingSystem networkingSystem, Network network) {
+		this.networkingSystem = networkingSystem;
+		this.network = network;
+		this.nodeNames = new ArrayList<>();
+		this.nodes = new ArrayList<>();
+		this.nodeHosts = new ArrayList<>();
+		this.nodeInterfaces = new ArrayList<>();
+		this.hostNames = new ArrayList<>();
+		this.hosts = new ArrayList<>();
+		this.linkSources = new ArrayList<>();
+		this.linkDestinations = new ArrayList<>();
+		this.linkRates = new ArrayList<>();
+		this.linkDelays = new ArrayList<>();
+		this.linkQueueSizes = new ArrayList<>();
+		this.linkWeights = new ArrayList<>();
+		this.linkPolicies = new ArrayList<>();
+		this.links = new ArrayList<>();
+	}
+
+	/**
+	 * Gets the Network to which the batch applies.
+	 * @return the Network.
+	 */
+	public Network getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Adds a new Node to the batch.
+	 * @param name name of the Node.
+	 * @return handle of the Node.
+	 */
+	public int addNode(String name) {
+		checkNotCommitted();
+		return addNodeSpec(name, null, -1, null);
+	}
+
+	/**
+	 * Adds a new unnamed Node to the batch.
+	 * @return handle of the Node.
+	 */
+	public int addNode() {
+		return addNode("");
+	}
+
+	/**
+	 * References an existing Node of the Network in the batch so that Links
+	 * of the batch can be connected to it.
+	 * @param node existing NetworkNode.
+	 * @return handle of the Node.
+	 * @throws NetworkException if the Node does not belong to the Network of
+	 *                          the batch.
+	 */
+	public int addNode(NetworkNode node) {
+		checkNotCommitted();
+		if(node.getNetwork() != network)
+			throw new NetworkException(node + " does not belong to " + network);
+		return addNodeSpec(null, node, -1, null);
+	}
+
+	/**
+	 * Adds a new Host to the batch.
+	 * @param name name of the Host.
+	 * @return handle of the Host.
+	 */
+	public int addHost(String name) {
+		checkNotCommitted();
+		hostNames.add(name);
+		hosts.add(null);
+		return hosts.size() - 1;
+	}
+
+	/**
+	 * References an existing Host of the Network in the batch so that
+	 * NetworkInterfaces can be added to it.
+	 * @param host existing Host.
+	 * @return handle of the Host.
+	 * @throws NetworkException if the Host does not belong to the Network of
+	 *                          the batch.
+	 */
+	public int addHost(Host host) {
+		checkNotCommitted();
+		if(host.getNetwork() != network)
+			throw new NetworkException(host + " does not belong to " + network);
+		hostNames.add(host.getName());
+		hosts.add(host);
+		return hosts.size() - 1;
+	}
+
+	/**
+	 * Adds a NetworkInterface to a Host of the batch.
+	 * @param host handle of the Host.
+	 * @param ifc NetworkInterface to add.
+	 * @return handle of the Node representing the NetworkInterface.
+	 */
+	public int addInterface(int host, NetworkInterface ifc) {
+		checkNotCommitted();
+		checkHandle(host, hosts.size(), "Host");
+		return addNodeSpec(hostNames.get(host) + ":" + ifc.getName(), null, host, ifc);
+	}
+
+	/**
+	 * Adds a Link with a single Queue to the batch.
+	 * @param src handle of the source Node.
+	 * @param dst handle of the destination Node.
+	 * @param rate Rate of the Link in bytes/s.
+	 * @param delay Delay of the Link in seconds.
+	 * @param queueSize Size of the Queue in bytes.
+	 * @return handle of the Link.
+	 */
+	public int addLink(int src, int dst, double rate, double delay, double queueSize) {
+		return addLinkSpec(src, dst, rate, delay, new double[]{queueSize}, null, SchedulingPolicy.DEFAULT);
+	}
+
+	/**
+	 * Adds a Link with a priority scheduling policy to the batch.
+	 * @param src handle of the source Node.
+	 * @param dst handle of the destination Node.
+	 * @param rate Rate of the Link in bytes/s.
+	 * @param delay Delay of the Link in seconds.
+	 * @param queueSizes Size of each Queue in bytes. The size of the array
+	 *                   corresponds to the number of Queues to add.
+	 * @return handle of the Link.
+	 */
+	public int addLinkWithPriorityScheduling(int src, int dst, double rate, double delay, double[] queueSizes) {
+		return addLinkSpec(src, dst, rate, delay, queueSizes, null, SchedulingPolicy.PRIORITY);
+	}
+
+	/**
+	 * Adds a Link with a WFQ scheduling policy to the batch.
+	 * @param src handle of the source Node.
+	 * @param dst handle of the destination Node.
+	 * @param rate Rate of the Link in bytes/s.
+	 * @param delay Delay of the Link in seconds.
+	 * @param queueSizes Size of each Queue in bytes. The size of the array
+	 *                   corresponds to the number of Queues to add.
+	 * @param weights Weights to assign to each Queue. The size of the array
+	 *                must be the same as the size of queueSizes.
+	 * @return handle of the Link.
+	 */
+	public int addLinkWithWFQScheduling(int src, int dst, double rate, double delay, double[] queueSizes, double[] weights) {
+		return addLinkSpec(src, dst, rate, delay, queueSizes, weights, SchedulingPolicy.WFQ);
+	}
+
+	/**
+	 * Creates all the elements of the batch. Either everything is created or,
+	 * if the batch is not valid, nothing is.
+	 * @throws NetworkException if the batch is not valid (see validate()) or
+	 *                          has already been committed.
+	 */
+	public void commit() {
+		checkNotCommitted();
+		networkingSystem.commitBatch(this);
+		committed = true;
+	}
+
+	/**
+	 * Gets the NetworkNode corresponding to a handle.
+	 * @param node handle of the Node.
+	 * @return the NetworkNode or null if the batch has not been committed
+	 *         and the Node did not exist yet.
+	 */
+	public NetworkNode getNode(int node) {
+		checkHandle(node, nodes.size(), "Node");
+		return nodes.get(node);
+	}
+
+	/**
+	 * Gets the Host corresponding to a handle.
+	 * @param host handle of the Host.
+	 * @return the Host or null if the batch has not been committed and the
+	 *         Host did not exist yet.
+	 */
+	public Host getHost(int host) {
+		checkHandle(host, hosts.size(), "Host");
+		return hosts.get(host);
+	}
+
+	/**
+	 * Gets the Link corresponding to a handle.
+	 * @param link handle of the Link.
+	 * @return the Link or null if the batch has not been committed yet.
+	 */
+	public Link getLink(int link) {
+		checkHandle(link, linkSources.size(), "Link");
+		return committed ? links.get(link) : null;
+	}
+
+	/**
+	 * Gets the number of Nodes (new and referenced) in the batch.
+	 * @return the number of Nodes.
+	 */
+	public int getNumberOfNodes() {
+		return nodes.size();
+	}
+
+	/**
+	 * Gets the number of Hosts (new and referenced) in the batch.
+	 * @return the number of Hosts.
+	 */
+	public int getNumberOfHosts() {
+		return hosts.size();
+	}
+
+	/**
+	 * Gets the number of Links in the batch.
+	 * @return the number of Links.
+	 */
+	public int getNumberOfLinks() {
+		return linkSources.size();
+	}
+
+	/**
+	 * Tells whether the batch has been committed.
+	 * @return true if the batch has been committed.
+	 */
+	public boolean isCommitted() {
+		return committed;
+	}
+
+	/**
+	 * Checks, in a single pass, that all the elements of the batch can be
+	 * created. The same rules as the ones of the NetworkingSystem apply:
+	 * - two NetworkInterfaces cannot be connected together,
+	 * - a NetworkInterface has at most one uplink and one downlink,
+	 * - a Host cannot have two NetworkInterfaces with the same name,
+	 * - an IP or MAC address can only be present once in a Network,
+	 * - a Link has at least one Queue (and as many weights as Queues for WFQ).
+	 * The caller must hold a read lock on the Network.
+	 * @throws NetworkException if one of the rules is violated.
+	 */
+	void validate() {
+		// NetworkInterfaces.
+		Map<Integer, Set<String>> interfaceNames = new HashMap<>();
+		Set<IPAddress> ips = new HashSet<>();
+		Set<MACAddress> macs = new HashSet<>();
+		IPAddress undefinedIP = IPAddress.valueOf("0.0.0.0");
+		for(int i = 0; i < nodes.size(); i++) {
+			NetworkInterface ifc = nodeInterfaces.get(i);
+			if(ifc == null)
+				continue;
+
+			int host = nodeHosts.get(i);
+			Set<String> names = interfaceNames.get(host);
+			if(names == null) {
+				names = new HashSet<>();
+				if(hosts.get(host) != null)
+					for(NetworkInterface existing : hosts.get(host).getInterfaces())
+						names.add(existing.getName());
+				interfaceNames.put(host, names);
+			}
+			if(!names.add(ifc.getName()))
+				throw new NetworkException("A host cannot have two interfaces with the same name (" + ifc.getName() + " on " + hostNames.get(host) + ")");
+
+			IPAddress ip = ifc.getIPAddress();
+			if(ip.equals(undefinedIP))
+				continue;
+			if(network.containsIPAddress(ip) || !ips.add(ip))
+				throw new NetworkException("A given IP address can only be present once in a network (" + ip + " already present)");
+			MACAddress mac = ifc.getMACAddress();
+			if(network.containsMACAddress(mac) || !macs.add(mac))
+				throw new NetworkException("A given MAC address can only be present once in a network (" + mac + " already present)");
+		}
+
+		// Links.
+		Set<Integer> upwardsConnected = new HashSet<>();
+		Set<Integer> downwardsConnected = new HashSet<>();
+		for(int i = 0; i < linkSources.size(); i++) {
+			int src = linkSources.get(i);
+			int dst = linkDestinations.get(i);
+			boolean srcIsInterface = isInterface(src);
+			boolean dstIsInterface = isInterface(dst);
+
+			if(srcIsInterface && dstIsInterface)
+				throw new NetworkException("It is not allowed to create a Link between two host interfaces");
+			if(srcIsInterface && (!upwardsConnected.add(src) || (nodes.get(src) != null && nodes.get(src).getLinkNode().getOutgoingConnections().size() > 0)))
+				throw new NetworkException(describeNode(src) + " is a host interface which has already an uplink");
+			if(dstIsInterface && (!downwardsConnected.add(dst) || (nodes.get(dst) != null && nodes.get(dst).getLinkNode().getIncomingConnections().size() > 0)))
+				throw new NetworkException(describeNode(dst) + " is a host interface which has already a downlink");
+
+			double[] queueSizes = linkQueueSizes.get(i);
+			double[] weights = linkWeights.get(i);
+			if(queueSizes.length < 1)
+				throw new NetworkException("Impossible to create a link with less than one queue");
+			if(weights != null && weights.length != queueSizes.length)
+				throw new NetworkException("The array of queue sizes must be of same size as the array of weights");
+		}
+	}
+
+	/**
+	 * Creates the Scheduler (and its Queues) of a Link of the batch.
+	 * @param link handle of the Link.
+	 * @return the new Scheduler.
+	 */
+	Scheduler createScheduler(int link) {
+		double[] queueSizes = linkQueueSizes.get(link);
+		Queue[] queues = new Queue[queueSizes.length];
+		for(int i = 0; i < queues.length; i++)
+			queues[i] = new Queue(queueSizes[i]);
+
+		switch(linkPolicies.get(link)) {
+			case PRIORITY:
+				return new PriorityScheduler(queues);
+			case WFQ:
+				return new WFQScheduler(queues, linkWeights.get(link));
+			default:
+				return new Scheduler(queues);
+		}
+	}
+
+	/**
+	 * Tells whether a Node of the batch represents a NetworkInterface.
+	 * @param node handle of the Node.
+	 * @return true if the Node is a new or existing NetworkInterface Node.
+	 */
+	private boolean isInterface(int node) {
+		if(nodeInterfaces.get(node) != null)
+			return true;
+		NetworkNode existing = nodes.get(node);
+		return existing != null && network.getHostNodesToHost().containsKey(existing);
+	}
+
+	/**
+	 * Gets a human-readable description of a Node of the batch.
+	 * @param node handle of the Node.
+	 * @return the description.
+	 */
+	private String describeNode(int node) {
+		if(nodes.get(node) != null)
+			return nodes.get(node).toString();
+		return "Node #" + node + " (" + nodeNames.get(node) + ")";
+	}
+
+	private int addNodeSpec(String name, NetworkNode node, int host, NetworkInterface ifc) {
+		nodeNames.add(name);
+		nodes.add(node);
+		nodeHosts.add(host);
+		nodeInterfaces.add(ifc);
+		return nodes.size() - 1;
+	}
+
+	private int addLinkSpec(int src, int dst, double rate, double delay, double[] queueSizes, double[] weights, SchedulingPolicy policy) {
+		checkNotCommitted();
+		checkHandle(src, nodes.size(), "Node");
+		checkHandle(dst, nodes.size(), "Node");
+		linkSources.add(src);
+		linkDestinations.add(dst);
+		linkRates.add(rate);
+		linkDelays.add(delay);
+		linkQueueSizes.add(queueSizes);
+		linkWeights.add(weights);
+		linkPolicies.add(policy);
+		return linkSources.size() - 1;
+	}
+
+	private void checkNotCommitted() {
+		if(committed)
+			throw new NetworkException("The batch has already been committed");
+	}
+
+	private static void checkHandle(int handle, int size, String type) {
+		if(handle < 0 || handle >= size)
+			throw new NetworkException("Invalid " + type + " handle: " + handle);
+	}
+}
@@ -0,0 +1,255 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.network.util.PersistentLongMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Immutable point-in-time view of a Network: its NetworkNodes, its Links and
+ * the values of their Rate, Delay, Scheduler and Queues (see LinkSnapshot).
+ * The link-level Graph corresponds to the NetworkNodes and the Links, the
+ * queue-level Graph to the NetworkNodes and the Queues of the Links.
+ *
+ * A snapshot can be read by any number of threads without any lock, while
+ * the Network keeps being modified. Consecutive snapshots share all the
+ * unchanged parts of their state, so that a snapshot only costs the changes
+ * since the previous one (see Network.snapshot()).
+ *
+ * @author Amaury Van Bemten
+ */
+public final class TopologySnapshot {
+	/**
+	 * Network of the snapshot.
+	 */
+	private final Network network;
+
+	/**
+	 * Version of the snapshot (incremented at each snapshot with changes).
+	 */
+	private final long version;
+
+	/**
+	 * NetworkNodes and their adjacencies, by NetworkNode Entity ID.
+	 */
+	private final PersistentLongMap<NodeEntry> nodes;
+
+	/**
+	 * States of the Links, by Link Entity ID.
+	 */
+	private final PersistentLongMap<LinkSnapshot> links;
+
+	TopologySnapshot(Network network, long version, PersistentLongMap<NodeEntry> nodes, PersistentLongMap<LinkSnapshot> links) {
+		this.network = network;
+		this.version = version;
+		this.nodes = nodes;
+		this.links = links;
+	}
+
+	/**
+	 * Gets the Network of the snapshot.
+	 * @return the Network.
+	 */
+	public Network getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Gets the version of the snapshot. Two snapshots of a Network with the
+	 * same version are identical.
+	 * @return the version.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the number of NetworkNodes.
+	 * @return the number of NetworkNodes.
+	 */
+	public int getNumberOfNodes() {
+		return nodes.size();
+	}
+
+	/**
+	 * Gets the number of Links.
+	 * @return the number of Links.
+	 */
+	public int getNumberOfLinks() {
+		return links.size();
+	}
+
+	/**
+	 * Tells whether a NetworkNode is in the snapshot.
+	 * @param node NetworkNode.
+	 * @return true if it is.
+	 */
+	public boolean contains(NetworkNode node) {
+		return nodes.containsKey(node.getEntity().getId());
+	}
+
+	/**
+	 * Tells whether a Link is in the snapshot.
+	 * @param link Link.
+	 * @return true if it is.
+	 */
+	public boolean contains(Link link) {
+		return links.containsKey(link.getEntity().getId());
+	}
+
+	/**
+	 * Gets the state of a Link.
+	 * @param link Link.
+	 * @return the state or null if the Link is not in the snapshot.
+	 */
+	public LinkSnapshot getLink(Link link) {
+		return links.get(link.getEntity().getId());
+	}
+
+	/**
+	 * Gets the Links leaving a NetworkNode.
+	 * @param node NetworkNode.
+	 * @return the states of the Links (empty if the NetworkNode is not in
+	 *         the snapshot).
+	 */
+	public List<LinkSnapshot> getOutgoingLinks(NetworkNode node) {
+		NodeEntry entry = nodes.get(node.getEntity().getId());
+		return entry == null ? Collections.emptyList() : getLinks(entry.outgoing);
+	}
+
+	/**
+	 * Gets the Links arriving at a NetworkNode.
+	 * @param node NetworkNode.
+	 * @return the states of the Links (empty if the NetworkNode is not in
+	 *         the snapshot).
+	 */
+	public List<LinkSnapshot> getIncomingLinks(NetworkNode node) {
+		NodeEntry entry = nodes.get(node.getEntity().getId());
+		return entry == null ? Collections.emptyList() : getLinks(entry.incoming);
+	}
+
+	/**
+	 * Calls a function for each NetworkNode, in no particular order.
+	 * @param action function.
+	 */
+	public void forEachNode(Consumer<? super NetworkNode> action) {
+		nodes.forEachValue(entry -> action.accept(entry.node));
+	}
+
+	/**
+	 * Calls a function for each Link, in no particular order.
+	 * @param action function.
+	 */
+	public void forEachLink(Consumer<? super LinkSnapshot> action) {
+		links.forEachValue(action);
+	}
+
+	/**
+	 * Gets all the NetworkNodes.
+	 * @return the NetworkNodes, in no particular order.
+	 */
+	public List<NetworkNode> getNodes() {
+		List<NetworkNode> result = new ArrayList<>(nodes.size());
+		forEachNode(result::add);
+		return result;
+	}
+
+	/**
+	 * Gets the states of all the Links.
+	 * @return the states of the Links, in no particular order.
+	 */
+	public List<LinkSnapshot> getLinks() {
+		List<LinkSnapshot> result = new ArrayList<>(links.size());
+		forEachLink(result::add);
+		return result;
+	}
+
+	/**
+	 * Gets the NetworkNodes and their adjacencies.
+	 * @return the map of the NetworkNodes.
+	 */
+	PersistentLongMap<NodeEntry> getNodeEntries() {
+		return nodes;
+	}
+
+	/**
+	 * Gets the states of the Links.
+	 * @return the map of the Links.
+	 */
+	PersistentLongMap<LinkSnapshot> getLinkEntries() {
+		return links;
+	}
+
+	/**
+	 * Gets the states of Links.
+	 * @param ids Link Entity IDs.
+	 * @return the states.
+	 */
+	private List<LinkSnapshot> getLinks(long[] ids) {
+		List<LinkSnapshot> result = new ArrayList<>(ids.length);
+		for(long id : ids)
+			result.add(links.get(id));
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "Snapshot " + version + " of " + network + " (" + nodes.size() + " nodes, " + links.size() + " links)";
+	}
+
+	/**
+	 * NetworkNode with the Entity IDs of its outgoing and incoming Links.
+	 */
+	static final class NodeEntry {
+		/**
+		 * NetworkNode.
+		 */
+		final NetworkNode node;
+
+		/**
+		 * Entity IDs of the outgoing Links.
+		 */
+		final long[] outgoing;
+
+		/**
+		 * Entity IDs of the incoming Links.
+		 */
+		final long[] incoming;
+
+		NodeEntry(NetworkNode node, long[] outgoing, long[] incoming) {
+			this.node = node;
+			this.outgoing = outgoing;
+			this.incoming = incoming;
+		}
+
+		/**
+		 * Gets the entry with an additional or one less Link.
+		 * @param link Link Entity ID.
+		 * @param out true for an outgoing Link, false for an incoming one.
+		 * @param add true to add the Link, false to remove it.
+		 * @return the new entry.
+		 */
+		NodeEntry with(long link, boolean out, boolean add) {
+			long[] ids = out ? outgoing : incoming;
+			long[] updated;
+			if(add) {
+				updated = new long[ids.length + 1];
+				System.arraycopy(ids, 0, updated, 0, ids.length);
+				updated[ids.length] = link;
+			}
+			else {
+				int index = 0;
+				while(index < ids.length && ids[index] != link)
+					index++;
+				if(index == ids.length)
+					return this;
+				updated = new long[ids.length - 1];
+				System.arraycopy(ids, 0, updated, 0, index);
+				System.arraycopy(ids, index + 1, updated, index, updated.length - index);
+			}
+			return out ? new NodeEntry(node, updated, incoming) : new NodeEntry(node, outgoing, updated);
+		}
+	}
+}
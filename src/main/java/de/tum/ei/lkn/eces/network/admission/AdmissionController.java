@@ -0,0 +1,458 @@
+package de.tum.ei.lkn.eces.network.admission;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.Host;
+import de.tum.ei.lkn.eces.network.Link;
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.Queue;
+import de.tum.ei.lkn.eces.network.calculus.EndToEndAnalysis;
+import de.tum.ei.lkn.eces.network.calculus.HopBound;
+import de.tum.ei.lkn.eces.network.calculus.PerHopAnalysis;
+import de.tum.ei.lkn.eces.network.calculus.TokenBucket;
+import de.tum.ei.lkn.eces.network.compact.CompactTopology;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.mappers.ReservationMapper;
+import de.tum.ei.lkn.eces.network.mappers.SchedulerMapper;
+import de.tum.ei.lkn.eces.network.routing.Path;
+import de.tum.ei.lkn.eces.network.routing.ShortestPathEngine;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+import de.tum.ei.lkn.eces.network.util.OrderedLockStripes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control of flows with worst-case delay guarantees in a Network.
+ *
+ * For each request, candidate paths between the Interfaces of the source
+ * Host and the Interfaces of the destination Host are computed on the
+ * queue-level Graph, using a given Queue position on every Link (see
+ * ShortestPathEngine). The first candidate on which the flow can be added
+ * is used. The flow can be added
+ * if, once its arrival curve is added to the Queues of the path,
+ * - its end-to-end delay bound (see EndToEndAnalysis) meets its deadline;
+ * - no used Queue of the Links of the path is overloaded and no backlog
+ *   bound exceeds the size of its Queue;
+ * - the Reservations of the Queues (if the Network has reservations) accept
+ *   the flow;
+ * - the flows already admitted on the Links of the path (whose Queues get
+ *   more cross traffic) still meet their deadlines.
+ * Admitted flows are kept in a FlowRegistry until they are released.
+ *
+ * The arrival curve of a flow is added, as given at its ingress, to all
+ * the Queues of its path: the growth of its burst along the path is not
+ * propagated. The delay bounds are therefore optimistic for cross traffic
+ * traversing several hops (see EndToEndAnalysis).
+ *
+ * Admissions are concurrent: each Link is mapped to one of a fixed number
+ * of lock stripes and a request only locks the stripes of the Links of the
+ * candidate path it is checking and of the paths of the flows already
+ * admitted on these Links. Flows on disjoint paths are hence admitted in
+ * parallel. Conflicting requests are ordered deterministically: each call
+ * to admit() or release() takes a ticket when it starts and requests
+ * needing a common stripe get it in the order of their tickets, i.e., in
+ * the order in which they were called (see OrderedLockStripes).
+ *
+ * Paths are computed on a snapshot of the Network, which must be refreshed
+ * with refreshTopology() after topology changes.
+ *
+ * @author Amaury Van Bemten
+ */
+public class AdmissionController {
+	/**
+	 * Number of lock stripes (power of two).
+	 */
+	private static final int STRIPES = 1024;
+
+	/**
+	 * Network in which flows are admitted.
+	 */
+	private final Network network;
+
+	/**
+	 * Analyses providing the delay bounds and storing the arrival curves of
+	 * the Queues.
+	 */
+	private final PerHopAnalysis perHopAnalysis;
+	private final EndToEndAnalysis endToEndAnalysis;
+
+	/**
+	 * Position of the Queue used by the flows on each Link.
+	 */
+	private final int queuePosition;
+
+	/**
+	 * Maximum number of candidate paths checked per request.
+	 */
+	private volatile int candidatePaths = 3;
+
+	/**
+	 * Snapshot of the Network used for path computations.
+	 */
+	private volatile CompactTopology topology;
+
+	/**
+	 * Path computation engine of each thread.
+	 */
+	private final ThreadLocal<ShortestPathEngine> engines = new ThreadLocal<>();
+
+	/**
+	 * Lock stripes of the Links, granted in the order of the requests.
+	 */
+	private final OrderedLockStripes locks = new OrderedLockStripes(STRIPES);
+
+	/**
+	 * Admitted flows.
+	 */
+	private final FlowRegistry flowRegistry = new FlowRegistry();
+
+	/**
+	 * Identifier of the next admitted flow.
+	 */
+	private final AtomicInteger nextId = new AtomicInteger();
+
+	/**
+	 * Controller of the NetworkingSystem.
+	 */
+	private final Controller controller;
+
+	// Mappers
+	private final ReservationMapper reservationMapper;
+	private final SchedulerMapper schedulerMapper;
+
+	/**
+	 * Creates a new admission controller.
+	 * @param controller Controller of the NetworkingSystem.
+	 * @param network Network in which flows are admitted.
+	 * @param perHopAnalysis analysis used for the delay bounds (its arrival
+	 *                       curves are updated with the admitted flows).
+	 * @param queuePosition position of the Queue used by the flows on each
+	 *                      Link.
+	 */
+	public AdmissionController(Controller controller, Network network, PerHopAnalysis perHopAnalysis, int queuePosition) {
+		this.controller = controller;
+		this.network = network;
+		this.perHopAnalysis = perHopAnalysis;
+		this.endToEndAnalysis = new EndToEndAnalysis(controller, perHopAnalysis);
+		this.queuePosition = queuePosition;
+		this.reservationMapper = new ReservationMapper(controller);
+		this.schedulerMapper = new SchedulerMapper(controller);
+		refreshTopology();
+	}
+
+	/**
+	 * Gets the analysis used for the delay bounds.
+	 * @return the per-hop analysis.
+	 */
+	public PerHopAnalysis getPerHopAnalysis() {
+		return perHopAnalysis;
+	}
+
+	/**
+	 * Gets the registry of the admitted flows, e.g., to find the flows
+	 * affected by the deletion of a Link or NetworkNode.
+	 * @return the flow registry.
+	 */
+	public FlowRegistry getFlowRegistry() {
+		return flowRegistry;
+	}
+
+	/**
+	 * Gets the position of the Queue used by the flows on each Link.
+	 * @return the Queue position.
+	 */
+	public int getQueuePosition() {
+		return queuePosition;
+	}
+
+	/**
+	 * Gets the maximum number of candidate paths checked per request.
+	 * @return the number of candidate paths.
+	 */
+	public int getCandidatePaths() {
+		return candidatePaths;
+	}
+
+	/**
+	 * Sets the maximum number of candidate paths checked per request.
+	 * @param candidatePaths number of candidate paths (at least 1).
+	 */
+	public void setCandidatePaths(int candidatePaths) {
+		if(candidatePaths < 1)
+			throw new IllegalArgumentException("At least one candidate path must be checked");
+		this.candidatePaths = candidatePaths;
+	}
+
+	/**
+	 * Takes a new snapshot of the Network for the path computations. Must be
+	 * called after Links or Nodes have been created or deleted.
+	 */
+	public void refreshTopology() {
+		topology = CompactTopology.build(controller, network);
+	}
+
+	/**
+	 * Admits a flow if possible.
+	 * @param request flow request.
+	 * @return the admitted flow or null if the flow cannot be admitted.
+	 * @throws NetworkException if a Host of the request is not in the
+	 *         Network.
+	 */
+	public Flow admit(FlowRequest request) {
+		if(request.getSource().getNetwork() != network || request.getDestination().getNetwork() != network)
+			throw new NetworkException("The hosts of " + request + " are not part of " + network);
+
+		long ticket = locks.nextTicket();
+		for(Path path : findPaths(request)) {
+			Flow flow = tryAdmit(request, path, ticket);
+			if(flow != null)
+				return flow;
+		}
+		return null;
+	}
+
+	/**
+	 * Releases the resources of an admitted flow.
+	 * @param flow flow.
+	 * @return false if the flow was not admitted by this controller or has
+	 *         already been released.
+	 */
+	public boolean release(Flow flow) {
+		long ticket = locks.nextTicket();
+		int[] stripes = getStripes(flow.getLinks());
+		locks.lock(ticket, stripes);
+		try {
+			if(!flowRegistry.unregister(flow))
+				return false;
+			TokenBucket arrivalCurve = flow.getRequest().getArrivalCurve();
+			for(int hop = 0; hop < flow.getNumberOfHops(); hop++) {
+				Edge queueEdge = flow.getQueueEdge(hop);
+				perHopAnalysis.removeArrivalCurve(queueEdge, arrivalCurve);
+				if(flow.isReserved())
+					reservationMapper.get(queueEdge.getEntity()).release(arrivalCurve.getRate(), arrivalCurve.getBurst());
+			}
+			return true;
+		} finally {
+			locks.unlock(stripes);
+		}
+	}
+
+	/**
+	 * Computes the candidate paths of a request.
+	 * @param request flow request.
+	 * @return the candidate paths, by increasing weight.
+	 */
+	private List<Path> findPaths(FlowRequest request) {
+		ShortestPathEngine engine = getEngine();
+		CompactTopology snapshot = engine.getTopology();
+		int k = candidatePaths;
+		List<Path> paths = new ArrayList<>();
+		for(NetworkInterface sourceInterface : request.getSource().getInterfaces()) {
+			int source = getIndex(snapshot, request.getSource(), sourceInterface);
+			if(source < 0)
+				continue;
+			for(NetworkInterface destinationInterface : request.getDestination().getInterfaces()) {
+				int destination = getIndex(snapshot, request.getDestination(), destinationInterface);
+				if(destination >= 0)
+					paths.addAll(engine.getKShortestPaths(source, destination, k));
+			}
+		}
+		paths.sort(Comparator.comparingDouble(Path::getWeight));
+		return paths.size() > k ? paths.subList(0, k) : paths;
+	}
+
+	/**
+	 * Tries to admit a flow on a path.
+	 * @param request flow request.
+	 * @param path candidate path.
+	 * @param ticket ticket of the request.
+	 * @return the admitted flow or null if the flow cannot be admitted on the
+	 *         path.
+	 */
+	private Flow tryAdmit(FlowRequest request, Path path, long ticket) {
+		Link[] links = path.getLinks();
+		Edge[] queueEdges = path.getQueueEdges();
+		TokenBucket arrivalCurve = request.getArrivalCurve();
+
+		// The flows of the Links of the path can only change while the
+		// stripes of these Links are held: retry, with the same ticket, until
+		// the stripes of their paths have been locked too.
+		List<Flow> affected = getAffectedFlows(links);
+		int[] stripes = getStripes(links, affected);
+		while(true) {
+			locks.lock(ticket, stripes);
+			affected = getAffectedFlows(links);
+			int[] needed = getStripes(links, affected);
+			if(containsAll(stripes, needed))
+				break;
+			locks.unlock(stripes);
+			stripes = needed;
+		}
+
+		try {
+			for(Edge queueEdge : queueEdges)
+				perHopAnalysis.addArrivalCurve(queueEdge, arrivalCurve);
+
+			double delayBound = endToEndAnalysis.getDelayBound(queueEdges, arrivalCurve, true);
+			boolean reserved = network.hasReservations();
+			if(delayBound <= request.getDeadline() && areQueuesValid(links) && meetDeadlines(affected) && (!reserved || reserve(queueEdges, arrivalCurve))) {
+				Flow flow = new Flow(nextId.getAndIncrement(), request, links, queueEdges, delayBound, reserved);
+				flowRegistry.register(flow);
+				return flow;
+			}
+
+			for(Edge queueEdge : queueEdges)
+				perHopAnalysis.removeArrivalCurve(queueEdge, arrivalCurve);
+			return null;
+		} finally {
+			locks.unlock(stripes);
+		}
+	}
+
+	/**
+	 * Gets the admitted flows traversing some Links.
+	 * @param links Links.
+	 * @return the distinct flows.
+	 */
+	private List<Flow> getAffectedFlows(Link[] links) {
+		Set<Flow> flows = new LinkedHashSet<>();
+		for(Link link : links)
+			flows.addAll(flowRegistry.getFlows(link));
+		return new ArrayList<>(flows);
+	}
+
+	/**
+	 * Checks that admitted flows meet their deadlines with the current
+	 * arrival curves of the Queues.
+	 * @param flows admitted flows.
+	 * @return true if all the flows meet their deadlines.
+	 */
+	private boolean meetDeadlines(List<Flow> flows) {
+		if(flows.isEmpty())
+			return true;
+		List<Edge[]> paths = new ArrayList<>(flows.size());
+		List<TokenBucket> arrivalCurves = new ArrayList<>(flows.size());
+		for(Flow flow : flows) {
+			paths.add(flow.getQueueEdges());
+			arrivalCurves.add(flow.getRequest().getArrivalCurve());
+		}
+		double[] delayBounds = endToEndAnalysis.getDelayBounds(paths, arrivalCurves, true);
+		for(int i = 0; i < delayBounds.length; i++)
+			if(delayBounds[i] > flows.get(i).getRequest().getDeadline())
+				return false;
+		return true;
+	}
+
+	/**
+	 * Checks that no used Queue of some Links is overloaded or has a backlog
+	 * bound exceeding its size.
+	 * @param links Links.
+	 * @return true if all the Queues are valid.
+	 */
+	private boolean areQueuesValid(Link[] links) {
+		for(Link link : links) {
+			HopBound[] bounds = perHopAnalysis.getBounds(link);
+			Queue[] queues = schedulerMapper.get(link.getLinkEdge().getEntity()).getQueues();
+			for(int i = 0; i < bounds.length; i++) {
+				if(bounds[i].getArrivalCurve().equals(TokenBucket.ZERO))
+					continue;
+				if(bounds[i].getDelayBound() == Double.POSITIVE_INFINITY || bounds[i].getBacklogBound() > queues[i].getSize())
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reserves the resources of a flow in the Reservations of Queues.
+	 * @param queueEdges queue-level Edges.
+	 * @param arrivalCurve arrival curve of the flow.
+	 * @return false if a Reservation refused the flow (nothing is then
+	 *         reserved).
+	 */
+	private boolean reserve(Edge[] queueEdges, TokenBucket arrivalCurve) {
+		for(int i = 0; i < queueEdges.length; i++) {
+			if(!reservationMapper.get(queueEdges[i].getEntity()).reserve(arrivalCurve.getRate(), arrivalCurve.getBurst())) {
+				for(int j = 0; j < i; j++)
+					reservationMapper.get(queueEdges[j].getEntity()).release(arrivalCurve.getRate(), arrivalCurve.getBurst());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the path computation engine of the current thread for the current
+	 * snapshot.
+	 * @return the engine.
+	 */
+	private ShortestPathEngine getEngine() {
+		CompactTopology current = topology;
+		ShortestPathEngine engine = engines.get();
+		if(engine == null || engine.getTopology() != current) {
+			engine = new ShortestPathEngine(current, perHopAnalysis.getMaxPacketSize(), queuePosition);
+			engines.set(engine);
+		}
+		return engine;
+	}
+
+	/**
+	 * Gets the index of the NetworkNode of an Interface in a snapshot.
+	 * @param snapshot snapshot.
+	 * @param host Host.
+	 * @param networkInterface Interface of the Host.
+	 * @return the index or -1 if the Interface is not in the snapshot.
+	 */
+	private static int getIndex(CompactTopology snapshot, Host host, NetworkInterface networkInterface) {
+		NetworkNode node = host.getNetworkNode(networkInterface);
+		return node == null ? -1 : snapshot.getNodeIndex(node);
+	}
+
+	/**
+	 * Gets the sorted lock stripes of the Links of a path and of the paths
+	 * of flows.
+	 * @param links Links of the path.
+	 * @param flows flows.
+	 * @return the distinct stripes, in ascending order.
+	 */
+	private int[] getStripes(Link[] links, List<Flow> flows) {
+		if(flows.isEmpty())
+			return getStripes(links);
+		List<Link> all = new ArrayList<>(Arrays.asList(links));
+		for(Flow flow : flows)
+			all.addAll(Arrays.asList(flow.getLinks()));
+		return getStripes(all.toArray(new Link[0]));
+	}
+
+	/**
+	 * Gets the sorted lock stripes of Links.
+	 * @param links Links.
+	 * @return the distinct stripes, in ascending order.
+	 */
+	private int[] getStripes(Link[] links) {
+		long[] ids = new long[links.length];
+		for(int i = 0; i < links.length; i++)
+			ids[i] = links[i].getEntity().getId();
+		return locks.getStripes(ids);
+	}
+
+	/**
+	 * Tells whether sorted stripes contain other sorted stripes.
+	 * @param stripes stripes, in ascending order.
+	 * @param others stripes, in ascending order.
+	 * @return true if all the others are in the stripes.
+	 */
+	private static boolean containsAll(int[] stripes, int[] others) {
+		for(int stripe : others)
+			if(Arrays.binarySearch(stripes, stripe) < 0)
+				return false;
+		return true;
+	}
+}
@@ -0,0 +1,133 @@
+package de.tum.ei.lkn.eces.network.admission;
+
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.Link;
+
+import java.util.Arrays;
+
+/**
+ * Flow admitted by an AdmissionController.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class Flow {
+	/**
+	 * Identifier of the flow (unique per AdmissionController).
+	 */
+	private final int id;
+
+	/**
+	 * Request of the flow.
+	 */
+	private final FlowRequest request;
+
+	/**
+	 * Links of the path of the flow.
+	 */
+	private final Link[] links;
+
+	/**
+	 * Queue-level Edges of the path of the flow.
+	 */
+	private final Edge[] queueEdges;
+
+	/**
+	 * End-to-end delay bound at admission time (s).
+	 */
+	private final double delayBound;
+
+	/**
+	 * Whether resources were reserved in the Reservations of the Queues.
+	 */
+	private final boolean reserved;
+
+	Flow(int id, FlowRequest request, Link[] links, Edge[] queueEdges, double delayBound, boolean reserved) {
+		this.id = id;
+		this.request = request;
+		this.links = links;
+		this.queueEdges = queueEdges;
+		this.delayBound = delayBound;
+		this.reserved = reserved;
+	}
+
+	/**
+	 * Gets the identifier of the flow.
+	 * @return the identifier.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the request of the flow.
+	 * @return the request.
+	 */
+	public FlowRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * Gets the Links of the path of the flow.
+	 * @return a copy of the Links, from the source to the destination.
+	 */
+	public Link[] getLinks() {
+		return Arrays.copyOf(links, links.length);
+	}
+
+	/**
+	 * Gets the queue-level Edges of the path of the flow.
+	 * @return a copy of the queue-level Edges, from the source to the
+	 *         destination.
+	 */
+	public Edge[] getQueueEdges() {
+		return Arrays.copyOf(queueEdges, queueEdges.length);
+	}
+
+	/**
+	 * Gets the number of hops of the path of the flow.
+	 * @return the number of Links.
+	 */
+	public int getNumberOfHops() {
+		return links.length;
+	}
+
+	/**
+	 * Gets a Link of the path of the flow.
+	 * @param hop hop (0 being the first Link).
+	 * @return the Link.
+	 */
+	public Link getLink(int hop) {
+		return links[hop];
+	}
+
+	/**
+	 * Gets a queue-level Edge of the path of the flow.
+	 * @param hop hop (0 being the first Link).
+	 * @return the queue-level Edge.
+	 */
+	public Edge getQueueEdge(int hop) {
+		return queueEdges[hop];
+	}
+
+	/**
+	 * Gets the end-to-end delay bound of the flow when it was admitted.
+	 * @return the delay bound (s).
+	 */
+	public double getDelayBound() {
+		return delayBound;
+	}
+
+	/**
+	 * Tells whether resources were reserved for the flow in the Reservations
+	 * of its Queues.
+	 * @return true if they were.
+	 */
+	boolean isReserved() {
+		return reserved;
+	}
+
+	@Override
+	public String toString() {
+		return "Flow " + id + " (" + request + ")";
+	}
+}
@@ -0,0 +1,222 @@
+package de.tum.ei.lkn.eces.network.admission;
+
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.Link;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.util.IntHashSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of admitted flows with reverse indices from the queue-level
+ * Edges, the Links and the NetworkNodes to the flows traversing them.
+ *
+ * The reverse indices are int sets of flow IDs keyed by Entity ID, so that
+ * the flows affected by the deletion of a Link or of a NetworkNode are found
+ * without scanning all the flows.
+ *
+ * The class is thread-safe.
+ *
+ * @author Amaury Van Bemten
+ */
+public class FlowRegistry {
+	/**
+	 * Registered flows, by ID.
+	 */
+	private final ConcurrentHashMap<Integer, Flow> flows = new ConcurrentHashMap<>();
+
+	/**
+	 * IDs of the flows traversing each queue-level Edge, by Edge Entity ID.
+	 */
+	private final ConcurrentHashMap<Long, IntHashSet> flowsByQueueEdge = new ConcurrentHashMap<>();
+
+	/**
+	 * IDs of the flows traversing each Link, by Link Entity ID.
+	 */
+	private final ConcurrentHashMap<Long, IntHashSet> flowsByLink = new ConcurrentHashMap<>();
+
+	/**
+	 * IDs of the flows traversing each NetworkNode, by link-level Node Entity
+	 * ID.
+	 */
+	private final ConcurrentHashMap<Long, IntHashSet> flowsByNode = new ConcurrentHashMap<>();
+
+	/**
+	 * Registers a flow.
+	 * @param flow flow.
+	 * @throws IllegalArgumentException if a flow with the same ID is already
+	 *         registered.
+	 */
+	public void register(Flow flow) {
+		if(flows.putIfAbsent(flow.getId(), flow) != null)
+			throw new IllegalArgumentException("A flow with ID " + flow.getId() + " is already registered");
+		for(int hop = 0; hop < flow.getNumberOfHops(); hop++) {
+			Link link = flow.getLink(hop);
+			add(flowsByQueueEdge, flow.getQueueEdge(hop).getEntity().getId(), flow.getId());
+			add(flowsByLink, link.getEntity().getId(), flow.getId());
+			add(flowsByNode, link.getLinkEdge().getSource().getEntity().getId(), flow.getId());
+			add(flowsByNode, link.getLinkEdge().getDestination().getEntity().getId(), flow.getId());
+		}
+	}
+
+	/**
+	 * Unregisters a flow.
+	 * @param flow flow.
+	 * @return false if the flow was not registered.
+	 */
+	public boolean unregister(Flow flow) {
+		if(!flows.remove(flow.getId(), flow))
+			return false;
+		for(int hop = 0; hop < flow.getNumberOfHops(); hop++) {
+			Link link = flow.getLink(hop);
+			remove(flowsByQueueEdge, flow.getQueueEdge(hop).getEntity().getId(), flow.getId());
+			remove(flowsByLink, link.getEntity().getId(), flow.getId());
+			remove(flowsByNode, link.getLinkEdge().getSource().getEntity().getId(), flow.getId());
+			remove(flowsByNode, link.getLinkEdge().getDestination().getEntity().getId(), flow.getId());
+		}
+		return true;
+	}
+
+	/**
+	 * Gets a registered flow.
+	 * @param id ID of the flow.
+	 * @return the flow or null if no flow has this ID.
+	 */
+	public Flow getFlow(int id) {
+		return flows.get(id);
+	}
+
+	/**
+	 * Gets all the registered flows.
+	 * @return an unmodifiable view of the flows.
+	 */
+	public Collection<Flow> getFlows() {
+		return Collections.unmodifiableCollection(flows.values());
+	}
+
+	/**
+	 * Gets the number of registered flows.
+	 * @return the number of flows.
+	 */
+	public int size() {
+		return flows.size();
+	}
+
+	/**
+	 * Gets the IDs of the flows traversing a queue-level Edge.
+	 * @param queueEdge queue-level Edge.
+	 * @return the flow IDs, in no particular order.
+	 */
+	public int[] getFlowIds(Edge queueEdge) {
+		return ids(flowsByQueueEdge, queueEdge.getEntity().getId());
+	}
+
+	/**
+	 * Gets the IDs of the flows traversing a Link.
+	 * @param link Link.
+	 * @return the flow IDs, in no particular order.
+	 */
+	public int[] getFlowIds(Link link) {
+		return ids(flowsByLink, link.getEntity().getId());
+	}
+
+	/**
+	 * Gets the IDs of the flows traversing a NetworkNode (including the flows
+	 * starting or ending there).
+	 * @param node NetworkNode.
+	 * @return the flow IDs, in no particular order.
+	 */
+	public int[] getFlowIds(NetworkNode node) {
+		return ids(flowsByNode, node.getLinkNode().getEntity().getId());
+	}
+
+	/**
+	 * Gets the flows traversing a queue-level Edge.
+	 * @param queueEdge queue-level Edge.
+	 * @return the flows, in no particular order.
+	 */
+	public List<Flow> getFlows(Edge queueEdge) {
+		return flows(getFlowIds(queueEdge));
+	}
+
+	/**
+	 * Gets the flows traversing a Link.
+	 * @param link Link.
+	 * @return the flows, in no particular order.
+	 */
+	public List<Flow> getFlows(Link link) {
+		return flows(getFlowIds(link));
+	}
+
+	/**
+	 * Gets the flows traversing a NetworkNode (including the flows starting
+	 * or ending there).
+	 * @param node NetworkNode.
+	 * @return the flows, in no particular order.
+	 */
+	public List<Flow> getFlows(NetworkNode node) {
+		return flows(getFlowIds(node));
+	}
+
+	/**
+	 * Adds a flow ID to an index.
+	 * @param index index.
+	 * @param key Entity ID.
+	 * @param id flow ID.
+	 */
+	private static void add(ConcurrentHashMap<Long, IntHashSet> index, long key, int id) {
+		index.compute(key, (k, set) -> {
+			if(set == null)
+				set = new IntHashSet();
+			set.add(id);
+			return set;
+		});
+	}
+
+	/**
+	 * Removes a flow ID from an index.
+	 * @param index index.
+	 * @param key Entity ID.
+	 * @param id flow ID.
+	 */
+	private static void remove(ConcurrentHashMap<Long, IntHashSet> index, long key, int id) {
+		index.computeIfPresent(key, (k, set) -> {
+			set.remove(id);
+			return set.isEmpty() ? null : set;
+		});
+	}
+
+	/**
+	 * Gets the flow IDs of an index entry.
+	 * @param index index.
+	 * @param key Entity ID.
+	 * @return the flow IDs.
+	 */
+	private static int[] ids(ConcurrentHashMap<Long, IntHashSet> index, long key) {
+		int[][] result = new int[1][];
+		index.computeIfPresent(key, (k, set) -> {
+			result[0] = set.toArray();
+			return set;
+		});
+		return result[0] == null ? new int[0] : result[0];
+	}
+
+	/**
+	 * Gets the flows of IDs.
+	 * @param ids flow IDs.
+	 * @return the flows still registered.
+	 */
+	private List<Flow> flows(int[] ids) {
+		List<Flow> result = new ArrayList<>(ids.length);
+		for(int id : ids) {
+			Flow flow = flows.get(id);
+			if(flow != null)
+				result.add(flow);
+		}
+		return result;
+	}
+}
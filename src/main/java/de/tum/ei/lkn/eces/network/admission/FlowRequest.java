@@ -0,0 +1,104 @@
+package de.tum.ei.lkn.eces.network.admission;
+
+import de.tum.ei.lkn.eces.network.Host;
+import de.tum.ei.lkn.eces.network.calculus.TokenBucket;
+
+/**
+ * Request for the admission of a flow between two Hosts, constrained by a
+ * token bucket and requiring a worst-case end-to-end delay.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class FlowRequest {
+	/**
+	 * Source Host.
+	 */
+	private final Host source;
+
+	/**
+	 * Destination Host.
+	 */
+	private final Host destination;
+
+	/**
+	 * Arrival curve of the flow.
+	 */
+	private final TokenBucket arrivalCurve;
+
+	/**
+	 * Maximum end-to-end delay (s).
+	 */
+	private final double deadline;
+
+	/**
+	 * Creates a new flow request.
+	 * @param source source Host.
+	 * @param destination destination Host.
+	 * @param rate rate of the flow in bytes/s.
+	 * @param burst burst of the flow in bytes.
+	 * @param deadline maximum end-to-end delay in s.
+	 */
+	public FlowRequest(Host source, Host destination, double rate, double burst, double deadline) {
+		if(source == destination)
+			throw new IllegalArgumentException("The source and destination of a flow must be different");
+		if(!(deadline > 0))
+			throw new IllegalArgumentException("Invalid deadline: " + deadline);
+		this.source = source;
+		this.destination = destination;
+		this.arrivalCurve = new TokenBucket(burst, rate);
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Gets the source Host.
+	 * @return the source Host.
+	 */
+	public Host getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the destination Host.
+	 * @return the destination Host.
+	 */
+	public Host getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the rate of the flow.
+	 * @return rate in bytes/s.
+	 */
+	public double getRate() {
+		return arrivalCurve.getRate();
+	}
+
+	/**
+	 * Gets the burst of the flow.
+	 * @return burst in bytes.
+	 */
+	public double getBurst() {
+		return arrivalCurve.getBurst();
+	}
+
+	/**
+	 * Gets the arrival curve of the flow.
+	 * @return the token bucket of the flow.
+	 */
+	public TokenBucket getArrivalCurve() {
+		return arrivalCurve;
+	}
+
+	/**
+	 * Gets the maximum end-to-end delay.
+	 * @return deadline in s.
+	 */
+	public double getDeadline() {
+		return deadline;
+	}
+
+	@Override
+	public String toString() {
+		return source + " -> " + destination + " (" + arrivalCurve + ", " + deadline + " s)";
+	}
+}
@@ -0,0 +1,147 @@
+package de.tum.ei.lkn.eces.network.calculus;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.mappers.DelayMapper;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end network-calculus analysis of flows along paths of queue-level
+ * Edges, using the pay-bursts-only-once (PBOO) principle.
+ *
+ * At each hop, the service left to the flow is the service curve of its
+ * Queue (see PerHopAnalysis) minus the arrival curve of the Queue, i.e., of
+ * the other flows of the Queue (blind multiplexing). The left-over service
+ * curves are concatenated (minimum rate, sum of the latencies), so that the
+ * burst of the flow is only paid once, and the propagation Delays of the
+ * Links are added. The bound is tighter than the sum of the per-hop bounds.
+ *
+ * Assumption: the cross traffic of a hop is the arrival curve of its Queue
+ * as given to the PerHopAnalysis. The AdmissionController sets it to the
+ * sum of the token buckets of the flows at their ingress, i.e., the bursts
+ * of the cross flows are not propagated (b + r * T after a hop of latency
+ * T). For cross flows which traverse other hops before a Queue, the bounds
+ * are hence optimistic, not worst-case. Strict bounds require arrival
+ * curves which already include the burst increases of the upstream hops.
+ *
+ * @author Amaury Van Bemten
+ */
+public class EndToEndAnalysis {
+	/**
+	 * Per-hop analysis providing the service and arrival curves of the
+	 * Queues.
+	 */
+	private final PerHopAnalysis perHopAnalysis;
+
+	// Mappers
+	private final DelayMapper delayMapper;
+
+	/**
+	 * Creates a new analysis.
+	 * @param controller Controller of the NetworkingSystem.
+	 * @param perHopAnalysis per-hop analysis providing the service and arrival
+	 *                       curves of the Queues.
+	 */
+	public EndToEndAnalysis(Controller controller, PerHopAnalysis perHopAnalysis) {
+		this.perHopAnalysis = perHopAnalysis;
+		this.delayMapper = new DelayMapper(controller);
+	}
+
+	/**
+	 * Gets the per-hop analysis used.
+	 * @return the per-hop analysis.
+	 */
+	public PerHopAnalysis getPerHopAnalysis() {
+		return perHopAnalysis;
+	}
+
+	/**
+	 * Computes the end-to-end service curve offered to a flow along a path.
+	 * @param path queue-level Edges of the path.
+	 * @param flow arrival curve of the flow.
+	 * @param flowIncluded whether the flow is already part of the arrival
+	 *                     curves of the Queues (it is then removed from the
+	 *                     cross traffic).
+	 * @return the service curve (without the propagation Delays).
+	 */
+	public RateLatency getServiceCurve(Edge[] path, TokenBucket flow, boolean flowIncluded) {
+		RateLatency service = null;
+		for(Edge queueEdge : path) {
+			TokenBucket crossTraffic = perHopAnalysis.getArrivalCurve(queueEdge);
+			if(flowIncluded)
+				crossTraffic = crossTraffic.subtract(flow);
+			RateLatency hop = perHopAnalysis.getBound(queueEdge).getServiceCurve().leftOver(crossTraffic);
+			service = service == null ? hop : service.concatenate(hop);
+		}
+		return service == null ? new RateLatency(Double.POSITIVE_INFINITY, 0) : service;
+	}
+
+	/**
+	 * Computes the sum of the propagation Delays of the Links of a path.
+	 * @param path queue-level Edges of the path.
+	 * @return the propagation delay (s).
+	 */
+	public double getPropagationDelay(Edge[] path) {
+		double delay = 0;
+		for(Edge queueEdge : path)
+			delay += delayMapper.get(perHopAnalysis.getLink(queueEdge).getLinkEdge().getEntity()).getDelay();
+		return delay;
+	}
+
+	/**
+	 * Computes the worst-case end-to-end delay of a flow which is not part of
+	 * the arrival curves of the Queues yet (e.g., before its admission).
+	 * @param path queue-level Edges of the path.
+	 * @param flow arrival curve of the flow.
+	 * @return the delay bound (s), infinite if a Queue would be overloaded.
+	 */
+	public double getDelayBound(Edge[] path, TokenBucket flow) {
+		return getDelayBound(path, flow, false);
+	}
+
+	/**
+	 * Computes the worst-case end-to-end delay of a flow.
+	 * @param path queue-level Edges of the path.
+	 * @param flow arrival curve of the flow.
+	 * @param flowIncluded whether the flow is already part of the arrival
+	 *                     curves of the Queues.
+	 * @return the delay bound (s), infinite if a Queue is overloaded.
+	 */
+	public double getDelayBound(Edge[] path, TokenBucket flow, boolean flowIncluded) {
+		return getServiceCurve(path, flow, flowIncluded).getDelayBound(flow) + getPropagationDelay(path);
+	}
+
+	/**
+	 * Computes the worst-case end-to-end delays of flows in parallel, on the
+	 * common pool.
+	 * @param paths paths of the flows.
+	 * @param flows arrival curves of the flows.
+	 * @param flowsIncluded whether the flows are already part of the arrival
+	 *                      curves of the Queues.
+	 * @return the delay bounds (s), in the order of the flows.
+	 */
+	public double[] getDelayBounds(List<Edge[]> paths, List<TokenBucket> flows, boolean flowsIncluded) {
+		return getDelayBounds(paths, flows, flowsIncluded, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Computes the worst-case end-to-end delays of flows in parallel.
+	 * @param paths paths of the flows.
+	 * @param flows arrival curves of the flows.
+	 * @param flowsIncluded whether the flows are already part of the arrival
+	 *                      curves of the Queues.
+	 * @param pool pool on which the bounds are computed.
+	 * @return the delay bounds (s), in the order of the flows.
+	 */
+	public double[] getDelayBounds(List<Edge[]> paths, List<TokenBucket> flows, boolean flowsIncluded, ForkJoinPool pool) {
+		if(paths.size() != flows.size())
+			throw new IllegalArgumentException("There must be one arrival curve per path");
+		double[] bounds = new double[paths.size()];
+		pool.submit(() -> IntStream.range(0, bounds.length).parallel()
+				.forEach(i -> bounds[i] = getDelayBound(paths.get(i), flows.get(i), flowsIncluded))).join();
+		return bounds;
+	}
+}
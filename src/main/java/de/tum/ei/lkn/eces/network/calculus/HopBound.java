@@ -0,0 +1,80 @@
+package de.tum.ei.lkn.eces.network.calculus;
+
+/**
+ * Worst-case bounds of a Queue: the service curve offered to the Queue by
+ * its Scheduler, the aggregate arrival curve of the Queue and the resulting
+ * delay and backlog bounds. The propagation Delay of the Link is not
+ * included.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class HopBound {
+	/**
+	 * Service curve of the Queue.
+	 */
+	private final RateLatency serviceCurve;
+
+	/**
+	 * Arrival curve of the Queue.
+	 */
+	private final TokenBucket arrivalCurve;
+
+	/**
+	 * Delay bound (s).
+	 */
+	private final double delayBound;
+
+	/**
+	 * Backlog bound (bytes).
+	 */
+	private final double backlogBound;
+
+	/**
+	 * Creates the bounds of a Queue.
+	 * @param serviceCurve service curve of the Queue.
+	 * @param arrivalCurve arrival curve of the Queue.
+	 */
+	public HopBound(RateLatency serviceCurve, TokenBucket arrivalCurve) {
+		this.serviceCurve = serviceCurve;
+		this.arrivalCurve = arrivalCurve;
+		this.delayBound = serviceCurve.getDelayBound(arrivalCurve);
+		this.backlogBound = serviceCurve.getBacklogBound(arrivalCurve);
+	}
+
+	/**
+	 * Gets the service curve of the Queue.
+	 * @return the service curve.
+	 */
+	public RateLatency getServiceCurve() {
+		return serviceCurve;
+	}
+
+	/**
+	 * Gets the arrival curve of the Queue.
+	 * @return the arrival curve.
+	 */
+	public TokenBucket getArrivalCurve() {
+		return arrivalCurve;
+	}
+
+	/**
+	 * Gets the worst-case queuing and transmission delay.
+	 * @return the delay bound (s), infinite if the Queue is overloaded.
+	 */
+	public double getDelayBound() {
+		return delayBound;
+	}
+
+	/**
+	 * Gets the worst-case backlog.
+	 * @return the backlog bound (bytes), infinite if the Queue is overloaded.
+	 */
+	public double getBacklogBound() {
+		return backlogBound;
+	}
+
+	@Override
+	public String toString() {
+		return serviceCurve + " / " + arrivalCurve + ": " + delayBound + " s, " + backlogBound + " B";
+	}
+}
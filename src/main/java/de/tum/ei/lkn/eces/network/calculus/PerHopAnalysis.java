@@ -0,0 +1,397 @@
+package de.tum.ei.lkn.eces.network.calculus;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.core.Entity;
+import de.tum.ei.lkn.eces.core.MapperSpace;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.Link;
+import de.tum.ei.lkn.eces.network.Rate;
+import de.tum.ei.lkn.eces.network.Scheduler;
+import de.tum.ei.lkn.eces.network.WFQScheduler;
+import de.tum.ei.lkn.eces.network.mappers.LinkMapper;
+import de.tum.ei.lkn.eces.network.mappers.RateMapper;
+import de.tum.ei.lkn.eces.network.mappers.SchedulerMapper;
+import de.tum.ei.lkn.eces.network.mappers.ToNetworkMapper;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Network-calculus analysis of the Queues of the Links of a Network.
+ *
+ * Given a token-bucket arrival curve per Queue, the analysis computes the
+ * rate-latency service curve offered to each Queue by the Scheduler of its
+ * Link and the resulting worst-case delay and backlog bounds. For a Link of
+ * capacity C and packets of at most L bytes:
+ * - with a PriorityScheduler (or a plain Scheduler), the Queue at position
+ *   i gets R = C - (sum of the rates of the Queues 0 to i - 1) and
+ *   T = ((sum of the bursts of the Queues 0 to i - 1) + L) / R, the L term
+ *   (non-preemption) being dropped for the lowest priority;
+ * - with a WFQScheduler, the Queue at position i gets R = w_i * C, w_i being
+ *   its normalized weight, and T = L / R + L / C.
+ *
+ * The arrival curves are used as given, they are not derived from the
+ * upstream hops. In particular, the AdmissionController adds the token
+ * bucket of a flow at its ingress to every Queue of its path: the burst
+ * increase of the flow at each hop (b + r * T) is not propagated, so that
+ * the bounds of Queues with cross flows coming from other hops are
+ * optimistic (see EndToEndAnalysis).
+ *
+ * The bounds of all the Queues of a Link are computed together and cached.
+ * They are recomputed only when an arrival curve of the Link changes or when
+ * its Rate or Scheduler (component or weights) is replaced. invalidate()
+ * must be called after other in-place changes.
+ *
+ * The class is thread-safe.
+ *
+ * @author Amaury Van Bemten
+ */
+public class PerHopAnalysis {
+	/**
+	 * Maximum packet size (bytes).
+	 */
+	private final double maxPacketSize;
+
+	/**
+	 * State of the Links, by Link Entity ID.
+	 */
+	private final ConcurrentHashMap<Long, LinkState> links = new ConcurrentHashMap<>();
+
+	/**
+	 * Link and position of the queue-level Edges, by Edge Entity ID.
+	 */
+	private final ConcurrentHashMap<Long, QueueReference> queues = new ConcurrentHashMap<>();
+
+	// Mappers
+	private final LinkMapper linkMapper;
+	private final ToNetworkMapper toNetworkMapper;
+	private final RateMapper rateMapper;
+	private final SchedulerMapper schedulerMapper;
+
+	/**
+	 * Controller of the NetworkingSystem.
+	 */
+	private final Controller controller;
+
+	/**
+	 * Creates a new analysis.
+	 * @param controller Controller of the NetworkingSystem.
+	 * @param maxPacketSize maximum packet size in bytes.
+	 */
+	public PerHopAnalysis(Controller controller, double maxPacketSize) {
+		if(maxPacketSize < 0)
+			throw new IllegalArgumentException("Invalid maximum packet size: " + maxPacketSize);
+		this.controller = controller;
+		this.maxPacketSize = maxPacketSize;
+		this.linkMapper = new LinkMapper(controller);
+		this.toNetworkMapper = new ToNetworkMapper(controller);
+		this.rateMapper = new RateMapper(controller);
+		this.schedulerMapper = new SchedulerMapper(controller);
+	}
+
+	/**
+	 * Gets the maximum packet size.
+	 * @return maximum packet size in bytes.
+	 */
+	public double getMaxPacketSize() {
+		return maxPacketSize;
+	}
+
+	/**
+	 * Gets the bounds of a Queue.
+	 * @param queueEdge queue-level Edge of the Queue.
+	 * @return the bounds.
+	 */
+	public HopBound getBound(Edge queueEdge) {
+		QueueReference reference = resolve(queueEdge);
+		return reference.state.getBounds()[reference.position];
+	}
+
+	/**
+	 * Gets the bounds of a Queue.
+	 * @param link Link.
+	 * @param queue position of the Queue in the Scheduler of the Link.
+	 * @return the bounds.
+	 */
+	public HopBound getBound(Link link, int queue) {
+		return state(link).getBounds()[queue];
+	}
+
+	/**
+	 * Gets the bounds of all the Queues of a Link.
+	 * @param link Link.
+	 * @return the bounds, by Queue position.
+	 */
+	public HopBound[] getBounds(Link link) {
+		HopBound[] bounds = state(link).getBounds();
+		return Arrays.copyOf(bounds, bounds.length);
+	}
+
+	/**
+	 * Gets the Link of a Queue.
+	 * @param queueEdge queue-level Edge of the Queue.
+	 * @return the Link.
+	 */
+	Link getLink(Edge queueEdge) {
+		return resolve(queueEdge).state.link;
+	}
+
+	/**
+	 * Gets the arrival curve of a Queue.
+	 * @param queueEdge queue-level Edge of the Queue.
+	 * @return the arrival curve (TokenBucket.ZERO if none was set).
+	 */
+	public TokenBucket getArrivalCurve(Edge queueEdge) {
+		QueueReference reference = resolve(queueEdge);
+		return reference.state.getArrivalCurve(reference.position);
+	}
+
+	/**
+	 * Sets the arrival curve of a Queue.
+	 * @param queueEdge queue-level Edge of the Queue.
+	 * @param arrivalCurve aggregate arrival curve of the Queue.
+	 */
+	public void setArrivalCurve(Edge queueEdge, TokenBucket arrivalCurve) {
+		QueueReference reference = resolve(queueEdge);
+		reference.state.setArrivalCurve(reference.position, arrivalCurve);
+	}
+
+	/**
+	 * Adds traffic to the arrival curve of a Queue.
+	 * @param queueEdge queue-level Edge of the Queue.
+	 * @param arrivalCurve arrival curve of the added traffic.
+	 */
+	public void addArrivalCurve(Edge queueEdge, TokenBucket arrivalCurve) {
+		QueueReference reference = resolve(queueEdge);
+		synchronized(reference.state) {
+			reference.state.setArrivalCurve(reference.position, reference.state.getArrivalCurve(reference.position).add(arrivalCurve));
+		}
+	}
+
+	/**
+	 * Removes traffic from the arrival curve of a Queue.
+	 * @param queueEdge queue-level Edge of the Queue.
+	 * @param arrivalCurve arrival curve of the removed traffic.
+	 */
+	public void removeArrivalCurve(Edge queueEdge, TokenBucket arrivalCurve) {
+		QueueReference reference = resolve(queueEdge);
+		synchronized(reference.state) {
+			reference.state.setArrivalCurve(reference.position, reference.state.getArrivalCurve(reference.position).subtract(arrivalCurve));
+		}
+	}
+
+	/**
+	 * Forgets the cached bounds of a Link, so that they are recomputed on
+	 * their next access.
+	 * @param link Link.
+	 */
+	public void invalidate(Link link) {
+		LinkState state = links.get(link.getEntity().getId());
+		if(state != null)
+			state.invalidate();
+	}
+
+	/**
+	 * Forgets everything about a Link (typically after its deletion),
+	 * including the arrival curves of its Queues.
+	 * @param link Link.
+	 */
+	public void remove(Link link) {
+		LinkState state = links.remove(link.getEntity().getId());
+		if(state != null)
+			queues.values().removeIf(reference -> reference.state == state);
+	}
+
+	/**
+	 * Computes the service curves of the Queues of a Scheduler.
+	 * @param capacity rate of the Link (bytes/s).
+	 * @param scheduler Scheduler.
+	 * @param arrivals arrival curves of the Queues.
+	 * @return the bounds of the Queues.
+	 */
+	private HopBound[] computeBounds(double capacity, Scheduler scheduler, TokenBucket[] arrivals) {
+		HopBound[] bounds = new HopBound[arrivals.length];
+		if(scheduler instanceof WFQScheduler) {
+			double[] weights = ((WFQScheduler) scheduler).getNormalizedWeights();
+			for(int i = 0; i < arrivals.length; i++) {
+				double rate = weights[i] * capacity;
+				RateLatency service = rate > 0 ? new RateLatency(rate, maxPacketSize / rate + maxPacketSize / capacity) : RateLatency.NONE;
+				bounds[i] = new HopBound(service, arrivals[i]);
+			}
+		} else {
+			TokenBucket higher = TokenBucket.ZERO;
+			for(int i = 0; i < arrivals.length; i++) {
+				double rate = capacity - higher.getRate();
+				double blocking = i < arrivals.length - 1 ? maxPacketSize : 0;
+				RateLatency service = rate > 0 ? new RateLatency(rate, (higher.getBurst() + blocking) / rate) : RateLatency.NONE;
+				bounds[i] = new HopBound(service, arrivals[i]);
+				higher = higher.add(arrivals[i]);
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Gets (or creates) the state of a Link.
+	 * @param link Link.
+	 * @return its state.
+	 */
+	private LinkState state(Link link) {
+		return links.computeIfAbsent(link.getEntity().getId(), id -> new LinkState(link));
+	}
+
+	/**
+	 * Finds the Link and position of a queue-level Edge.
+	 * @param queueEdge queue-level Edge.
+	 * @return the reference of the Queue.
+	 */
+	private QueueReference resolve(Edge queueEdge) {
+		QueueReference reference = queues.get(queueEdge.getEntity().getId());
+		if(reference != null)
+			return reference;
+
+		Link link;
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			link = linkMapper.get(toNetworkMapper.get(queueEdge.getEntity()).getNetworkEntity());
+		}
+		Edge[] queueEdges = link.getQueueEdges();
+		for(int i = 0; i < queueEdges.length; i++) {
+			if(queueEdges[i] == queueEdge) {
+				reference = new QueueReference(state(link), i);
+				queues.put(queueEdge.getEntity().getId(), reference);
+				return reference;
+			}
+		}
+		throw new IllegalArgumentException(queueEdge + " is not a queue-level edge of " + link);
+	}
+
+	/**
+	 * Link and position of a Queue.
+	 */
+	private static final class QueueReference {
+		private final LinkState state;
+		private final int position;
+
+		private QueueReference(LinkState state, int position) {
+			this.state = state;
+			this.position = position;
+		}
+	}
+
+	/**
+	 * Arrival curves, parameters and cached bounds of a Link.
+	 */
+	private final class LinkState {
+		/**
+		 * Link.
+		 */
+		private final Link link;
+
+		/**
+		 * Entity of the link-level Edge.
+		 */
+		private final Entity edgeEntity;
+
+		/**
+		 * Arrival curves of the Queues (guarded by this).
+		 */
+		private TokenBucket[] arrivals = new TokenBucket[0];
+
+		/**
+		 * Parameters used for the cached bounds.
+		 */
+		private Rate rate;
+		private double capacity;
+		private Scheduler scheduler;
+		private double[] weights;
+
+		/**
+		 * Cached bounds (null if invalid).
+		 */
+		private volatile HopBound[] bounds;
+
+		private LinkState(Link link) {
+			this.link = link;
+			this.edgeEntity = link.getLinkEdge().getEntity();
+		}
+
+		/**
+		 * Gets the bounds, recomputing them if they are not valid anymore.
+		 * @return the bounds.
+		 */
+		private HopBound[] getBounds() {
+			HopBound[] current = bounds;
+			Rate currentRate = rateMapper.get(edgeEntity);
+			Scheduler currentScheduler = schedulerMapper.get(edgeEntity);
+			if(current != null && isUpToDate(currentRate, currentScheduler))
+				return current;
+
+			synchronized(this) {
+				if(bounds != null && isUpToDate(currentRate, currentScheduler))
+					return bounds;
+				rate = currentRate;
+				capacity = currentRate.getRate();
+				scheduler = currentScheduler;
+				weights = currentScheduler instanceof WFQScheduler ? ((WFQScheduler) currentScheduler).getWeights() : null;
+				int numberOfQueues = currentScheduler.getQueues().length;
+				if(arrivals.length != numberOfQueues)
+					resize(numberOfQueues);
+				bounds = computeBounds(capacity, currentScheduler, arrivals);
+				return bounds;
+			}
+		}
+
+		/**
+		 * Checks whether the cached bounds were computed with the current
+		 * parameters of the Link.
+		 * @param currentRate current Rate of the Link.
+		 * @param currentScheduler current Scheduler of the Link.
+		 * @return true if they were.
+		 */
+		private boolean isUpToDate(Rate currentRate, Scheduler currentScheduler) {
+			return currentRate == rate && currentRate.getRate() == capacity && currentScheduler == scheduler
+					&& (weights == null || weights == ((WFQScheduler) currentScheduler).getWeights());
+		}
+
+		/**
+		 * Gets the arrival curve of a Queue.
+		 * @param position position of the Queue.
+		 * @return the arrival curve.
+		 */
+		private synchronized TokenBucket getArrivalCurve(int position) {
+			if(position >= arrivals.length)
+				resize(schedulerMapper.get(edgeEntity).getQueues().length);
+			return arrivals[position];
+		}
+
+		/**
+		 * Sets the arrival curve of a Queue and invalidates the bounds.
+		 * @param position position of the Queue.
+		 * @param arrivalCurve arrival curve.
+		 */
+		private synchronized void setArrivalCurve(int position, TokenBucket arrivalCurve) {
+			if(position >= arrivals.length)
+				resize(schedulerMapper.get(edgeEntity).getQueues().length);
+			arrivals[position] = arrivalCurve;
+			bounds = null;
+		}
+
+		/**
+		 * Invalidates the bounds.
+		 */
+		private synchronized void invalidate() {
+			bounds = null;
+		}
+
+		/**
+		 * Resizes the arrival curves to a number of Queues.
+		 * @param numberOfQueues number of Queues.
+		 */
+		private void resize(int numberOfQueues) {
+			int previous = arrivals.length;
+			arrivals = Arrays.copyOf(arrivals, numberOfQueues);
+			for(int i = previous; i < numberOfQueues; i++)
+				arrivals[i] = TokenBucket.ZERO;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package de.tum.ei.lkn.eces.network.calculus;
+
+/**
+ * Rate-latency service curve: at least rate * (t - latency) bytes are served
+ * in any backlogged period of length t > latency.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class RateLatency {
+	/**
+	 * Service curve of a server that never serves.
+	 */
+	public static final RateLatency NONE = new RateLatency(0, Double.POSITIVE_INFINITY);
+
+	/**
+	 * Rate (bytes/s).
+	 */
+	private final double rate;
+
+	/**
+	 * Latency (s).
+	 */
+	private final double latency;
+
+	/**
+	 * Creates a new rate-latency service curve.
+	 * @param rate rate in bytes/s.
+	 * @param latency latency in s.
+	 */
+	public RateLatency(double rate, double latency) {
+		if(rate < 0 || latency < 0)
+			throw new IllegalArgumentException("The rate and latency of a service curve must be non-negative");
+		this.rate = rate;
+		this.latency = latency;
+	}
+
+	/**
+	 * Gets the rate.
+	 * @return rate in bytes/s.
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Gets the latency.
+	 * @return latency in s.
+	 */
+	public double getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Concatenates two servers in tandem.
+	 * @param next service curve of the next server.
+	 * @return the service curve of both servers (minimum rate, sum of the
+	 *         latencies).
+	 */
+	public RateLatency concatenate(RateLatency next) {
+		return new RateLatency(Math.min(rate, next.rate), latency + next.latency);
+	}
+
+	/**
+	 * Computes the service left to a flow when the server is shared, with
+	 * an arbitrary (blind) multiplexing, with cross traffic.
+	 * @param crossTraffic arrival curve of the cross traffic.
+	 * @return the left-over service curve (NONE if the cross traffic uses
+	 *         the whole rate).
+	 */
+	public RateLatency leftOver(TokenBucket crossTraffic) {
+		double leftOverRate = rate - crossTraffic.getRate();
+		if(leftOverRate <= 0)
+			return NONE;
+		return new RateLatency(leftOverRate, (rate * latency + crossTraffic.getBurst()) / leftOverRate);
+	}
+
+	/**
+	 * Computes the delay bound of traffic constrained by a token bucket,
+	 * i.e., the horizontal deviation between both curves.
+	 * @param arrival arrival curve.
+	 * @return the delay bound (s) or infinity if the rate of the arrival curve
+	 *         exceeds the rate of the service curve.
+	 */
+	public double getDelayBound(TokenBucket arrival) {
+		if(arrival.getRate() > rate || (rate == 0 && arrival.getBurst() > 0))
+			return Double.POSITIVE_INFINITY;
+		return rate == 0 ? latency : latency + arrival.getBurst() / rate;
+	}
+
+	/**
+	 * Computes the backlog bound of traffic constrained by a token bucket,
+	 * i.e., the vertical deviation between both curves.
+	 * @param arrival arrival curve.
+	 * @return the backlog bound (bytes) or infinity if the rate of the arrival
+	 *         curve exceeds the rate of the service curve.
+	 */
+	public double getBacklogBound(TokenBucket arrival) {
+		if(arrival.getRate() > rate)
+			return Double.POSITIVE_INFINITY;
+		return arrival.getRate() == 0 ? arrival.getBurst() : arrival.getBurst() + arrival.getRate() * latency;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == this)
+			return true;
+		if(!(o instanceof RateLatency))
+			return false;
+		RateLatency other = (RateLatency) o;
+		return rate == other.rate && latency == other.latency;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Double.hashCode(rate) + Double.hashCode(latency);
+	}
+
+	@Override
+	public String toString() {
+		return "RL(" + rate + " B/s, " + latency + " s)";
+	}
+}
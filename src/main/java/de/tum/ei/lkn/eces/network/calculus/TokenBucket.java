@@ -0,0 +1,91 @@
+package de.tum.ei.lkn.eces.network.calculus;
+
+/**
+ * Token-bucket arrival curve: at most burst + rate * t bytes arrive in any
+ * interval of length t.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class TokenBucket {
+	/**
+	 * Arrival curve of no traffic.
+	 */
+	public static final TokenBucket ZERO = new TokenBucket(0, 0);
+
+	/**
+	 * Burst (bytes).
+	 */
+	private final double burst;
+
+	/**
+	 * Rate (bytes/s).
+	 */
+	private final double rate;
+
+	/**
+	 * Creates a new token bucket.
+	 * @param burst burst in bytes.
+	 * @param rate rate in bytes/s.
+	 */
+	public TokenBucket(double burst, double rate) {
+		if(burst < 0 || rate < 0)
+			throw new IllegalArgumentException("The burst and rate of a token bucket must be non-negative");
+		this.burst = burst;
+		this.rate = rate;
+	}
+
+	/**
+	 * Gets the burst.
+	 * @return burst in bytes.
+	 */
+	public double getBurst() {
+		return burst;
+	}
+
+	/**
+	 * Gets the rate.
+	 * @return rate in bytes/s.
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Aggregates two token buckets.
+	 * @param other other token bucket.
+	 * @return the token bucket of both arrivals.
+	 */
+	public TokenBucket add(TokenBucket other) {
+		return new TokenBucket(burst + other.burst, rate + other.rate);
+	}
+
+	/**
+	 * Removes a token bucket previously added to this one. Rounding errors
+	 * are clamped to zero.
+	 * @param other token bucket to remove.
+	 * @return the remaining token bucket.
+	 */
+	public TokenBucket subtract(TokenBucket other) {
+		return new TokenBucket(Math.max(0, burst - other.burst), Math.max(0, rate - other.rate));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == this)
+			return true;
+		if(!(o instanceof TokenBucket))
+			return false;
+		TokenBucket other = (TokenBucket) o;
+		return burst == other.burst && rate == other.rate;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Double.hashCode(burst) + Double.hashCode(rate);
+	}
+
+	@Override
+	public String toString() {
+		return "TB(" + burst + " B, " + rate + " B/s)";
+	}
+}
@@ -0,0 +1,405 @@
+package de.tum.ei.lkn.eces.network.compact;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.core.MapperSpace;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.graph.Node;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.mappers.*;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only snapshot of the link-level and queue-level Graphs of a Network
+ * in compressed sparse row (CSR) form.
+ *
+ * NetworkNodes are identified by dense indices from 0 to
+ * getNumberOfNodes() - 1. The same indices are used for the link-level and
+ * queue-level Nodes of a NetworkNode.
+ *
+ * Links are identified by dense indices sorted by source Node: the outgoing
+ * Links of Node n are the indices from getFirstLink(n) (included) to
+ * getFirstLink(n + 1) (excluded). Queues (i.e., queue-level Edges) are
+ * identified the same way: the Queues of Link l are the indices from
+ * getFirstQueue(l) to getFirstQueue(l + 1) and, Links being sorted by
+ * source, the outgoing Queues of Node n are the indices from
+ * getFirstQueue(getFirstLink(n)) to getFirstQueue(getFirstLink(n + 1)).
+ *
+ * Rates (bytes/s), Delays (s) and Queue sizes (bytes) are stored in
+ * primitive arrays so that path computation and analysis can iterate over
+ * the topology without accessing any Component. The Components themselves
+ * can still be reached by index.
+ *
+ * The snapshot is not updated when the Network is modified. Building it does
+ * not materialize a lazy queue-level Graph: queue-level Edges are only
+ * created if getQueueEdge() is called.
+ *
+ * @author Amaury Van Bemten
+ */
+public class CompactTopology {
+	/**
+	 * Network of which this is a snapshot.
+	 */
+	private final Network network;
+
+	/**
+	 * NetworkNode of each Node index.
+	 */
+	private final NetworkNode[] nodes;
+
+	/**
+	 * Index of each link-level and queue-level Node.
+	 */
+	private final Map<Node, Integer> nodeIndices;
+
+	/**
+	 * Index of the first outgoing Link of each Node (plus the number of Links
+	 * at the end).
+	 */
+	private final int[] linkOffsets;
+
+	/**
+	 * Source Node of each Link.
+	 */
+	private final int[] linkSources;
+
+	/**
+	 * Destination Node of each Link.
+	 */
+	private final int[] linkTargets;
+
+	/**
+	 * Rate of each Link (bytes/s).
+	 */
+	private final double[] linkRates;
+
+	/**
+	 * Delay of each Link (s).
+	 */
+	private final double[] linkDelays;
+
+	/**
+	 * Link of each Link index.
+	 */
+	private final Link[] links;
+
+	/**
+	 * Index of each Link.
+	 */
+	private final Map<Link, Integer> linkIndices;
+
+	/**
+	 * Index of the first Queue of each Link (plus the number of Queues at the
+	 * end).
+	 */
+	private final int[] queueOffsets;
+
+	/**
+	 * Link of each Queue.
+	 */
+	private final int[] queueLinks;
+
+	/**
+	 * Size of each Queue (bytes).
+	 */
+	private final double[] queueSizes;
+
+	/**
+	 * Creates a snapshot from already computed arrays.
+	 */
+	private CompactTopology(Network network, NetworkNode[] nodes, Map<Node, Integer> nodeIndices,
+							int[] linkOffsets, int[] linkSources, int[] linkTargets, double[] linkRates, double[] linkDelays,
+							Link[] links, Map<Link, Integer> linkIndices, int[] queueOffsets, int[] queueLinks, double[] queueSizes) {
+		this.network = network;
+		this.nodes = nodes;
+		this.nodeIndices = nodeIndices;
+		this.linkOffsets = linkOffsets;
+		this.linkSources = linkSources;
+		this.linkTargets = linkTargets;
+		this.linkRates = linkRates;
+		this.linkDelays = linkDelays;
+		this.links = links;
+		this.linkIndices = linkIndices;
+		this.queueOffsets = queueOffsets;
+		this.queueLinks = queueLinks;
+		this.queueSizes = queueSizes;
+	}
+
+	/**
+	 * Builds the snapshot of a Network.
+	 * @param controller Controller of the NetworkingSystem.
+	 * @param network Network.
+	 * @return the snapshot.
+	 */
+	public static CompactTopology build(Controller controller, Network network) {
+		NetworkMapper networkMapper = new NetworkMapper(controller);
+		NetworkNodeMapper networkNodeMapper = new NetworkNodeMapper(controller);
+		ToNetworkMapper toNetworkMapper = new ToNetworkMapper(controller);
+		LinkMapper linkMapper = new LinkMapper(controller);
+		RateMapper rateMapper = new RateMapper(controller);
+		DelayMapper delayMapper = new DelayMapper(controller);
+		SchedulerMapper schedulerMapper = new SchedulerMapper(controller);
+
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.acquireReadLock(network);
+
+			// Nodes.
+			Collection<Node> linkNodes = network.getLinkGraph().getNodes();
+			NetworkNode[] nodes = new NetworkNode[linkNodes.size()];
+			Map<Node, Integer> nodeIndices = new HashMap<>(linkNodes.size() * 4);
+			int index = 0;
+			for(Node linkNode : linkNodes) {
+				NetworkNode node = networkNodeMapper.get(toNetworkMapper.get(linkNode.getEntity()).getNetworkEntity());
+				nodes[index] = node;
+				nodeIndices.put(linkNode, index);
+				nodeIndices.put(node.getQueueNode(), index++);
+			}
+
+			// Counting Links per source to lay them out.
+			Collection<Edge> edges = network.getLinkGraph().getEdges();
+			int[] linkOffsets = new int[nodes.length + 1];
+			for(Edge edge : edges)
+				linkOffsets[nodeIndices.get(edge.getSource()) + 1]++;
+			for(int i = 0; i < nodes.length; i++)
+				linkOffsets[i + 1] += linkOffsets[i];
+
+			// Links.
+			int[] next = new int[nodes.length];
+			System.arraycopy(linkOffsets, 0, next, 0, nodes.length);
+			int[] linkSources = new int[edges.size()];
+			int[] linkTargets = new int[edges.size()];
+			double[] linkRates = new double[edges.size()];
+			double[] linkDelays = new double[edges.size()];
+			Link[] links = new Link[edges.size()];
+			Scheduler[] schedulers = new Scheduler[edges.size()];
+			Map<Link, Integer> linkIndices = new HashMap<>(edges.size() * 2);
+			for(Edge edge : edges) {
+				int source = nodeIndices.get(edge.getSource());
+				index = next[source]++;
+				linkSources[index] = source;
+				linkTargets[index] = nodeIndices.get(edge.getDestination());
+				linkRates[index] = rateMapper.get(edge.getEntity()).getRate();
+				linkDelays[index] = delayMapper.get(edge.getEntity()).getDelay();
+				schedulers[index] = schedulerMapper.get(edge.getEntity());
+				links[index] = linkMapper.get(toNetworkMapper.get(edge.getEntity()).getNetworkEntity());
+				linkIndices.put(links[index], index);
+			}
+
+			// Queues.
+			int[] queueOffsets = new int[links.length + 1];
+			for(int i = 0; i < links.length; i++)
+				queueOffsets[i + 1] = queueOffsets[i] + schedulers[i].getQueues().length;
+			int[] queueLinks = new int[queueOffsets[links.length]];
+			double[] queueSizes = new double[queueOffsets[links.length]];
+			for(int i = 0; i < links.length; i++) {
+				Queue[] queues = schedulers[i].getQueues();
+				for(int j = 0; j < queues.length; j++) {
+					queueLinks[queueOffsets[i] + j] = i;
+					queueSizes[queueOffsets[i] + j] = queues[j].getSize();
+				}
+			}
+
+			return new CompactTopology(network, nodes, nodeIndices, linkOffsets, linkSources, linkTargets, linkRates, linkDelays, links, linkIndices, queueOffsets, queueLinks, queueSizes);
+		}
+	}
+
+	/**
+	 * Gets the Network of which this is a snapshot.
+	 * @return the Network.
+	 */
+	public Network getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Gets the number of Nodes.
+	 * @return the number of Nodes.
+	 */
+	public int getNumberOfNodes() {
+		return nodes.length;
+	}
+
+	/**
+	 * Gets the number of Links.
+	 * @return the number of Links.
+	 */
+	public int getNumberOfLinks() {
+		return links.length;
+	}
+
+	/**
+	 * Gets the number of Queues (i.e., of queue-level Edges).
+	 * @return the number of Queues.
+	 */
+	public int getNumberOfQueues() {
+		return queueLinks.length;
+	}
+
+	/**
+	 * Gets the index of a NetworkNode.
+	 * @param node NetworkNode.
+	 * @return its index or -1 if it is not part of the snapshot.
+	 */
+	public int getNodeIndex(NetworkNode node) {
+		return getNodeIndex(node.getLinkNode());
+	}
+
+	/**
+	 * Gets the index of a link-level or queue-level Node.
+	 * @param node Node.
+	 * @return its index or -1 if it is not part of the snapshot.
+	 */
+	public int getNodeIndex(Node node) {
+		Integer index = nodeIndices.get(node);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Gets a NetworkNode.
+	 * @param node Node index.
+	 * @return the NetworkNode.
+	 */
+	public NetworkNode getNode(int node) {
+		return nodes[node];
+	}
+
+	/**
+	 * Gets the index of the first outgoing Link of a Node.
+	 * @param node Node index (getNumberOfNodes() for the number of Links).
+	 * @return the Link index.
+	 */
+	public int getFirstLink(int node) {
+		return linkOffsets[node];
+	}
+
+	/**
+	 * Gets the out-degree of a Node.
+	 * @param node Node index.
+	 * @return the number of outgoing Links.
+	 */
+	public int getOutDegree(int node) {
+		return linkOffsets[node + 1] - linkOffsets[node];
+	}
+
+	/**
+	 * Gets the index of a Link.
+	 * @param link Link.
+	 * @return its index or -1 if it is not part of the snapshot.
+	 */
+	public int getLinkIndex(Link link) {
+		Integer index = linkIndices.get(link);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Gets a Link.
+	 * @param link Link index.
+	 * @return the Link.
+	 */
+	public Link getLink(int link) {
+		return links[link];
+	}
+
+	/**
+	 * Gets the link-level Edge of a Link.
+	 * @param link Link index.
+	 * @return the link-level Edge.
+	 */
+	public Edge getLinkEdge(int link) {
+		return links[link].getLinkEdge();
+	}
+
+	/**
+	 * Gets the source of a Link.
+	 * @param link Link index.
+	 * @return the source Node index.
+	 */
+	public int getSource(int link) {
+		return linkSources[link];
+	}
+
+	/**
+	 * Gets the destination of a Link.
+	 * @param link Link index.
+	 * @return the destination Node index.
+	 */
+	public int getDestination(int link) {
+		return linkTargets[link];
+	}
+
+	/**
+	 * Gets the Rate of a Link.
+	 * @param link Link index.
+	 * @return the rate (bytes/s).
+	 */
+	public double getRate(int link) {
+		return linkRates[link];
+	}
+
+	/**
+	 * Gets the Delay of a Link.
+	 * @param link Link index.
+	 * @return the delay (s).
+	 */
+	public double getDelay(int link) {
+		return linkDelays[link];
+	}
+
+	/**
+	 * Gets the index of the first Queue of a Link.
+	 * @param link Link index (getNumberOfLinks() for the number of Queues).
+	 * @return the Queue index.
+	 */
+	public int getFirstQueue(int link) {
+		return queueOffsets[link];
+	}
+
+	/**
+	 * Gets the number of Queues of a Link.
+	 * @param link Link index.
+	 * @return the number of Queues.
+	 */
+	public int getNumberOfQueues(int link) {
+		return queueOffsets[link + 1] - queueOffsets[link];
+	}
+
+	/**
+	 * Gets the Link of a Queue.
+	 * @param queue Queue index.
+	 * @return the Link index.
+	 */
+	public int getQueueLink(int queue) {
+		return queueLinks[queue];
+	}
+
+	/**
+	 * Gets the position of a Queue in the Scheduler of its Link.
+	 * @param queue Queue index.
+	 * @return the position (0 being the first Queue of the Scheduler).
+	 */
+	public int getQueuePosition(int queue) {
+		return queue - queueOffsets[queueLinks[queue]];
+	}
+
+	/**
+	 * Gets the size of a Queue.
+	 * @param queue Queue index.
+	 * @return the size (bytes).
+	 */
+	public double getQueueSize(int queue) {
+		return queueSizes[queue];
+	}
+
+	/**
+	 * Gets the queue-level Edge of a Queue. For a Network with a lazy
+	 * queue-level Graph, this creates the queue-level Edges of the Link if
+	 * they do not exist yet.
+	 * @param queue Queue index.
+	 * @return the queue-level Edge.
+	 */
+	public Edge getQueueEdge(int queue) {
+		return links[queueLinks[queue]].getQueueEdges()[getQueuePosition(queue)];
+	}
+}
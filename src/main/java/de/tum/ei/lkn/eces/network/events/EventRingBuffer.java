@@ -0,0 +1,137 @@
+package de.tum.ei.lkn.eces.network.events;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer with multiple producers and a single
+ * consumer.
+ *
+ * Each slot has a sequence number telling whether it is free for the
+ * producer claiming the position or filled for the consumer, so that
+ * producers only contend on the CAS claiming a position and never on the
+ * consumer.
+ *
+ * @author Amaury Van Bemten
+ */
+final class EventRingBuffer<T> {
+	/**
+	 * Elements of the slots.
+	 */
+	private final AtomicReferenceArray<T> elements;
+
+	/**
+	 * Sequence numbers of the slots: a slot at index i is free for the
+	 * position p (with p & mask == i) if its sequence is p and filled if its
+	 * sequence is p + 1.
+	 */
+	private final AtomicLongArray sequences;
+
+	/**
+	 * Mask giving the index of a position.
+	 */
+	private final int mask;
+
+	/**
+	 * Next position to be claimed by a producer.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Next position to be read by the consumer (only written by the
+	 * consumer).
+	 */
+	private volatile long head;
+
+	/**
+	 * Creates an empty ring buffer.
+	 * @param capacity minimum number of elements (rounded to a power of two).
+	 * @throws IllegalArgumentException if the capacity is not positive.
+	 */
+	EventRingBuffer(int capacity) {
+		if(capacity <= 0 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Invalid ring buffer capacity: " + capacity);
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity)
+			size <<= 1;
+		this.elements = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for(int i = 0; i < size; i++)
+			sequences.set(i, i);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Adds an element if the ring buffer is not full.
+	 * @param element element (not null).
+	 * @return false if the ring buffer is full.
+	 */
+	boolean offer(T element) {
+		while(true) {
+			long position = tail.get();
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if(difference == 0) {
+				if(tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+			}
+			else if(difference < 0) {
+				return false;
+			}
+			// Otherwise another producer claimed the position meanwhile.
+		}
+	}
+
+	/**
+	 * Moves the available elements to a list. Must only be called by the
+	 * consumer.
+	 * @param destination list to which the elements are added.
+	 * @param max maximum number of elements to move.
+	 * @return the number of elements moved.
+	 */
+	int drainTo(List<T> destination, int max) {
+		long position = head;
+		int drained = 0;
+		while(drained < max) {
+			int index = (int) position & mask;
+			if(sequences.get(index) != position + 1)
+				break;
+			destination.add(elements.get(index));
+			elements.lazySet(index, null);
+			sequences.set(index, position + mask + 1);
+			position++;
+			drained++;
+		}
+		head = position;
+		return drained;
+	}
+
+	/**
+	 * Gets the number of positions claimed by producers so far.
+	 * @return the number of positions.
+	 */
+	long getProducedCount() {
+		return tail.get();
+	}
+
+	/**
+	 * Gets the number of elements read by the consumer so far.
+	 * @return the number of elements.
+	 */
+	long getConsumedCount() {
+		return head;
+	}
+
+	/**
+	 * Gets the capacity of the ring buffer.
+	 * @return the number of slots.
+	 */
+	int capacity() {
+		return mask + 1;
+	}
+}
@@ -0,0 +1,179 @@
+package de.tum.ei.lkn.eces.network.events;
+
+import de.tum.ei.lkn.eces.network.Host;
+import de.tum.ei.lkn.eces.network.Link;
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+/**
+ * Immutable change of the topology of a Network.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class NetworkEvent {
+	/**
+	 * Type of the event.
+	 */
+	private final NetworkEventType type;
+
+	/**
+	 * Network concerned by the event.
+	 */
+	private final Network network;
+
+	/**
+	 * NetworkNode concerned by the event (null if none).
+	 */
+	private final NetworkNode node;
+
+	/**
+	 * Link concerned by the event (null if none).
+	 */
+	private final Link link;
+
+	/**
+	 * Host concerned by the event (null if none).
+	 */
+	private final Host host;
+
+	/**
+	 * Interface concerned by the event (null if none).
+	 */
+	private final NetworkInterface networkInterface;
+
+	private NetworkEvent(NetworkEventType type, Network network, NetworkNode node, Link link, Host host, NetworkInterface networkInterface) {
+		this.type = type;
+		this.network = network;
+		this.node = node;
+		this.link = link;
+		this.host = host;
+		this.networkInterface = networkInterface;
+	}
+
+	/**
+	 * Creates a NETWORK_CREATED or NETWORK_DELETED event.
+	 * @param created true for a creation.
+	 * @param network Network.
+	 * @return the event.
+	 */
+	public static NetworkEvent network(boolean created, Network network) {
+		return new NetworkEvent(created ? NetworkEventType.NETWORK_CREATED : NetworkEventType.NETWORK_DELETED, network, null, null, null, null);
+	}
+
+	/**
+	 * Creates a NODE_CREATED or NODE_DELETED event.
+	 * @param created true for a creation.
+	 * @param node NetworkNode.
+	 * @return the event.
+	 */
+	public static NetworkEvent node(boolean created, NetworkNode node) {
+		return new NetworkEvent(created ? NetworkEventType.NODE_CREATED : NetworkEventType.NODE_DELETED, node.getNetwork(), node, null, null, null);
+	}
+
+	/**
+	 * Creates a LINK_CREATED or LINK_DELETED event.
+	 * @param created true for a creation.
+	 * @param link Link.
+	 * @return the event.
+	 */
+	public static NetworkEvent link(boolean created, Link link) {
+		return new NetworkEvent(created ? NetworkEventType.LINK_CREATED : NetworkEventType.LINK_DELETED, link.getNetwork(), null, link, null, null);
+	}
+
+	/**
+	 * Creates a LINK_UPDATED event.
+	 * @param link Link.
+	 * @return the event.
+	 */
+	public static NetworkEvent linkUpdated(Link link) {
+		return new NetworkEvent(NetworkEventType.LINK_UPDATED, link.getNetwork(), null, link, null, null);
+	}
+
+	/**
+	 * Creates a HOST_CREATED or HOST_DELETED event.
+	 * @param created true for a creation.
+	 * @param host Host.
+	 * @return the event.
+	 */
+	public static NetworkEvent host(boolean created, Host host) {
+		return new NetworkEvent(created ? NetworkEventType.HOST_CREATED : NetworkEventType.HOST_DELETED, host.getNetwork(), null, null, host, null);
+	}
+
+	/**
+	 * Creates an INTERFACE_ADDED or INTERFACE_REMOVED event.
+	 * @param added true for an addition.
+	 * @param host Host.
+	 * @param networkInterface interface.
+	 * @param node NetworkNode representing the interface.
+	 * @return the event.
+	 */
+	public static NetworkEvent networkInterface(boolean added, Host host, NetworkInterface networkInterface, NetworkNode node) {
+		return new NetworkEvent(added ? NetworkEventType.INTERFACE_ADDED : NetworkEventType.INTERFACE_REMOVED, host.getNetwork(), node, null, host, networkInterface);
+	}
+
+	/**
+	 * Gets the type of the event.
+	 * @return the type.
+	 */
+	public NetworkEventType getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the Network concerned by the event.
+	 * @return the Network.
+	 */
+	public Network getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Gets the NetworkNode concerned by the event.
+	 * @return the NetworkNode for NODE_* and INTERFACE_* events, null
+	 *         otherwise.
+	 */
+	public NetworkNode getNode() {
+		return node;
+	}
+
+	/**
+	 * Gets the Link concerned by the event.
+	 * @return the Link for LINK_* events, null otherwise.
+	 */
+	public Link getLink() {
+		return link;
+	}
+
+	/**
+	 * Gets the Host concerned by the event.
+	 * @return the Host for HOST_* and INTERFACE_* events, null otherwise.
+	 */
+	public Host getHost() {
+		return host;
+	}
+
+	/**
+	 * Gets the interface concerned by the event.
+	 * @return the interface for INTERFACE_* events, null otherwise.
+	 */
+	public NetworkInterface getNetworkInterface() {
+		return networkInterface;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(type.toString()).append('(');
+		if(networkInterface != null)
+			builder.append(networkInterface).append(" of ").append(host);
+		else if(node != null)
+			builder.append(node);
+		else if(link != null)
+			builder.append(link);
+		else if(host != null)
+			builder.append(host);
+		else
+			builder.append(network);
+		return builder.append(')').toString();
+	}
+}
@@ -0,0 +1,306 @@
+package de.tum.ei.lkn.eces.network.events;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispatcher of NetworkEvents to NetworkEventListeners.
+ *
+ * The events are published to a lock-free ring buffer and delivered by a
+ * single daemon thread, which drains all the available events at once and
+ * hands them to each listener as one batch. Producers thus never wait for
+ * the listeners (unless the ring buffer is full) and a burst of changes
+ * results in a few large batches rather than many single events.
+ *
+ * Events published while a Scope is open in the publishing thread are held
+ * back until the outermost Scope of the thread is closed. The
+ * NetworkingSystem closes its Scopes after its MapperSpaces, so that the
+ * listeners see the Components of an event updated.
+ *
+ * Nothing is published (and no thread is started) as long as no listener
+ * is registered.
+ *
+ * @author Amaury Van Bemten
+ */
+public class NetworkEventDispatcher implements AutoCloseable {
+	/**
+	 * Default capacity of the ring buffer.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	/**
+	 * Maximum number of events per batch.
+	 */
+	private static final int MAX_BATCH_SIZE = 4096;
+
+	/**
+	 * Maximum time the dispatching thread sleeps without being woken up.
+	 */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * Logger of the dispatcher.
+	 */
+	private static final Logger logger = LogManager.getLogger(NetworkEventDispatcher.class);
+
+	/**
+	 * Events waiting for delivery.
+	 */
+	private final EventRingBuffer<NetworkEvent> ringBuffer;
+
+	/**
+	 * Registered listeners.
+	 */
+	private final CopyOnWriteArrayList<NetworkEventListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Events held back until the outermost Scope of the thread is closed.
+	 */
+	private final ThreadLocal<List<NetworkEvent>> heldBack = ThreadLocal.withInitial(ArrayList::new);
+
+	/**
+	 * Number of Scopes open in the thread.
+	 */
+	private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+	/**
+	 * Number of events delivered to all the listeners so far.
+	 */
+	private volatile long delivered;
+
+	/**
+	 * Thread delivering the events (null until a listener is registered).
+	 */
+	private volatile Thread thread;
+
+	/**
+	 * Whether the dispatching thread is (about to be) sleeping.
+	 */
+	private volatile boolean idle;
+
+	/**
+	 * Whether the dispatcher is closed.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Creates a dispatcher with the default capacity.
+	 */
+	public NetworkEventDispatcher() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a dispatcher.
+	 * @param capacity number of events that can wait for delivery before the
+	 *                 producers are slowed down.
+	 */
+	public NetworkEventDispatcher(int capacity) {
+		this.ringBuffer = new EventRingBuffer<>(capacity);
+	}
+
+	/**
+	 * Registers a listener. It receives the events published from now on.
+	 * @param listener listener.
+	 * @throws IllegalStateException if the dispatcher is closed.
+	 */
+	public void addListener(NetworkEventListener listener) {
+		if(closed)
+			throw new IllegalStateException("The event dispatcher is closed");
+		listeners.add(listener);
+		if(thread == null) {
+			synchronized(this) {
+				if(thread == null) {
+					Thread dispatching = new Thread(this::run, "network-event-dispatcher");
+					dispatching.setDaemon(true);
+					dispatching.start();
+					thread = dispatching;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Unregisters a listener.
+	 * @param listener listener.
+	 * @return false if the listener was not registered.
+	 */
+	public boolean removeListener(NetworkEventListener listener) {
+		return listeners.remove(listener);
+	}
+
+	/**
+	 * Tells whether there is at least one registered listener.
+	 * @return true if there is one.
+	 */
+	public boolean hasListeners() {
+		return !listeners.isEmpty();
+	}
+
+	/**
+	 * Publishes an event. If a Scope is open in the thread, the event is only
+	 * published when the outermost Scope is closed. If the ring buffer is
+	 * full, the method waits for the dispatching thread to make room.
+	 * @param event event.
+	 */
+	public void publish(NetworkEvent event) {
+		if(listeners.isEmpty() || closed)
+			return;
+		if(depth.get()[0] > 0)
+			heldBack.get().add(event);
+		else
+			enqueue(event);
+	}
+
+	/**
+	 * Opens a Scope in the current thread. Scopes can be nested.
+	 * @return the Scope, to be closed by the same thread.
+	 */
+	public Scope open() {
+		depth.get()[0]++;
+		return new Scope();
+	}
+
+	/**
+	 * Waits until all the events published so far by any thread are
+	 * delivered to the listeners.
+	 * @throws InterruptedException if the thread is interrupted meanwhile.
+	 */
+	public void flush() throws InterruptedException {
+		long target = ringBuffer.getProducedCount();
+		while(delivered < target && thread != null && thread.isAlive()) {
+			if(Thread.interrupted())
+				throw new InterruptedException();
+			wakeUp();
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+	}
+
+	/**
+	 * Stops the dispatching thread after the delivery of the events already
+	 * published. The events published afterwards are dropped.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		Thread dispatching = thread;
+		if(dispatching != null) {
+			LockSupport.unpark(dispatching);
+			try {
+				dispatching.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Adds an event to the ring buffer, waiting for room if needed.
+	 * @param event event.
+	 */
+	private void enqueue(NetworkEvent event) {
+		while(!ringBuffer.offer(event)) {
+			if(closed)
+				return;
+			wakeUp();
+			Thread.yield();
+		}
+		if(idle)
+			wakeUp();
+	}
+
+	/**
+	 * Wakes the dispatching thread up.
+	 */
+	private void wakeUp() {
+		Thread dispatching = thread;
+		if(dispatching != null)
+			LockSupport.unpark(dispatching);
+	}
+
+	/**
+	 * Loop of the dispatching thread.
+	 */
+	private void run() {
+		List<NetworkEvent> batch = new ArrayList<>();
+		while(true) {
+			if(ringBuffer.drainTo(batch, MAX_BATCH_SIZE) == 0) {
+				if(closed)
+					return;
+				idle = true;
+				if(ringBuffer.getConsumedCount() == ringBuffer.getProducedCount() && !closed)
+					LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				idle = false;
+				continue;
+			}
+
+			for(NetworkEventListener listener : listeners) {
+				try {
+					listener.onEvents(batch);
+				} catch(RuntimeException e) {
+					logger.error("Listener " + listener + " failed on a batch of " + batch.size() + " events.", e);
+				}
+			}
+			delivered += batch.size();
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Scope holding back the events published by the current thread until it
+	 * is closed.
+	 */
+	public final class Scope implements AutoCloseable {
+		/**
+		 * Whether the Scope is already closed.
+		 */
+		private boolean done;
+
+		/**
+		 * Number of events held back when the Scope was opened.
+		 */
+		private final int mark;
+
+		private Scope() {
+			this.mark = heldBack.get().size();
+		}
+
+		/**
+		 * Drops the events held back since the Scope was opened, e.g.,
+		 * because the operation which published them failed.
+		 */
+		public void discard() {
+			if(done)
+				return;
+			List<NetworkEvent> events = heldBack.get();
+			if(events.size() > mark)
+				events.subList(mark, events.size()).clear();
+		}
+
+		/**
+		 * Closes the Scope. If it is the outermost Scope of the thread, the
+		 * held back events are published.
+		 */
+		@Override
+		public void close() {
+			if(done)
+				return;
+			done = true;
+			int[] count = depth.get();
+			if(--count[0] > 0)
+				return;
+			List<NetworkEvent> events = heldBack.get();
+			if(events.isEmpty())
+				return;
+			for(NetworkEvent event : events)
+				enqueue(event);
+			events.clear();
+		}
+	}
+}
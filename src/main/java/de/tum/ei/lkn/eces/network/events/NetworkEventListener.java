@@ -0,0 +1,18 @@
+package de.tum.ei.lkn.eces.network.events;
+
+import java.util.List;
+
+/**
+ * Listener of the topology changes of the Networks of a NetworkingSystem.
+ *
+ * @author Amaury Van Bemten
+ */
+public interface NetworkEventListener {
+	/**
+	 * Called with a batch of events, in the order in which they happened.
+	 * The method is always called from the thread of the dispatcher and must
+	 * not block it for long, since the other listeners wait meanwhile.
+	 * @param events events (the list must not be kept after the call).
+	 */
+	void onEvents(List<NetworkEvent> events);
+}
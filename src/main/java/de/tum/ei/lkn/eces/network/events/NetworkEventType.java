@@ -0,0 +1,68 @@
+package de.tum.ei.lkn.eces.network.events;
+
+/**
+ * Type of a NetworkEvent.
+ *
+ * @author Amaury Van Bemten
+ */
+public enum NetworkEventType {
+	/**
+	 * A Network has been created.
+	 */
+	NETWORK_CREATED,
+
+	/**
+	 * A Network has been deleted. Everything it contained is deleted as well,
+	 * even if no event has been sent for its elements.
+	 */
+	NETWORK_DELETED,
+
+	/**
+	 * A NetworkNode has been created (including the ones representing the
+	 * interfaces of Hosts).
+	 */
+	NODE_CREATED,
+
+	/**
+	 * A NetworkNode has been deleted (after the Links connected to it).
+	 */
+	NODE_DELETED,
+
+	/**
+	 * A Link has been created.
+	 */
+	LINK_CREATED,
+
+	/**
+	 * A Link has been deleted.
+	 */
+	LINK_DELETED,
+
+	/**
+	 * The Delay or the WFQ weights of a Link have been changed (with
+	 * NetworkingSystem.setDelay() or NetworkingSystem.setWeights()).
+	 */
+	LINK_UPDATED,
+
+	/**
+	 * A Host has been created.
+	 */
+	HOST_CREATED,
+
+	/**
+	 * A Host has been deleted (after its interfaces).
+	 */
+	HOST_DELETED,
+
+	/**
+	 * An interface has been added to a Host (after the creation of the
+	 * NetworkNode representing it).
+	 */
+	INTERFACE_ADDED,
+
+	/**
+	 * An interface has been removed from a Host (before the deletion of the
+	 * NetworkNode representing it).
+	 */
+	INTERFACE_REMOVED
+}
@@ -0,0 +1,78 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+
+/**
+ * Generator of balanced dragonfly topologies: a*h+1 groups of a routers,
+ * routers of a group being fully connected, each router having h global
+ * connections to other groups (each pair of groups being connected by exactly
+ * one global connection) and p Hosts.
+ *
+ * Each dragonfly group is a group of the layout.
+ *
+ * @author Amaury Van Bemten
+ */
+public class DragonflyGenerator extends TopologyGenerator {
+	/**
+	 * Number of routers per group.
+	 */
+	private final int a;
+
+	/**
+	 * Number of global connections per router.
+	 */
+	private final int h;
+
+	/**
+	 * Number of Hosts per router.
+	 */
+	private final int p;
+
+	/**
+	 * Creates a new dragonfly generator.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 * @param a number of routers per group.
+	 * @param h number of global connections per router.
+	 * @param p number of Hosts per router.
+	 */
+	public DragonflyGenerator(NetworkingSystem networkingSystem, int a, int h, int p) {
+		super(networkingSystem);
+		if(a < 1 || h < 1 || p < 0)
+			throw new IllegalArgumentException("A dragonfly needs at least one router per group and one global connection per router");
+		this.a = a;
+		this.h = h;
+		this.p = p;
+	}
+
+	@Override
+	protected void layout(TopologyLayout layout) {
+		int groups = a * h + 1;
+
+		for(int group = 0; group < groups; group++) {
+			for(int r = 0; r < a; r++) {
+				int router = layout.addSwitch("g" + group + "-r" + r, group);
+				layout.attachHosts(router, p);
+			}
+
+			// Local all-to-all connections.
+			for(int r1 = 0; r1 < a; r1++)
+				for(int r2 = r1 + 1; r2 < a; r2++)
+					layout.connect(group * a + r1, group * a + r2);
+		}
+
+		/* Global port k of router r of group G leads to group T (skipping G).
+		 * The connection is created once, from the group with lowest index. */
+		for(int group = 0; group < groups; group++) {
+			for(int r = 0; r < a; r++) {
+				for(int k = 0; k < h; k++) {
+					int port = r * h + k;
+					int target = port < group ? port : port + 1;
+					if(target < group)
+						continue;
+					int targetRouter = group / h;
+					layout.connect(group * a + r, target * a + targetRouter);
+				}
+			}
+		}
+	}
+}
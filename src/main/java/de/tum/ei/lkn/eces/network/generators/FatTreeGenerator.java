@@ -0,0 +1,58 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+
+/**
+ * Generator of k-ary fat-trees: k pods of k/2 edge and k/2 aggregation
+ * switches, (k/2)^2 core switches and k/2 Hosts per edge switch.
+ *
+ * Each pod is a group of the layout; core switches form the last group.
+ *
+ * @author Amaury Van Bemten
+ */
+public class FatTreeGenerator extends TopologyGenerator {
+	/**
+	 * Arity of the fat-tree.
+	 */
+	private final int k;
+
+	/**
+	 * Creates a new fat-tree generator.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 * @param k arity of the fat-tree (even and positive).
+	 */
+	public FatTreeGenerator(NetworkingSystem networkingSystem, int k) {
+		super(networkingSystem);
+		if(k < 2 || k % 2 != 0)
+			throw new IllegalArgumentException("The arity of a fat-tree must be even and positive");
+		this.k = k;
+	}
+
+	@Override
+	protected void layout(TopologyLayout layout) {
+		int half = k / 2;
+
+		int[] core = new int[half * half];
+		for(int i = 0; i < core.length; i++)
+			core[i] = layout.addSwitch("core" + i, k);
+
+		for(int pod = 0; pod < k; pod++) {
+			int[] aggregation = new int[half];
+			int[] edge = new int[half];
+			for(int i = 0; i < half; i++)
+				aggregation[i] = layout.addSwitch("agg" + pod + "-" + i, pod);
+			for(int i = 0; i < half; i++)
+				edge[i] = layout.addSwitch("edge" + pod + "-" + i, pod);
+
+			for(int e : edge) {
+				for(int a : aggregation)
+					layout.connect(e, a);
+				layout.attachHosts(e, half);
+			}
+
+			for(int i = 0; i < half; i++)
+				for(int j = 0; j < half; j++)
+					layout.connect(aggregation[i], core[i * half + j]);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.network.Host;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Switches and Hosts created by a TopologyGenerator, in the order of the
+ * layout of the generator.
+ *
+ * @author Amaury Van Bemten
+ */
+public class GeneratedTopology {
+	/**
+	 * Switches of the topology.
+	 */
+	private final List<NetworkNode> switches;
+
+	/**
+	 * Hosts of the topology.
+	 */
+	private final List<Host> hosts;
+
+	GeneratedTopology(NetworkNode[] switches, Host[] hosts) {
+		this.switches = Collections.unmodifiableList(Arrays.asList(switches));
+		this.hosts = Collections.unmodifiableList(Arrays.asList(hosts));
+	}
+
+	/**
+	 * Gets the switches of the topology.
+	 * @return the switches, indexed as in the layout of the generator.
+	 */
+	public List<NetworkNode> getSwitches() {
+		return switches;
+	}
+
+	/**
+	 * Gets the Hosts of the topology.
+	 * @return the Hosts, indexed by Host number (Host i is named 'hi').
+	 */
+	public List<Host> getHosts() {
+		return hosts;
+	}
+}
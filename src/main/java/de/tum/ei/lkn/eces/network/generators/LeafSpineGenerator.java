@@ -0,0 +1,58 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+
+/**
+ * Generator of leaf-spine topologies: each leaf switch is connected to all
+ * the spine switches and Hosts are attached to leaf switches.
+ *
+ * Each leaf is a group of the layout; spines form the last group.
+ *
+ * @author Amaury Van Bemten
+ */
+public class LeafSpineGenerator extends TopologyGenerator {
+	/**
+	 * Number of leaf switches.
+	 */
+	private final int leaves;
+
+	/**
+	 * Number of spine switches.
+	 */
+	private final int spines;
+
+	/**
+	 * Number of Hosts per leaf switch.
+	 */
+	private final int hostsPerLeaf;
+
+	/**
+	 * Creates a new leaf-spine generator.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 * @param leaves number of leaf switches.
+	 * @param spines number of spine switches.
+	 * @param hostsPerLeaf number of Hosts per leaf switch.
+	 */
+	public LeafSpineGenerator(NetworkingSystem networkingSystem, int leaves, int spines, int hostsPerLeaf) {
+		super(networkingSystem);
+		if(leaves < 1 || spines < 1 || hostsPerLeaf < 0)
+			throw new IllegalArgumentException("A leaf-spine topology needs at least one leaf and one spine");
+		this.leaves = leaves;
+		this.spines = spines;
+		this.hostsPerLeaf = hostsPerLeaf;
+	}
+
+	@Override
+	protected void layout(TopologyLayout layout) {
+		int[] spineSwitches = new int[spines];
+		for(int i = 0; i < spines; i++)
+			spineSwitches[i] = layout.addSwitch("spine" + i, leaves);
+
+		for(int i = 0; i < leaves; i++) {
+			int leaf = layout.addSwitch("leaf" + i, i);
+			for(int spine : spineSwitches)
+				layout.connect(leaf, spine);
+			layout.attachHosts(leaf, hostsPerLeaf);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generator of random regular graphs (e.g., Jellyfish-like topologies): n
+ * switches, each connected to exactly d other switches, without self-loops
+ * nor parallel connections. The graph is drawn by randomly pairing the
+ * connection stubs of the switches and is reproducible for a given seed.
+ *
+ * Blocks of consecutive switches form the groups of the layout.
+ *
+ * @author Amaury Van Bemten
+ */
+public class RandomRegularGenerator extends TopologyGenerator {
+	/**
+	 * Number of switches per group of the layout.
+	 */
+	private static final int SWITCHES_PER_GROUP = 64;
+
+	/**
+	 * Maximum number of times the pairing is restarted from scratch.
+	 */
+	private static final int MAX_ATTEMPTS = 100;
+
+	/**
+	 * Number of switches.
+	 */
+	private final int n;
+
+	/**
+	 * Degree of each switch.
+	 */
+	private final int degree;
+
+	/**
+	 * Number of Hosts per switch.
+	 */
+	private final int hostsPerSwitch;
+
+	/**
+	 * Seed of the random generator.
+	 */
+	private final long seed;
+
+	/**
+	 * Creates a new random regular graph generator.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 * @param n number of switches.
+	 * @param degree number of switches to which each switch is connected.
+	 * @param hostsPerSwitch number of Hosts per switch.
+	 * @param seed seed of the random generator.
+	 */
+	public RandomRegularGenerator(NetworkingSystem networkingSystem, int n, int degree, int hostsPerSwitch, long seed) {
+		super(networkingSystem);
+		if(degree < 0 || degree >= n)
+			throw new IllegalArgumentException("The degree must be non-negative and lower than the number of switches");
+		if(((long) n * degree) % 2 != 0)
+			throw new IllegalArgumentException("The number of switches times the degree must be even");
+		if(hostsPerSwitch < 0)
+			throw new IllegalArgumentException("The number of hosts per switch must be non-negative");
+		this.n = n;
+		this.degree = degree;
+		this.hostsPerSwitch = hostsPerSwitch;
+		this.seed = seed;
+	}
+
+	@Override
+	protected void layout(TopologyLayout layout) {
+		for(int i = 0; i < n; i++) {
+			layout.addSwitch("sw" + i, i / SWITCHES_PER_GROUP);
+			layout.attachHosts(i, hostsPerSwitch);
+		}
+
+		Random random = new Random(seed);
+		for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			long[] connections = pair(random);
+			if(connections != null) {
+				for(long connection : connections)
+					layout.connect((int) (connection / n), (int) (connection % n));
+				return;
+			}
+		}
+
+		throw new NetworkException("Unable to generate a random " + degree + "-regular graph with " + n + " switches");
+	}
+
+	/**
+	 * Randomly pairs the connection stubs of the switches.
+	 * @param random random generator.
+	 * @return the connections (encoded as smaller * n + larger switch index)
+	 *         or null if the pairing got stuck.
+	 */
+	private long[] pair(Random random) {
+		int[] stubs = new int[n * degree];
+		for(int i = 0; i < stubs.length; i++)
+			stubs[i] = i / degree;
+
+		long[] connections = new long[stubs.length / 2];
+		Set<Long> existing = new HashSet<>();
+		int remaining = stubs.length;
+		int failures = 0;
+		while(remaining > 0) {
+			int i = random.nextInt(remaining);
+			int j = random.nextInt(remaining);
+			long connection = encode(stubs[i], stubs[j]);
+			if(stubs[i] == stubs[j] || existing.contains(connection)) {
+				// Only check for a dead end once in a while, this is costly.
+				if(++failures > 100) {
+					if(!hasSuitablePair(stubs, remaining, existing))
+						return null;
+					failures = 0;
+				}
+				continue;
+			}
+
+			failures = 0;
+			existing.add(connection);
+			connections[(stubs.length - remaining) / 2] = connection;
+
+			// Remove both stubs by swapping them with the last ones.
+			int first = Math.max(i, j);
+			int second = Math.min(i, j);
+			stubs[first] = stubs[--remaining];
+			stubs[second] = stubs[--remaining];
+		}
+
+		return connections;
+	}
+
+	/**
+	 * Checks whether two of the remaining stubs can still be paired.
+	 * @param stubs stubs (i.e., switch indices).
+	 * @param remaining number of remaining stubs.
+	 * @param existing already created connections.
+	 * @return true if at least one pair of stubs can still be connected.
+	 */
+	private boolean hasSuitablePair(int[] stubs, int remaining, Set<Long> existing) {
+		for(int i = 0; i < remaining; i++)
+			for(int j = i + 1; j < remaining; j++)
+				if(stubs[i] != stubs[j] && !existing.contains(encode(stubs[i], stubs[j])))
+					return true;
+		return false;
+	}
+
+	/**
+	 * Encodes an undirected connection between two switches.
+	 * @param a first switch index.
+	 * @param b second switch index.
+	 * @return smaller index * n + larger index.
+	 */
+	private long encode(int a, int b) {
+		return (long) Math.min(a, b) * n + Math.max(a, b);
+	}
+}
@@ -0,0 +1,311 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.IPv4Address;
+import de.tum.ei.lkn.eces.network.util.MACAddress;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generator of parametric topologies.
+ *
+ * A generator describes its topology in a TopologyLayout and the topology is
+ * then created in a Network (both the link- and the queue-level Graphs) using
+ * TopologyBatch: first all the switches, then all the Links and Hosts of each
+ * group of the layout (e.g., each pod of a fat-tree). Groups are built in
+ * parallel.
+ *
+ * Each Host gets a single NetworkInterface ('eth0') whose MAC and IPv4
+ * addresses are derived from the index of the Host so that generated
+ * topologies are reproducible.
+ *
+ * @author Amaury Van Bemten
+ */
+public abstract class TopologyGenerator {
+	/**
+	 * NetworkingSystem used to create the topology.
+	 */
+	protected final NetworkingSystem networkingSystem;
+
+	/**
+	 * Rate of the Links between switches in bytes/s.
+	 */
+	private double rate;
+
+	/**
+	 * Delay of the Links between switches in seconds.
+	 */
+	private double delay;
+
+	/**
+	 * Queue sizes of the Links between switches in bytes.
+	 */
+	private double[] queueSizes;
+
+	/**
+	 * Rate of the Links between Hosts and switches in bytes/s.
+	 */
+	private double hostRate;
+
+	/**
+	 * Delay of the Links between Hosts and switches in seconds.
+	 */
+	private double hostDelay;
+
+	/**
+	 * Queue sizes of the Links between Hosts and switches in bytes.
+	 */
+	private double[] hostQueueSizes;
+
+	/**
+	 * IPv4 address of the first Host.
+	 */
+	private int firstIPAddress;
+
+	/**
+	 * MAC address of the first Host.
+	 */
+	private long firstMACAddress;
+
+	/**
+	 * Number of threads used to build the groups of the topology.
+	 */
+	private int parallelism;
+
+	/**
+	 * Creates a new generator. Per default, all Links are 10 Gbit/s Links
+	 * with a 1 us delay and a single 150 kB Queue, Hosts are numbered from
+	 * 10.0.0.1 and 02:00:00:00:00:01 and one thread per processor is used.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 */
+	protected TopologyGenerator(NetworkingSystem networkingSystem) {
+		this.networkingSystem = networkingSystem;
+		setLinkParameters(1.25e9, 1e-6, new double[]{150000});
+		setHostLinkParameters(1.25e9, 1e-6, new double[]{150000});
+		this.firstIPAddress = 0x0a000001;
+		this.firstMACAddress = 0x020000000001L;
+		this.parallelism = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Describes the topology to generate.
+	 * @param layout empty layout to fill.
+	 */
+	protected abstract void layout(TopologyLayout layout);
+
+	/**
+	 * Sets the parameters of the Links between switches.
+	 * @param rate Rate in bytes/s.
+	 * @param delay Delay in seconds.
+	 * @param queueSizes Size of each Queue in bytes. If there is more than one
+	 *                   Queue, priority scheduling is used.
+	 */
+	public void setLinkParameters(double rate, double delay, double[] queueSizes) {
+		checkQueueSizes(queueSizes);
+		this.rate = rate;
+		this.delay = delay;
+		this.queueSizes = queueSizes;
+	}
+
+	/**
+	 * Sets the parameters of the Links between Hosts and switches.
+	 * @param rate Rate in bytes/s.
+	 * @param delay Delay in seconds.
+	 * @param queueSizes Size of each Queue in bytes. If there is more than one
+	 *                   Queue, priority scheduling is used.
+	 */
+	public void setHostLinkParameters(double rate, double delay, double[] queueSizes) {
+		checkQueueSizes(queueSizes);
+		this.hostRate = rate;
+		this.hostDelay = delay;
+		this.hostQueueSizes = queueSizes;
+	}
+
+	/**
+	 * Sets the addresses of the first Host. The i-th Host gets the addresses
+	 * following these ones by i.
+	 * @param ipAddress IPv4 address of the first Host.
+	 * @param macAddress MAC address of the first Host.
+	 */
+	public void setFirstAddresses(IPv4Address ipAddress, MACAddress macAddress) {
+		byte[] ip = ipAddress.toBytes();
+		byte[] mac = macAddress.toBytes();
+		this.firstIPAddress = ((ip[0] & 0xff) << 24) | ((ip[1] & 0xff) << 16) | ((ip[2] & 0xff) << 8) | (ip[3] & 0xff);
+		this.firstMACAddress = 0;
+		for(byte b : mac)
+			this.firstMACAddress = (this.firstMACAddress << 8) | (b & 0xff);
+	}
+
+	/**
+	 * Sets the number of threads used to build the groups of the topology.
+	 * @param parallelism number of threads (1 to build everything in the
+	 *                    calling thread).
+	 */
+	public void setParallelism(int parallelism) {
+		if(parallelism < 1)
+			throw new IllegalArgumentException("The parallelism must be at least 1");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Generates the topology in a Network.
+	 * @param network Network in which the topology is created.
+	 * @return the generated switches and Hosts.
+	 * @throws NetworkException if the topology cannot be created (e.g., if
+	 *                          generated addresses are already present in the
+	 *                          Network).
+	 */
+	public GeneratedTopology generate(Network network) {
+		TopologyLayout layout = new TopologyLayout();
+		layout(layout);
+		int numberOfSwitches = layout.getNumberOfSwitches();
+		int numberOfGroups = layout.getNumberOfGroups();
+
+		// Switches are created first so that all groups can connect to them.
+		TopologyBatch switchBatch = networkingSystem.batch(network);
+		for(int i = 0; i < numberOfSwitches; i++)
+			switchBatch.addNode(layout.getSwitchName(i));
+		switchBatch.commit();
+		NetworkNode[] switches = new NetworkNode[numberOfSwitches];
+		for(int i = 0; i < numberOfSwitches; i++)
+			switches[i] = switchBatch.getNode(i);
+
+		// Index of the first Host of each switch.
+		int[] firstHosts = new int[numberOfSwitches];
+		int numberOfHosts = 0;
+		for(int i = 0; i < numberOfSwitches; i++) {
+			firstHosts[i] = numberOfHosts;
+			numberOfHosts += layout.getHostsPerSwitch(i);
+		}
+		Host[] hosts = new Host[numberOfHosts];
+
+		// Switches and connections of each group.
+		List<List<Integer>> groupSwitches = new ArrayList<>(numberOfGroups);
+		List<List<Integer>> groupConnections = new ArrayList<>(numberOfGroups);
+		for(int g = 0; g < numberOfGroups; g++) {
+			groupSwitches.add(new ArrayList<>());
+			groupConnections.add(new ArrayList<>());
+		}
+		for(int i = 0; i < numberOfSwitches; i++)
+			groupSwitches.get(layout.getSwitchGroup(i)).add(i);
+		for(int c = 0; c < layout.getNumberOfConnections(); c++)
+			groupConnections.get(layout.getSwitchGroup(layout.getConnectionSource(c))).add(c);
+
+		List<Runnable> tasks = new ArrayList<>(numberOfGroups);
+		for(int g = 0; g < numberOfGroups; g++) {
+			List<Integer> switchesOfGroup = groupSwitches.get(g);
+			List<Integer> connectionsOfGroup = groupConnections.get(g);
+			if(!connectionsOfGroup.isEmpty() || !switchesOfGroup.isEmpty())
+				tasks.add(() -> buildGroup(network, layout, switchesOfGroup, connectionsOfGroup, switches, firstHosts, hosts));
+		}
+		run(tasks);
+
+		return new GeneratedTopology(switches, hosts);
+	}
+
+	/**
+	 * Creates the connections and Hosts of a group in a single batch.
+	 * @param network Network in which the topology is created.
+	 * @param layout layout of the topology.
+	 * @param switchesOfGroup switches of the group.
+	 * @param connectionsOfGroup connections of the group.
+	 * @param switches all the (already created) switches.
+	 * @param firstHosts index of the first Host of each switch.
+	 * @param hosts array where to store the created Hosts.
+	 */
+	private void buildGroup(Network network, TopologyLayout layout, List<Integer> switchesOfGroup, List<Integer> connectionsOfGroup, NetworkNode[] switches, int[] firstHosts, Host[] hosts) {
+		TopologyBatch batch = networkingSystem.batch(network);
+		Map<Integer, Integer> handles = new HashMap<>();
+
+		for(int c : connectionsOfGroup) {
+			int src = handles.computeIfAbsent(layout.getConnectionSource(c), sw -> batch.addNode(switches[sw]));
+			int dst = handles.computeIfAbsent(layout.getConnectionDestination(c), sw -> batch.addNode(switches[sw]));
+			addLink(batch, src, dst, rate, delay, queueSizes);
+			addLink(batch, dst, src, rate, delay, queueSizes);
+		}
+
+		List<Integer> hostIndexes = new ArrayList<>();
+		List<Integer> hostHandles = new ArrayList<>();
+		for(int sw : switchesOfGroup) {
+			if(layout.getHostsPerSwitch(sw) == 0)
+				continue;
+			int swHandle = handles.computeIfAbsent(sw, i -> batch.addNode(switches[i]));
+			for(int i = 0; i < layout.getHostsPerSwitch(sw); i++) {
+				int index = firstHosts[sw] + i;
+				int host = batch.addHost("h" + index);
+				int ifc = batch.addInterface(host, createInterface(index));
+				addLink(batch, ifc, swHandle, hostRate, hostDelay, hostQueueSizes);
+				addLink(batch, swHandle, ifc, hostRate, hostDelay, hostQueueSizes);
+				hostIndexes.add(index);
+				hostHandles.add(host);
+			}
+		}
+
+		batch.commit();
+		for(int i = 0; i < hostIndexes.size(); i++)
+			hosts[hostIndexes.get(i)] = batch.getHost(hostHandles.get(i));
+	}
+
+	/**
+	 * Creates the NetworkInterface of a Host.
+	 * @param index index of the Host.
+	 * @return the NetworkInterface.
+	 */
+	private NetworkInterface createInterface(int index) {
+		int ip = firstIPAddress + index;
+		long mac = firstMACAddress + index;
+		byte[] ipBytes = {(byte) (ip >>> 24), (byte) (ip >>> 16), (byte) (ip >>> 8), (byte) ip};
+		byte[] macBytes = new byte[6];
+		for(int i = 0; i < macBytes.length; i++)
+			macBytes[i] = (byte) (mac >>> (8 * (macBytes.length - 1 - i)));
+		return new NetworkInterface("eth0", new MACAddress(macBytes), new IPv4Address(ipBytes));
+	}
+
+	/**
+	 * Runs tasks, in parallel if configured so.
+	 * @param tasks tasks to run.
+	 */
+	private void run(List<Runnable> tasks) {
+		if(parallelism == 1 || tasks.size() <= 1) {
+			for(Runnable task : tasks)
+				task.run();
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+		try {
+			List<Future<?>> futures = new ArrayList<>(tasks.size());
+			for(Runnable task : tasks)
+				futures.add(executor.submit(task));
+			for(Future<?> future : futures)
+				future.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new NetworkException("Interrupted while generating topology");
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new NetworkException("Topology generation failed: " + e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void addLink(TopologyBatch batch, int src, int dst, double rate, double delay, double[] queueSizes) {
+		if(queueSizes.length == 1)
+			batch.addLink(src, dst, rate, delay, queueSizes[0]);
+		else
+			batch.addLinkWithPriorityScheduling(src, dst, rate, delay, queueSizes);
+	}
+
+	private static void checkQueueSizes(double[] queueSizes) {
+		if(queueSizes.length < 1)
+			throw new NetworkException("Impossible to create a link with less than one queue");
+	}
+}
@@ -0,0 +1,172 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Abstract description of a topology: switches, the groups (e.g., pods) to
+ * which they belong, the connections between them and the number of Hosts
+ * attached to each of them.
+ *
+ * A connection is bidirectional (it results in two Links) and belongs to the
+ * group of its first switch.
+ *
+ * @author Amaury Van Bemten
+ */
+public class TopologyLayout {
+	/**
+	 * Names of the switches.
+	 */
+	private final List<String> switchNames;
+
+	/**
+	 * Group of each switch.
+	 */
+	private int[] switchGroups;
+
+	/**
+	 * Number of Hosts attached to each switch.
+	 */
+	private int[] hostsPerSwitch;
+
+	/**
+	 * First switch of each connection.
+	 */
+	private int[] connectionSources;
+
+	/**
+	 * Second switch of each connection.
+	 */
+	private int[] connectionDestinations;
+
+	/**
+	 * Number of connections.
+	 */
+	private int numberOfConnections;
+
+	/**
+	 * Number of groups.
+	 */
+	private int numberOfGroups;
+
+	TopologyLayout() {
+		this.switchNames = new ArrayList<>();
+		this.switchGroups = new int[16];
+		this.hostsPerSwitch = new int[16];
+		this.connectionSources = new int[16];
+		this.connectionDestinations = new int[16];
+	}
+
+	/**
+	 * Adds a switch to the layout.
+	 * @param name name of the switch.
+	 * @param group group of the switch (non-negative).
+	 * @return index of the switch.
+	 */
+	public int addSwitch(String name, int group) {
+		if(group < 0)
+			throw new IllegalArgumentException("The group of a switch must be non-negative");
+
+		int index = switchNames.size();
+		if(index == switchGroups.length) {
+			switchGroups = Arrays.copyOf(switchGroups, 2 * index);
+			hostsPerSwitch = Arrays.copyOf(hostsPerSwitch, 2 * index);
+		}
+		switchNames.add(name);
+		switchGroups[index] = group;
+		numberOfGroups = Math.max(numberOfGroups, group + 1);
+		return index;
+	}
+
+	/**
+	 * Connects two switches in both directions.
+	 * @param first index of the first switch (its group builds the
+	 *              connection).
+	 * @param second index of the second switch.
+	 */
+	public void connect(int first, int second) {
+		checkSwitch(first);
+		checkSwitch(second);
+		if(first == second)
+			throw new IllegalArgumentException("A switch cannot be connected to itself");
+
+		if(numberOfConnections == connectionSources.length) {
+			connectionSources = Arrays.copyOf(connectionSources, 2 * numberOfConnections);
+			connectionDestinations = Arrays.copyOf(connectionDestinations, 2 * numberOfConnections);
+		}
+		connectionSources[numberOfConnections] = first;
+		connectionDestinations[numberOfConnections] = second;
+		numberOfConnections++;
+	}
+
+	/**
+	 * Attaches Hosts to a switch.
+	 * @param sw index of the switch.
+	 * @param count number of Hosts to attach.
+	 */
+	public void attachHosts(int sw, int count) {
+		checkSwitch(sw);
+		hostsPerSwitch[sw] += count;
+	}
+
+	/**
+	 * Gets the number of switches of the layout.
+	 * @return number of switches.
+	 */
+	public int getNumberOfSwitches() {
+		return switchNames.size();
+	}
+
+	/**
+	 * Gets the number of (bidirectional) connections of the layout.
+	 * @return number of connections.
+	 */
+	public int getNumberOfConnections() {
+		return numberOfConnections;
+	}
+
+	/**
+	 * Gets the number of groups of the layout.
+	 * @return number of groups (highest group index + 1).
+	 */
+	public int getNumberOfGroups() {
+		return numberOfGroups;
+	}
+
+	/**
+	 * Gets the total number of Hosts of the layout.
+	 * @return number of Hosts.
+	 */
+	public int getNumberOfHosts() {
+		int hosts = 0;
+		for(int i = 0; i < switchNames.size(); i++)
+			hosts += hostsPerSwitch[i];
+		return hosts;
+	}
+
+	String getSwitchName(int sw) {
+		return switchNames.get(sw);
+	}
+
+	int getSwitchGroup(int sw) {
+		return switchGroups[sw];
+	}
+
+	int getHostsPerSwitch(int sw) {
+		return hostsPerSwitch[sw];
+	}
+
+	int getConnectionSource(int connection) {
+		return connectionSources[connection];
+	}
+
+	int getConnectionDestination(int connection) {
+		return connectionDestinations[connection];
+	}
+
+	private void checkSwitch(int sw) {
+		if(sw < 0 || sw >= switchNames.size())
+			throw new IllegalArgumentException("Unknown switch " + sw);
+	}
+}
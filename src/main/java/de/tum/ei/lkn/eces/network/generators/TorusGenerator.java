@@ -0,0 +1,77 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+
+/**
+ * Generator of n-dimensional tori (e.g., 2D or 3D): each switch is connected
+ * to its two neighbors (with wrap-around) in each dimension.
+ *
+ * The switches sharing the same first coordinate form a group of the layout.
+ *
+ * @author Amaury Van Bemten
+ */
+public class TorusGenerator extends TopologyGenerator {
+	/**
+	 * Size of each dimension.
+	 */
+	private final int[] dimensions;
+
+	/**
+	 * Number of Hosts per switch.
+	 */
+	private final int hostsPerSwitch;
+
+	/**
+	 * Creates a new torus generator.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 * @param hostsPerSwitch number of Hosts per switch.
+	 * @param dimensions size of each dimension (e.g., 4, 4, 4 for a 3D
+	 *                   4x4x4 torus).
+	 */
+	public TorusGenerator(NetworkingSystem networkingSystem, int hostsPerSwitch, int... dimensions) {
+		super(networkingSystem);
+		if(dimensions.length < 1)
+			throw new IllegalArgumentException("A torus has at least one dimension");
+		for(int dimension : dimensions)
+			if(dimension < 1)
+				throw new IllegalArgumentException("The size of a torus dimension must be positive");
+		if(hostsPerSwitch < 0)
+			throw new IllegalArgumentException("The number of hosts per switch must be non-negative");
+		this.dimensions = dimensions.clone();
+		this.hostsPerSwitch = hostsPerSwitch;
+	}
+
+	@Override
+	protected void layout(TopologyLayout layout) {
+		int numberOfSwitches = 1;
+		for(int dimension : dimensions)
+			numberOfSwitches *= dimension;
+
+		// Switch i has coordinates (i / stride[d]) % dimensions[d].
+		int[] strides = new int[dimensions.length];
+		int stride = 1;
+		for(int d = dimensions.length - 1; d >= 0; d--) {
+			strides[d] = stride;
+			stride *= dimensions[d];
+		}
+
+		for(int i = 0; i < numberOfSwitches; i++) {
+			StringBuilder name = new StringBuilder("sw");
+			for(int d = 0; d < dimensions.length; d++)
+				name.append(d == 0 ? "" : "-").append((i / strides[d]) % dimensions[d]);
+			layout.addSwitch(name.toString(), i / strides[0]);
+			layout.attachHosts(i, hostsPerSwitch);
+		}
+
+		for(int i = 0; i < numberOfSwitches; i++) {
+			for(int d = 0; d < dimensions.length; d++) {
+				int coordinate = (i / strides[d]) % dimensions[d];
+				// In dimensions of size 2, both neighbors are the same switch.
+				if(dimensions[d] == 1 || (dimensions[d] == 2 && coordinate == 1))
+					continue;
+				int neighbor = i + (((coordinate + 1) % dimensions[d]) - coordinate) * strides[d];
+				layout.connect(i, neighbor);
+			}
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.MACAddress;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming importer for GraphML topology files. The document is read with a
+ * StAX parser, element by element.
+ *
+ * Each GraphML node becomes a Node whose identifier is the GraphML id and
+ * whose name is given by the 'name' attribute (if any). A node with a 'host'
+ * attribute becomes instead a NetworkInterface of that Host (the Host being
+ * created on its first occurrence), with the 'interface', 'mac' and
+ * (optionally) 'ip' attributes. Each GraphML edge becomes a Link with the
+ * following attributes:
+ * - 'rate' in Kbps (or 'infinite'),
+ * - 'delay' in ms,
+ * - 'queues': Queue sizes in bytes (or 'infinite'), separated by commas or
+ *   whitespaces,
+ * - 'scheduler': 'default' (also used if missing), 'priority' or 'wfq',
+ * - 'weights': WFQ weights, separated by commas or whitespaces.
+ *
+ * Attributes are identified by the 'attr.name' of their key and key defaults
+ * are supported. Edges are always considered directed. Nodes must be declared
+ * before the edges using them and nested graphs are ignored.
+ *
+ * @author Amaury Van Bemten
+ */
+public class GraphMLTopologyImporter extends TopologyImporter {
+	/**
+	 * Creates a new GraphML importer.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 */
+	public GraphMLTopologyImporter(NetworkingSystem networkingSystem) {
+		super(networkingSystem);
+	}
+
+	@Override
+	public Map<String, NetworkNode> importTopology(Network network, InputStream in) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		TopologyLoader loader = createLoader(network);
+		Map<String, Key> keys = new HashMap<>();
+		Map<String, String> attributes = new HashMap<>();
+		try {
+			XMLStreamReader xml = factory.createXMLStreamReader(in);
+			try {
+				while(xml.hasNext()) {
+					if(xml.next() != XMLStreamConstants.START_ELEMENT)
+						continue;
+
+					switch(xml.getLocalName()) {
+						case "key":
+							readKey(xml, keys);
+							break;
+						case "node":
+							String id = requiredAttribute(xml, "id");
+							readData(xml, keys, "node", attributes);
+							addNode(loader, id, attributes);
+							break;
+						case "edge":
+							String source = requiredAttribute(xml, "source");
+							String target = requiredAttribute(xml, "target");
+							readData(xml, keys, "edge", attributes);
+							addLink(loader, source, target, attributes);
+					}
+				}
+			} finally {
+				xml.close();
+			}
+		} catch(XMLStreamException e) {
+			throw new IOException("Malformed GraphML document: " + e.getMessage(), e);
+		}
+
+		return loader.finish();
+	}
+
+	/**
+	 * Reads the declaration of a key.
+	 * @param xml reader positioned on the 'key' element.
+	 * @param keys keys by id.
+	 * @throws XMLStreamException if the document is malformed.
+	 */
+	private void readKey(XMLStreamReader xml, Map<String, Key> keys) throws XMLStreamException {
+		String id = requiredAttribute(xml, "id");
+		String name = xml.getAttributeValue(null, "attr.name");
+		String domain = xml.getAttributeValue(null, "for");
+		Key key = new Key(name == null ? id : name, domain == null ? "all" : domain);
+
+		int depth = 1;
+		while(depth > 0) {
+			int event = xml.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				if(depth == 1 && xml.getLocalName().equals("default")) {
+					key.defaultValue = xml.getElementText();
+				}
+				else {
+					depth++;
+				}
+			}
+			else if(event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+		keys.put(id, key);
+	}
+
+	/**
+	 * Reads the attributes of a node or an edge (including key defaults).
+	 * @param xml reader positioned on the 'node' or 'edge' element.
+	 * @param keys keys by id.
+	 * @param domain 'node' or 'edge'.
+	 * @param attributes map filled with the attributes by name.
+	 * @throws XMLStreamException if the document is malformed.
+	 */
+	private void readData(XMLStreamReader xml, Map<String, Key> keys, String domain, Map<String, String> attributes) throws XMLStreamException {
+		attributes.clear();
+		for(Key key : keys.values())
+			if(key.defaultValue != null && (key.domain.equals(domain) || key.domain.equals("all")))
+				attributes.put(key.name, key.defaultValue);
+
+		int depth = 1;
+		while(depth > 0) {
+			int event = xml.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				if(depth == 1 && xml.getLocalName().equals("data")) {
+					String keyId = requiredAttribute(xml, "key");
+					Key key = keys.get(keyId);
+					attributes.put(key == null ? keyId : key.name, xml.getElementText().trim());
+				}
+				else {
+					depth++;
+				}
+			}
+			else if(event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Creates a Node or a NetworkInterface.
+	 * @param loader loader.
+	 * @param id GraphML id of the node.
+	 * @param attributes attributes of the node.
+	 * @throws IOException if an address is malformed.
+	 */
+	private void addNode(TopologyLoader loader, String id, Map<String, String> attributes) throws IOException {
+		String host = attributes.get("host");
+		if(host == null) {
+			String name = attributes.get("name");
+			loader.addNode(id, name == null ? "" : name);
+			return;
+		}
+
+		String name = required(attributes, "interface", id);
+		String mac = required(attributes, "mac", id);
+		String ip = attributes.get("ip");
+		NetworkInterface networkInterface;
+		try {
+			if(ip == null)
+				networkInterface = new NetworkInterface(name, MACAddress.valueOf(mac));
+			else
+				networkInterface = new NetworkInterface(name, MACAddress.valueOf(mac), IPAddress.valueOf(ip));
+		} catch(IllegalArgumentException e) {
+			throw new IOException("Malformed GraphML document: invalid address of node " + id + ": " + e.getMessage(), e);
+		}
+		loader.addInterface(host, id, networkInterface);
+	}
+
+	/**
+	 * Creates a Link.
+	 * @param loader loader.
+	 * @param source GraphML id of the source node.
+	 * @param target GraphML id of the target node.
+	 * @param attributes attributes of the edge.
+	 */
+	private void addLink(TopologyLoader loader, String source, String target, Map<String, String> attributes) {
+		String element = source + "->" + target;
+		double rate = TopologyLoader.rateFromKbps(TopologyLoader.parseValue(required(attributes, "rate", element), "rate"));
+		double delay = TopologyLoader.delayFromMs(TopologyLoader.parseValue(required(attributes, "delay", element), "delay"));
+		double[] queueSizes = TopologyLoader.parseValues(required(attributes, "queues", element), "queue size");
+		String weights = attributes.get("weights");
+		loader.addLink(source, target, rate, delay, queueSizes, weights == null ? null : TopologyLoader.parseValues(weights, "weight"), attributes.get("scheduler"));
+	}
+
+	/**
+	 * Gets a mandatory attribute of a node or an edge.
+	 * @param attributes attributes.
+	 * @param name name of the attribute.
+	 * @param element description of the node or edge (for error messages).
+	 * @return the value of the attribute.
+	 * @throws NetworkException if the attribute is missing.
+	 */
+	private static String required(Map<String, String> attributes, String name, String element) {
+		String value = attributes.get(name);
+		if(value == null)
+			throw new NetworkException("Missing '" + name + "' attribute for " + element);
+		return value;
+	}
+
+	/**
+	 * Gets a mandatory XML attribute of the current element.
+	 * @param xml reader positioned on an element.
+	 * @param name name of the XML attribute.
+	 * @return the value of the XML attribute.
+	 * @throws XMLStreamException if the XML attribute is missing.
+	 */
+	private static String requiredAttribute(XMLStreamReader xml, String name) throws XMLStreamException {
+		String value = xml.getAttributeValue(null, name);
+		if(value == null)
+			throw new XMLStreamException("Missing '" + name + "' attribute in <" + xml.getLocalName() + ">", xml.getLocation());
+		return value;
+	}
+
+	/**
+	 * GraphML attribute declaration.
+	 */
+	private static class Key {
+		/**
+		 * Name of the attribute.
+		 */
+		private final String name;
+
+		/**
+		 * Elements to which the attribute applies ('node', 'edge', 'all'...).
+		 */
+		private final String domain;
+
+		/**
+		 * Default value (null if none).
+		 */
+		private String defaultValue;
+
+		private Key(String name, String domain) {
+			this.name = name;
+			this.domain = domain;
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer emitting a JSON document token by token, without building it in
+ * memory.
+ *
+ * @author Amaury Van Bemten
+ */
+class JSONStreamWriter {
+	/**
+	 * Destination of the document.
+	 */
+	private final Writer writer;
+
+	/**
+	 * For each open object or array, whether it already has an element.
+	 */
+	private boolean[] nonEmpty;
+
+	/**
+	 * Number of open objects and arrays.
+	 */
+	private int depth;
+
+	/**
+	 * Whether a name has just been written (and its value is expected).
+	 */
+	private boolean afterName;
+
+	/**
+	 * Creates a new writer.
+	 * @param writer destination of the document.
+	 */
+	JSONStreamWriter(Writer writer) {
+		this.writer = writer;
+		this.nonEmpty = new boolean[32];
+	}
+
+	/**
+	 * Begins an object.
+	 * @return this writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	JSONStreamWriter beginObject() throws IOException {
+		open('{');
+		return this;
+	}
+
+	/**
+	 * Ends the current object.
+	 * @return this writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	JSONStreamWriter endObject() throws IOException {
+		close('}');
+		return this;
+	}
+
+	/**
+	 * Begins an array.
+	 * @return this writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	JSONStreamWriter beginArray() throws IOException {
+		open('[');
+		return this;
+	}
+
+	/**
+	 * Ends the current array.
+	 * @return this writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	JSONStreamWriter endArray() throws IOException {
+		close(']');
+		return this;
+	}
+
+	/**
+	 * Writes the name of the next member of the current object.
+	 * @param name name.
+	 * @return this writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	JSONStreamWriter name(String name) throws IOException {
+		separate();
+		writeString(name);
+		writer.write(':');
+		afterName = true;
+		return this;
+	}
+
+	/**
+	 * Writes a string value.
+	 * @param value value.
+	 * @return this writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	JSONStreamWriter value(String value) throws IOException {
+		separate();
+		writeString(value);
+		return this;
+	}
+
+	/**
+	 * Writes a numerical value. Infinite values are written as 'infinite'.
+	 * @param value value.
+	 * @return this writer.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	JSONStreamWriter value(double value) throws IOException {
+		if(Double.isInfinite(value))
+			return value(TopologyLoader.INFINITE);
+		if(Double.isNaN(value))
+			throw new IllegalArgumentException("NaN cannot be written in JSON");
+
+		separate();
+		if(value == Math.rint(value) && Math.abs(value) < 1e15)
+			writer.write(Long.toString((long) value));
+		else
+			writer.write(Double.toString(value));
+		return this;
+	}
+
+	/**
+	 * Flushes the destination.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * Opens an object or an array.
+	 * @param bracket opening bracket.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	private void open(char bracket) throws IOException {
+		separate();
+		writer.write(bracket);
+		if(depth == nonEmpty.length) {
+			boolean[] newNonEmpty = new boolean[depth * 2];
+			System.arraycopy(nonEmpty, 0, newNonEmpty, 0, depth);
+			nonEmpty = newNonEmpty;
+		}
+		nonEmpty[depth++] = false;
+	}
+
+	/**
+	 * Closes the current object or array.
+	 * @param bracket closing bracket.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	private void close(char bracket) throws IOException {
+		if(depth == 0)
+			throw new IllegalStateException("Nothing to close");
+		depth--;
+		writer.write(bracket);
+	}
+
+	/**
+	 * Writes the separator preceding a value or a name, if needed.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	private void separate() throws IOException {
+		if(afterName) {
+			afterName = false;
+			return;
+		}
+		if(depth > 0) {
+			if(nonEmpty[depth - 1])
+				writer.write(',');
+			nonEmpty[depth - 1] = true;
+		}
+	}
+
+	/**
+	 * Writes a quoted and escaped string.
+	 * @param string string.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	private void writeString(String string) throws IOException {
+		writer.write('"');
+		int start = 0;
+		for(int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			String escaped;
+			if(c == '"')
+				escaped = "\\\"";
+			else if(c == '\\')
+				escaped = "\\\\";
+			else if(c == '\n')
+				escaped = "\\n";
+			else if(c == '\r')
+				escaped = "\\r";
+			else if(c == '\t')
+				escaped = "\\t";
+			else if(c < 0x20)
+				escaped = String.format("\\u%04x", (int) c);
+			else
+				continue;
+			writer.write(string, start, i - start);
+			writer.write(escaped);
+			start = i + 1;
+		}
+		writer.write(string, start, string.length() - start);
+		writer.write('"');
+	}
+}
@@ -0,0 +1,458 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull tokenizer for JSON documents. Tokens are read one by one from a Reader
+ * so that only the current token is held in memory.
+ *
+ * @author Amaury Van Bemten
+ */
+class JSONTokenizer {
+	/**
+	 * Types of tokens.
+	 */
+	enum Token {
+		BEGIN_OBJECT,
+		END_OBJECT,
+		BEGIN_ARRAY,
+		END_ARRAY,
+		NAME,
+		STRING,
+		NUMBER,
+		LITERAL,
+		END_DOCUMENT
+	}
+
+	/* Scopes of the stack. */
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int NONEMPTY_OBJECT = 3;
+	private static final int DANGLING_NAME = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	/**
+	 * Source of the document.
+	 */
+	private final Reader reader;
+
+	/**
+	 * Buffer of characters read from the source.
+	 */
+	private final char[] buffer;
+
+	/**
+	 * Position of the next character in the buffer.
+	 */
+	private int position;
+
+	/**
+	 * Number of valid characters in the buffer.
+	 */
+	private int limit;
+
+	/**
+	 * Current line (for error messages).
+	 */
+	private int line;
+
+	/**
+	 * Stack of scopes.
+	 */
+	private int[] stack;
+
+	/**
+	 * Number of scopes in the stack.
+	 */
+	private int stackSize;
+
+	/**
+	 * Next token (null if not peeked yet).
+	 */
+	private Token peeked;
+
+	/**
+	 * Text of the next token (names, strings, numbers and literals).
+	 */
+	private String peekedText;
+
+	/**
+	 * Builder reused for reading strings and numbers.
+	 */
+	private final StringBuilder builder;
+
+	/**
+	 * Creates a new tokenizer.
+	 * @param reader source of the document.
+	 */
+	JSONTokenizer(Reader reader) {
+		this.reader = reader;
+		this.buffer = new char[8192];
+		this.line = 1;
+		this.stack = new int[32];
+		this.stack[stackSize++] = EMPTY_DOCUMENT;
+		this.builder = new StringBuilder();
+	}
+
+	/**
+	 * Gets the type of the next token without consuming it.
+	 * @return the type of the next token.
+	 * @throws IOException if the document is malformed.
+	 */
+	Token peek() throws IOException {
+		if(peeked != null)
+			return peeked;
+
+		int c;
+		switch(stack[stackSize - 1]) {
+			case EMPTY_DOCUMENT:
+				stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+				return peeked = readValue(nextNonWhitespace());
+			case NONEMPTY_DOCUMENT:
+				c = nextNonWhitespace();
+				if(c != -1)
+					throw syntaxError("Unexpected content after the end of the document");
+				return peeked = Token.END_DOCUMENT;
+			case EMPTY_ARRAY:
+				stack[stackSize - 1] = NONEMPTY_ARRAY;
+				c = nextNonWhitespace();
+				if(c == ']')
+					return peeked = Token.END_ARRAY;
+				return peeked = readValue(c);
+			case NONEMPTY_ARRAY:
+				c = nextNonWhitespace();
+				if(c == ']')
+					return peeked = Token.END_ARRAY;
+				if(c != ',')
+					throw syntaxError("Expected ',' or ']'");
+				return peeked = readValue(nextNonWhitespace());
+			case EMPTY_OBJECT:
+			case NONEMPTY_OBJECT:
+				c = nextNonWhitespace();
+				if(c == '}')
+					return peeked = Token.END_OBJECT;
+				if(stack[stackSize - 1] == NONEMPTY_OBJECT) {
+					if(c != ',')
+						throw syntaxError("Expected ',' or '}'");
+					c = nextNonWhitespace();
+				}
+				if(c != '"')
+					throw syntaxError("Expected a name");
+				peekedText = readString();
+				stack[stackSize - 1] = DANGLING_NAME;
+				return peeked = Token.NAME;
+			case DANGLING_NAME:
+				if(nextNonWhitespace() != ':')
+					throw syntaxError("Expected ':'");
+				stack[stackSize - 1] = NONEMPTY_OBJECT;
+				return peeked = readValue(nextNonWhitespace());
+			default:
+				throw new IllegalStateException();
+		}
+	}
+
+	/**
+	 * Tells whether the current object or array has more elements.
+	 * @return true if the next token does not end an object or an array.
+	 * @throws IOException if the document is malformed.
+	 */
+	boolean hasNext() throws IOException {
+		Token token = peek();
+		return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+	}
+
+	/**
+	 * Consumes the beginning of an object.
+	 * @throws IOException if the next token is not the beginning of an object.
+	 */
+	void beginObject() throws IOException {
+		expect(Token.BEGIN_OBJECT);
+	}
+
+	/**
+	 * Consumes the end of an object.
+	 * @throws IOException if the next token is not the end of an object.
+	 */
+	void endObject() throws IOException {
+		expect(Token.END_OBJECT);
+		stackSize--;
+	}
+
+	/**
+	 * Consumes the beginning of an array.
+	 * @throws IOException if the next token is not the beginning of an array.
+	 */
+	void beginArray() throws IOException {
+		expect(Token.BEGIN_ARRAY);
+	}
+
+	/**
+	 * Consumes the end of an array.
+	 * @throws IOException if the next token is not the end of an array.
+	 */
+	void endArray() throws IOException {
+		expect(Token.END_ARRAY);
+		stackSize--;
+	}
+
+	/**
+	 * Consumes the end of the document.
+	 * @throws IOException if there is more content.
+	 */
+	void endDocument() throws IOException {
+		expect(Token.END_DOCUMENT);
+	}
+
+	/**
+	 * Consumes a name.
+	 * @return the name.
+	 * @throws IOException if the next token is not a name.
+	 */
+	String nextName() throws IOException {
+		expect(Token.NAME);
+		return peekedText;
+	}
+
+	/**
+	 * Consumes a string or a number.
+	 * @return the text of the value.
+	 * @throws IOException if the next token is not a string or a number.
+	 */
+	String nextString() throws IOException {
+		Token token = peek();
+		if(token != Token.STRING && token != Token.NUMBER)
+			throw syntaxError("Expected a string but was " + token);
+		peeked = null;
+		return peekedText;
+	}
+
+	/**
+	 * Consumes a number.
+	 * @return the number.
+	 * @throws IOException if the next token is not a number.
+	 */
+	double nextDouble() throws IOException {
+		expect(Token.NUMBER);
+		try {
+			return Double.parseDouble(peekedText);
+		} catch(NumberFormatException e) {
+			throw syntaxError("Invalid number " + peekedText);
+		}
+	}
+
+	/**
+	 * Consumes the next value, including all the nested values of objects
+	 * and arrays.
+	 * @throws IOException if the document is malformed.
+	 */
+	void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			switch(peek()) {
+				case BEGIN_OBJECT:
+				case BEGIN_ARRAY:
+					peeked = null;
+					depth++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					peeked = null;
+					stackSize--;
+					depth--;
+					break;
+				case END_DOCUMENT:
+					throw syntaxError("Unexpected end of document");
+				default:
+					peeked = null;
+			}
+		} while(depth > 0);
+	}
+
+	/**
+	 * Creates an exception for a malformed document.
+	 * @param message description of the error.
+	 * @return the exception.
+	 */
+	IOException syntaxError(String message) {
+		return new IOException(message + " at line " + line);
+	}
+
+	/**
+	 * Consumes a token of a given type.
+	 * @param expected expected type.
+	 * @throws IOException if the next token is of another type.
+	 */
+	private void expect(Token expected) throws IOException {
+		Token token = peek();
+		if(token != expected)
+			throw syntaxError("Expected " + expected + " but was " + token);
+		peeked = null;
+	}
+
+	/**
+	 * Reads the value starting with a given character.
+	 * @param c first character of the value.
+	 * @return the type of the value.
+	 * @throws IOException if the value is malformed.
+	 */
+	private Token readValue(int c) throws IOException {
+		switch(c) {
+			case '{':
+				push(EMPTY_OBJECT);
+				return Token.BEGIN_OBJECT;
+			case '[':
+				push(EMPTY_ARRAY);
+				return Token.BEGIN_ARRAY;
+			case '"':
+				peekedText = readString();
+				return Token.STRING;
+			case -1:
+				throw syntaxError("Unexpected end of document");
+			default:
+				if(c == '-' || (c >= '0' && c <= '9')) {
+					peekedText = readLiteral(c);
+					return Token.NUMBER;
+				}
+				if(c >= 'a' && c <= 'z') {
+					peekedText = readLiteral(c);
+					if(!peekedText.equals("true") && !peekedText.equals("false") && !peekedText.equals("null"))
+						throw syntaxError("Unexpected literal " + peekedText);
+					return Token.LITERAL;
+				}
+				throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	/**
+	 * Reads a string whose opening quote has been consumed.
+	 * @return the string.
+	 * @throws IOException if the string is malformed.
+	 */
+	private String readString() throws IOException {
+		builder.setLength(0);
+		while(true) {
+			int c = nextChar();
+			if(c == '"')
+				return builder.toString();
+			if(c == -1)
+				throw syntaxError("Unterminated string");
+			if(c == '\n')
+				line++;
+			if(c != '\\') {
+				builder.append((char) c);
+				continue;
+			}
+
+			c = nextChar();
+			switch(c) {
+				case '"':
+				case '\\':
+				case '/':
+					builder.append((char) c);
+					break;
+				case 'b':
+					builder.append('\b');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'u':
+					int value = 0;
+					for(int i = 0; i < 4; i++) {
+						int digit = Character.digit(nextChar(), 16);
+						if(digit < 0)
+							throw syntaxError("Invalid unicode escape sequence");
+						value = (value << 4) | digit;
+					}
+					builder.append((char) value);
+					break;
+				default:
+					throw syntaxError("Invalid escape sequence");
+			}
+		}
+	}
+
+	/**
+	 * Reads a number or a literal (true, false, null).
+	 * @param first first character of the number or literal.
+	 * @return the text of the number or literal.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private String readLiteral(int first) throws IOException {
+		builder.setLength(0);
+		builder.append((char) first);
+		while(true) {
+			if(position == limit && !fill())
+				break;
+			char c = buffer[position];
+			if(!Character.isLetterOrDigit(c) && c != '-' && c != '+' && c != '.')
+				break;
+			builder.append(c);
+			position++;
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Gets the next character which is not a whitespace.
+	 * @return the character or -1 at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private int nextNonWhitespace() throws IOException {
+		while(true) {
+			int c = nextChar();
+			if(c == '\n')
+				line++;
+			else if(c != ' ' && c != '\t' && c != '\r')
+				return c;
+		}
+	}
+
+	/**
+	 * Gets the next character.
+	 * @return the character or -1 at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private int nextChar() throws IOException {
+		if(position == limit && !fill())
+			return -1;
+		return buffer[position++];
+	}
+
+	/**
+	 * Reads the next characters of the source in the buffer.
+	 * @return false at the end of the source.
+	 * @throws IOException if the source cannot be read.
+	 */
+	private boolean fill() throws IOException {
+		int read = reader.read(buffer, 0, buffer.length);
+		position = 0;
+		limit = Math.max(read, 0);
+		return read > 0;
+	}
+
+	/**
+	 * Pushes a new scope on the stack.
+	 * @param scope scope.
+	 */
+	private void push(int scope) {
+		if(stackSize == stack.length) {
+			int[] newStack = new int[stackSize * 2];
+			System.arraycopy(stack, 0, newStack, 0, stackSize);
+			stack = newStack;
+		}
+		stack[stackSize++] = scope;
+	}
+}
@@ -0,0 +1,205 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.core.MapperSpace;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.graph.Node;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.mappers.DelayMapper;
+import de.tum.ei.lkn.eces.network.mappers.NetworkMapper;
+import de.tum.ei.lkn.eces.network.mappers.RateMapper;
+import de.tum.ei.lkn.eces.network.mappers.SchedulerMapper;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streaming JSON exporter of whole Networks.
+ *
+ * The link-level Graph of the Network is walked and written directly to the
+ * destination, so that no JSON tree of the Network is built in memory. The
+ * document has the format read by JSONTopologyImporter and the fields have
+ * the same semantics as the JSON export of the components: rates in Kbps,
+ * delays in ms, Queue sizes in bytes and 'infinite' for infinite values.
+ * The Queues are the ones of the Scheduler of each Link, i.e., the ones of
+ * the corresponding queue-level Edges.
+ *
+ * Nodes are identified by 'n' followed by the ID of the Entity of their
+ * link-level Node.
+ *
+ * @author Amaury Van Bemten
+ */
+public class JSONTopologyExporter {
+	/**
+	 * Size of the buffer used when writing.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Controller of the NetworkingSystem.
+	 */
+	private final Controller controller;
+
+	// Mappers
+	private final NetworkMapper networkMapper;
+	private final RateMapper rateMapper;
+	private final DelayMapper delayMapper;
+	private final SchedulerMapper schedulerMapper;
+
+	/**
+	 * Creates a new JSON exporter.
+	 * @param controller Controller of the NetworkingSystem.
+	 */
+	public JSONTopologyExporter(Controller controller) {
+		this.controller = controller;
+		this.networkMapper = new NetworkMapper(controller);
+		this.rateMapper = new RateMapper(controller);
+		this.delayMapper = new DelayMapper(controller);
+		this.schedulerMapper = new SchedulerMapper(controller);
+	}
+
+	/**
+	 * Exports a Network to a file.
+	 * @param network Network to export.
+	 * @param path path of the file (overwritten if it exists).
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void export(Network network, Path path) throws IOException {
+		try(OutputStream out = Files.newOutputStream(path)) {
+			export(network, out);
+		}
+	}
+
+	/**
+	 * Exports a Network to a stream. The stream is flushed but not closed.
+	 * @param network Network to export.
+	 * @param out stream.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	public void export(Network network, OutputStream out) throws IOException {
+		export(network, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Exports a Network to a channel. The channel is not closed.
+	 * @param network Network to export.
+	 * @param channel channel.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	public void export(Network network, WritableByteChannel channel) throws IOException {
+		export(network, Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE));
+	}
+
+	/**
+	 * Exports a Network to a Writer. The Writer is flushed but not closed.
+	 * @param network Network to export.
+	 * @param writer Writer.
+	 * @throws IOException if the Writer cannot be written.
+	 */
+	public void export(Network network, Writer writer) throws IOException {
+		JSONStreamWriter json = new JSONStreamWriter(new BufferedWriter(writer, BUFFER_SIZE));
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			networkMapper.acquireReadLock(network);
+
+			Set<Node> interfaceNodes = new HashSet<>();
+			for(Host host : network.getHosts())
+				for(NetworkInterface ifc : host.getInterfaces())
+					interfaceNodes.add(host.getNetworkNode(ifc).getLinkNode());
+
+			json.beginObject();
+
+			json.name("nodes").beginArray();
+			for(Node node : network.getLinkGraph().getNodes()) {
+				if(interfaceNodes.contains(node))
+					continue;
+				json.beginObject();
+				json.name("id").value(id(node));
+				json.name("name").value(node.getName());
+				json.endObject();
+			}
+			json.endArray();
+
+			IPAddress undefinedIP = IPAddress.valueOf("0.0.0.0");
+			json.name("hosts").beginArray();
+			for(Host host : network.getHosts()) {
+				json.beginObject();
+				json.name("name").value(host.getName());
+				json.name("interfaces").beginArray();
+				for(NetworkInterface ifc : host.getInterfaces()) {
+					json.beginObject();
+					json.name("id").value(id(host.getNetworkNode(ifc).getLinkNode()));
+					json.name("name").value(ifc.getName());
+					json.name("mac").value(ifc.getMACAddress().toString());
+					if(!ifc.getIPAddress().equals(undefinedIP))
+						json.name("ip").value(ifc.getIPAddress().toString());
+					json.endObject();
+				}
+				json.endArray();
+				json.endObject();
+			}
+			json.endArray();
+
+			json.name("links").beginArray();
+			for(Edge edge : network.getLinkGraph().getEdges())
+				writeLink(json, edge);
+			json.endArray();
+
+			json.endObject();
+		}
+		json.flush();
+	}
+
+	/**
+	 * Writes a Link.
+	 * @param json writer.
+	 * @param edge link-level Edge of the Link.
+	 * @throws IOException if the destination cannot be written.
+	 */
+	private void writeLink(JSONStreamWriter json, Edge edge) throws IOException {
+		json.beginObject();
+		json.name("source").value(id(edge.getSource()));
+		json.name("destination").value(id(edge.getDestination()));
+		double rate = rateMapper.get(edge.getEntity()).getRate();
+		json.name("rate").value(Double.isInfinite(rate) ? rate : rate / 1000 * 8); // Kbps
+		json.name("delay").value(delayMapper.get(edge.getEntity()).getDelay() * 1000); // ms
+
+		Scheduler scheduler = schedulerMapper.get(edge.getEntity());
+		json.name("scheduler").beginObject();
+		if(scheduler instanceof WFQScheduler)
+			json.name("type").value(TopologyLoader.WFQ_SCHEDULER);
+		else if(scheduler instanceof PriorityScheduler)
+			json.name("type").value(TopologyLoader.PRIORITY_SCHEDULER);
+		else
+			json.name("type").value(TopologyLoader.DEFAULT_SCHEDULER);
+		json.name("queues").beginArray();
+		for(Queue queue : scheduler.getQueues())
+			json.beginObject().name("size").value(queue.getSize()).endObject(); // bytes
+		json.endArray();
+		if(scheduler instanceof WFQScheduler) {
+			json.name("weights").beginArray();
+			for(double weight : ((WFQScheduler) scheduler).getWeights())
+				json.value(weight);
+			json.endArray();
+		}
+		json.endObject();
+
+		json.endObject();
+	}
+
+	/**
+	 * Gets the identifier of a Node in the exported document.
+	 * @param node link-level Node.
+	 * @return the identifier.
+	 */
+	private static String id(Node node) {
+		return "n" + node.getEntity().getId();
+	}
+}
@@ -0,0 +1,349 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.MACAddress;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming importer for JSON topology files of the following form:
+ *
+ * {
+ *   "nodes": [{"id": "s1", "name": "switch 1"}, ...],
+ *   "hosts": [{"name": "h1", "interfaces": [{"name": "eth0", "mac": "00:00:00:00:00:01", "ip": "10.0.0.1"}]}, ...],
+ *   "links": [{"source": "s1", "destination": "h1:eth0", "rate": 1000, "delay": 0.5,
+ *              "scheduler": {"type": "priority", "queues": [{"size": 15000}, {"size": "infinite"}]}}, ...]
+ * }
+ *
+ * Units are the ones of the JSON export of the components: rates in Kbps,
+ * delays in ms and Queue sizes in bytes ('infinite' for infinite rates and
+ * sizes). The type of the Scheduler is 'default' (single Queue, also used if
+ * the type is missing), 'priority' or 'wfq' (in which case a 'weights' array
+ * is also expected).
+ *
+ * The 'id' of a Node defaults to its name. The Node of a NetworkInterface is
+ * identified by 'host name:interface name' unless the interface has an 'id'.
+ * The 'ip' of an interface is optional. Unknown fields are ignored. Sections
+ * can be split (e.g., several 'links' arrays) but Nodes and Hosts must be
+ * declared before the Links using them.
+ *
+ * @author Amaury Van Bemten
+ */
+public class JSONTopologyImporter extends TopologyImporter {
+	/**
+	 * Creates a new JSON importer.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 */
+	public JSONTopologyImporter(NetworkingSystem networkingSystem) {
+		super(networkingSystem);
+	}
+
+	@Override
+	public Map<String, NetworkNode> importTopology(Network network, InputStream in) throws IOException {
+		return importTopology(network, new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Imports a topology from a Reader. The Reader is not closed.
+	 * @param network Network in which the topology is created.
+	 * @param reader Reader.
+	 * @return the created Nodes by identifier.
+	 * @throws IOException if the Reader cannot be read or the document is
+	 *                     malformed.
+	 */
+	public Map<String, NetworkNode> importTopology(Network network, Reader reader) throws IOException {
+		TopologyLoader loader = createLoader(network);
+		JSONTokenizer json = new JSONTokenizer(reader);
+
+		json.beginObject();
+		while(json.hasNext()) {
+			String section = json.nextName();
+			if(!section.equals("nodes") && !section.equals("hosts") && !section.equals("links")) {
+				json.skipValue();
+				continue;
+			}
+
+			json.beginArray();
+			while(json.hasNext()) {
+				switch(section) {
+					case "nodes":
+						readNode(json, loader);
+						break;
+					case "hosts":
+						readHost(json, loader);
+						break;
+					default:
+						readLink(json, loader);
+				}
+			}
+			json.endArray();
+		}
+		json.endObject();
+		json.endDocument();
+
+		return loader.finish();
+	}
+
+	/**
+	 * Reads a Node.
+	 * @param json tokenizer.
+	 * @param loader loader.
+	 * @throws IOException if the document is malformed.
+	 */
+	private void readNode(JSONTokenizer json, TopologyLoader loader) throws IOException {
+		String id = null;
+		String name = null;
+
+		json.beginObject();
+		while(json.hasNext()) {
+			switch(json.nextName()) {
+				case "id":
+					id = json.nextString();
+					break;
+				case "name":
+					name = json.nextString();
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+		json.endObject();
+
+		if(id == null && name == null)
+			throw json.syntaxError("A node needs an id or a name");
+		loader.addNode(id == null ? name : id, name == null ? "" : name);
+	}
+
+	/**
+	 * Reads a Host and its NetworkInterfaces.
+	 * @param json tokenizer.
+	 * @param loader loader.
+	 * @throws IOException if the document is malformed.
+	 */
+	private void readHost(JSONTokenizer json, TopologyLoader loader) throws IOException {
+		String name = null;
+		// Fields of a Host might come in any order, interfaces are kept until its name is known.
+		List<String> ids = new ArrayList<>();
+		List<NetworkInterface> interfaces = new ArrayList<>();
+
+		json.beginObject();
+		while(json.hasNext()) {
+			switch(json.nextName()) {
+				case "name":
+					name = json.nextString();
+					break;
+				case "interfaces":
+					json.beginArray();
+					while(json.hasNext())
+						readInterface(json, ids, interfaces);
+					json.endArray();
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+		json.endObject();
+
+		if(name == null)
+			throw json.syntaxError("A host needs a name");
+		loader.addHost(name);
+		for(int i = 0; i < interfaces.size(); i++) {
+			String id = ids.get(i);
+			loader.addInterface(name, id == null ? name + ":" + interfaces.get(i).getName() : id, interfaces.get(i));
+		}
+	}
+
+	/**
+	 * Reads a NetworkInterface.
+	 * @param json tokenizer.
+	 * @param ids list to which the identifier of the interface is added (null
+	 *            if it has none).
+	 * @param interfaces list to which the interface is added.
+	 * @throws IOException if the document is malformed.
+	 */
+	private void readInterface(JSONTokenizer json, List<String> ids, List<NetworkInterface> interfaces) throws IOException {
+		String id = null;
+		String name = null;
+		String mac = null;
+		String ip = null;
+
+		json.beginObject();
+		while(json.hasNext()) {
+			switch(json.nextName()) {
+				case "id":
+					id = json.nextString();
+					break;
+				case "name":
+					name = json.nextString();
+					break;
+				case "mac":
+					mac = json.nextString();
+					break;
+				case "ip":
+					ip = json.nextString();
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+		json.endObject();
+
+		if(name == null || mac == null)
+			throw json.syntaxError("An interface needs a name and a MAC address");
+		NetworkInterface networkInterface;
+		try {
+			if(ip == null)
+				networkInterface = new NetworkInterface(name, MACAddress.valueOf(mac));
+			else
+				networkInterface = new NetworkInterface(name, MACAddress.valueOf(mac), IPAddress.valueOf(ip));
+		} catch(IllegalArgumentException e) {
+			throw json.syntaxError("Invalid address of interface " + name + ": " + e.getMessage());
+		}
+		ids.add(id);
+		interfaces.add(networkInterface);
+	}
+
+	/**
+	 * Reads a Link.
+	 * @param json tokenizer.
+	 * @param loader loader.
+	 * @throws IOException if the document is malformed.
+	 */
+	private void readLink(JSONTokenizer json, TopologyLoader loader) throws IOException {
+		String source = null;
+		String destination = null;
+		double rate = Double.NaN;
+		double delay = Double.NaN;
+		SchedulerSpec scheduler = null;
+
+		json.beginObject();
+		while(json.hasNext()) {
+			switch(json.nextName()) {
+				case "source":
+					source = json.nextString();
+					break;
+				case "destination":
+					destination = json.nextString();
+					break;
+				case "rate":
+					rate = TopologyLoader.rateFromKbps(nextValue(json, "rate"));
+					break;
+				case "delay":
+					delay = TopologyLoader.delayFromMs(nextValue(json, "delay"));
+					break;
+				case "scheduler":
+					scheduler = readScheduler(json);
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+		json.endObject();
+
+		if(source == null || destination == null || Double.isNaN(rate) || Double.isNaN(delay) || scheduler == null)
+			throw json.syntaxError("A link needs a source, a destination, a rate, a delay and a scheduler");
+		loader.addLink(source, destination, rate, delay, scheduler.queueSizes, scheduler.weights, scheduler.type);
+	}
+
+	/**
+	 * Reads the Scheduler of a Link.
+	 * @param json tokenizer.
+	 * @return the Scheduler description.
+	 * @throws IOException if the document is malformed.
+	 */
+	private SchedulerSpec readScheduler(JSONTokenizer json) throws IOException {
+		SchedulerSpec scheduler = new SchedulerSpec();
+
+		json.beginObject();
+		while(json.hasNext()) {
+			switch(json.nextName()) {
+				case "type":
+					scheduler.type = json.nextString();
+					break;
+				case "queues":
+					List<Double> sizes = new ArrayList<>();
+					json.beginArray();
+					while(json.hasNext()) {
+						double size = Double.NaN;
+						json.beginObject();
+						while(json.hasNext()) {
+							if(json.nextName().equals("size"))
+								size = nextValue(json, "queue size");
+							else
+								json.skipValue();
+						}
+						json.endObject();
+						if(Double.isNaN(size))
+							throw json.syntaxError("A queue needs a size");
+						sizes.add(size);
+					}
+					json.endArray();
+					scheduler.queueSizes = toArray(sizes);
+					break;
+				case "weights":
+					List<Double> weights = new ArrayList<>();
+					json.beginArray();
+					while(json.hasNext())
+						weights.add(nextValue(json, "weight"));
+					json.endArray();
+					scheduler.weights = toArray(weights);
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+		json.endObject();
+
+		return scheduler;
+	}
+
+	/**
+	 * Reads a numerical value which can be 'infinite'.
+	 * @param json tokenizer.
+	 * @param field name of the field (for error messages).
+	 * @return the value.
+	 * @throws IOException if the document is malformed.
+	 */
+	private double nextValue(JSONTokenizer json, String field) throws IOException {
+		if(json.peek() == JSONTokenizer.Token.NUMBER)
+			return json.nextDouble();
+		try {
+			return TopologyLoader.parseValue(json.nextString(), field);
+		} catch(NetworkException e) {
+			throw json.syntaxError(e.getMessage());
+		}
+	}
+
+	/**
+	 * Converts a list of values to an array.
+	 * @param values list of values.
+	 * @return the array.
+	 */
+	private static double[] toArray(List<Double> values) {
+		double[] array = new double[values.size()];
+		for(int i = 0; i < array.length; i++)
+			array[i] = values.get(i);
+		return array;
+	}
+
+	/**
+	 * Description of a Scheduler read from the document.
+	 */
+	private static class SchedulerSpec {
+		private String type;
+		private double[] queueSizes;
+		private double[] weights;
+	}
+}
@@ -0,0 +1,312 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.core.MapperSpace;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.graph.Node;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.mappers.*;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.MACAddress;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Saves and loads whole Networks to/from a compact binary format.
+ *
+ * The file contains (big-endian):
+ * - a header: magic number and version,
+ * - the Nodes which are not NetworkInterfaces: count, then the name of each,
+ * - the Hosts: count, then for each Host its name and its NetworkInterfaces
+ *   (name, MAC and IP addresses),
+ * - the Links: count, then for each Link the indices of its source and
+ *   destination Nodes, its Rate (bytes/s), Delay (s), Scheduler type, Queue
+ *   sizes (bytes) and WFQ weights.
+ * Nodes are indexed in the order in which they are stored: first the Nodes,
+ * then the NetworkInterfaces of each Host. Strings are stored as their
+ * length followed by their UTF-8 bytes.
+ *
+ * Snapshots are loaded from a memory-mapped file and the whole Network is
+ * rebuilt with a single TopologyBatch, the indices of the file directly being
+ * the handles of the batch. Snapshots are limited to 2 GB.
+ *
+ * @author Amaury Van Bemten
+ */
+public class NetworkSnapshot {
+	/**
+	 * Magic number of snapshot files ('ECNS').
+	 */
+	private static final int MAGIC = 0x45434E53;
+
+	/**
+	 * Version of the format.
+	 */
+	private static final int VERSION = 1;
+
+	/* Scheduler types. */
+	private static final byte DEFAULT_SCHEDULER = 0;
+	private static final byte PRIORITY_SCHEDULER = 1;
+	private static final byte WFQ_SCHEDULER = 2;
+
+	/**
+	 * Controller of the NetworkingSystem.
+	 */
+	private final Controller controller;
+
+	/**
+	 * NetworkingSystem used to create the loaded Networks.
+	 */
+	private final NetworkingSystem networkingSystem;
+
+	// Mappers
+	private final NetworkMapper networkMapper;
+	private final RateMapper rateMapper;
+	private final DelayMapper delayMapper;
+	private final SchedulerMapper schedulerMapper;
+
+	/**
+	 * Creates a new snapshot handler.
+	 * @param controller Controller of the NetworkingSystem.
+	 * @param networkingSystem NetworkingSystem used to create the loaded
+	 *                         Networks.
+	 */
+	public NetworkSnapshot(Controller controller, NetworkingSystem networkingSystem) {
+		this.controller = controller;
+		this.networkingSystem = networkingSystem;
+		this.networkMapper = new NetworkMapper(controller);
+		this.rateMapper = new RateMapper(controller);
+		this.delayMapper = new DelayMapper(controller);
+		this.schedulerMapper = new SchedulerMapper(controller);
+	}
+
+	/**
+	 * Saves a Network to a file.
+	 * @param network Network to save.
+	 * @param path path of the file (overwritten if it exists).
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void save(Network network, Path path) throws IOException {
+		try(MapperSpace ms = controller.startMapperSpace();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+			networkMapper.acquireReadLock(network);
+
+			// Index of the link-level Node of each NetworkNode.
+			Map<Node, Integer> indices = new HashMap<>();
+			Set<Node> interfaceNodes = new HashSet<>();
+			Collection<Host> hosts = network.getHosts();
+			for(Host host : hosts)
+				for(NetworkInterface ifc : host.getInterfaces())
+					interfaceNodes.add(host.getNetworkNode(ifc).getLinkNode());
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			Collection<Node> nodes = network.getLinkGraph().getNodes();
+			out.writeInt(nodes.size() - interfaceNodes.size());
+			for(Node node : nodes) {
+				if(interfaceNodes.contains(node))
+					continue;
+				indices.put(node, indices.size());
+				writeString(out, node.getName());
+			}
+
+			out.writeInt(hosts.size());
+			for(Host host : hosts) {
+				writeString(out, host.getName());
+				out.writeInt(host.getInterfaces().size());
+				for(NetworkInterface ifc : host.getInterfaces()) {
+					indices.put(host.getNetworkNode(ifc).getLinkNode(), indices.size());
+					writeString(out, ifc.getName());
+					writeBytes(out, ifc.getMACAddress().toBytes());
+					writeBytes(out, ifc.getIPAddress().toBytes());
+				}
+			}
+
+			Collection<Edge> edges = network.getLinkGraph().getEdges();
+			out.writeInt(edges.size());
+			for(Edge edge : edges) {
+				out.writeInt(indices.get(edge.getSource()));
+				out.writeInt(indices.get(edge.getDestination()));
+				out.writeDouble(rateMapper.get(edge.getEntity()).getRate());
+				out.writeDouble(delayMapper.get(edge.getEntity()).getDelay());
+
+				Scheduler scheduler = schedulerMapper.get(edge.getEntity());
+				Queue[] queues = scheduler.getQueues();
+				if(scheduler instanceof WFQScheduler)
+					out.writeByte(WFQ_SCHEDULER);
+				else if(scheduler instanceof PriorityScheduler)
+					out.writeByte(PRIORITY_SCHEDULER);
+				else
+					out.writeByte(DEFAULT_SCHEDULER);
+				out.writeInt(queues.length);
+				for(Queue queue : queues)
+					out.writeDouble(queue.getSize());
+				if(scheduler instanceof WFQScheduler)
+					for(double weight : ((WFQScheduler) scheduler).getWeights())
+						out.writeDouble(weight);
+			}
+		}
+	}
+
+	/**
+	 * Loads a snapshot in a new Network.
+	 * @param path path of the file.
+	 * @return the new Network.
+	 * @throws IOException if the file cannot be read or is not a valid
+	 *                     snapshot.
+	 */
+	public Network load(Path path) throws IOException {
+		Network network = networkingSystem.createNetwork();
+		load(network, path);
+		return network;
+	}
+
+	/**
+	 * Loads a snapshot in an existing Network.
+	 * @param network Network in which the elements are created.
+	 * @param path path of the file.
+	 * @throws IOException if the file cannot be read or is not a valid
+	 *                     snapshot.
+	 */
+	public void load(Network network, Path path) throws IOException {
+		MappedByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshots larger than 2 GB are not supported");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		try {
+			if(buffer.getInt() != MAGIC)
+				throw new IOException(path + " is not a network snapshot");
+			int version = buffer.getInt();
+			if(version != VERSION)
+				throw new IOException("Unsupported snapshot version: " + version);
+
+			TopologyBatch batch = networkingSystem.batch(network);
+
+			int numberOfNodes = buffer.getInt();
+			for(int i = 0; i < numberOfNodes; i++)
+				batch.addNode(readString(buffer));
+
+			int numberOfHosts = buffer.getInt();
+			for(int i = 0; i < numberOfHosts; i++) {
+				int host = batch.addHost(readString(buffer));
+				int numberOfInterfaces = buffer.getInt();
+				for(int j = 0; j < numberOfInterfaces; j++) {
+					String name = readString(buffer);
+					MACAddress mac = MACAddress.valueOf(readBytes(buffer));
+					IPAddress ip = IPAddress.valueOf(readBytes(buffer));
+					batch.addInterface(host, new NetworkInterface(name, mac, ip));
+				}
+			}
+
+			int numberOfLinks = buffer.getInt();
+			for(int i = 0; i < numberOfLinks; i++) {
+				int src = buffer.getInt();
+				int dst = buffer.getInt();
+				double rate = buffer.getDouble();
+				double delay = buffer.getDouble();
+				byte type = buffer.get();
+				double[] queueSizes = readDoubles(buffer, buffer.getInt());
+				switch(type) {
+					case DEFAULT_SCHEDULER:
+						if(queueSizes.length != 1)
+							throw new IOException("Invalid number of queues for a default scheduler: " + queueSizes.length);
+						batch.addLink(src, dst, rate, delay, queueSizes[0]);
+						break;
+					case PRIORITY_SCHEDULER:
+						batch.addLinkWithPriorityScheduling(src, dst, rate, delay, queueSizes);
+						break;
+					case WFQ_SCHEDULER:
+						batch.addLinkWithWFQScheduling(src, dst, rate, delay, queueSizes, readDoubles(buffer, queueSizes.length));
+						break;
+					default:
+						throw new IOException("Unknown scheduler type: " + type);
+				}
+			}
+
+			if(buffer.hasRemaining())
+				throw new IOException("Unexpected content at the end of " + path);
+
+			batch.commit();
+		} catch(BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException(path + " is not a valid network snapshot", e);
+		}
+	}
+
+	/**
+	 * Writes a String as its length followed by its UTF-8 bytes.
+	 * @param out stream.
+	 * @param string String.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes an array of bytes preceded by its length.
+	 * @param out stream.
+	 * @param bytes bytes.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a String written by writeString().
+	 * @param buffer buffer.
+	 * @return the String.
+	 */
+	private static String readString(ByteBuffer buffer) {
+		return new String(readBytes(buffer), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads an array of bytes written by writeBytes().
+	 * @param buffer buffer.
+	 * @return the bytes.
+	 */
+	private static byte[] readBytes(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if(length < 0 || length > buffer.remaining())
+			throw new BufferUnderflowException();
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads an array of doubles.
+	 * @param buffer buffer.
+	 * @param length number of doubles.
+	 * @return the doubles.
+	 */
+	private static double[] readDoubles(ByteBuffer buffer, int length) {
+		if(length < 0 || length > buffer.remaining() / Double.BYTES)
+			throw new BufferUnderflowException();
+		double[] values = new double[length];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + length * Double.BYTES);
+		return values;
+	}
+}
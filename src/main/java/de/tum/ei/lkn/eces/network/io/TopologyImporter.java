@@ -0,0 +1,95 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Importer streaming a topology file into a Network.
+ *
+ * The document is read incrementally and the elements are created in chunks
+ * (see TopologyBatch), so that the whole document never has to be loaded in
+ * memory. If the document is not valid, the chunks committed before the error
+ * was detected remain in the Network.
+ *
+ * @author Amaury Van Bemten
+ */
+public abstract class TopologyImporter {
+	/**
+	 * Default number of elements per chunk.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+	/**
+	 * Size of the buffer used when reading files.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * NetworkingSystem used to create the topology.
+	 */
+	protected final NetworkingSystem networkingSystem;
+
+	/**
+	 * Number of elements after which a chunk is committed.
+	 */
+	private int chunkSize;
+
+	/**
+	 * Creates a new importer.
+	 * @param networkingSystem NetworkingSystem used to create the topology.
+	 */
+	protected TopologyImporter(NetworkingSystem networkingSystem) {
+		this.networkingSystem = networkingSystem;
+		this.chunkSize = DEFAULT_CHUNK_SIZE;
+	}
+
+	/**
+	 * Sets the number of elements (Nodes, NetworkInterfaces, Hosts and Links)
+	 * after which a chunk is committed.
+	 * @param chunkSize number of elements per chunk.
+	 */
+	public void setChunkSize(int chunkSize) {
+		if(chunkSize < 1)
+			throw new IllegalArgumentException("The chunk size must be positive");
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Imports a topology from a file.
+	 * @param network Network in which the topology is created.
+	 * @param path path of the file.
+	 * @return the created Nodes by identifier.
+	 * @throws IOException if the file cannot be read or is malformed.
+	 */
+	public Map<String, NetworkNode> importTopology(Network network, Path path) throws IOException {
+		try(InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+			return importTopology(network, in);
+		}
+	}
+
+	/**
+	 * Imports a topology from a stream. The stream is not closed.
+	 * @param network Network in which the topology is created.
+	 * @param in stream.
+	 * @return the created Nodes by identifier.
+	 * @throws IOException if the stream cannot be read or is malformed.
+	 */
+	public abstract Map<String, NetworkNode> importTopology(Network network, InputStream in) throws IOException;
+
+	/**
+	 * Creates the loader used to create the elements of an import.
+	 * @param network Network in which the topology is created.
+	 * @return a new loader.
+	 */
+	TopologyLoader createLoader(Network network) {
+		return new TopologyLoader(networkingSystem, network, chunkSize);
+	}
+}
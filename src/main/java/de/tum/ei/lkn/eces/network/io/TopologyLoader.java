@@ -0,0 +1,326 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incrementally creates the elements read by an importer in a Network.
+ *
+ * Elements are accumulated in a TopologyBatch which is committed every time
+ * it reaches a given number of elements. Hence, apart from the identifiers of
+ * the Nodes and the names of the Hosts, the memory used does not depend on the
+ * size of the imported topology.
+ *
+ * Nodes are referenced by an identifier that is unique within the imported
+ * document (the Node representing a NetworkInterface being by default
+ * identified by 'host name:interface name'). Hosts are referenced by their
+ * name. An element must be declared before being referenced.
+ *
+ * @author Amaury Van Bemten
+ */
+class TopologyLoader {
+	/**
+	 * Type of the default Scheduler.
+	 */
+	static final String DEFAULT_SCHEDULER = "default";
+
+	/**
+	 * Type of the PriorityScheduler.
+	 */
+	static final String PRIORITY_SCHEDULER = "priority";
+
+	/**
+	 * Type of the WFQScheduler.
+	 */
+	static final String WFQ_SCHEDULER = "wfq";
+
+	/**
+	 * Value used for infinite rates and Queue sizes.
+	 */
+	static final String INFINITE = "infinite";
+
+	/**
+	 * NetworkingSystem used to create the elements.
+	 */
+	private final NetworkingSystem networkingSystem;
+
+	/**
+	 * Network in which the elements are created.
+	 */
+	private final Network network;
+
+	/**
+	 * Number of elements after which the current batch is committed.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * Already created Nodes by identifier.
+	 */
+	private final Map<String, NetworkNode> nodes;
+
+	/**
+	 * Already created Hosts by name.
+	 */
+	private final Map<String, Host> hosts;
+
+	/**
+	 * Handles of the Nodes declared in the current batch by identifier.
+	 */
+	private final Map<String, Integer> pendingNodes;
+
+	/**
+	 * Handles of the Hosts declared in the current batch by name.
+	 */
+	private final Map<String, Integer> pendingHosts;
+
+	/**
+	 * Handles of the already created Nodes referenced by the current batch.
+	 */
+	private final Map<NetworkNode, Integer> referencedNodes;
+
+	/**
+	 * Current batch.
+	 */
+	private TopologyBatch batch;
+
+	/**
+	 * Number of elements in the current batch.
+	 */
+	private int pendingElements;
+
+	/**
+	 * Creates a new loader.
+	 * @param networkingSystem NetworkingSystem used to create the elements.
+	 * @param network Network in which the elements are created.
+	 * @param chunkSize number of elements after which the current batch is
+	 *                  committed.
+	 */
+	TopologyLoader(NetworkingSystem networkingSystem, Network network, int chunkSize) {
+		this.networkingSystem = networkingSystem;
+		this.network = network;
+		this.chunkSize = chunkSize;
+		this.nodes = new HashMap<>();
+		this.hosts = new HashMap<>();
+		this.pendingNodes = new HashMap<>();
+		this.pendingHosts = new HashMap<>();
+		this.referencedNodes = new HashMap<>();
+		this.batch = networkingSystem.batch(network);
+	}
+
+	/**
+	 * Declares a new Node.
+	 * @param id identifier of the Node.
+	 * @param name name of the Node.
+	 * @throws NetworkException if the identifier is already used.
+	 */
+	void addNode(String id, String name) {
+		nextElement();
+		checkNewNode(id);
+		pendingNodes.put(id, batch.addNode(name));
+	}
+
+	/**
+	 * Declares a new Host.
+	 * @param name name of the Host.
+	 * @throws NetworkException if a Host with the same name already exists.
+	 */
+	void addHost(String name) {
+		nextElement();
+		if(hosts.containsKey(name) || pendingHosts.containsKey(name))
+			throw new NetworkException("Duplicate host: " + name);
+		pendingHosts.put(name, batch.addHost(name));
+	}
+
+	/**
+	 * Declares a new NetworkInterface (and its Node). The Host is declared if
+	 * it does not exist yet.
+	 * @param hostName name of the Host of the NetworkInterface.
+	 * @param id identifier of the Node of the NetworkInterface.
+	 * @param ifc NetworkInterface.
+	 * @throws NetworkException if the identifier is already used.
+	 */
+	void addInterface(String hostName, String id, NetworkInterface ifc) {
+		nextElement();
+		checkNewNode(id);
+		pendingNodes.put(id, batch.addInterface(hostHandle(hostName), ifc));
+	}
+
+	/**
+	 * Declares a new Link.
+	 * @param source identifier of the source Node.
+	 * @param destination identifier of the destination Node.
+	 * @param rate Rate of the Link in bytes/s.
+	 * @param delay Delay of the Link in seconds.
+	 * @param queueSizes Size of each Queue in bytes.
+	 * @param weights WFQ weights (only for WFQ Schedulers).
+	 * @param scheduler type of the Scheduler (null for the default one).
+	 * @throws NetworkException if a Node is unknown or the Scheduler is not
+	 *                          valid.
+	 */
+	void addLink(String source, String destination, double rate, double delay, double[] queueSizes, double[] weights, String scheduler) {
+		nextElement();
+		int src = nodeHandle(source);
+		int dst = nodeHandle(destination);
+		if(queueSizes == null || queueSizes.length == 0)
+			throw new NetworkException("The link from " + source + " to " + destination + " has no queue");
+
+		if(scheduler == null || scheduler.equals(DEFAULT_SCHEDULER)) {
+			if(queueSizes.length != 1)
+				throw new NetworkException("The default scheduler only supports a single queue (link from " + source + " to " + destination + ")");
+			batch.addLink(src, dst, rate, delay, queueSizes[0]);
+		}
+		else if(scheduler.equals(PRIORITY_SCHEDULER)) {
+			batch.addLinkWithPriorityScheduling(src, dst, rate, delay, queueSizes);
+		}
+		else if(scheduler.equals(WFQ_SCHEDULER)) {
+			if(weights == null)
+				throw new NetworkException("The WFQ link from " + source + " to " + destination + " has no weights");
+			batch.addLinkWithWFQScheduling(src, dst, rate, delay, queueSizes, weights);
+		}
+		else {
+			throw new NetworkException("Unknown scheduler type: " + scheduler);
+		}
+	}
+
+	/**
+	 * Commits the last batch.
+	 * @return the created Nodes by identifier.
+	 */
+	Map<String, NetworkNode> finish() {
+		flush();
+		return Collections.unmodifiableMap(nodes);
+	}
+
+	/**
+	 * Converts a rate in Kbps (as exported) to bytes/s.
+	 * @param kbps rate in Kbps.
+	 * @return rate in bytes/s.
+	 */
+	static double rateFromKbps(double kbps) {
+		return kbps * 1000 / 8;
+	}
+
+	/**
+	 * Converts a delay in ms (as exported) to seconds.
+	 * @param ms delay in ms.
+	 * @return delay in seconds.
+	 */
+	static double delayFromMs(double ms) {
+		return ms / 1000;
+	}
+
+	/**
+	 * Parses a numerical value which can be 'infinite'.
+	 * @param value String representation of the value.
+	 * @param field name of the field (for error messages).
+	 * @return the value.
+	 * @throws NetworkException if the value is not a number.
+	 */
+	static double parseValue(String value, String field) {
+		if(value.equals(INFINITE))
+			return Double.POSITIVE_INFINITY;
+		try {
+			return Double.parseDouble(value.trim());
+		} catch(NumberFormatException e) {
+			throw new NetworkException("Invalid " + field + ": " + value);
+		}
+	}
+
+	/**
+	 * Parses a list of numerical values (which can be 'infinite') separated
+	 * by commas and/or whitespaces.
+	 * @param values String representation of the values.
+	 * @param field name of the field (for error messages).
+	 * @return the values.
+	 * @throws NetworkException if a value is not a number.
+	 */
+	static double[] parseValues(String values, String field) {
+		String trimmed = values.trim();
+		if(trimmed.isEmpty())
+			return new double[0];
+		String[] parts = trimmed.split("[,\\s]+");
+		double[] result = new double[parts.length];
+		for(int i = 0; i < parts.length; i++)
+			result[i] = parseValue(parts[i], field);
+		return result;
+	}
+
+	/**
+	 * Commits the current batch if it is full.
+	 */
+	private void nextElement() {
+		if(pendingElements >= chunkSize)
+			flush();
+		pendingElements++;
+	}
+
+	/**
+	 * Commits the current batch and starts a new one.
+	 */
+	private void flush() {
+		batch.commit();
+		for(Map.Entry<String, Integer> entry : pendingNodes.entrySet())
+			nodes.put(entry.getKey(), batch.getNode(entry.getValue()));
+		for(Map.Entry<String, Integer> entry : pendingHosts.entrySet())
+			hosts.put(entry.getKey(), batch.getHost(entry.getValue()));
+		pendingNodes.clear();
+		pendingHosts.clear();
+		referencedNodes.clear();
+		pendingElements = 0;
+		batch = networkingSystem.batch(network);
+	}
+
+	/**
+	 * Checks that a Node identifier is not used yet.
+	 * @param id identifier.
+	 * @throws NetworkException if the identifier is already used.
+	 */
+	private void checkNewNode(String id) {
+		if(nodes.containsKey(id) || pendingNodes.containsKey(id))
+			throw new NetworkException("Duplicate node identifier: " + id);
+	}
+
+	/**
+	 * Gets the handle of a Node in the current batch.
+	 * @param id identifier of the Node.
+	 * @return the handle.
+	 * @throws NetworkException if the Node has not been declared.
+	 */
+	private int nodeHandle(String id) {
+		Integer handle = pendingNodes.get(id);
+		if(handle != null)
+			return handle;
+
+		NetworkNode node = nodes.get(id);
+		if(node == null)
+			throw new NetworkException("Unknown node: " + id);
+		handle = referencedNodes.get(node);
+		if(handle == null) {
+			handle = batch.addNode(node);
+			referencedNodes.put(node, handle);
+		}
+		return handle;
+	}
+
+	/**
+	 * Gets the handle of a Host in the current batch, declaring the Host if
+	 * it does not exist yet.
+	 * @param name name of the Host.
+	 * @return the handle.
+	 */
+	private int hostHandle(String name) {
+		Integer handle = pendingHosts.get(name);
+		if(handle == null) {
+			Host host = hosts.get(name);
+			handle = (host == null) ? batch.addHost(name) : batch.addHost(host);
+			pendingHosts.put(name, handle);
+		}
+		return handle;
+	}
+}
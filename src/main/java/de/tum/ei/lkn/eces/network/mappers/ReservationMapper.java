@@ -0,0 +1,16 @@
+package de.tum.ei.lkn.eces.network.mappers;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.core.Mapper;
+import de.tum.ei.lkn.eces.network.Reservation;
+
+/**
+ * Mapper for Reservation components.
+ *
+ * @author Amaury Van Bemten
+ */
+public class ReservationMapper extends Mapper<Reservation> {
+	public ReservationMapper(Controller controller) {
+		super(controller);
+	}
+}
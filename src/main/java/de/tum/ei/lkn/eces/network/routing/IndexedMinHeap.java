@@ -0,0 +1,137 @@
+package de.tum.ei.lkn.eces.network.routing;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of the integers 0 to capacity - 1 keyed by doubles,
+ * supporting decrease-key. All the storage is allocated once, so that the
+ * heap can be reused across queries without allocation.
+ *
+ * @author Amaury Van Bemten
+ */
+final class IndexedMinHeap {
+	/**
+	 * Elements, in heap order.
+	 */
+	private final int[] heap;
+
+	/**
+	 * Position of each element in the heap (-1 if it is not in the heap).
+	 */
+	private final int[] positions;
+
+	/**
+	 * Key of each element.
+	 */
+	private final double[] keys;
+
+	/**
+	 * Number of elements in the heap.
+	 */
+	private int size;
+
+	/**
+	 * Creates an empty heap.
+	 * @param capacity number of possible elements.
+	 */
+	IndexedMinHeap(int capacity) {
+		this.heap = new int[capacity];
+		this.positions = new int[capacity];
+		this.keys = new double[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Tells whether the heap is empty.
+	 * @return true if it is empty.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the elements.
+	 */
+	void clear() {
+		for(int i = 0; i < size; i++)
+			positions[heap[i]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Inserts an element or decreases its key.
+	 * @param element element.
+	 * @param key key (ignored if the element is in the heap with a lower key).
+	 */
+	void insertOrDecrease(int element, double key) {
+		int position = positions[element];
+		if(position < 0) {
+			position = size++;
+			heap[position] = element;
+			positions[element] = position;
+		} else if(key >= keys[element]) {
+			return;
+		}
+		keys[element] = key;
+		siftUp(position);
+	}
+
+	/**
+	 * Removes the element with the lowest key.
+	 * @return the element.
+	 */
+	int poll() {
+		int min = heap[0];
+		positions[min] = -1;
+		size--;
+		if(size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			positions[last] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/**
+	 * Moves an element up to its place.
+	 * @param position position of the element.
+	 */
+	private void siftUp(int position) {
+		int element = heap[position];
+		double key = keys[element];
+		while(position > 0) {
+			int parent = (position - 1) >>> 1;
+			if(keys[heap[parent]] <= key)
+				break;
+			heap[position] = heap[parent];
+			positions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = element;
+		positions[element] = position;
+	}
+
+	/**
+	 * Moves an element down to its place.
+	 * @param position position of the element.
+	 */
+	private void siftDown(int position) {
+		int element = heap[position];
+		double key = keys[element];
+		while(true) {
+			int child = 2 * position + 1;
+			if(child >= size)
+				break;
+			if(child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+				child++;
+			if(keys[heap[child]] >= key)
+				break;
+			heap[position] = heap[child];
+			positions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = element;
+		positions[element] = position;
+	}
+}
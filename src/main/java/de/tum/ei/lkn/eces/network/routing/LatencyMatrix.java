@@ -0,0 +1,343 @@
+package de.tum.ei.lkn.eces.network.routing;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.compact.CompactTopology;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs matrix of the minimum delays between the Nodes of a Network and
+ * of the number of hops of the corresponding paths, on the link-level Graph.
+ *
+ * Rows are computed with one Dijkstra run per source, in parallel on a
+ * ForkJoinPool. The matrices are stored off-heap (as floats for the delays
+ * and ints for the hops), which limits the Network to 23170 Nodes.
+ *
+ * After the Links of the Network have changed (creation, deletion or Delay
+ * update), refresh() compares the Network to the previous snapshot and only
+ * recomputes the rows whose shortest paths can be affected: the rows for
+ * which a changed Link is, before or after the change, at most as long as
+ * the shortest path to its destination through its source. If Nodes have
+ * been added or removed, the whole matrix is recomputed.
+ *
+ * Reads are not synchronized with refresh().
+ *
+ * @author Amaury Van Bemten
+ */
+public class LatencyMatrix {
+	/**
+	 * Maximum number of rows computed by a single task.
+	 */
+	private static final int ROWS_PER_TASK = 16;
+
+	/**
+	 * Relative tolerance when checking whether a Link is on a shortest path
+	 * (the delays being stored as floats).
+	 */
+	private static final double RELATIVE_TOLERANCE = 1e-6;
+
+	/**
+	 * Absolute tolerance (s) for the same check, for zero delays.
+	 */
+	private static final double ABSOLUTE_TOLERANCE = 1e-12;
+
+	/**
+	 * Controller of the NetworkingSystem.
+	 */
+	private final Controller controller;
+
+	/**
+	 * Network of the matrix.
+	 */
+	private final Network network;
+
+	/**
+	 * Pool on which rows are computed.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Snapshot of the Network used for the last computation.
+	 */
+	private CompactTopology topology;
+
+	/**
+	 * Number of Nodes (rows and columns).
+	 */
+	private int size;
+
+	/**
+	 * Minimum delays (s), row-major (infinite if unreachable).
+	 */
+	private FloatBuffer delays;
+
+	/**
+	 * Number of hops of the minimum-delay paths, row-major (-1 if
+	 * unreachable).
+	 */
+	private IntBuffer hops;
+
+	/**
+	 * Creates and computes the matrix of a Network on the common pool.
+	 * @param controller Controller of the NetworkingSystem.
+	 * @param network Network.
+	 */
+	public LatencyMatrix(Controller controller, Network network) {
+		this(controller, network, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates and computes the matrix of a Network.
+	 * @param controller Controller of the NetworkingSystem.
+	 * @param network Network.
+	 * @param pool pool on which rows are computed.
+	 */
+	public LatencyMatrix(Controller controller, Network network, ForkJoinPool pool) {
+		this.controller = controller;
+		this.network = network;
+		this.pool = pool;
+		recomputeAll(CompactTopology.build(controller, network));
+	}
+
+	/**
+	 * Gets the number of Nodes of the matrix.
+	 * @return the number of Nodes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the index of a NetworkNode in the matrix. Indices only change when
+	 * Nodes are added or removed.
+	 * @param node NetworkNode.
+	 * @return the index or -1 if the Node is not in the matrix.
+	 */
+	public int getIndex(NetworkNode node) {
+		return topology.getNodeIndex(node);
+	}
+
+	/**
+	 * Gets the NetworkNode at an index of the matrix.
+	 * @param index index.
+	 * @return the NetworkNode.
+	 */
+	public NetworkNode getNode(int index) {
+		return topology.getNode(index);
+	}
+
+	/**
+	 * Gets the minimum delay between two Nodes.
+	 * @param source source index.
+	 * @param destination destination index.
+	 * @return the delay (s) or infinity if the destination is unreachable.
+	 */
+	public float getDelay(int source, int destination) {
+		return delays.get(source * size + destination);
+	}
+
+	/**
+	 * Gets the minimum delay between two NetworkNodes.
+	 * @param source source.
+	 * @param destination destination.
+	 * @return the delay (s) or infinity if the destination is unreachable.
+	 */
+	public float getDelay(NetworkNode source, NetworkNode destination) {
+		return getDelay(index(source), index(destination));
+	}
+
+	/**
+	 * Gets the number of hops of the minimum-delay path between two Nodes.
+	 * @param source source index.
+	 * @param destination destination index.
+	 * @return the number of hops or -1 if the destination is unreachable.
+	 */
+	public int getHops(int source, int destination) {
+		return hops.get(source * size + destination);
+	}
+
+	/**
+	 * Gets the number of hops of the minimum-delay path between two
+	 * NetworkNodes.
+	 * @param source source.
+	 * @param destination destination.
+	 * @return the number of hops or -1 if the destination is unreachable.
+	 */
+	public int getHops(NetworkNode source, NetworkNode destination) {
+		return getHops(index(source), index(destination));
+	}
+
+	/**
+	 * Updates the matrix after changes of the Network.
+	 * @return the number of recomputed rows.
+	 */
+	public int refresh() {
+		CompactTopology previous = topology;
+		CompactTopology current = CompactTopology.build(controller, network);
+
+		// Same Nodes at the same indices?
+		if(current.getNumberOfNodes() != size)
+			return recomputeAll(current);
+		for(int i = 0; i < size; i++)
+			if(previous.getNodeIndex(current.getNode(i)) != i)
+				return recomputeAll(current);
+
+		BitSet affected = new BitSet(size);
+		for(int l = 0; l < current.getNumberOfLinks(); l++) {
+			int old = previous.getLinkIndex(current.getLink(l));
+			if(old < 0) {
+				markAffectedRows(affected, current.getSource(l), current.getDestination(l), current.getDelay(l));
+			} else if(previous.getDelay(old) != current.getDelay(l)) {
+				markAffectedRows(affected, current.getSource(l), current.getDestination(l), current.getDelay(l));
+				markAffectedRows(affected, previous.getSource(old), previous.getDestination(old), previous.getDelay(old));
+			}
+		}
+		for(int l = 0; l < previous.getNumberOfLinks(); l++)
+			if(current.getLinkIndex(previous.getLink(l)) < 0)
+				markAffectedRows(affected, previous.getSource(l), previous.getDestination(l), previous.getDelay(l));
+
+		topology = current;
+		int[] rows = affected.stream().toArray();
+		if(rows.length > 0)
+			pool.invoke(new RowsTask(current, rows, 0, rows.length));
+		return rows.length;
+	}
+
+	/**
+	 * Marks the rows whose shortest paths can use (or could have used) a
+	 * Link, i.e., the rows in which the Link is at most as long as the current
+	 * shortest path to its destination through its source.
+	 * @param affected rows to recompute.
+	 * @param source source of the Link.
+	 * @param destination destination of the Link.
+	 * @param delay delay of the Link.
+	 */
+	private void markAffectedRows(BitSet affected, int source, int destination, double delay) {
+		for(int row = 0; row < size; row++) {
+			float toSource = delays.get(row * size + source);
+			if(toSource == Float.POSITIVE_INFINITY)
+				continue;
+			double toDestination = delays.get(row * size + destination);
+			if(toSource + delay <= toDestination * (1 + RELATIVE_TOLERANCE) + ABSOLUTE_TOLERANCE)
+				affected.set(row);
+		}
+	}
+
+	/**
+	 * Allocates the matrices and computes all the rows.
+	 * @param current snapshot of the Network.
+	 * @return the number of recomputed rows.
+	 */
+	private int recomputeAll(CompactTopology current) {
+		int n = current.getNumberOfNodes();
+		if((long) n * n > Integer.MAX_VALUE / 4)
+			throw new IllegalArgumentException("Networks with more than 23170 nodes are not supported");
+		topology = current;
+		size = n;
+		delays = ByteBuffer.allocateDirect(n * n * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+		hops = ByteBuffer.allocateDirect(n * n * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+		int[] rows = new int[n];
+		for(int i = 0; i < n; i++)
+			rows[i] = i;
+		if(n > 0)
+			pool.invoke(new RowsTask(current, rows, 0, n));
+		return n;
+	}
+
+	/**
+	 * Gets the index of a NetworkNode.
+	 * @param node NetworkNode.
+	 * @return the index.
+	 */
+	private int index(NetworkNode node) {
+		int index = topology.getNodeIndex(node);
+		if(index < 0)
+			throw new IllegalArgumentException(node + " is not part of the matrix");
+		return index;
+	}
+
+	/**
+	 * Task computing a range of rows, split until ROWS_PER_TASK rows.
+	 */
+	private class RowsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Snapshot used for the computation.
+		 */
+		private final CompactTopology topology;
+
+		/**
+		 * Rows to compute.
+		 */
+		private final int[] rows;
+
+		/**
+		 * Range of rows of this task.
+		 */
+		private final int from, to;
+
+		RowsTask(CompactTopology topology, int[] rows, int from, int to) {
+			this.topology = topology;
+			this.rows = rows;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > ROWS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RowsTask(topology, rows, from, middle), new RowsTask(topology, rows, middle, to));
+				return;
+			}
+
+			ShortestPathEngine engine = new ShortestPathEngine(topology, 0);
+			int[] rowHops = new int[size];
+			int[] stack = new int[size];
+			for(int i = from; i < to; i++) {
+				int source = rows[i];
+				engine.computeTree(source);
+				for(int node = 0; node < size; node++)
+					rowHops[node] = Integer.MIN_VALUE;
+				rowHops[source] = 0;
+
+				int offset = source * size;
+				for(int node = 0; node < size; node++) {
+					double delay = engine.getTreeDistance(node);
+					delays.put(offset + node, (float) delay);
+					hops.put(offset + node, delay == Double.POSITIVE_INFINITY ? -1 : hops(engine, rowHops, stack, node));
+				}
+			}
+		}
+
+		/**
+		 * Computes the number of hops of a Node in a shortest-path tree,
+		 * memoizing the hops of the Nodes on the way.
+		 * @param engine engine holding the tree.
+		 * @param rowHops known hops (Integer.MIN_VALUE if unknown).
+		 * @param stack scratch array.
+		 * @param node Node.
+		 * @return the number of hops.
+		 */
+		private int hops(ShortestPathEngine engine, int[] rowHops, int[] stack, int node) {
+			int depth = 0;
+			while(rowHops[node] == Integer.MIN_VALUE) {
+				stack[depth++] = node;
+				node = topology.getSource(engine.getTreePredecessor(node));
+			}
+			int count = rowHops[node];
+			while(depth > 0)
+				rowHops[stack[--depth]] = ++count;
+			return count;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package de.tum.ei.lkn.eces.network.routing;
+
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.Link;
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.compact.CompactTopology;
+
+import java.util.Arrays;
+
+/**
+ * Path computed by a ShortestPathEngine: a sequence of Links of a
+ * CompactTopology and, for each Link, the Queue used.
+ *
+ * @author Amaury Van Bemten
+ */
+public class Path {
+	/**
+	 * Topology of the Path.
+	 */
+	private final CompactTopology topology;
+
+	/**
+	 * Indices of the Links, from the source to the destination.
+	 */
+	private final int[] links;
+
+	/**
+	 * Indices of the Queues used on each Link.
+	 */
+	private final int[] queues;
+
+	/**
+	 * Weight of the Path (s).
+	 */
+	private final double weight;
+
+	Path(CompactTopology topology, int[] links, int[] queues, double weight) {
+		this.topology = topology;
+		this.links = links;
+		this.queues = queues;
+		this.weight = weight;
+	}
+
+	/**
+	 * Gets the number of hops of the Path.
+	 * @return the number of Links.
+	 */
+	public int getNumberOfHops() {
+		return links.length;
+	}
+
+	/**
+	 * Gets the weight of the Path, i.e., the sum of the delays and
+	 * transmission times of its Links.
+	 * @return the weight (s).
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Gets the index of a Link of the Path.
+	 * @param hop hop (0 being the first Link).
+	 * @return the Link index in the CompactTopology.
+	 */
+	public int getLinkIndex(int hop) {
+		return links[hop];
+	}
+
+	/**
+	 * Gets the index of the Queue used on a Link of the Path.
+	 * @param hop hop (0 being the first Link).
+	 * @return the Queue index in the CompactTopology.
+	 */
+	public int getQueueIndex(int hop) {
+		return queues[hop];
+	}
+
+	/**
+	 * Gets the Link indices of the Path.
+	 * @return a copy of the Link indices.
+	 */
+	public int[] getLinkIndices() {
+		return Arrays.copyOf(links, links.length);
+	}
+
+	/**
+	 * Gets the Links of the Path.
+	 * @return the Links, from the source to the destination.
+	 */
+	public Link[] getLinks() {
+		Link[] result = new Link[links.length];
+		for(int i = 0; i < links.length; i++)
+			result[i] = topology.getLink(links[i]);
+		return result;
+	}
+
+	/**
+	 * Gets the queue-level Edges of the Path.
+	 * @return the queue-level Edges, from the source to the destination.
+	 */
+	public Edge[] getQueueEdges() {
+		Edge[] result = new Edge[queues.length];
+		for(int i = 0; i < queues.length; i++)
+			result[i] = topology.getQueueEdge(queues[i]);
+		return result;
+	}
+
+	/**
+	 * Gets the NetworkNodes of the Path.
+	 * @return the NetworkNodes, from the source to the destination.
+	 */
+	public NetworkNode[] getNodes() {
+		if(links.length == 0)
+			return new NetworkNode[0];
+		NetworkNode[] result = new NetworkNode[links.length + 1];
+		result[0] = topology.getNode(topology.getSource(links[0]));
+		for(int i = 0; i < links.length; i++)
+			result[i + 1] = topology.getNode(topology.getDestination(links[i]));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == this)
+			return true;
+		if(!(o instanceof Path))
+			return false;
+		Path other = (Path) o;
+		return topology == other.topology && Arrays.equals(queues, other.queues);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(queues);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		NetworkNode[] nodes = getNodes();
+		for(int i = 0; i < nodes.length; i++) {
+			if(i > 0)
+				builder.append("->");
+			builder.append(nodes[i].getName().isEmpty() ? nodes[i].toString() : nodes[i].getName());
+		}
+		return builder.append(" (").append(weight).append(" s)").toString();
+	}
+}
@@ -0,0 +1,436 @@
+package de.tum.ei.lkn.eces.network.routing;
+
+import de.tum.ei.lkn.eces.network.NetworkNode;
+import de.tum.ei.lkn.eces.network.compact.CompactTopology;
+
+import java.util.*;
+
+/**
+ * Shortest-path computation on the queue-level Graph of a Network.
+ *
+ * The weight of a queue-level Edge is the Delay of its Link plus the
+ * transmission time of a packet of a given size at the Rate of the Link. All
+ * the Queues of a Link having the same weight, paths either use the first
+ * Queue of each Link or, if a Queue position is given, only Links having a
+ * Queue at this position (e.g., the Queue of a given priority).
+ *
+ * Queries run Dijkstra's algorithm on a CompactTopology with an indexed
+ * binary heap and scratch arrays allocated once per engine, so that
+ * distance queries and shortest-path trees do not allocate. An engine is
+ * not thread-safe: concurrent queries must use different engines (which can
+ * share the same CompactTopology).
+ *
+ * @author Amaury Van Bemten
+ */
+public class ShortestPathEngine {
+	/**
+	 * Queue position meaning that the first Queue of each Link is used.
+	 */
+	public static final int ANY_QUEUE = -1;
+
+	/**
+	 * Topology on which paths are computed.
+	 */
+	private final CompactTopology topology;
+
+	/**
+	 * Position of the Queue used on each Link (or ANY_QUEUE).
+	 */
+	private final int queuePosition;
+
+	/**
+	 * Weight of each Link (infinite if the Link cannot be used).
+	 */
+	private final double[] weights;
+
+	/**
+	 * Distance of each Node from the source of the last query (valid if its
+	 * stamp is the current epoch).
+	 */
+	private final double[] distances;
+
+	/**
+	 * Link through which each Node is reached in the last query.
+	 */
+	private final int[] predecessors;
+
+	/**
+	 * Epoch in which the distance of each Node was set.
+	 */
+	private final int[] stamps;
+
+	/**
+	 * Current epoch.
+	 */
+	private int epoch;
+
+	/**
+	 * Heap of the Nodes to visit.
+	 */
+	private final IndexedMinHeap heap;
+
+	/**
+	 * Ban epoch in which each Link and Node was banned (for k shortest paths).
+	 */
+	private final int[] bannedLinks, bannedNodes;
+
+	/**
+	 * Current ban epoch (0 if no element is banned).
+	 */
+	private int banEpoch;
+
+	/**
+	 * Last ban epoch used.
+	 */
+	private int lastBanEpoch;
+
+	/**
+	 * Source of the last computed shortest-path tree (-1 if none).
+	 */
+	private int treeSource = -1;
+
+	/**
+	 * Creates an engine using the first Queue of each Link.
+	 * @param topology topology.
+	 * @param packetSize size of the packets for the transmission times
+	 *                   (bytes).
+	 */
+	public ShortestPathEngine(CompactTopology topology, double packetSize) {
+		this(topology, packetSize, ANY_QUEUE);
+	}
+
+	/**
+	 * Creates an engine.
+	 * @param topology topology.
+	 * @param packetSize size of the packets for the transmission times
+	 *                   (bytes).
+	 * @param queuePosition position of the Queue to use in the Scheduler of
+	 *                      each Link (Links with less Queues are not used),
+	 *                      or ANY_QUEUE.
+	 */
+	public ShortestPathEngine(CompactTopology topology, double packetSize, int queuePosition) {
+		if(packetSize < 0)
+			throw new IllegalArgumentException("Negative packet size");
+		if(queuePosition < ANY_QUEUE)
+			throw new IllegalArgumentException("Invalid queue position: " + queuePosition);
+		this.topology = topology;
+		this.queuePosition = queuePosition;
+
+		int numberOfLinks = topology.getNumberOfLinks();
+		int numberOfNodes = topology.getNumberOfNodes();
+		this.weights = new double[numberOfLinks];
+		for(int l = 0; l < numberOfLinks; l++) {
+			if(queuePosition != ANY_QUEUE && topology.getNumberOfQueues(l) <= queuePosition)
+				weights[l] = Double.POSITIVE_INFINITY;
+			else
+				weights[l] = topology.getDelay(l) + (packetSize == 0 ? 0 : packetSize / topology.getRate(l));
+		}
+
+		this.distances = new double[numberOfNodes];
+		this.predecessors = new int[numberOfNodes];
+		this.stamps = new int[numberOfNodes];
+		this.heap = new IndexedMinHeap(numberOfNodes);
+		this.bannedLinks = new int[numberOfLinks];
+		this.bannedNodes = new int[numberOfNodes];
+	}
+
+	/**
+	 * Gets the topology of the engine.
+	 * @return the topology.
+	 */
+	public CompactTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * Gets the weight of a Link.
+	 * @param link Link index.
+	 * @return its delay plus the transmission time of a packet (s), or
+	 *         infinity if the Link has no Queue at the position of the engine.
+	 */
+	public double getWeight(int link) {
+		return weights[link];
+	}
+
+	/**
+	 * Gets the Queue of a Link used by the paths of the engine.
+	 * @param link Link index.
+	 * @return the Queue index.
+	 */
+	public int getQueue(int link) {
+		return topology.getFirstQueue(link) + (queuePosition == ANY_QUEUE ? 0 : queuePosition);
+	}
+
+	/**
+	 * Computes the shortest path between two NetworkNodes.
+	 * @param source source.
+	 * @param destination destination.
+	 * @return the path or null if the destination cannot be reached.
+	 */
+	public Path getShortestPath(NetworkNode source, NetworkNode destination) {
+		return getShortestPath(nodeIndex(source), nodeIndex(destination));
+	}
+
+	/**
+	 * Computes the shortest path between two Nodes.
+	 * @param source source Node index.
+	 * @param destination destination Node index.
+	 * @return the path or null if the destination cannot be reached.
+	 */
+	public Path getShortestPath(int source, int destination) {
+		run(source, destination);
+		return extractPath(destination);
+	}
+
+	/**
+	 * Computes the shortest path between two Nodes without allocation.
+	 * @param source source Node index.
+	 * @param destination destination Node index.
+	 * @param links array receiving the Link indices of the path, from the
+	 *              source to the destination (its length must be at least
+	 *              the number of hops of the path).
+	 * @return the number of hops of the path or -1 if the destination cannot
+	 *         be reached.
+	 */
+	public int getShortestPath(int source, int destination, int[] links) {
+		run(source, destination);
+		if(stamps[destination] != epoch)
+			return -1;
+		int hops = countHops(destination);
+		for(int node = destination, i = hops - 1; i >= 0; i--) {
+			links[i] = predecessors[node];
+			node = topology.getSource(predecessors[node]);
+		}
+		return hops;
+	}
+
+	/**
+	 * Computes the weight of the shortest path between two Nodes.
+	 * @param source source Node index.
+	 * @param destination destination Node index.
+	 * @return the weight (s) or infinity if the destination cannot be
+	 *         reached.
+	 */
+	public double getDistance(int source, int destination) {
+		run(source, destination);
+		return stamps[destination] == epoch ? distances[destination] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Computes the shortest-path tree of a source. The tree can then be read
+	 * with getTreeDistance(), getTreePredecessor() and getTreePath() until the
+	 * next query on the engine.
+	 * @param source source Node index.
+	 */
+	public void computeTree(int source) {
+		run(source, -1);
+		treeSource = source;
+	}
+
+	/**
+	 * Gets the distance of a Node in the last computed tree.
+	 * @param node Node index.
+	 * @return the weight (s) of the shortest path from the source of the tree
+	 *         or infinity if the Node cannot be reached.
+	 */
+	public double getTreeDistance(int node) {
+		checkTree();
+		return stamps[node] == epoch ? distances[node] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Gets the Link through which a Node is reached in the last computed
+	 * tree.
+	 * @param node Node index.
+	 * @return the Link index or -1 for the source and for unreachable Nodes.
+	 */
+	public int getTreePredecessor(int node) {
+		checkTree();
+		return stamps[node] == epoch ? predecessors[node] : -1;
+	}
+
+	/**
+	 * Gets the path to a Node in the last computed tree.
+	 * @param node Node index.
+	 * @return the path or null if the Node cannot be reached.
+	 */
+	public Path getTreePath(int node) {
+		checkTree();
+		return extractPath(node);
+	}
+
+	/**
+	 * Computes the k shortest loopless paths between two Nodes (Yen's
+	 * algorithm).
+	 * @param source source Node index.
+	 * @param destination destination Node index.
+	 * @param k maximum number of paths.
+	 * @return the paths, by increasing weight.
+	 */
+	public List<Path> getKShortestPaths(int source, int destination, int k) {
+		List<Path> paths = new ArrayList<>(k);
+		if(k <= 0)
+			return paths;
+		Path first = getShortestPath(source, destination);
+		if(first == null)
+			return paths;
+		paths.add(first);
+
+		PriorityQueue<Path> candidates = new PriorityQueue<>(Comparator.comparingDouble(Path::getWeight).thenComparingInt(Path::getNumberOfHops));
+		Set<Path> known = new HashSet<>(paths);
+		int[] spurLinks = new int[topology.getNumberOfNodes()];
+		while(paths.size() < k) {
+			Path previous = paths.get(paths.size() - 1);
+			for(int i = 0; i < previous.getNumberOfHops(); i++) {
+				int spurNode = topology.getSource(previous.getLinkIndex(i));
+
+				// Banning the next Link of the paths sharing the root and the
+				// Nodes of the root.
+				banEpoch = ++lastBanEpoch;
+				for(Path path : paths)
+					if(path.getNumberOfHops() > i && sameRoot(path, previous, i))
+						bannedLinks[path.getLinkIndex(i)] = banEpoch;
+				for(int j = 0; j < i; j++)
+					bannedNodes[topology.getSource(previous.getLinkIndex(j))] = banEpoch;
+
+				int spurHops = getShortestPath(spurNode, destination, spurLinks);
+				banEpoch = 0;
+				if(spurHops < 0)
+					continue;
+
+				int[] links = new int[i + spurHops];
+				for(int j = 0; j < i; j++)
+					links[j] = previous.getLinkIndex(j);
+				System.arraycopy(spurLinks, 0, links, i, spurHops);
+				Path candidate = createPath(links);
+				if(known.add(candidate))
+					candidates.add(candidate);
+			}
+
+			if(candidates.isEmpty())
+				break;
+			paths.add(candidates.poll());
+		}
+		return paths;
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm.
+	 * @param source source Node index.
+	 * @param target Node at which the search can stop (-1 for a full tree).
+	 */
+	private void run(int source, int target) {
+		treeSource = -1;
+		if(++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(stamps, 0);
+			epoch = 1;
+		}
+		heap.clear();
+
+		distances[source] = 0;
+		predecessors[source] = -1;
+		stamps[source] = epoch;
+		heap.insertOrDecrease(source, 0);
+		while(!heap.isEmpty()) {
+			int node = heap.poll();
+			if(node == target)
+				return;
+			double distance = distances[node];
+			int end = topology.getFirstLink(node + 1);
+			for(int link = topology.getFirstLink(node); link < end; link++) {
+				double weight = weights[link];
+				if(weight == Double.POSITIVE_INFINITY || (banEpoch != 0 && bannedLinks[link] == banEpoch))
+					continue;
+				int next = topology.getDestination(link);
+				if(banEpoch != 0 && bannedNodes[next] == banEpoch)
+					continue;
+				double nextDistance = distance + weight;
+				if(stamps[next] != epoch || nextDistance < distances[next]) {
+					stamps[next] = epoch;
+					distances[next] = nextDistance;
+					predecessors[next] = link;
+					heap.insertOrDecrease(next, nextDistance);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the path to a Node from the result of the last run.
+	 * @param node destination Node index.
+	 * @return the path or null if the Node was not reached.
+	 */
+	private Path extractPath(int node) {
+		if(stamps[node] != epoch)
+			return null;
+		int[] links = new int[countHops(node)];
+		for(int i = links.length - 1; i >= 0; i--) {
+			links[i] = predecessors[node];
+			node = topology.getSource(predecessors[node]);
+		}
+		return createPath(links);
+	}
+
+	/**
+	 * Creates a path from its Links.
+	 * @param links Link indices.
+	 * @return the path.
+	 */
+	private Path createPath(int[] links) {
+		int[] queues = new int[links.length];
+		double weight = 0;
+		for(int i = 0; i < links.length; i++) {
+			queues[i] = getQueue(links[i]);
+			weight += weights[links[i]];
+		}
+		return new Path(topology, links, queues, weight);
+	}
+
+	/**
+	 * Counts the hops to a Node reached in the last run.
+	 * @param node Node index.
+	 * @return the number of hops.
+	 */
+	private int countHops(int node) {
+		int hops = 0;
+		while(predecessors[node] >= 0) {
+			node = topology.getSource(predecessors[node]);
+			hops++;
+		}
+		return hops;
+	}
+
+	/**
+	 * Checks whether two paths have the same first Links.
+	 * @param path1 first path.
+	 * @param path2 second path.
+	 * @param length number of Links to compare.
+	 * @return true if the first length Links are the same.
+	 */
+	private static boolean sameRoot(Path path1, Path path2, int length) {
+		for(int i = 0; i < length; i++)
+			if(path1.getLinkIndex(i) != path2.getLinkIndex(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Checks that a tree has been computed by the last query.
+	 */
+	private void checkTree() {
+		if(treeSource < 0)
+			throw new IllegalStateException("No shortest-path tree has been computed by the last query");
+	}
+
+	/**
+	 * Gets the index of a NetworkNode.
+	 * @param node NetworkNode.
+	 * @return the Node index.
+	 */
+	private int nodeIndex(NetworkNode node) {
+		int index = topology.getNodeIndex(node);
+		if(index < 0)
+			throw new IllegalArgumentException(node + " is not part of the topology");
+		return index;
+	}
+}
@@ -10,7 +10,8 @@ import java.util.Arrays;
  */
 public abstract class Address {
 	/**
-	 * The Address consists of bytes.
+	 * The Address consists of bytes (unused by subclasses storing their
+	 * Address in a primitive, which override all the methods of this class).
 	 */
 	protected byte[] address;
 
@@ -0,0 +1,47 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of canonical Address instances.
+ *
+ * Interning the Addresses of large inventories ensures that equal Addresses
+ * share a single instance, so that equality checks mostly succeed on
+ * identity and that duplicate Addresses do not use memory. The pool keeps
+ * strong references to its Addresses until it is cleared.
+ *
+ * @param <A> type of the Addresses.
+ * @author Amaury Van Bemten
+ */
+public class AddressInterner<A extends Address> {
+	/**
+	 * Canonical instance of each Address.
+	 */
+	private final ConcurrentHashMap<A, A> addresses = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the canonical instance of an Address.
+	 * @param address Address.
+	 * @return the instance of the pool equal to the Address (the Address
+	 *         itself if the pool did not contain it yet).
+	 */
+	public A intern(A address) {
+		A canonical = addresses.putIfAbsent(address, address);
+		return canonical == null ? address : canonical;
+	}
+
+	/**
+	 * Gets the number of Addresses in the pool.
+	 * @return the number of Addresses.
+	 */
+	public int size() {
+		return addresses.size();
+	}
+
+	/**
+	 * Removes all the Addresses from the pool.
+	 */
+	public void clear() {
+		addresses.clear();
+	}
+}
@@ -0,0 +1,384 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single-pass parsers of textual IPv4, IPv6 and MAC addresses.
+ *
+ * The parsers work on a range of a CharSequence or of a ByteBuffer
+ * containing ASCII text (absolute indices, the position of the buffer is
+ * not modified) and do not allocate: IPv4 and MAC addresses are returned as
+ * primitives and IPv6 addresses are written to a caller-provided array.
+ * Invalid addresses are reported by a negative return value rather than by
+ * an exception, so that inventories can be validated cheaply.
+ *
+ * The accepted formats are the ones of IPAddressUtil for IP addresses and
+ * six colon-separated groups of one or two hexadecimal digits for MAC
+ * addresses.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class AddressParser {
+	/**
+	 * Length of an IPv4 address in bytes.
+	 */
+	private static final int IPv4_LENGTH = 4;
+
+	/**
+	 * Length of an IPv6 address in bytes.
+	 */
+	private static final int IPv6_LENGTH = 16;
+
+	/**
+	 * Number of groups of a MAC address.
+	 */
+	private static final int MAC_GROUPS = 6;
+
+	/**
+	 * Reusable CharSequence views of ByteBuffers.
+	 */
+	private static final ThreadLocal<ByteBufferSequence> VIEWS = ThreadLocal.withInitial(ByteBufferSequence::new);
+
+	private AddressParser() {
+	}
+
+	/**
+	 * Parses an IPv4 address.
+	 * @param src text.
+	 * @return the address (most significant byte first) as an unsigned value
+	 *         or -1 if the text is not an IPv4 address.
+	 */
+	public static long parseIPv4(CharSequence src) {
+		return parseIPv4(src, 0, src.length());
+	}
+
+	/**
+	 * Parses an IPv4 address.
+	 * @param src text.
+	 * @param start index of the first character.
+	 * @param end index after the last character.
+	 * @return the address (most significant byte first) as an unsigned value
+	 *         or -1 if the text is not an IPv4 address.
+	 */
+	public static long parseIPv4(CharSequence src, int start, int end) {
+		return parseIPv4(src, start, end, false);
+	}
+
+	/**
+	 * Parses an IPv4 address from ASCII bytes.
+	 * @param src buffer.
+	 * @param start index of the first byte.
+	 * @param end index after the last byte.
+	 * @return the address (most significant byte first) as an unsigned value
+	 *         or -1 if the text is not an IPv4 address.
+	 */
+	public static long parseIPv4(ByteBuffer src, int start, int end) {
+		ByteBufferSequence view = VIEWS.get().wrap(src);
+		try {
+			return parseIPv4(view, start, end);
+		} finally {
+			view.wrap(null);
+		}
+	}
+
+	/**
+	 * Parses an IPv6 address. As for IPAddressUtil, anything following a '%'
+	 * is ignored and IPv4-mapped addresses are converted to IPv4 addresses.
+	 * @param src text.
+	 * @param dst array of at least 16 bytes receiving the address.
+	 * @return 16 for an IPv6 address, 4 for an IPv4-mapped address (written
+	 *         in the first 4 bytes of dst) or -1 if the text is not an IPv6
+	 *         address.
+	 */
+	public static int parseIPv6(CharSequence src, byte[] dst) {
+		return parseIPv6(src, 0, src.length(), dst);
+	}
+
+	/**
+	 * Parses an IPv6 address. As for IPAddressUtil, anything following a '%'
+	 * is ignored and IPv4-mapped addresses are converted to IPv4 addresses.
+	 * @param src text.
+	 * @param start index of the first character.
+	 * @param end index after the last character.
+	 * @param dst array of at least 16 bytes receiving the address.
+	 * @return 16 for an IPv6 address, 4 for an IPv4-mapped address (written
+	 *         in the first 4 bytes of dst) or -1 if the text is not an IPv6
+	 *         address.
+	 */
+	public static int parseIPv6(CharSequence src, int start, int end, byte[] dst) {
+		// Shortest valid string is "::".
+		if(end - start < 2)
+			return -1;
+
+		for(int k = start; k < end; k++) {
+			if(src.charAt(k) == '%') {
+				if(k == end - 1)
+					return -1;
+				end = k;
+				break;
+			}
+		}
+
+		for(int k = 0; k < IPv6_LENGTH; k++)
+			dst[k] = 0;
+
+		int i = start;
+		int j = 0;
+		int colon = -1;
+		// Leading :: requires some special handling.
+		if(src.charAt(i) == ':' && src.charAt(++i) != ':')
+			return -1;
+		int token = i;
+		boolean sawDigit = false;
+		int value = 0;
+		while(i < end) {
+			char c = src.charAt(i++);
+			int digit = hexDigit(c);
+			if(digit != -1) {
+				value = (value << 4) | digit;
+				if(value > 0xffff)
+					return -1;
+				sawDigit = true;
+				continue;
+			}
+			if(c == ':') {
+				token = i;
+				if(!sawDigit) {
+					if(colon != -1)
+						return -1;
+					colon = j;
+					continue;
+				} else if(i == end) {
+					return -1;
+				}
+				if(j + 2 > IPv6_LENGTH)
+					return -1;
+				dst[j++] = (byte) (value >>> 8);
+				dst[j++] = (byte) value;
+				sawDigit = false;
+				value = 0;
+				continue;
+			}
+			if(c == '.' && j + IPv4_LENGTH <= IPv6_LENGTH) {
+				long ipv4 = parseIPv4(src, token, end, true);
+				if(ipv4 < 0)
+					return -1;
+				dst[j++] = (byte) (ipv4 >>> 24);
+				dst[j++] = (byte) (ipv4 >>> 16);
+				dst[j++] = (byte) (ipv4 >>> 8);
+				dst[j++] = (byte) ipv4;
+				sawDigit = false;
+				break;
+			}
+			return -1;
+		}
+		if(sawDigit) {
+			if(j + 2 > IPv6_LENGTH)
+				return -1;
+			dst[j++] = (byte) (value >>> 8);
+			dst[j++] = (byte) value;
+		}
+
+		if(colon != -1) {
+			if(j == IPv6_LENGTH)
+				return -1;
+			int n = j - colon;
+			for(int k = 1; k <= n; k++) {
+				dst[IPv6_LENGTH - k] = dst[colon + n - k];
+				dst[colon + n - k] = 0;
+			}
+			j = IPv6_LENGTH;
+		}
+		if(j != IPv6_LENGTH)
+			return -1;
+
+		// IPv4-mapped address (::ffff:a.b.c.d).
+		for(int k = 0; k < 10; k++)
+			if(dst[k] != 0)
+				return IPv6_LENGTH;
+		if(dst[10] != (byte) 0xff || dst[11] != (byte) 0xff)
+			return IPv6_LENGTH;
+		System.arraycopy(dst, 12, dst, 0, IPv4_LENGTH);
+		return IPv4_LENGTH;
+	}
+
+	/**
+	 * Parses an IPv6 address from ASCII bytes.
+	 * @param src buffer.
+	 * @param start index of the first byte.
+	 * @param end index after the last byte.
+	 * @param dst array of at least 16 bytes receiving the address.
+	 * @return 16 for an IPv6 address, 4 for an IPv4-mapped address (written
+	 *         in the first 4 bytes of dst) or -1 if the text is not an IPv6
+	 *         address.
+	 */
+	public static int parseIPv6(ByteBuffer src, int start, int end, byte[] dst) {
+		ByteBufferSequence view = VIEWS.get().wrap(src);
+		try {
+			return parseIPv6(view, start, end, dst);
+		} finally {
+			view.wrap(null);
+		}
+	}
+
+	/**
+	 * Parses a MAC address.
+	 * @param src text.
+	 * @return the address in the 48 least significant bits or -1 if the text
+	 *         is not a MAC address.
+	 */
+	public static long parseMAC(CharSequence src) {
+		return parseMAC(src, 0, src.length());
+	}
+
+	/**
+	 * Parses a MAC address.
+	 * @param src text.
+	 * @param start index of the first character.
+	 * @param end index after the last character.
+	 * @return the address in the 48 least significant bits or -1 if the text
+	 *         is not a MAC address.
+	 */
+	public static long parseMAC(CharSequence src, int start, int end) {
+		long value = 0;
+		int groups = 0;
+		int digits = 0;
+		int group = 0;
+		for(int i = start; i < end; i++) {
+			char c = src.charAt(i);
+			if(c == ':') {
+				if(digits == 0 || groups == MAC_GROUPS - 1)
+					return -1;
+				value = (value << 8) | group;
+				groups++;
+				digits = 0;
+				group = 0;
+			} else {
+				int digit = hexDigit(c);
+				if(digit == -1 || digits == 2)
+					return -1;
+				group = (group << 4) | digit;
+				digits++;
+			}
+		}
+		if(digits == 0 || groups != MAC_GROUPS - 1)
+			return -1;
+		return (value << 8) | group;
+	}
+
+	/**
+	 * Parses a MAC address from ASCII bytes.
+	 * @param src buffer.
+	 * @param start index of the first byte.
+	 * @param end index after the last byte.
+	 * @return the address in the 48 least significant bits or -1 if the text
+	 *         is not a MAC address.
+	 */
+	public static long parseMAC(ByteBuffer src, int start, int end) {
+		ByteBufferSequence view = VIEWS.get().wrap(src);
+		try {
+			return parseMAC(view, start, end);
+		} finally {
+			view.wrap(null);
+		}
+	}
+
+	/**
+	 * Parses an IPv4 address in the formats of IPAddressUtil: 'a.b.c.d',
+	 * 'a.b.c' (c on 16 bits), 'a.b' (b on 24 bits) and 'a' (32 bits).
+	 * @param src text.
+	 * @param start index of the first character.
+	 * @param end index after the last character.
+	 * @param dottedQuad true if only the 'a.b.c.d' format is accepted.
+	 * @return the address as an unsigned value or -1 if the text is not an
+	 *         IPv4 address.
+	 */
+	private static long parseIPv4(CharSequence src, int start, int end, boolean dottedQuad) {
+		long value = 0;
+		int dots = 0;
+		long part = -1;
+		for(int i = start; i < end; i++) {
+			char c = src.charAt(i);
+			if(c >= '0' && c <= '9') {
+				part = (part < 0 ? 0 : part * 10) + (c - '0');
+				if(part > 0xffffffffL)
+					return -1;
+			} else if(c == '.') {
+				if(part < 0 || part > 0xff || dots == IPv4_LENGTH - 1)
+					return -1;
+				value = (value << 8) | part;
+				dots++;
+				part = -1;
+			} else {
+				return -1;
+			}
+		}
+		if(part < 0 || (dottedQuad && dots != IPv4_LENGTH - 1))
+			return -1;
+
+		// The last part fills the remaining bytes.
+		int remainingBits = 8 * (IPv4_LENGTH - dots);
+		if(part >>> remainingBits != 0)
+			return -1;
+		return (value << remainingBits) | part;
+	}
+
+	/**
+	 * Gets the value of an hexadecimal digit.
+	 * @param c character.
+	 * @return the value or -1 if the character is not an hexadecimal digit.
+	 */
+	private static int hexDigit(char c) {
+		if(c >= '0' && c <= '9')
+			return c - '0';
+		if(c >= 'a' && c <= 'f')
+			return c - 'a' + 10;
+		if(c >= 'A' && c <= 'F')
+			return c - 'A' + 10;
+		return -1;
+	}
+
+	/**
+	 * CharSequence view of the ASCII content of a ByteBuffer, indexed as the
+	 * buffer.
+	 */
+	private static final class ByteBufferSequence implements CharSequence {
+		/**
+		 * Viewed buffer.
+		 */
+		private ByteBuffer buffer;
+
+		/**
+		 * Sets the viewed buffer.
+		 * @param buffer buffer.
+		 * @return this view.
+		 */
+		ByteBufferSequence wrap(ByteBuffer buffer) {
+			this.buffer = buffer;
+			return this;
+		}
+
+		@Override
+		public int length() {
+			return buffer.limit();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (buffer.get(index) & 0xff);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			char[] chars = new char[buffer.limit()];
+			for(int i = 0; i < chars.length; i++)
+				chars[i] = charAt(i);
+			return new String(chars);
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of IPv4 and MAC addresses handed out to the Interfaces of a Network.
+ *
+ * The IPv4 addresses are taken from CIDR blocks (without their network and
+ * broadcast addresses for blocks of more than two addresses) and the MAC
+ * addresses from a contiguous range, typically the 2^24 addresses of an
+ * OUI. The free addresses of each block are kept in a bitmap, so that
+ * allocating and releasing an address is O(1) and does not involve any
+ * parsing. Addresses assigned manually can be reserved so that they are not
+ * handed out.
+ *
+ * All the methods are synchronized.
+ *
+ * @author Amaury Van Bemten
+ */
+public class AddressPool {
+	/**
+	 * Maximum number of addresses of a block.
+	 */
+	private static final int MAX_BLOCK_SIZE = 1 << 24;
+
+	/**
+	 * First address of each IPv4 block.
+	 */
+	private final List<Integer> ipv4Bases = new ArrayList<>();
+
+	/**
+	 * Free lists of the IPv4 blocks.
+	 */
+	private final List<BitmapPool> ipv4Pools = new ArrayList<>();
+
+	/**
+	 * First MAC address of the range.
+	 */
+	private long macBase;
+
+	/**
+	 * Free list of the MAC range (null if there is no MAC range).
+	 */
+	private BitmapPool macPool;
+
+	/**
+	 * Index of the IPv4 block from which the next address is allocated.
+	 */
+	private int currentIPv4Block;
+
+	/**
+	 * Adds a CIDR block of IPv4 addresses.
+	 * @param prefix IPv4 prefix of the block (bits beyond its length are
+	 *               ignored).
+	 * @param length length of the prefix (at least 8).
+	 * @return this pool.
+	 * @throws IllegalArgumentException if the length is invalid or if the
+	 *         block overlaps a block of the pool.
+	 */
+	public synchronized AddressPool addIPv4Block(IPv4Address prefix, int length) {
+		if(length < 8 || length > 32)
+			throw new IllegalArgumentException("Invalid IPv4 block length: " + length + " (must be between 8 and 32)");
+		int size = 1 << (32 - length);
+		int base = prefix.toInt() & (-1 << (32 - length));
+		for(int i = 0; i < ipv4Bases.size(); i++) {
+			long otherBase = ipv4Bases.get(i) & 0xffffffffL;
+			long otherEnd = otherBase + ipv4Pools.get(i).size();
+			if((base & 0xffffffffL) < otherEnd && otherBase < (base & 0xffffffffL) + size)
+				throw new IllegalArgumentException(prefix + "/" + length + " overlaps another block of the pool");
+		}
+
+		BitmapPool pool = new BitmapPool(size);
+		if(size > 2) {
+			// Network and broadcast addresses.
+			pool.mark(0);
+			pool.mark(size - 1);
+		}
+		ipv4Bases.add(base);
+		ipv4Pools.add(pool);
+		return this;
+	}
+
+	/**
+	 * Sets the range of MAC addresses to all the addresses of an OUI.
+	 * @param oui Organizationally Unique Identifier (24 bits).
+	 * @return this pool.
+	 */
+	public AddressPool setMACRange(int oui) {
+		if((oui & ~0xffffff) != 0)
+			throw new IllegalArgumentException("An OUI has 24 bits");
+		return setMACRange(MACAddress.valueOf(((long) oui) << 24), MAX_BLOCK_SIZE);
+	}
+
+	/**
+	 * Sets the range of MAC addresses. MAC addresses allocated from a
+	 * previous range are forgotten.
+	 * @param first first MAC address of the range.
+	 * @param count number of addresses (at most 2^24).
+	 * @return this pool.
+	 */
+	public synchronized AddressPool setMACRange(MACAddress first, int count) {
+		if(count < 1 || count > MAX_BLOCK_SIZE)
+			throw new IllegalArgumentException("Invalid number of MAC addresses: " + count);
+		if(first.toLong() + count - 1 > 0xffffffffffffL)
+			throw new IllegalArgumentException("The MAC range exceeds the MAC address space");
+		macBase = first.toLong();
+		macPool = new BitmapPool(count);
+		return this;
+	}
+
+	/**
+	 * Tells whether the pool has IPv4 blocks.
+	 * @return true if it has at least one block.
+	 */
+	public synchronized boolean hasIPv4Blocks() {
+		return !ipv4Pools.isEmpty();
+	}
+
+	/**
+	 * Tells whether the pool has a MAC range.
+	 * @return true if it has a MAC range.
+	 */
+	public synchronized boolean hasMACRange() {
+		return macPool != null;
+	}
+
+	/**
+	 * Allocates a free IPv4 address.
+	 * @return the address or null if all the addresses are used.
+	 */
+	public synchronized IPv4Address allocateIPv4() {
+		for(int n = 0; n < ipv4Pools.size(); n++) {
+			int block = (currentIPv4Block + n) % ipv4Pools.size();
+			int index = ipv4Pools.get(block).allocate();
+			if(index >= 0) {
+				currentIPv4Block = block;
+				return IPv4Address.valueOf(ipv4Bases.get(block) + index);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Allocates a free MAC address.
+	 * @return the address or null if all the addresses are used or if there
+	 *         is no MAC range.
+	 */
+	public synchronized MACAddress allocateMAC() {
+		if(macPool == null)
+			return null;
+		int index = macPool.allocate();
+		return index < 0 ? null : MACAddress.valueOf(macBase + index);
+	}
+
+	/**
+	 * Marks an IP address as used. Nothing is done if the address is not
+	 * part of the pool.
+	 * @param ip IP address.
+	 * @return true if the address is part of the pool and was free.
+	 */
+	public synchronized boolean reserve(IPAddress ip) {
+		int block = findIPv4Block(ip);
+		return block >= 0 && ipv4Pools.get(block).mark(((IPv4Address) ip).toInt() - ipv4Bases.get(block));
+	}
+
+	/**
+	 * Marks a MAC address as used. Nothing is done if the address is not
+	 * part of the pool.
+	 * @param mac MAC address.
+	 * @return true if the address is part of the pool and was free.
+	 */
+	public synchronized boolean reserve(MACAddress mac) {
+		return isInMACRange(mac) && macPool.mark((int) (mac.toLong() - macBase));
+	}
+
+	/**
+	 * Gives an IP address back to the pool. Nothing is done if the address is
+	 * not part of the pool.
+	 * @param ip IP address.
+	 * @return true if the address is part of the pool and was used.
+	 */
+	public synchronized boolean release(IPAddress ip) {
+		int block = findIPv4Block(ip);
+		if(block < 0)
+			return false;
+		int index = ((IPv4Address) ip).toInt() - ipv4Bases.get(block);
+		BitmapPool pool = ipv4Pools.get(block);
+		if(pool.size() > 2 && (index == 0 || index == pool.size() - 1))
+			return false;
+		return pool.release(index);
+	}
+
+	/**
+	 * Gives a MAC address back to the pool. Nothing is done if the address is
+	 * not part of the pool.
+	 * @param mac MAC address.
+	 * @return true if the address is part of the pool and was used.
+	 */
+	public synchronized boolean release(MACAddress mac) {
+		return isInMACRange(mac) && macPool.release((int) (mac.toLong() - macBase));
+	}
+
+	/**
+	 * Gets the number of free IPv4 addresses.
+	 * @return the number of free IPv4 addresses.
+	 */
+	public synchronized long getFreeIPv4Count() {
+		long count = 0;
+		for(BitmapPool pool : ipv4Pools)
+			count += pool.getFreeCount();
+		return count;
+	}
+
+	/**
+	 * Gets the number of free MAC addresses.
+	 * @return the number of free MAC addresses.
+	 */
+	public synchronized int getFreeMACCount() {
+		return macPool == null ? 0 : macPool.getFreeCount();
+	}
+
+	/**
+	 * Finds the IPv4 block containing an address.
+	 * @param ip IP address.
+	 * @return the index of the block or -1 if no block contains the address.
+	 */
+	private int findIPv4Block(IPAddress ip) {
+		if(!(ip instanceof IPv4Address))
+			return -1;
+		long value = ((IPv4Address) ip).toInt() & 0xffffffffL;
+		for(int i = 0; i < ipv4Bases.size(); i++) {
+			long base = ipv4Bases.get(i) & 0xffffffffL;
+			if(value >= base && value < base + ipv4Pools.get(i).size())
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Tells whether a MAC address is in the MAC range.
+	 * @param mac MAC address.
+	 * @return true if it is in the range.
+	 */
+	private boolean isInMACRange(MACAddress mac) {
+		return macPool != null && mac.toLong() >= macBase && mac.toLong() < macBase + macPool.size();
+	}
+}
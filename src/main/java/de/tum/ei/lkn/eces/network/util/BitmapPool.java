@@ -0,0 +1,136 @@
+package de.tum.ei.lkn.eces.network.util;
+
+/**
+ * Free list of the indices 0 to size - 1 stored as a two-level bitmap.
+ *
+ * The first level has one bit per index (set if the index is used) and the
+ * second level one bit per word of the first level (set if the word still
+ * has a free index). An allocation looks for a non-empty second-level word
+ * starting from the last one that was used, so that sequential allocations
+ * and releases are O(1).
+ *
+ * The pool is not synchronized.
+ *
+ * @author Amaury Van Bemten
+ */
+final class BitmapPool {
+	/**
+	 * Number of indices.
+	 */
+	private final int size;
+
+	/**
+	 * One bit per index, set if the index is used.
+	 */
+	private final long[] used;
+
+	/**
+	 * One bit per word of used, set if the word has a free index.
+	 */
+	private final long[] free;
+
+	/**
+	 * Word of free from which the next allocation starts looking.
+	 */
+	private int cursor;
+
+	/**
+	 * Number of free indices.
+	 */
+	private int freeCount;
+
+	/**
+	 * Creates a pool with all indices free.
+	 * @param size number of indices.
+	 */
+	BitmapPool(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Negative pool size");
+		this.size = size;
+		this.freeCount = size;
+		this.used = new long[(size + 63) >>> 6];
+		this.free = new long[(used.length + 63) >>> 6];
+		for(int word = 0; word < used.length; word++)
+			free[word >>> 6] |= 1L << word;
+		if((size & 63) != 0)
+			used[used.length - 1] = -1L << (size & 63);
+	}
+
+	/**
+	 * Gets the number of indices.
+	 * @return the number of indices.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of free indices.
+	 * @return the number of free indices.
+	 */
+	int getFreeCount() {
+		return freeCount;
+	}
+
+	/**
+	 * Allocates a free index.
+	 * @return the index or -1 if all the indices are used.
+	 */
+	int allocate() {
+		if(freeCount == 0)
+			return -1;
+		for(int n = 0; n < free.length; n++) {
+			int summary = cursor + n < free.length ? cursor + n : cursor + n - free.length;
+			if(free[summary] != 0) {
+				cursor = summary;
+				int word = (summary << 6) + Long.numberOfTrailingZeros(free[summary]);
+				int index = (word << 6) + Long.numberOfTrailingZeros(~used[word]);
+				mark(index);
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Marks an index as used.
+	 * @param index index.
+	 * @return false if the index was already used.
+	 */
+	boolean mark(int index) {
+		int word = index >>> 6;
+		long bit = 1L << index;
+		if((used[word] & bit) != 0)
+			return false;
+		used[word] |= bit;
+		if(used[word] == -1L)
+			free[word >>> 6] &= ~(1L << word);
+		freeCount--;
+		return true;
+	}
+
+	/**
+	 * Marks an index as free.
+	 * @param index index.
+	 * @return false if the index was already free.
+	 */
+	boolean release(int index) {
+		int word = index >>> 6;
+		long bit = 1L << index;
+		if((used[word] & bit) == 0)
+			return false;
+		used[word] &= ~bit;
+		free[word >>> 6] |= 1L << word;
+		freeCount++;
+		return true;
+	}
+
+	/**
+	 * Tells whether an index is used.
+	 * @param index index.
+	 * @return true if the index is used.
+	 */
+	boolean isUsed(int index) {
+		return (used[index >>> 6] & (1L << index)) != 0;
+	}
+}
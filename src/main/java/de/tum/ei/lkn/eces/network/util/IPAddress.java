@@ -1,5 +1,7 @@
 package de.tum.ei.lkn.eces.network.util;
 
+import java.util.Arrays;
+
 /**
  * Class representing an IP Address.
  *
@@ -15,10 +17,17 @@ public abstract class IPAddress extends Address {
 	 *         address.
 	 */
 	public static IPAddress valueOf(String address) {
-		if(IPAddressUtil.isIPv4LiteralAddress(address))
-			return IPv4Address.valueOf(address);
-		else if(IPAddressUtil.isIPv6LiteralAddress(address))
-			return IPv6Address.valueOf(address);
+		long ipv4 = AddressParser.parseIPv4(address);
+		if(ipv4 >= 0)
+			return IPv4Address.valueOf((int) ipv4);
+
+		byte[] ipv6 = new byte[IPv6Address.IPv6_ADDRESS_LENGTH];
+		switch(AddressParser.parseIPv6(address, ipv6)) {
+			case IPv6Address.IPv6_ADDRESS_LENGTH:
+				return new IPv6Address(ipv6);
+			case IPv4Address.IPv4_ADDRESS_LENGTH:
+				return IPv4Address.valueOf(Arrays.copyOf(ipv6, IPv4Address.IPv4_ADDRESS_LENGTH));
+		}
 		throw new IllegalArgumentException(address + " is not an IP address");
 	}
 
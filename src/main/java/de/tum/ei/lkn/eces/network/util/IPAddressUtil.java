@@ -255,7 +255,7 @@ public class IPAddressUtil {
 	 * @return a boolean indicating whether src is an IPv4 literal address
 	 */
 	public static boolean isIPv4LiteralAddress(String src) {
-		return textToNumericFormatV4(src) != null;
+		return AddressParser.parseIPv4(src) >= 0;
 	}
 
 	/**
@@ -263,7 +263,7 @@ public class IPAddressUtil {
 	 * @return a boolean indicating whether src is an IPv6 literal address
 	 */
 	public static boolean isIPv6LiteralAddress(String src) {
-		return textToNumericFormatV6(src) != null;
+		return AddressParser.parseIPv6(src, new byte[INADDR16SZ]) > 0;
 	}
 
 	/*
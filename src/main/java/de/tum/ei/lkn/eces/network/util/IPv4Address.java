@@ -1,10 +1,11 @@
 package de.tum.ei.lkn.eces.network.util;
 
-import java.util.Arrays;
-
 /**
  * Class representing an IPv4 Address.
  *
+ * The address is stored in an int (most significant byte first), so that
+ * equals() and hashCode() do not allocate nor iterate over bytes.
+ *
  * @author Jochen Guck
  * @author Amaury Van Bemten
  */
@@ -14,6 +15,11 @@ public class IPv4Address extends IPAddress {
 	 */
 	static final protected int IPv4_ADDRESS_LENGTH = 4;
 
+	/**
+	 * The address, most significant byte first.
+	 */
+	private final int value;
+
 	/**
 	 * Creates an IPv4Address from a byte array.
 	 * @param address byte array representing the address to be created.
@@ -24,7 +30,15 @@ public class IPv4Address extends IPAddress {
 		if(address.length != IPv4_ADDRESS_LENGTH)
 			throw new IllegalArgumentException("The byte array size does not correspond to an IPv4 address");
 
-		this.address = Arrays.copyOf(address, IPv4_ADDRESS_LENGTH);
+		this.value = ((address[0] & 0xff) << 24) | ((address[1] & 0xff) << 16) | ((address[2] & 0xff) << 8) | (address[3] & 0xff);
+	}
+
+	/**
+	 * Creates an IPv4Address from its 32-bit value.
+	 * @param value the address, most significant byte first.
+	 */
+	private IPv4Address(int value) {
+		this.value = value;
 	}
 
 	/**
@@ -36,10 +50,11 @@ public class IPv4Address extends IPAddress {
 	 *         IPv4 address.
 	 */
 	public static IPv4Address valueOf(String address) {
-		if(!IPAddressUtil.isIPv4LiteralAddress(address))
+		long value = AddressParser.parseIPv4(address);
+		if(value < 0)
 			throw new IllegalArgumentException(address + " does not correspond to an IPv4 address");
 
-		return new IPv4Address(IPAddressUtil.textToNumericFormatV4(address));
+		return new IPv4Address((int) value);
 	}
 
 	/**
@@ -56,8 +71,52 @@ public class IPv4Address extends IPAddress {
 		return new IPv4Address(address);
 	}
 
+	/**
+	 * Returns an IPv4Address instance representing the specified value.
+	 * @param value the address, most significant byte first (e.g.,
+	 *              0x0a000001 for 10.0.0.1).
+	 * @return an IPv4Address instance representing the specified value.
+	 */
+	public static IPv4Address valueOf(int value) {
+		return new IPv4Address(value);
+	}
+
+	/**
+	 * Returns the value of the IPv4 address.
+	 * @return the address, most significant byte first.
+	 */
+	public int toInt() {
+		return value;
+	}
+
+	@Override
+	public int getLength() {
+		return IPv4_ADDRESS_LENGTH;
+	}
+
+	@Override
+	public byte[] toBytes() {
+		return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o == this)
+			return true;
+
+		if(!(o instanceof IPv4Address))
+			return false;
+
+		return value == ((IPv4Address) o).value;
+	}
+
+	@Override
+	public int hashCode() {
+		return value * 0x9E3779B9;
+	}
+
 	@Override
 	public String toString() {
-		return (address[0] & 0xff) + "." + (address[1] & 0xff) + "." + (address[2] & 0xff) + "." + (address[3] & 0xff);
+		return (value >>> 24) + "." + ((value >>> 16) & 0xff) + "." + ((value >>> 8) & 0xff) + "." + (value & 0xff);
 	}
 }
@@ -36,10 +36,11 @@ public class IPv6Address extends IPAddress {
 	 *         IPv6 address.
 	 */
 	public static IPv6Address valueOf(String address) {
-		if(!IPAddressUtil.isIPv6LiteralAddress(address))
+		byte[] bytes = new byte[IPv6_ADDRESS_LENGTH];
+		if(AddressParser.parseIPv6(address, bytes) != IPv6_ADDRESS_LENGTH)
 			throw new IllegalArgumentException(address + " does not correspond to an IPv6 address");
 
-		return new IPv6Address(IPAddressUtil.textToNumericFormatV6(address));
+		return new IPv6Address(bytes);
 	}
 
 	/**
@@ -56,6 +57,34 @@ public class IPv6Address extends IPAddress {
 		return new IPv6Address(address);
 	}
 
+	/**
+	 * Returns the upper 64 bits of the address.
+	 * @return the upper 64 bits, most significant byte first.
+	 */
+	public long getUpperBits() {
+		return bitsAt(0);
+	}
+
+	/**
+	 * Returns the lower 64 bits of the address.
+	 * @return the lower 64 bits, most significant byte first.
+	 */
+	public long getLowerBits() {
+		return bitsAt(IPv6_ADDRESS_LENGTH / 2);
+	}
+
+	/**
+	 * Reads 8 bytes of the address.
+	 * @param offset index of the first byte.
+	 * @return the bytes, most significant first.
+	 */
+	private long bitsAt(int offset) {
+		long bits = 0;
+		for(int i = offset; i < offset + IPv6_ADDRESS_LENGTH / 2; i++)
+			bits = (bits << 8) | (address[i] & 0xff);
+		return bits;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder(39);
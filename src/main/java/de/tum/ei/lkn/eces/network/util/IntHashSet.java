@@ -0,0 +1,201 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of ints stored in an open-addressing hash table (linear probing,
+ * backward-shift deletion), without boxing.
+ *
+ * The set is not synchronized.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class IntHashSet {
+	/**
+	 * Value marking a free slot (0 is stored with a flag).
+	 */
+	private static final int FREE = 0;
+
+	/**
+	 * Slots of the table (power-of-two length).
+	 */
+	private int[] slots;
+
+	/**
+	 * Whether 0 is in the set.
+	 */
+	private boolean containsZero;
+
+	/**
+	 * Number of elements in the table (0 excluded).
+	 */
+	private int count;
+
+	/**
+	 * Creates an empty set.
+	 */
+	public IntHashSet() {
+		this(8);
+	}
+
+	/**
+	 * Creates an empty set.
+	 * @param expectedSize number of elements the set can hold without
+	 *                     resizing.
+	 */
+	public IntHashSet(int expectedSize) {
+		int capacity = 4;
+		while(capacity * 3 / 4 < expectedSize)
+			capacity <<= 1;
+		this.slots = new int[capacity];
+	}
+
+	/**
+	 * Gets the number of elements.
+	 * @return the number of elements.
+	 */
+	public int size() {
+		return containsZero ? count + 1 : count;
+	}
+
+	/**
+	 * Tells whether the set is empty.
+	 * @return true if the set is empty.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Tells whether an element is in the set.
+	 * @param value element.
+	 * @return true if the element is in the set.
+	 */
+	public boolean contains(int value) {
+		if(value == FREE)
+			return containsZero;
+		int mask = slots.length - 1;
+		for(int slot = hash(value) & mask; slots[slot] != FREE; slot = (slot + 1) & mask)
+			if(slots[slot] == value)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Adds an element.
+	 * @param value element.
+	 * @return true if the element was not in the set.
+	 */
+	public boolean add(int value) {
+		if(value == FREE) {
+			boolean added = !containsZero;
+			containsZero = true;
+			return added;
+		}
+		int mask = slots.length - 1;
+		int slot = hash(value) & mask;
+		for(; slots[slot] != FREE; slot = (slot + 1) & mask)
+			if(slots[slot] == value)
+				return false;
+		slots[slot] = value;
+		if(++count > slots.length * 3 / 4)
+			rehash(slots.length << 1);
+		return true;
+	}
+
+	/**
+	 * Removes an element.
+	 * @param value element.
+	 * @return true if the element was in the set.
+	 */
+	public boolean remove(int value) {
+		if(value == FREE) {
+			boolean removed = containsZero;
+			containsZero = false;
+			return removed;
+		}
+		int mask = slots.length - 1;
+		int slot = hash(value) & mask;
+		for(; slots[slot] != value; slot = (slot + 1) & mask)
+			if(slots[slot] == FREE)
+				return false;
+
+		// Shifting back the following elements of the cluster.
+		int gap = slot;
+		for(int next = (gap + 1) & mask; slots[next] != FREE; next = (next + 1) & mask) {
+			int home = hash(slots[next]) & mask;
+			if(((next - home) & mask) >= ((next - gap) & mask)) {
+				slots[gap] = slots[next];
+				gap = next;
+			}
+		}
+		slots[gap] = FREE;
+		count--;
+		return true;
+	}
+
+	/**
+	 * Removes all the elements.
+	 */
+	public void clear() {
+		Arrays.fill(slots, FREE);
+		containsZero = false;
+		count = 0;
+	}
+
+	/**
+	 * Calls a function for each element, in no particular order.
+	 * @param action function.
+	 */
+	public void forEach(IntConsumer action) {
+		if(containsZero)
+			action.accept(0);
+		for(int value : slots)
+			if(value != FREE)
+				action.accept(value);
+	}
+
+	/**
+	 * Copies the elements in an array.
+	 * @return the elements, in no particular order.
+	 */
+	public int[] toArray() {
+		int[] result = new int[size()];
+		int i = 0;
+		if(containsZero)
+			result[i++] = 0;
+		for(int value : slots)
+			if(value != FREE)
+				result[i++] = value;
+		return result;
+	}
+
+	/**
+	 * Resizes the table.
+	 * @param capacity new number of slots (power of two).
+	 */
+	private void rehash(int capacity) {
+		int[] previous = slots;
+		slots = new int[capacity];
+		int mask = capacity - 1;
+		for(int value : previous) {
+			if(value == FREE)
+				continue;
+			int slot = hash(value) & mask;
+			while(slots[slot] != FREE)
+				slot = (slot + 1) & mask;
+			slots[slot] = value;
+		}
+	}
+
+	/**
+	 * Mixes the bits of an element.
+	 * @param value element.
+	 * @return its hash.
+	 */
+	private static int hash(int value) {
+		int h = value * 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+}
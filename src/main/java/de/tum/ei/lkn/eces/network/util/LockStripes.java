@@ -0,0 +1,123 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed number of locks to which objects are mapped by their identifiers.
+ *
+ * The stripes of a set of objects are given sorted and without duplicates,
+ * so that locking them in this order never deadlocks with other threads
+ * doing the same.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class LockStripes {
+	/**
+	 * Locks.
+	 */
+	private final ReentrantLock[] locks;
+
+	/**
+	 * Creates lock stripes.
+	 * @param count number of stripes (power of two).
+	 * @throws IllegalArgumentException if the number is not a power of two.
+	 */
+	public LockStripes(int count) {
+		checkCount(count);
+		this.locks = new ReentrantLock[count];
+		for(int i = 0; i < count; i++)
+			locks[i] = new ReentrantLock();
+	}
+
+	/**
+	 * Gets the stripe of an identifier.
+	 * @param id identifier.
+	 * @return the stripe.
+	 */
+	public int getStripe(long id) {
+		return getStripe(id, locks.length);
+	}
+
+	/**
+	 * Gets the stripes of identifiers.
+	 * @param ids identifiers.
+	 * @return the distinct stripes, in ascending order.
+	 */
+	public int[] getStripes(long[] ids) {
+		return getStripes(ids, locks.length);
+	}
+
+	/**
+	 * Gets the stripe of an identifier among a number of stripes.
+	 * @param id identifier.
+	 * @param count number of stripes (power of two).
+	 * @return the stripe.
+	 */
+	static int getStripe(long id, int count) {
+		long hash = id * 0x9e3779b97f4a7c15L;
+		return (int) (hash >>> 32) & (count - 1);
+	}
+
+	/**
+	 * Gets the stripes of identifiers among a number of stripes.
+	 * @param ids identifiers.
+	 * @param count number of stripes (power of two).
+	 * @return the distinct stripes, in ascending order.
+	 */
+	static int[] getStripes(long[] ids, int count) {
+		int[] stripes = new int[ids.length];
+		for(int i = 0; i < ids.length; i++)
+			stripes[i] = getStripe(ids[i], count);
+		Arrays.sort(stripes);
+		int distinct = 0;
+		for(int i = 0; i < stripes.length; i++)
+			if(i == 0 || stripes[i] != stripes[i - 1])
+				stripes[distinct++] = stripes[i];
+		return Arrays.copyOf(stripes, distinct);
+	}
+
+	/**
+	 * Checks a number of stripes.
+	 * @param count number of stripes.
+	 * @throws IllegalArgumentException if the number is not a power of two.
+	 */
+	static void checkCount(int count) {
+		if(count <= 0 || Integer.bitCount(count) != 1)
+			throw new IllegalArgumentException("The number of stripes must be a power of two (" + count + ")");
+	}
+
+	/**
+	 * Locks stripes.
+	 * @param stripes stripes, in ascending order.
+	 */
+	public void lock(int[] stripes) {
+		for(int stripe : stripes)
+			locks[stripe].lock();
+	}
+
+	/**
+	 * Locks stripes if none of them is locked by another thread.
+	 * @param stripes stripes, in ascending order.
+	 * @return false if a stripe is locked by another thread (no stripe is
+	 *         then locked).
+	 */
+	public boolean tryLock(int[] stripes) {
+		for(int i = 0; i < stripes.length; i++) {
+			if(!locks[stripes[i]].tryLock()) {
+				unlock(Arrays.copyOf(stripes, i));
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Unlocks stripes.
+	 * @param stripes stripes.
+	 */
+	public void unlock(int[] stripes) {
+		for(int i = stripes.length - 1; i >= 0; i--)
+			locks[stripes[i]].unlock();
+	}
+}
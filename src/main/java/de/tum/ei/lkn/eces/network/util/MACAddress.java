@@ -1,10 +1,11 @@
 package de.tum.ei.lkn.eces.network.util;
 
-import java.util.Arrays;
-
 /**
  * The class representing MAC address.
  *
+ * The address is stored in the 48 least significant bits of a long, so that
+ * equals() and hashCode() do not allocate nor iterate over bytes.
+ *
  * @author Sho Shimizu (from net.floodlightcontroller.util.MACAddress)
  * @author Jochen Guck
  * @author Amaury Van Bemten
@@ -15,6 +16,21 @@ public class MACAddress extends Address {
 	 */
 	final static protected int MAC_ADDRESS_LENGTH = 6;
 
+	/**
+	 * Mask of the bits of a long used by a MAC address.
+	 */
+	final static private long MAC_ADDRESS_MASK = 0xffffffffffffL;
+
+	/**
+	 * Upper-case hexadecimal digits.
+	 */
+	final static private char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * The address in the 48 least significant bits.
+	 */
+	private final long value;
+
 	/**
 	 * Creates a MACAddress from a byte array.
 	 * @param address byte array representing the address to be created.
@@ -25,7 +41,18 @@ public class MACAddress extends Address {
 		if(address.length != MAC_ADDRESS_LENGTH)
 			throw new IllegalArgumentException("The byte array size does not correspond to a MAC address");
 
-		this.address = Arrays.copyOf(address, MAC_ADDRESS_LENGTH);
+		long value = 0;
+		for(byte b : address)
+			value = (value << 8) | (b & 0xff);
+		this.value = value;
+	}
+
+	/**
+	 * Creates a MACAddress from its 48-bit value.
+	 * @param value the address in the 48 least significant bits.
+	 */
+	private MACAddress(long value) {
+		this.value = value;
 	}
 
 	/**
@@ -38,17 +65,11 @@ public class MACAddress extends Address {
 	 *         MAC address.
 	 */
 	public static MACAddress valueOf(String address) {
-		String[] elements = address.split(":");
-		if(elements.length != MAC_ADDRESS_LENGTH)
+		long value = AddressParser.parseMAC(address);
+		if(value < 0)
 			throw new IllegalArgumentException("Specified MAC Address must contain 12 hex digits separated pairwise by colons.");
 
-		byte[] addressInBytes = new byte[MAC_ADDRESS_LENGTH];
-		for(int i = 0; i < MAC_ADDRESS_LENGTH; i++) {
-			String element = elements[i];
-			addressInBytes[i] = (byte) Integer.parseInt(element, 16);
-		}
-
-		return new MACAddress(addressInBytes);
+		return new MACAddress(value);
 	}
 
 	/**
@@ -65,16 +86,46 @@ public class MACAddress extends Address {
 		return new MACAddress(address);
 	}
 
+	/**
+	 * Returns a MAC address instance representing the specified value.
+	 * @param value the address in the 48 least significant bits.
+	 * @return a MAC address instance representing the specified value.
+	 * @throws IllegalArgumentException if the value has more than 48 bits.
+	 */
+	public static MACAddress valueOf(long value) {
+		if((value & ~MAC_ADDRESS_MASK) != 0)
+			throw new IllegalArgumentException("The given value does not represent a MAC address");
+
+		return new MACAddress(value);
+	}
+
+	/**
+	 * Returns the value of the MAC address.
+	 * @return the address in the 48 least significant bits.
+	 */
+	public long toLong() {
+		return value;
+	}
+
+	@Override
+	public int getLength() {
+		return MAC_ADDRESS_LENGTH;
+	}
+
+	@Override
+	public byte[] toBytes() {
+		byte[] bytes = new byte[MAC_ADDRESS_LENGTH];
+		for(int i = 0; i < MAC_ADDRESS_LENGTH; i++)
+			bytes[i] = (byte) (value >>> (8 * (MAC_ADDRESS_LENGTH - 1 - i)));
+		return bytes;
+	}
+
 	/**
 	 * Tells if the MAC address is the broadcast address or not.
 	 * @return true if the MAC address is the broadcast address.
 	 */
 	public boolean isBroadcast() {
-		for(byte b : address)
-			if(b != -1) // checks if equal to 0xff
-				return false;
-
-		return true;
+		return value == MAC_ADDRESS_MASK;
 	}
 
 	/**
@@ -85,19 +136,36 @@ public class MACAddress extends Address {
 		if(isBroadcast()) {
 			return false;
 		}
-		return (address[0] & 0x01) != 0;
+		return (value & (1L << 40)) != 0;
 	}
 
 	@Override
-	public String toString() {
-		StringBuilder builder = new StringBuilder();
-		for(byte b: address) {
-			if(builder.length() > 0)
-				builder.append(":");
+	public boolean equals(Object o) {
+		if(o == this)
+			return true;
+
+		if(!(o instanceof MACAddress))
+			return false;
 
-			builder.append(String.format("%02X", b & 0xFF));
+		return value == ((MACAddress) o).value;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) ((value * 0x9E3779B97F4A7C15L) >>> 32);
+	}
+
+	@Override
+	public String toString() {
+		char[] chars = new char[3 * MAC_ADDRESS_LENGTH - 1];
+		for(int i = 0; i < MAC_ADDRESS_LENGTH; i++) {
+			int b = (int) (value >>> (8 * (MAC_ADDRESS_LENGTH - 1 - i))) & 0xff;
+			if(i > 0)
+				chars[3 * i - 1] = ':';
+			chars[3 * i] = HEX_DIGITS[b >>> 4];
+			chars[3 * i + 1] = HEX_DIGITS[b & 0x0f];
 		}
 
-		return builder.toString();
+		return new String(chars);
 	}
 }
\ No newline at end of file
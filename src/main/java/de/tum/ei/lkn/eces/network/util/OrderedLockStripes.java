@@ -0,0 +1,128 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed number of locks to which objects are mapped by their identifiers
+ * (as in LockStripes), granted in the order of tickets.
+ *
+ * A thread takes a ticket and then locks the stripes it needs with it. The
+ * stripes are locked all at once, once no other ticket holds any of them and
+ * no smaller ticket waits for any of them. Requests needing a common stripe
+ * are hence granted in the order of their tickets, whatever the order in
+ * which their threads are scheduled, while requests on disjoint stripes
+ * proceed in parallel. Since a waiting thread holds no stripe, this never
+ * deadlocks.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class OrderedLockStripes {
+	/**
+	 * Number of stripes.
+	 */
+	private final int count;
+
+	/**
+	 * Ticket holding each stripe (-1 if none).
+	 */
+	private final long[] owners;
+
+	/**
+	 * Tickets waiting for each stripe (created on first use).
+	 */
+	private final PriorityQueue<Long>[] waiting;
+
+	/**
+	 * Next ticket.
+	 */
+	private final AtomicLong nextTicket = new AtomicLong();
+
+	/**
+	 * Creates ordered lock stripes.
+	 * @param count number of stripes (power of two).
+	 * @throws IllegalArgumentException if the number is not a power of two.
+	 */
+	@SuppressWarnings("unchecked")
+	public OrderedLockStripes(int count) {
+		LockStripes.checkCount(count);
+		this.count = count;
+		this.owners = new long[count];
+		this.waiting = new PriorityQueue[count];
+		for(int i = 0; i < count; i++)
+			owners[i] = -1;
+	}
+
+	/**
+	 * Takes a new ticket. Tickets are taken in ascending order.
+	 * @return the ticket.
+	 */
+	public long nextTicket() {
+		return nextTicket.getAndIncrement();
+	}
+
+	/**
+	 * Gets the stripes of identifiers.
+	 * @param ids identifiers.
+	 * @return the distinct stripes, in ascending order.
+	 */
+	public int[] getStripes(long[] ids) {
+		return LockStripes.getStripes(ids, count);
+	}
+
+	/**
+	 * Locks stripes with a ticket, once no other ticket holds them and no
+	 * smaller ticket waits for them.
+	 * @param ticket ticket (see nextTicket()).
+	 * @param stripes distinct stripes.
+	 */
+	public synchronized void lock(long ticket, int[] stripes) {
+		for(int stripe : stripes) {
+			if(waiting[stripe] == null)
+				waiting[stripe] = new PriorityQueue<>();
+			waiting[stripe].add(ticket);
+		}
+
+		boolean interrupted = false;
+		while(!isGranted(ticket, stripes)) {
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+
+		for(int stripe : stripes) {
+			waiting[stripe].poll();
+			owners[stripe] = ticket;
+		}
+		// The next smallest tickets may now be granted other stripes.
+		notifyAll();
+	}
+
+	/**
+	 * Unlocks stripes locked with lock().
+	 * @param stripes stripes.
+	 */
+	public synchronized void unlock(int[] stripes) {
+		for(int stripe : stripes)
+			owners[stripe] = -1;
+		notifyAll();
+	}
+
+	/**
+	 * Tells whether a ticket can lock stripes: they are not held and the
+	 * ticket is the smallest one waiting for them.
+	 * @param ticket ticket.
+	 * @param stripes stripes.
+	 * @return true if the stripes can be locked.
+	 */
+	private boolean isGranted(long ticket, int[] stripes) {
+		for(int stripe : stripes)
+			if(owners[stripe] != -1 || waiting[stripe].peek() != ticket)
+				return false;
+		return true;
+	}
+}
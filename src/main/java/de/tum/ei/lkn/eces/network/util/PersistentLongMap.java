@@ -0,0 +1,320 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Immutable map from longs to objects stored in a hash array mapped trie.
+ *
+ * Updates return a new map sharing all the unchanged parts of the trie with
+ * the original one: an update only copies the O(log(n)) nodes on the path to
+ * the modified key, so that many versions of a large map can be kept at a
+ * small cost.
+ *
+ * The keys are mixed with a bijective function, so that different keys
+ * always have different hashes and the trie never needs collision lists.
+ *
+ * @author Amaury Van Bemten
+ */
+public final class PersistentLongMap<V> {
+	/**
+	 * Number of hash bits consumed per level of the trie.
+	 */
+	private static final int BITS_PER_LEVEL = 6;
+
+	/**
+	 * Empty map.
+	 */
+	private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(new TrieNode(0, new Object[0]), 0);
+
+	/**
+	 * Root of the trie.
+	 */
+	private final TrieNode root;
+
+	/**
+	 * Number of entries.
+	 */
+	private final int size;
+
+	private PersistentLongMap(TrieNode root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the empty map.
+	 * @param <V> type of the values.
+	 * @return the empty map.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V> PersistentLongMap<V> empty() {
+		return (PersistentLongMap<V>) EMPTY;
+	}
+
+	/**
+	 * Gets the number of entries.
+	 * @return the number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tells whether the map is empty.
+	 * @return true if the map is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the value of a key.
+	 * @param key key.
+	 * @return the value or null if the key is not in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		long hash = hash(key);
+		TrieNode node = root;
+		for(int shift = 0; ; shift += BITS_PER_LEVEL) {
+			long bit = 1L << ((hash >>> shift) & 63);
+			if((node.bitmap & bit) == 0)
+				return null;
+			Object slot = node.slots[Long.bitCount(node.bitmap & (bit - 1))];
+			if(slot instanceof TrieNode) {
+				node = (TrieNode) slot;
+			}
+			else {
+				Leaf leaf = (Leaf) slot;
+				return leaf.key == key ? (V) leaf.value : null;
+			}
+		}
+	}
+
+	/**
+	 * Tells whether a key is in the map.
+	 * @param key key.
+	 * @return true if the key is in the map.
+	 */
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Gets a map with an additional or updated entry.
+	 * @param key key.
+	 * @param value value (not null).
+	 * @return the new map (this map if the key already has this value).
+	 * @throws IllegalArgumentException if the value is null.
+	 */
+	public PersistentLongMap<V> with(long key, V value) {
+		if(value == null)
+			throw new IllegalArgumentException("Null values are not allowed");
+		boolean[] added = new boolean[1];
+		TrieNode newRoot = with(root, new Leaf(key, hash(key), value), 0, added);
+		if(newRoot == root)
+			return this;
+		return new PersistentLongMap<>(newRoot, added[0] ? size + 1 : size);
+	}
+
+	/**
+	 * Gets a map without an entry.
+	 * @param key key.
+	 * @return the new map (this map if the key is not in the map).
+	 */
+	public PersistentLongMap<V> without(long key) {
+		TrieNode newRoot = without(root, key, hash(key), 0);
+		if(newRoot == root)
+			return this;
+		return new PersistentLongMap<>(newRoot == null ? new TrieNode(0, new Object[0]) : newRoot, size - 1);
+	}
+
+	/**
+	 * Calls a function for each value, in no particular order.
+	 * @param action function.
+	 */
+	public void forEachValue(Consumer<? super V> action) {
+		forEachValue(root, action);
+	}
+
+	/**
+	 * Calls a function for each value of a sub-trie.
+	 * @param node root of the sub-trie.
+	 * @param action function.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <V> void forEachValue(TrieNode node, Consumer<? super V> action) {
+		for(Object slot : node.slots) {
+			if(slot instanceof TrieNode)
+				forEachValue((TrieNode) slot, action);
+			else
+				action.accept((V) ((Leaf) slot).value);
+		}
+	}
+
+	/**
+	 * Adds or replaces a leaf in a sub-trie.
+	 * @param node root of the sub-trie.
+	 * @param leaf leaf.
+	 * @param shift number of hash bits consumed by the parents.
+	 * @param added set to true if the key was not in the sub-trie.
+	 * @return the new root of the sub-trie (node if nothing changed).
+	 */
+	private static TrieNode with(TrieNode node, Leaf leaf, int shift, boolean[] added) {
+		long bit = 1L << ((leaf.hash >>> shift) & 63);
+		int index = Long.bitCount(node.bitmap & (bit - 1));
+		if((node.bitmap & bit) == 0) {
+			added[0] = true;
+			Object[] slots = new Object[node.slots.length + 1];
+			System.arraycopy(node.slots, 0, slots, 0, index);
+			slots[index] = leaf;
+			System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+			return new TrieNode(node.bitmap | bit, slots);
+		}
+
+		Object slot = node.slots[index];
+		Object replacement;
+		if(slot instanceof TrieNode) {
+			replacement = with((TrieNode) slot, leaf, shift + BITS_PER_LEVEL, added);
+		}
+		else {
+			Leaf existing = (Leaf) slot;
+			if(existing.key == leaf.key) {
+				if(existing.value == leaf.value)
+					return node;
+				replacement = leaf;
+			}
+			else {
+				added[0] = true;
+				replacement = merge(existing, leaf, shift + BITS_PER_LEVEL);
+			}
+		}
+		if(replacement == slot)
+			return node;
+		Object[] slots = node.slots.clone();
+		slots[index] = replacement;
+		return new TrieNode(node.bitmap, slots);
+	}
+
+	/**
+	 * Creates the sub-trie containing two leaves with different hashes.
+	 * @param first first leaf.
+	 * @param second second leaf.
+	 * @param shift number of hash bits consumed by the parents.
+	 * @return the sub-trie.
+	 */
+	private static TrieNode merge(Leaf first, Leaf second, int shift) {
+		int firstIndex = (int) ((first.hash >>> shift) & 63);
+		int secondIndex = (int) ((second.hash >>> shift) & 63);
+		if(firstIndex == secondIndex)
+			return new TrieNode(1L << firstIndex, new Object[]{merge(first, second, shift + BITS_PER_LEVEL)});
+		Object[] slots = firstIndex < secondIndex ? new Object[]{first, second} : new Object[]{second, first};
+		return new TrieNode((1L << firstIndex) | (1L << secondIndex), slots);
+	}
+
+	/**
+	 * Removes a key from a sub-trie.
+	 * @param node root of the sub-trie.
+	 * @param key key.
+	 * @param hash hash of the key.
+	 * @param shift number of hash bits consumed by the parents.
+	 * @return the new root of the sub-trie (node if the key is not in the
+	 *         sub-trie, null if the sub-trie becomes empty).
+	 */
+	private static TrieNode without(TrieNode node, long key, long hash, int shift) {
+		long bit = 1L << ((hash >>> shift) & 63);
+		if((node.bitmap & bit) == 0)
+			return node;
+		int index = Long.bitCount(node.bitmap & (bit - 1));
+		Object slot = node.slots[index];
+		Object replacement;
+		if(slot instanceof TrieNode) {
+			TrieNode child = without((TrieNode) slot, key, hash, shift + BITS_PER_LEVEL);
+			if(child == slot)
+				return node;
+			// A child reduced to a single leaf is pulled up.
+			if(child != null && child.slots.length == 1 && child.slots[0] instanceof Leaf)
+				replacement = child.slots[0];
+			else
+				replacement = child;
+		}
+		else {
+			if(((Leaf) slot).key != key)
+				return node;
+			replacement = null;
+		}
+
+		if(replacement != null) {
+			Object[] slots = node.slots.clone();
+			slots[index] = replacement;
+			return new TrieNode(node.bitmap, slots);
+		}
+		if(node.slots.length == 1)
+			return null;
+		Object[] slots = new Object[node.slots.length - 1];
+		System.arraycopy(node.slots, 0, slots, 0, index);
+		System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+		return new TrieNode(node.bitmap & ~bit, slots);
+	}
+
+	/**
+	 * Mixes the bits of a key (bijectively).
+	 * @param key key.
+	 * @return its hash.
+	 */
+	private static long hash(long key) {
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Inner node of the trie.
+	 */
+	private static final class TrieNode {
+		/**
+		 * Bitmap of the used slots among the 64 possible ones.
+		 */
+		final long bitmap;
+
+		/**
+		 * Used slots (Leafs or TrieNodes), in the order of the bitmap.
+		 */
+		final Object[] slots;
+
+		TrieNode(long bitmap, Object[] slots) {
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+	}
+
+	/**
+	 * Entry of the map.
+	 */
+	private static final class Leaf {
+		/**
+		 * Key of the entry.
+		 */
+		final long key;
+
+		/**
+		 * Hash of the key.
+		 */
+		final long hash;
+
+		/**
+		 * Value of the entry.
+		 */
+		final Object value;
+
+		Leaf(long key, long hash, Object value) {
+			this.key = key;
+			this.hash = hash;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,381 @@
+package de.tum.ei.lkn.eces.network.util;
+
+/**
+ * Path-compressed binary (Patricia) trie mapping address prefixes to values.
+ *
+ * Keys are prefixes of up to 128 bits stored in two longs (the upper and
+ * lower 64 bits, most significant bit first). IPv4 prefixes are stored in
+ * the upper 32 bits of the upper long. Every internal node without value has
+ * two children, so that a lookup visits at most one node per distinct prefix
+ * length on the path and does not allocate.
+ *
+ * The trie is not synchronized.
+ *
+ * @param <V> type of the values.
+ * @author Amaury Van Bemten
+ */
+public class PrefixTrie<V> {
+	/**
+	 * Visitor of the entries of a trie.
+	 * @param <V> type of the values.
+	 */
+	public interface Visitor<V> {
+		/**
+		 * Visits an entry.
+		 * @param upper upper 64 bits of the prefix.
+		 * @param lower lower 64 bits of the prefix.
+		 * @param length length of the prefix.
+		 * @param value value of the entry.
+		 */
+		void visit(long upper, long lower, int length, V value);
+	}
+
+	/**
+	 * Node of the trie.
+	 * @param <V> type of the values.
+	 */
+	private static final class TrieNode<V> {
+		/**
+		 * Upper 64 bits of the prefix.
+		 */
+		final long upper;
+
+		/**
+		 * Lower 64 bits of the prefix.
+		 */
+		final long lower;
+
+		/**
+		 * Length of the prefix.
+		 */
+		final int length;
+
+		/**
+		 * Value of the prefix (null for internal nodes).
+		 */
+		V value;
+
+		/**
+		 * Children (for a next bit of 0 and 1).
+		 */
+		TrieNode<V> zero, one;
+
+		TrieNode(long upper, long lower, int length, V value) {
+			this.upper = upper;
+			this.lower = lower;
+			this.length = length;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Maximum length of the prefixes (32 for IPv4, 128 for IPv6).
+	 */
+	private final int maxLength;
+
+	/**
+	 * Root of the trie.
+	 */
+	private TrieNode<V> root;
+
+	/**
+	 * Number of entries.
+	 */
+	private int size;
+
+	/**
+	 * Creates an empty trie.
+	 * @param maxLength maximum length of the prefixes (at most 128).
+	 */
+	public PrefixTrie(int maxLength) {
+		if(maxLength < 1 || maxLength > 128)
+			throw new IllegalArgumentException("The maximum prefix length must be between 1 and 128");
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Gets the maximum length of the prefixes.
+	 * @return the maximum length.
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Gets the number of entries.
+	 * @return the number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Associates a value to a prefix. The bits of the key beyond the length
+	 * of the prefix are ignored.
+	 * @param upper upper 64 bits of the prefix.
+	 * @param lower lower 64 bits of the prefix.
+	 * @param length length of the prefix.
+	 * @param value value (not null).
+	 * @return the previous value of the prefix or null if it had none.
+	 */
+	public V put(long upper, long lower, int length, V value) {
+		if(value == null)
+			throw new NullPointerException("Null values are not supported");
+		checkLength(length);
+		upper = mask(upper, length, 0);
+		lower = mask(lower, length, 64);
+
+		TrieNode<V> parent = null;
+		TrieNode<V> node = root;
+		while(node != null) {
+			int common = commonPrefixLength(upper, lower, node.upper, node.lower, Math.min(length, node.length));
+			if(common < node.length) {
+				// The new prefix diverges from (or is a prefix of) the node.
+				TrieNode<V> inserted;
+				if(common == length) {
+					inserted = new TrieNode<>(upper, lower, length, value);
+					setChild(inserted, node, bit(node.upper, node.lower, length));
+				} else {
+					inserted = new TrieNode<>(mask(upper, common, 0), mask(lower, common, 64), common, null);
+					setChild(inserted, node, bit(node.upper, node.lower, common));
+					setChild(inserted, new TrieNode<>(upper, lower, length, value), bit(upper, lower, common));
+				}
+				replace(parent, node, inserted);
+				size++;
+				return null;
+			}
+
+			if(length == node.length) {
+				V old = node.value;
+				node.value = value;
+				if(old == null)
+					size++;
+				return old;
+			}
+
+			parent = node;
+			node = bit(upper, lower, node.length) == 0 ? node.zero : node.one;
+		}
+
+		TrieNode<V> leaf = new TrieNode<>(upper, lower, length, value);
+		if(parent == null)
+			root = leaf;
+		else
+			setChild(parent, leaf, bit(upper, lower, parent.length));
+		size++;
+		return null;
+	}
+
+	/**
+	 * Removes a prefix.
+	 * @param upper upper 64 bits of the prefix.
+	 * @param lower lower 64 bits of the prefix.
+	 * @param length length of the prefix.
+	 * @return the value of the prefix or null if it had none.
+	 */
+	public V remove(long upper, long lower, int length) {
+		checkLength(length);
+		upper = mask(upper, length, 0);
+		lower = mask(lower, length, 64);
+
+		TrieNode<V> grandParent = null;
+		TrieNode<V> parent = null;
+		TrieNode<V> node = root;
+		while(node != null && node.length <= length) {
+			if(commonPrefixLength(upper, lower, node.upper, node.lower, node.length) < node.length)
+				return null;
+			if(node.length == length)
+				break;
+			grandParent = parent;
+			parent = node;
+			node = bit(upper, lower, node.length) == 0 ? node.zero : node.one;
+		}
+		if(node == null || node.length != length || node.value == null)
+			return null;
+
+		V old = node.value;
+		node.value = null;
+		size--;
+
+		// Compacting the trie.
+		if(node.zero != null && node.one != null)
+			return old;
+		TrieNode<V> child = node.zero != null ? node.zero : node.one;
+		replace(parent, node, child);
+		if(child == null && parent != null && parent.value == null)
+			replace(grandParent, parent, parent.zero != null ? parent.zero : parent.one);
+		return old;
+	}
+
+	/**
+	 * Gets the value of a prefix (exact match).
+	 * @param upper upper 64 bits of the prefix.
+	 * @param lower lower 64 bits of the prefix.
+	 * @param length length of the prefix.
+	 * @return the value or null if the prefix is not in the trie.
+	 */
+	public V get(long upper, long lower, int length) {
+		checkLength(length);
+		TrieNode<V> node = root;
+		while(node != null && node.length <= length) {
+			if(commonPrefixLength(upper, lower, node.upper, node.lower, node.length) < node.length)
+				return null;
+			if(node.length == length)
+				return node.value;
+			node = bit(upper, lower, node.length) == 0 ? node.zero : node.one;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the value of the longest prefix containing an address.
+	 * @param upper upper 64 bits of the address.
+	 * @param lower lower 64 bits of the address.
+	 * @return the value or null if no prefix contains the address.
+	 */
+	public V getLongestPrefixMatch(long upper, long lower) {
+		V match = null;
+		TrieNode<V> node = root;
+		while(node != null) {
+			if(commonPrefixLength(upper, lower, node.upper, node.lower, node.length) < node.length)
+				break;
+			if(node.value != null)
+				match = node.value;
+			if(node.length == maxLength)
+				break;
+			node = bit(upper, lower, node.length) == 0 ? node.zero : node.one;
+		}
+		return match;
+	}
+
+	/**
+	 * Visits all the entries contained in a prefix (including the prefix
+	 * itself), in increasing address order.
+	 * @param upper upper 64 bits of the prefix.
+	 * @param lower lower 64 bits of the prefix.
+	 * @param length length of the prefix.
+	 * @param visitor visitor (null to only count the entries).
+	 * @return the number of visited entries.
+	 */
+	public int forEachInPrefix(long upper, long lower, int length, Visitor<? super V> visitor) {
+		checkLength(length);
+		TrieNode<V> node = root;
+		while(node != null && node.length < length) {
+			if(commonPrefixLength(upper, lower, node.upper, node.lower, node.length) < node.length)
+				return 0;
+			node = bit(upper, lower, node.length) == 0 ? node.zero : node.one;
+		}
+		if(node == null || commonPrefixLength(upper, lower, node.upper, node.lower, length) < length)
+			return 0;
+		return visit(node, visitor);
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		root = null;
+		size = 0;
+	}
+
+	/**
+	 * Visits a subtree in order.
+	 * @param node root of the subtree.
+	 * @param visitor visitor (possibly null).
+	 * @return the number of visited entries.
+	 */
+	private int visit(TrieNode<V> node, Visitor<? super V> visitor) {
+		int count = 0;
+		if(node.value != null) {
+			if(visitor != null)
+				visitor.visit(node.upper, node.lower, node.length, node.value);
+			count++;
+		}
+		if(node.zero != null)
+			count += visit(node.zero, visitor);
+		if(node.one != null)
+			count += visit(node.one, visitor);
+		return count;
+	}
+
+	/**
+	 * Replaces a node by another one (or by nothing) in its parent.
+	 * @param parent parent (null for the root).
+	 * @param node replaced node.
+	 * @param replacement new node (possibly null).
+	 */
+	private void replace(TrieNode<V> parent, TrieNode<V> node, TrieNode<V> replacement) {
+		if(parent == null)
+			root = replacement;
+		else if(parent.zero == node)
+			parent.zero = replacement;
+		else
+			parent.one = replacement;
+	}
+
+	/**
+	 * Sets a child of a node.
+	 * @param parent node.
+	 * @param child child.
+	 * @param bit 0 or 1.
+	 */
+	private static <V> void setChild(TrieNode<V> parent, TrieNode<V> child, int bit) {
+		if(bit == 0)
+			parent.zero = child;
+		else
+			parent.one = child;
+	}
+
+	/**
+	 * Checks the length of a prefix.
+	 * @param length length.
+	 */
+	private void checkLength(int length) {
+		if(length < 0 || length > maxLength)
+			throw new IllegalArgumentException("Invalid prefix length: " + length);
+	}
+
+	/**
+	 * Gets a bit of a key.
+	 * @param upper upper 64 bits of the key.
+	 * @param lower lower 64 bits of the key.
+	 * @param index index of the bit (0 being the most significant).
+	 * @return the bit.
+	 */
+	private static int bit(long upper, long lower, int index) {
+		if(index < 64)
+			return (int) (upper >>> (63 - index)) & 1;
+		return (int) (lower >>> (127 - index)) & 1;
+	}
+
+	/**
+	 * Keeps the bits of a half of a key which are part of a prefix.
+	 * @param half upper or lower 64 bits of the key.
+	 * @param length length of the prefix.
+	 * @param offset index of the first bit of the half (0 or 64).
+	 * @return the masked half.
+	 */
+	private static long mask(long half, int length, int offset) {
+		int bits = length - offset;
+		if(bits <= 0)
+			return 0;
+		if(bits >= 64)
+			return half;
+		return half & (-1L << (64 - bits));
+	}
+
+	/**
+	 * Gets the length of the common prefix of two keys.
+	 * @param upper1 upper 64 bits of the first key.
+	 * @param lower1 lower 64 bits of the first key.
+	 * @param upper2 upper 64 bits of the second key.
+	 * @param lower2 lower 64 bits of the second key.
+	 * @param limit maximum length.
+	 * @return the length of the common prefix, at most limit.
+	 */
+	private static int commonPrefixLength(long upper1, long lower1, long upper2, long lower2, int limit) {
+		long diff = upper1 ^ upper2;
+		int common = diff != 0 ? Long.numberOfLeadingZeros(diff) : 64 + Long.numberOfLeadingZeros(lower1 ^ lower2);
+		return Math.min(common, limit);
+	}
+}
@@ -0,0 +1,58 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.generators.LeafSpineGenerator;
+import de.tum.ei.lkn.eces.network.mappers.NetworkMapper;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Duration of the deletion of a leaf-spine Network (32 leaves, 8 spines and
+ * 16 Hosts per leaf) with deleteNetwork() and bulkDeleteNetwork().
+ *
+ * Not part of the test suite, run with:
+ * mvn test -Dtest=DeleteNetworkBenchmark
+ *
+ * @author Amaury Van Bemten
+ */
+public class DeleteNetworkBenchmark {
+	/**
+	 * Number of measured deletions of each kind.
+	 */
+	private static final int RUNS = 5;
+
+	@Test
+	public void benchmarkDeletion() {
+		for(boolean bulk : new boolean[]{false, true}) {
+			// Warm-up run.
+			run(bulk);
+			double total = 0;
+			for(int i = 0; i < RUNS; i++)
+				total += run(bulk);
+			System.out.printf("%s: %.1f ms%n", bulk ? "bulkDeleteNetwork()" : "deleteNetwork()", total / RUNS);
+		}
+	}
+
+	/**
+	 * Deletes a new Network.
+	 * @param bulk whether bulkDeleteNetwork() is used.
+	 * @return the duration of the deletion, in ms.
+	 */
+	private static double run(boolean bulk) {
+		Controller controller = new Controller();
+		NetworkingSystem networkingSystem = new NetworkingSystem(controller);
+		Network network = networkingSystem.createNetwork();
+		new LeafSpineGenerator(networkingSystem, 32, 8, 16).generate(network);
+
+		long start = System.nanoTime();
+		if(bulk)
+			networkingSystem.bulkDeleteNetwork(network);
+		else
+			networkingSystem.deleteNetwork(network);
+		double milliseconds = (System.nanoTime() - start) / 1e6;
+
+		assertFalse(new NetworkMapper(controller).isIn(network.getEntity()));
+		return milliseconds;
+	}
+}
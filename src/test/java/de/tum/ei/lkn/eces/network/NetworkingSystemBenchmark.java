@@ -0,0 +1,66 @@
+package de.tum.ei.lkn.eces.network;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throughput of the creation of disjoint Links, in Links per second, with 1
+ * to 32 threads, with and without striped locking.
+ *
+ * Not part of the test suite, run with:
+ * mvn test -Dtest=NetworkingSystemBenchmark
+ *
+ * @author Amaury Van Bemten
+ */
+public class NetworkingSystemBenchmark {
+	/**
+	 * Number of Links, split among the threads.
+	 */
+	private static final int LINKS = 3200;
+
+	@Test
+	public void benchmarkLinkCreation() throws InterruptedException {
+		for(boolean striped : new boolean[]{false, true}) {
+			for(int threads : new int[]{1, 2, 4, 8, 16, 32}) {
+				// Warm-up run.
+				run(threads, striped);
+				System.out.printf("Link creation with %d thread(s)%s: %.0f links/s%n", threads, striped ? " and striped locking" : "", run(threads, striped));
+			}
+		}
+	}
+
+	/**
+	 * Creates Links between new Nodes with a number of threads in a new
+	 * Network.
+	 * @param threads number of threads.
+	 * @param striped whether striped locking is enabled.
+	 * @return the created Links per second.
+	 */
+	private static double run(int threads, boolean striped) throws InterruptedException {
+		NetworkingSystem networkingSystem = new NetworkingSystem(new Controller());
+		Network network = networkingSystem.createNetwork();
+		if(striped)
+			networkingSystem.enableStripedLocking(network);
+
+		Thread[] workers = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				for(int i = 0; i < LINKS / threads; i++)
+					networkingSystem.createLink(networkingSystem.createNode(network), networkingSystem.createNode(network), 1e6, 0.001, 1000);
+			});
+		}
+
+		long start = System.nanoTime();
+		for(Thread worker : workers)
+			worker.start();
+		for(Thread worker : workers)
+			worker.join();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		int links = network.getLinkGraph().getEdges().size();
+		assertEquals(threads * (LINKS / threads), links);
+		return links / seconds;
+	}
+}
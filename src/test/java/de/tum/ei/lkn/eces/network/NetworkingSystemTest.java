@@ -8,6 +8,9 @@ import de.tum.ei.lkn.eces.graph.GraphSystem;
 import de.tum.ei.lkn.eces.graph.Node;
 import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
 import de.tum.ei.lkn.eces.network.mappers.*;
+import de.tum.ei.lkn.eces.network.util.AddressPool;
+import de.tum.ei.lkn.eces.network.util.IPAddress;
+import de.tum.ei.lkn.eces.network.util.IPv4Address;
 import de.tum.ei.lkn.eces.network.util.NetworkInterface;
 import org.jscience.physics.amount.Amount;
 import org.junit.Before;
@@ -16,6 +19,9 @@ import org.junit.Test;
 import javax.measure.quantity.DataAmount;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static javax.measure.unit.NonSI.BYTE;
 import static javax.measure.unit.SI.SECOND;
@@ -128,6 +134,153 @@ public class NetworkingSystemTest {
 		countTestSystem.checkIfEmpty();
 	}
 
+	@Test
+	public void testBulkDeleteNetwork() {
+		Network network = networkingSystem.createNetwork();
+
+		// Create a star topology with a host.
+		NetworkNode n = networkingSystem.createNode(network);
+		List<Link> links = new ArrayList<>();
+		List<NetworkNode> nodes = new ArrayList<>();
+		nodes.add(n);
+		for(int i = 0; i < 10; i++) {
+			nodes.add(networkingSystem.createNode(network));
+			links.add(networkingSystem.createLink(nodes.get(i + 1), n, 1000, 0.01, 60000));
+			links.add(networkingSystem.createLinkWithPriorityScheduling(n, nodes.get(i + 1), 1000, 0.01, new double[]{1000, 2000}));
+		}
+		Host h = networkingSystem.createHost(network, "Test");
+		nodes.add(networkingSystem.addInterface(h, new NetworkInterface("eth0","00:00:00:00:00:01","125.2.2.1")));
+		links.add(networkingSystem.createLink(nodes.get(nodes.size() - 1), n, 1000, 0.01, 60000));
+		links.add(networkingSystem.createLink(n, nodes.get(nodes.size() - 1), 1000, 0.01, 60000));
+
+		networkingSystem.bulkDeleteNetwork(network);
+
+		NetworkMapper networkMapper = new NetworkMapper(controller);
+		NetworkNodeMapper networkNodeMapper = new NetworkNodeMapper(controller);
+		LinkMapper linkMapper = new LinkMapper(controller);
+		HostMapper hostMapper = new HostMapper(controller);
+		ToNetworkMapper toNetworkMapper = new ToNetworkMapper(controller);
+		RateMapper rateMapper = new RateMapper(controller);
+		QueueMapper queueMapper = new QueueMapper(controller);
+		assertFalse(networkMapper.isIn(network.getEntity()));
+		assertFalse(hostMapper.isIn(h.getEntity()));
+		for(NetworkNode node : nodes) {
+			assertFalse(networkNodeMapper.isIn(node.getEntity()));
+			assertFalse(toNetworkMapper.isIn(node.getLinkNode().getEntity()));
+			assertFalse(toNetworkMapper.isIn(node.getQueueNode().getEntity()));
+		}
+		for(Link link : links) {
+			assertFalse(linkMapper.isIn(link.getEntity()));
+			assertFalse(rateMapper.isIn(link.getLinkEdge().getEntity()));
+			assertFalse(toNetworkMapper.isIn(link.getLinkEdge().getEntity()));
+			for(Edge edge : link.getQueueEdges())
+				assertFalse(queueMapper.isIn(edge.getEntity()));
+		}
+	}
+
+	@Test
+	public void testLazyQueueGraph() {
+		Network network = networkingSystem.createNetwork(true);
+		assertTrue(network.hasLazyQueueGraph());
+		assertFalse(network.isQueueGraphMaterialized());
+
+		NetworkNode n1 = networkingSystem.createNode(network, "n1");
+		NetworkNode n2 = networkingSystem.createNode(network, "n2");
+		NetworkNode n3 = networkingSystem.createNode(network, "n3");
+		Link l1 = networkingSystem.createLinkWithPriorityScheduling(n1, n2, 1000, 0.01, new double[]{1000, 2000});
+		Link l2 = networkingSystem.createLink(n2, n3, 1000, 0.01, 1000);
+		Link l3 = networkingSystem.createLink(n3, n1, 1000, 0.01, 1000);
+
+		ToNetworkMapper toNetworkMapper = new ToNetworkMapper(controller);
+		QueueMapper queueMapper = new QueueMapper(controller);
+
+		// Queue-level Edges of a single Link.
+		assertEquals(0, n1.getQueueNode().getOutgoingConnections().size());
+		Edge[] queueEdges = l1.getQueueEdges();
+		assertEquals(2, queueEdges.length);
+		assertSame(queueEdges, l1.getQueueEdges());
+		assertEquals(2, n1.getQueueNode().getOutgoingConnections().size());
+		assertSame(n2.getQueueNode(), queueEdges[0].getDestination());
+		assertSame(l1.getEntity(), toNetworkMapper.get(queueEdges[1].getEntity()).getNetworkEntity());
+		assertTrue(queueMapper.isIn(queueEdges[1].getEntity()));
+		assertFalse(network.isQueueGraphMaterialized());
+
+		// Deleting a Link whose queue-level Edges do not exist.
+		networkingSystem.deleteLink(l3);
+		assertEquals(2, network.getLinkGraph().getEdges().size());
+		assertEquals(0, l3.getQueueEdges().length);
+
+		// A Link accessed while its deletion is deferred gets no queue-level Edges.
+		Link l4 = networkingSystem.createLink(n1, n3, 1000, 0.01, 1000);
+		try(NetworkingSystem.OperationSpace ms = networkingSystem.startOperationSpace()) {
+			networkingSystem.deleteLink(l4);
+			assertEquals(0, l4.getQueueEdges().length);
+		}
+		assertEquals(2, n1.getQueueNode().getOutgoingConnections().size());
+		assertEquals(0, l4.getQueueEdges().length);
+
+		// Whole queue-level Graph.
+		assertEquals(3, network.getQueueGraph().getEdges().size());
+		assertTrue(network.isQueueGraphMaterialized());
+		assertSame(queueEdges, l1.getQueueEdges());
+		assertEquals(1, l2.getQueueEdges().length);
+
+		// Links created afterwards are directly complete.
+		networkingSystem.createLink(n3, n1, 1000, 0.01, 1000);
+		assertEquals(4, network.getQueueGraph().getEdges().size());
+
+		networkingSystem.deleteNetwork(network);
+		assertFalse(new NetworkMapper(controller).isIn(network.getEntity()));
+
+		// Deleting a Network which has never been materialized.
+		network = networkingSystem.createNetwork(true);
+		networkingSystem.createLink(networkingSystem.createNode(network), networkingSystem.createNode(network), 1000, 0.01, 1000);
+		networkingSystem.bulkDeleteNetwork(network);
+		assertFalse(network.isQueueGraphMaterialized());
+	}
+
+	@Test
+	public void testBulkDeleteNetworkInUse() throws InterruptedException {
+		Network network = networkingSystem.createNetwork();
+		networkingSystem.enableStripedLocking(network);
+		NetworkNode n1 = networkingSystem.createNode(network);
+		NetworkNode n2 = networkingSystem.createNode(network);
+
+		// Refused during a transaction.
+		try(NetworkTransaction transaction = networkingSystem.beginTransaction(network)) {
+			networkingSystem.bulkDeleteNetwork(network);
+			fail("Bulk deletion during a transaction");
+		} catch(NetworkException e) {
+			// expected
+		}
+
+		// Refused while nodes are locked, by this thread or another one.
+		AtomicBoolean refused = new AtomicBoolean();
+		Thread deletion = new Thread(() -> {
+			try {
+				networkingSystem.bulkDeleteNetwork(network);
+			} catch(NetworkException e) {
+				refused.set(true);
+			}
+		});
+		try(NetworkingSystem.OperationSpace ms = networkingSystem.startOperationSpace()) {
+			networkingSystem.createLink(n1, n2, 1e6, 0.001, 1000);
+			try {
+				networkingSystem.bulkDeleteNetwork(network);
+				fail("Bulk deletion within an operation");
+			} catch(NetworkException e) {
+				// expected
+			}
+			deletion.start();
+			deletion.join();
+		}
+		assertTrue(refused.get());
+		assertTrue(new NetworkMapper(controller).isIn(network.getEntity()));
+
+		networkingSystem.bulkDeleteNetwork(network);
+		assertFalse(new NetworkMapper(controller).isIn(network.getEntity()));
+	}
+
 	@Test
 	public void testCreateNode() {
 		Network network = networkingSystem.createNetwork();
@@ -715,4 +868,575 @@ public class NetworkingSystemTest {
 		assertFalse(networkingSystem.isAHost(networkingSystem.createNetwork(), networkingSystem.createNode(networkingSystem.createNetwork()).getQueueNode()));
 		assertFalse(networkingSystem.isAHost(networkingSystem.createNetwork(), graphSystem.createNode(graphSystem.createGraph())));
 	}
+
+	@Test
+	public void testLongestPrefixMatch() {
+		Network network = networkingSystem.createNetwork();
+		NetworkNode gateway = networkingSystem.createNode(network, "gateway");
+		Host host = networkingSystem.createHost(network, "h1");
+		NetworkNode ifc = networkingSystem.addInterface(host, new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1"));
+		networkingSystem.addPrefix(network, IPAddress.valueOf("10.0.0.0"), 8, gateway);
+		networkingSystem.addPrefix(network, IPAddress.valueOf("2001:db8::"), 32, gateway);
+
+		assertSame(ifc, network.getLongestPrefixMatch(IPAddress.valueOf("10.0.0.1")));
+		assertSame(gateway, network.getLongestPrefixMatch(IPAddress.valueOf("10.0.0.2")));
+		assertSame(gateway, network.getLongestPrefixMatchIPv4(0x0a010101));
+		assertSame(gateway, network.getLongestPrefixMatch(IPAddress.valueOf("2001:db8::1")));
+		assertNull(network.getLongestPrefixMatch(IPAddress.valueOf("11.0.0.1")));
+		assertEquals(2, network.forEachInPrefix(IPAddress.valueOf("10.0.0.0"), 8, null));
+
+		networkingSystem.deleteInterface(host, host.getInterfaces().iterator().next());
+		assertSame(gateway, network.getLongestPrefixMatch(IPAddress.valueOf("10.0.0.1")));
+		networkingSystem.deletePrefix(network, IPAddress.valueOf("10.0.0.0"), 8);
+		assertNull(network.getLongestPrefixMatch(IPAddress.valueOf("10.0.0.1")));
+	}
+
+	@Test(expected = NetworkException.class)
+	public void testInvalidPrefix() {
+		Network network = networkingSystem.createNetwork();
+		networkingSystem.addPrefix(network, IPAddress.valueOf("10.0.0.0"), 33, networkingSystem.createNode(network));
+	}
+
+	@Test
+	public void testAddressPool() {
+		Network network = networkingSystem.createNetwork();
+		Host host = networkingSystem.createHost(network, "h1");
+		networkingSystem.addInterface(host, new NetworkInterface("eth0", "02:00:00:00:00:01", "10.0.0.1"));
+		networkingSystem.setAddressPool(network, new AddressPool()
+				.addIPv4Block(IPv4Address.valueOf("10.0.0.0"), 29)
+				.setMACRange(0x020000));
+		assertEquals(5, network.getAddressPool().getFreeIPv4Count());
+
+		NetworkNode node = networkingSystem.addInterface(host, "eth1");
+		NetworkInterface ifc = null;
+		for(NetworkInterface candidate : host.getInterfaces())
+			if(candidate.getName().equals("eth1"))
+				ifc = candidate;
+		assertEquals(IPAddress.valueOf("10.0.0.2"), ifc.getIPAddress());
+		assertEquals("02:00:00:00:00:00", ifc.getMACAddress().toString());
+		assertSame(node, network.getLongestPrefixMatch(ifc.getIPAddress()));
+		assertEquals(4, network.getAddressPool().getFreeIPv4Count());
+
+		networkingSystem.deleteInterface(host, ifc);
+		assertEquals(5, network.getAddressPool().getFreeIPv4Count());
+
+		// An interface with a duplicate address does not release it.
+		NetworkInterface duplicate = new NetworkInterface("dup", "02:00:00:00:00:07", "10.0.0.1");
+		try {
+			networkingSystem.addInterface(host, duplicate);
+			fail("Duplicate IP address");
+		} catch(NetworkException e) {
+			// expected
+		}
+		if(host.getInterfaces().contains(duplicate))
+			networkingSystem.deleteInterface(host, duplicate);
+		assertEquals(5, network.getAddressPool().getFreeIPv4Count());
+
+		// A failed addition gives its addresses back to the pool.
+		int freeMACs = network.getAddressPool().getFreeMACCount();
+		try {
+			networkingSystem.addInterface(host, "eth0");
+			fail("Duplicate interface name");
+		} catch(NetworkException e) {
+			// expected
+		}
+		assertEquals(5, network.getAddressPool().getFreeIPv4Count());
+		assertEquals(freeMACs, network.getAddressPool().getFreeMACCount());
+
+		for(int i = 0; i < 5; i++)
+			networkingSystem.addInterface(host, "eth" + (i + 2));
+		try {
+			networkingSystem.addInterface(host, "eth7");
+			fail("The pool should be exhausted");
+		} catch(NetworkException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testNodeKind() {
+		Network network = networkingSystem.createNetwork();
+		NetworkNode node = networkingSystem.createNode(network);
+		Host host = networkingSystem.createHost(network, "h1");
+		NetworkInterface ifc = new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1");
+		NetworkNode ifcNode = networkingSystem.addInterface(host, ifc);
+
+		assertEquals(NodeKind.SWITCH, network.getNodeKind(node.getLinkNode()));
+		assertEquals(NodeKind.SWITCH, network.getNodeKind(node.getQueueNode()));
+		assertEquals(NodeKind.HOST_INTERFACE, network.getNodeKind(ifcNode.getLinkNode()));
+		assertEquals(NodeKind.HOST_INTERFACE, network.getNodeKind(ifcNode.getQueueNode()));
+		assertEquals(NodeKind.UNASSIGNED, networkingSystem.createNetwork().getNodeKind(node.getLinkNode()));
+
+		networkingSystem.deleteInterface(host, ifc);
+		assertEquals(NodeKind.UNASSIGNED, network.getNodeKind(ifcNode.getLinkNode()));
+		assertFalse(networkingSystem.isAHost(network, ifcNode.getLinkNode()));
+		networkingSystem.deleteNode(node);
+		assertEquals(NodeKind.UNASSIGNED, network.getNodeKind(node.getQueueNode()));
+	}
+
+	@Test
+	public void testBatch() {
+		Network network = networkingSystem.createNetwork();
+		NetworkNode existing = networkingSystem.createNode(network, "existing");
+
+		// Create a star topology with a host connected to the existing node.
+		TopologyBatch batch = networkingSystem.batch(network);
+		int center = batch.addNode("center");
+		int[] nodes = new int[10];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = batch.addNode();
+			batch.addLink(nodes[i], center, 1000, 0.01, 60000);
+			batch.addLinkWithPriorityScheduling(center, nodes[i], 1000, 0.01, new double[]{52000, 60000});
+		}
+		int h = batch.addHost("Test");
+		int hostNode = batch.addInterface(h, new NetworkInterface("eth0", "00:00:00:00:00:01", "125.2.2.1"));
+		int existingNode = batch.addNode(existing);
+		batch.addLinkWithWFQScheduling(hostNode, existingNode, 1000, 0.01, new double[]{52000, 60000}, new double[]{1, 3});
+		batch.addLink(existingNode, hostNode, 1000, 0.01, 60000);
+
+		assertNull("Nothing should be created before commit", batch.getNode(center));
+		assertEquals("Nothing should be created before commit", 1, network.getLinkGraph().getNodes().size());
+
+		batch.commit();
+
+		assertTrue(batch.isCommitted());
+		assertEquals(nodes.length + 3, network.getLinkGraph().getNodes().size());
+		assertEquals(nodes.length + 3, network.getQueueGraph().getNodes().size());
+		assertEquals(2 * nodes.length + 2, network.getLinkGraph().getEdges().size());
+		assertEquals(3 * nodes.length + 3, network.getQueueGraph().getEdges().size());
+		assertSame(existing, batch.getNode(existingNode));
+		assertEquals("center", batch.getNode(center).getName());
+		assertEquals(1, network.getHosts().size());
+		assertSame(batch.getHost(h), network.getHosts().iterator().next());
+		assertSame(batch.getNode(hostNode), batch.getHost(h).getNetworkNode(batch.getHost(h).getInterfaces().iterator().next()));
+		assertTrue(networkingSystem.isAHost(network, batch.getNode(hostNode).getLinkNode()));
+		assertEquals(2, batch.getLink(2 * nodes.length).getQueueEdges().length);
+
+		ToNetworkMapper toNetworkMapper = new ToNetworkMapper(controller);
+		WFQSchedulerMapper wfqSchedulerMapper = new WFQSchedulerMapper(controller);
+		Link wfqLink = batch.getLink(2 * nodes.length);
+		assertSame(wfqLink.getEntity(), toNetworkMapper.get(wfqLink.getLinkEdge().getEntity()).getNetworkEntity());
+		assertEquals(0.75, wfqSchedulerMapper.get(wfqLink.getLinkEdge().getEntity()).getNormalizedWeights()[1], 1e-10);
+
+		// Standard methods should see the batch elements.
+		try {
+			networkingSystem.createLink(batch.getNode(hostNode), existing, 1000, 0.01, 60000);
+			fail("System should throw an NetworkException because we try to connect an Interface twice");
+		} catch (NetworkException e) {
+			//
+		}
+		controller.resetThreadLocal();
+
+		networkingSystem.deleteNetwork(network);
+	}
+
+	@Test
+	public void testInvalidBatch() {
+		Network network = networkingSystem.createNetwork();
+		Host host = networkingSystem.createHost(network, "Test");
+		networkingSystem.addInterface(host, new NetworkInterface("eth0", "00:00:00:00:00:01", "125.2.2.1"));
+
+		// Two interfaces together.
+		TopologyBatch batch = networkingSystem.batch(network);
+		int h = batch.addHost("Other");
+		int ifc1 = batch.addInterface(h, new NetworkInterface("eth0", "00:00:00:00:00:02", "125.2.2.2"));
+		int ifc2 = batch.addInterface(h, new NetworkInterface("eth1", "00:00:00:00:00:03", "125.2.2.3"));
+		batch.addNode("switch");
+		batch.addLink(ifc1, ifc2, 1000, 0.01, 60000);
+		try {
+			batch.commit();
+			fail("System should throw an NetworkException because we try to connect two interfaces together");
+		} catch (NetworkException e) {
+			//
+		}
+		controller.resetThreadLocal();
+		assertFalse(batch.isCommitted());
+		assertEquals("Nothing should be created by an invalid batch", 1, network.getHosts().size());
+		assertEquals("Nothing should be created by an invalid batch", 1, network.getLinkGraph().getNodes().size());
+
+		// Interface connected twice.
+		batch = networkingSystem.batch(network);
+		int s = batch.addNode();
+		h = batch.addHost("Other");
+		ifc1 = batch.addInterface(h, new NetworkInterface("eth0", "00:00:00:00:00:02", "125.2.2.2"));
+		batch.addLink(ifc1, s, 1000, 0.01, 60000);
+		batch.addLink(ifc1, s, 1000, 0.01, 60000);
+		try {
+			batch.commit();
+			fail("System should throw an NetworkException because we try to connect an Interface twice");
+		} catch (NetworkException e) {
+			//
+		}
+		controller.resetThreadLocal();
+
+		// Duplicate IP.
+		batch = networkingSystem.batch(network);
+		batch.addInterface(batch.addHost(host), new NetworkInterface("eth1", "00:00:00:00:00:07", "125.2.2.1"));
+		try {
+			batch.commit();
+			fail("System should throw an NetworkException because we try to add an interface with the same IP");
+		} catch (NetworkException e) {
+			//
+		}
+		controller.resetThreadLocal();
+
+		// Duplicate interface name.
+		batch = networkingSystem.batch(network);
+		batch.addInterface(batch.addHost(host), new NetworkInterface("eth0", "00:00:00:00:00:07", "125.2.2.7"));
+		try {
+			batch.commit();
+			fail("System should throw an NetworkException because we try to add an interface with the same name");
+		} catch (NetworkException e) {
+			//
+		}
+		controller.resetThreadLocal();
+
+		assertEquals("Nothing should be created by an invalid batch", 1, network.getLinkGraph().getNodes().size());
+		assertEquals("Nothing should be created by an invalid batch", 0, network.getLinkGraph().getEdges().size());
+	}
+
+	@Test
+	public void testReservations() throws InterruptedException {
+		ReservationMapper reservationMapper = new ReservationMapper(controller);
+		Network network = networkingSystem.createNetwork();
+		NetworkNode a = networkingSystem.createNode(network);
+		NetworkNode b = networkingSystem.createNode(network);
+		Link before = networkingSystem.createLinkWithPriorityScheduling(a, b, 1e6, 0.001, new double[]{1000, 1000});
+		assertFalse("Reservations are opt-in", reservationMapper.isIn(before.getQueueEdges()[0].getEntity()));
+
+		networkingSystem.enableReservations(network);
+		assertTrue(network.hasReservations());
+		Link after = networkingSystem.createLink(b, a, 1e6, 0.001, 1000);
+		assertTrue(reservationMapper.isIn(before.getQueueEdges()[1].getEntity()));
+		assertTrue(reservationMapper.isIn(after.getQueueEdges()[0].getEntity()));
+
+		Reservation reservation = reservationMapper.get(after.getQueueEdges()[0].getEntity());
+		assertTrue(reservation.reserve(1000.5, 100, 5000, 1000));
+		assertEquals("Amounts are rounded up to whole bytes", 1001, reservation.getReservedRate(), 0);
+		assertEquals(100, reservation.getReservedBurst(), 0);
+		assertFalse("The rate limit must be enforced", reservation.reserve(4000, 100, 5000, 1000));
+		assertFalse("The burst limit must be enforced", reservation.reserve(10, 901, 5000, 1000));
+		assertEquals(1, reservation.getFlowCount());
+		reservation.release(1000.5, 100);
+		assertEquals(0, reservation.getReservedRate(), 0);
+		assertEquals(0, reservation.getFlowCount());
+		assertTrue("Rates beyond 550 Gbps are allowed", reservation.reserve(1e12, 1e9));
+		assertEquals(1e12, reservation.getReservedRate(), 0);
+		reservation.release(1e12, 1e9);
+		try {
+			reservation.release(1, 0);
+			fail("System should throw an NetworkException because nothing is reserved");
+		} catch (NetworkException e) {
+			//
+		}
+
+		// Concurrent reservations never exceed the limit.
+		Thread[] threads = new Thread[4];
+		for(int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for(int i = 0; i < 1000; i++)
+					reservation.reserve(1, 0, 2500, 0);
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		assertEquals(2500, reservation.getReservedRate(), 0);
+		assertEquals(2500, reservation.getFlowCount());
+
+		networkingSystem.deleteLink(after);
+		assertFalse(reservationMapper.isIn(after.getQueueEdges()[0].getEntity()));
+	}
+
+	@Test
+	public void testSnapshots() {
+		Network network = networkingSystem.createNetwork();
+		NetworkNode a = networkingSystem.createNode(network, "a");
+		NetworkNode b = networkingSystem.createNode(network, "b");
+		Link ab = networkingSystem.createLink(a, b, 1e6, 0.001, 1000);
+		Link ba = networkingSystem.createLinkWithWFQScheduling(b, a, 1e6, 0.002, new double[]{1000, 2000}, new double[]{1, 3});
+
+		TopologySnapshot first = network.snapshot();
+		assertEquals(2, first.getNumberOfNodes());
+		assertEquals(2, first.getNumberOfLinks());
+		assertSame(first, network.snapshot());
+		assertEquals(0.002, first.getLink(ba).getDelay(), 0);
+		assertEquals(3, first.getLink(ba).getWeight(1), 0);
+		assertEquals(2000, first.getLink(ba).getQueueSize(1), 0);
+		assertSame(WFQScheduler.class, first.getLink(ba).getSchedulerType());
+		assertSame(ab, first.getOutgoingLinks(a).get(0).getLink());
+
+		// Changes after a snapshot do not affect it.
+		NetworkNode c = networkingSystem.createNode(network, "c");
+		Link bc = networkingSystem.createLink(b, c, 1e6, 0.005, 1000);
+		networkingSystem.deleteLink(ab);
+		networkingSystem.setDelay(ba, 0.004);
+		networkingSystem.setWeights(ba, new double[]{2, 2});
+		TopologySnapshot second = network.snapshot();
+		assertEquals(first.getVersion() + 1, second.getVersion());
+		assertEquals(2, first.getNumberOfLinks());
+		assertTrue(first.contains(ab));
+		assertFalse(first.contains(c));
+		assertEquals(0.002, first.getLink(ba).getDelay(), 0);
+		assertEquals(3, second.getNumberOfNodes());
+		assertFalse(second.contains(ab));
+		assertEquals(0.004, second.getLink(ba).getDelay(), 0);
+		assertEquals(2, second.getLink(ba).getWeight(1), 0);
+		assertEquals(Double.NaN, second.getLink(bc).getWeight(0), 0);
+		assertEquals(2, second.getOutgoingLinks(b).size());
+		assertTrue(second.getIncomingLinks(b).isEmpty());
+		assertTrue(second.getOutgoingLinks(a).isEmpty());
+
+		networkingSystem.deleteNode(c);
+		TopologySnapshot third = network.snapshot();
+		assertEquals(2, third.getNumberOfNodes());
+		assertEquals(1, third.getNumberOfLinks());
+		assertSame(ba, third.getOutgoingLinks(b).get(0).getLink());
+		assertTrue(second.contains(bc));
+	}
+
+	@Test
+	public void testTransactions() {
+		Network network = networkingSystem.createNetwork();
+		NetworkNode a = networkingSystem.createNode(network, "a");
+		NetworkNode b = networkingSystem.createNode(network, "b");
+		Link ab = networkingSystem.createLinkWithWFQScheduling(a, b, 1e6, 0.001, new double[]{1000, 2000}, new double[]{1, 3});
+		Host host = networkingSystem.createHost(network, "h");
+		NetworkNode eth0 = networkingSystem.addInterface(host, new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1"));
+		Link up = networkingSystem.createLink(eth0, a, 1e6, 0.001, 1000);
+		NetworkNodeMapper networkNodeMapper = new NetworkNodeMapper(controller);
+
+		// A failing operation undoes the previous ones.
+		NetworkTransaction transaction = networkingSystem.beginTransaction(network);
+		NetworkNode c = transaction.createNode("c");
+		transaction.createLink(a, c, 1e6, 0.001, 1000);
+		transaction.deleteNode(b);
+		transaction.deleteLink(up);
+		try {
+			transaction.createLink(eth0, c, 1e6, 0.001, 1000);
+			transaction.createLink(eth0, a, 1e6, 0.001, 1000);
+			fail("System should throw an NetworkException because the interface already has an uplink");
+		} catch (NetworkException e) {
+			//
+		}
+		assertTrue(transaction.isFinished());
+		assertEquals(3, network.getLinkGraph().getNodes().size());
+		assertEquals(2, network.getLinkGraph().getEdges().size());
+		assertFalse(networkNodeMapper.isIn(c.getEntity()));
+		assertNotSame(up, transaction.getReplacement(up));
+		assertSame(eth0, networkingSystem.getLinkState(transaction.getReplacement(up)).getSource());
+		Link newAB = transaction.getReplacement(ab);
+		assertNotSame(ab, newAB);
+		assertSame(newAB, network.snapshot().getLink(newAB).getLink());
+		assertEquals(3, network.snapshot().getLink(newAB).getWeight(1), 0);
+		assertEquals("b", transaction.getReplacement(b).getName());
+
+		// A committed transaction is kept, an unfinished one is rolled back.
+		try(NetworkTransaction committed = networkingSystem.beginTransaction(network)) {
+			committed.deleteHost(host);
+			committed.commit();
+		}
+		assertEquals(2, network.getLinkGraph().getNodes().size());
+		try(NetworkTransaction unfinished = networkingSystem.beginTransaction(network)) {
+			unfinished.createHost("h2");
+			unfinished.deleteNode(a);
+		}
+		assertTrue(network.getHosts().isEmpty());
+		assertEquals(2, network.getLinkGraph().getNodes().size());
+		assertEquals(1, network.getLinkGraph().getEdges().size());
+	}
+
+	@Test
+	public void testConcurrentLinkCreation() throws InterruptedException {
+		/* With an eager queue-level Graph, Links are not created under the
+		 * monitor of the Network: holding it does not block their creation. */
+		Network network = networkingSystem.createNetwork();
+		networkingSystem.enableStripedLocking(network);
+		Thread[] threads = new Thread[4];
+		synchronized(network) {
+			for(int t = 0; t < threads.length; t++) {
+				threads[t] = new Thread(() -> {
+					for(int i = 0; i < 10; i++)
+						networkingSystem.createLink(networkingSystem.createNode(network), networkingSystem.createNode(network), 1e6, 0.001, 1000);
+				});
+				threads[t].start();
+			}
+			for(Thread thread : threads) {
+				thread.join(5000);
+				assertFalse(thread.isAlive());
+			}
+		}
+		assertEquals(40, network.getLinkGraph().getEdges().size());
+		assertEquals(40, network.getQueueGraph().getEdges().size());
+
+		// As long as a lazy queue-level Graph is not materialized, they are.
+		Network lazy = networkingSystem.createNetwork(true);
+		networkingSystem.enableStripedLocking(lazy);
+		NetworkNode n1 = networkingSystem.createNode(lazy);
+		NetworkNode n2 = networkingSystem.createNode(lazy);
+		Thread creation = new Thread(() -> networkingSystem.createLink(n1, n2, 1e6, 0.001, 1000));
+		synchronized(lazy) {
+			creation.start();
+			creation.join(100);
+			assertTrue(creation.isAlive());
+		}
+		creation.join();
+		assertEquals(1, lazy.getQueueGraph().getEdges().size());
+	}
+
+	@Test
+	public void testStripedLocking() throws InterruptedException {
+		Network network = networkingSystem.createNetwork();
+		networkingSystem.enableStripedLocking(network);
+		assertTrue(network.hasStripedLocking());
+		NetworkNode spine = networkingSystem.createNode(network, "spine");
+		Host host = networkingSystem.createHost(network, "h");
+		NetworkNode eth0 = networkingSystem.addInterface(host, new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1"));
+
+		// Disjoint links are created in parallel, a single uplink is accepted.
+		Thread[] threads = new Thread[8];
+		int[] uplinks = new int[threads.length];
+		for(int t = 0; t < threads.length; t++) {
+			int thread = t;
+			threads[t] = new Thread(() -> {
+				for(int i = 0; i < 20; i++) {
+					NetworkNode leaf = networkingSystem.createNode(network);
+					networkingSystem.createLink(leaf, spine, 1e6, 0.001, 1000);
+					networkingSystem.createLink(spine, leaf, 1e6, 0.001, 1000);
+					try {
+						networkingSystem.createLink(eth0, leaf, 1e6, 0.001, 1000);
+						uplinks[thread]++;
+					} catch (NetworkException e) {
+						//
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		int total = 0;
+		for(int count : uplinks)
+			total += count;
+		assertEquals(1, total);
+		assertEquals(162, network.getLinkGraph().getNodes().size());
+		assertEquals(321, network.getLinkGraph().getEdges().size());
+
+		networkingSystem.deleteNode(spine);
+		assertEquals(1, network.getLinkGraph().getEdges().size());
+
+		// The stripes of a nested operation are held until the outermost one ends.
+		NetworkNode x = networkingSystem.createNode(network);
+		NetworkNode y = networkingSystem.createNode(network);
+		Thread other = new Thread(() -> networkingSystem.createLink(y, x, 1e6, 0.001, 1000));
+		try(NetworkingSystem.OperationSpace ms = networkingSystem.startOperationSpace()) {
+			networkingSystem.createLink(x, y, 1e6, 0.001, 1000);
+			other.start();
+			other.join(100);
+			assertTrue(other.isAlive());
+		}
+		other.join();
+		assertEquals(3, network.getLinkGraph().getEdges().size());
+
+		// Interface deletions lock the stripes of the interface.
+		Host h2 = networkingSystem.createHost(network, "h2");
+		NetworkInterface ifc = new NetworkInterface("eth0", "00:00:00:00:00:02", "10.0.0.2");
+		NetworkNode eth1 = networkingSystem.addInterface(h2, ifc);
+		Thread deletion = new Thread(() -> networkingSystem.deleteInterface(h2, ifc));
+		try(NetworkingSystem.OperationSpace ms = networkingSystem.startOperationSpace()) {
+			networkingSystem.createLink(x, eth1, 1e6, 0.001, 1000);
+			deletion.start();
+			deletion.join(100);
+			assertTrue(deletion.isAlive());
+		}
+		deletion.join();
+		assertEquals(3, network.getLinkGraph().getEdges().size());
+
+		// Delay updates lock the stripes of the end points of the Link.
+		NetworkNode u = networkingSystem.createNode(network);
+		NetworkNode v = networkingSystem.createNode(network);
+		Link uv = networkingSystem.createLink(u, v, 1e6, 0.001, 1000);
+		Thread update = new Thread(() -> networkingSystem.setDelay(uv, 0.002));
+		try(NetworkingSystem.OperationSpace ms = networkingSystem.startOperationSpace()) {
+			networkingSystem.createLink(v, u, 1e6, 0.001, 1000);
+			update.start();
+			update.join(100);
+			assertTrue(update.isAlive());
+		}
+		update.join();
+		assertEquals(0.002, new DelayMapper(controller).get(uv.getLinkEdge().getEntity()).getDelay(), 0);
+	}
+
+	@Test
+	public void testAsync() throws Exception {
+		Network network = networkingSystem.createNetwork();
+		AsyncNetworkingSystem async = networkingSystem.async();
+		assertSame(async, networkingSystem.async());
+		NetworkNode spine = async.createNode(network, "spine").get();
+		Host host = async.createHost(network, "h").get();
+		CompletableFuture<NetworkNode> eth0 = async.addInterface(host, new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1"));
+
+		List<CompletableFuture<Link>> links = new ArrayList<>();
+		for(int i = 0; i < 100; i++) {
+			NetworkNode leaf = networkingSystem.createNode(network);
+			links.add(async.createLink(leaf, spine, 1e6, 0.001, 1000));
+			links.add(async.createLink(spine, leaf, 1e6, 0.001, 1000));
+		}
+		// The second uplink is validated against the first one.
+		CompletableFuture<Link> uplink = async.createLink(eth0.get(), spine, 1e6, 0.001, 1000);
+		CompletableFuture<Link> secondUplink = async.createLink(eth0.get(), spine, 1e6, 0.001, 1000);
+		assertNotNull(uplink.get());
+		try {
+			secondUplink.get();
+			fail("Only one uplink per interface");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof NetworkException);
+		}
+		for(CompletableFuture<Link> link : links)
+			assertNotNull(link.get());
+		assertEquals(102, network.getLinkGraph().getNodes().size());
+		assertEquals(201, network.getLinkGraph().getEdges().size());
+
+		// A duplicate address only fails its own operation.
+		CompletableFuture<NetworkNode> before = async.createNode(network, "before");
+		CompletableFuture<NetworkNode> duplicate = async.addInterface(host, new NetworkInterface("eth1", "00:00:00:00:00:02", "10.0.0.1"));
+		CompletableFuture<NetworkNode> after = async.createNode(network, "after");
+		assertNotNull(before.get());
+		assertNotNull(after.get());
+		try {
+			duplicate.get();
+			fail("Duplicate IP address");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof NetworkException);
+		}
+
+		/* Operations following a deletion in the same batch are validated
+		 * against the updated Network. */
+		List<Runnable> drains = new ArrayList<>();
+		AsyncNetworkingSystem manual = new AsyncNetworkingSystem(networkingSystem, drains::add);
+		NetworkNode deleted = networkingSystem.createNode(network);
+		CompletableFuture<Void> deletion = manual.deleteNode(deleted);
+		CompletableFuture<Link> toDeleted = manual.createLink(spine, deleted, 1e6, 0.001, 1000);
+		assertEquals(1, drains.size());
+		drains.get(0).run();
+		deletion.get();
+		try {
+			toDeleted.get();
+			fail("The destination has been deleted");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof NetworkException);
+		}
+
+		List<CompletableFuture<Void>> deletions = new ArrayList<>();
+		for(CompletableFuture<Link> link : links)
+			deletions.add(async.deleteLink(link.get()));
+		CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0])).get();
+		assertEquals(1, network.getLinkGraph().getEdges().size());
+
+		// Closing the shared front-end replaces it.
+		async.close();
+		assertNotSame(async, networkingSystem.async());
+		assertNotNull(networkingSystem.async().createNode(network, "new").get());
+	}
 }
@@ -0,0 +1,79 @@
+package de.tum.ei.lkn.eces.network.admission;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.Host;
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+import de.tum.ei.lkn.eces.network.calculus.PerHopAnalysis;
+import de.tum.ei.lkn.eces.network.generators.LeafSpineGenerator;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throughput of the admission controller, in admitted flows per second, on a
+ * leaf-spine topology (16 leaves, 4 spines and 8 Hosts per leaf) with 1 and
+ * 16 threads sharing the same number of requests between random Hosts.
+ *
+ * Not part of the test suite, run with:
+ * mvn test -Dtest=AdmissionControllerBenchmark
+ *
+ * @author Amaury Van Bemten
+ */
+public class AdmissionControllerBenchmark {
+	/**
+	 * Number of requests, split among the threads.
+	 */
+	private static final int REQUESTS = 4000;
+
+	@Test
+	public void benchmarkAdmission() throws InterruptedException {
+		for(int threads : new int[]{1, 16}) {
+			// Warm-up run.
+			run(threads);
+			System.out.printf("Admission with %d thread(s): %.0f flows/s%n", threads, run(threads));
+		}
+	}
+
+	/**
+	 * Admits flows with a number of threads in a new Network.
+	 * @param threads number of threads.
+	 * @return the admitted flows per second.
+	 */
+	private static double run(int threads) throws InterruptedException {
+		Controller controller = new Controller();
+		NetworkingSystem networkingSystem = new NetworkingSystem(controller);
+		Network network = networkingSystem.createNetwork();
+		networkingSystem.enableReservations(network);
+		List<Host> hosts = new LeafSpineGenerator(networkingSystem, 16, 4, 8).generate(network).getHosts();
+		AdmissionController admissionController = new AdmissionController(controller, network, new PerHopAnalysis(controller, 1500), 0);
+
+		AtomicInteger admitted = new AtomicInteger();
+		Thread[] workers = new Thread[threads];
+		for(int t = 0; t < threads; t++) {
+			Random random = new Random(t);
+			workers[t] = new Thread(() -> {
+				for(int i = 0; i < REQUESTS / threads; i++) {
+					Host source = hosts.get(random.nextInt(hosts.size()));
+					Host destination = hosts.get(random.nextInt(hosts.size()));
+					if(source != destination && admissionController.admit(new FlowRequest(source, destination, 1e4, 1500, 0.01)) != null)
+						admitted.incrementAndGet();
+				}
+			});
+		}
+
+		long start = System.nanoTime();
+		for(Thread worker : workers)
+			worker.start();
+		for(Thread worker : workers)
+			worker.join();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		assertTrue(admitted.get() > 0);
+		return admitted.get() / seconds;
+	}
+}
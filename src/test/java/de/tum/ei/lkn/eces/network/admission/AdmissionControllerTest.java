@@ -0,0 +1,118 @@
+package de.tum.ei.lkn.eces.network.admission;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.calculus.PerHopAnalysis;
+import de.tum.ei.lkn.eces.network.calculus.TokenBucket;
+import de.tum.ei.lkn.eces.network.mappers.ReservationMapper;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the admission controller.
+ *
+ * @author Amaury Van Bemten
+ */
+public class AdmissionControllerTest {
+	private Controller controller;
+	private NetworkingSystem networkingSystem;
+	private Network network;
+	private NetworkNode s;
+	private Host h1, h2;
+	private Link up, down;
+
+	@Before
+	public void setUp() {
+		controller = new Controller();
+		networkingSystem = new NetworkingSystem(controller);
+		network = networkingSystem.createNetwork();
+		networkingSystem.enableReservations(network);
+		s = networkingSystem.createNode(network, "s");
+		h1 = networkingSystem.createHost(network, "h1");
+		h2 = networkingSystem.createHost(network, "h2");
+		NetworkNode i1 = networkingSystem.addInterface(h1, new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1"));
+		NetworkNode i2 = networkingSystem.addInterface(h2, new NetworkInterface("eth0", "00:00:00:00:00:02", "10.0.0.2"));
+		up = networkingSystem.createLink(i1, s, 1e6, 0.001, 10000);
+		down = networkingSystem.createLink(s, i2, 1e6, 0.001, 10000);
+	}
+
+	@Test
+	public void testAdmission() {
+		PerHopAnalysis analysis = new PerHopAnalysis(controller, 1000);
+		AdmissionController admissionController = new AdmissionController(controller, network, analysis, 0);
+		FlowRequest request = new FlowRequest(h1, h2, 1e5, 1000, 0.01);
+
+		// The 4th flow would have a 12 ms delay bound.
+		Flow first = admissionController.admit(request);
+		assertNotNull(first);
+		assertArrayEquals(new Link[]{up, down}, first.getLinks());
+		assertSame(up.getQueueEdges()[0], first.getQueueEdge(0));
+		assertEquals(0.003, first.getDelayBound(), 1e-12);
+		assertNotNull(admissionController.admit(request));
+		assertNotNull(admissionController.admit(request));
+		assertNull(admissionController.admit(request));
+		assertEquals(new TokenBucket(3000, 3e5), analysis.getArrivalCurve(down.getQueueEdges()[0]));
+		Reservation reservation = new ReservationMapper(controller).get(down.getQueueEdges()[0].getEntity());
+		assertEquals(3, reservation.getFlowCount());
+		assertEquals(3e5, reservation.getReservedRate(), 0);
+
+		admissionController.release(first);
+		assertEquals(2, reservation.getFlowCount());
+		assertNotNull(admissionController.admit(request));
+		assertNull("No path from h2 to h1", admissionController.admit(new FlowRequest(h2, h1, 1, 1, 1)));
+	}
+
+	@Test
+	public void testAdmittedDeadlines() {
+		AdmissionController admissionController = new AdmissionController(controller, network, new PerHopAnalysis(controller, 1000), 0);
+		Flow tight = admissionController.admit(new FlowRequest(h1, h2, 1e5, 1000, 0.0031));
+		assertNotNull(tight);
+
+		// The second flow meets its own deadline but would break the first one.
+		assertNull(admissionController.admit(new FlowRequest(h1, h2, 1e5, 1000, 1)));
+		admissionController.release(tight);
+		assertNotNull(admissionController.admit(new FlowRequest(h1, h2, 1e5, 1000, 1)));
+	}
+
+	@Test
+	public void testConcurrentAdmission() throws InterruptedException {
+		AdmissionController admissionController = new AdmissionController(controller, network, new PerHopAnalysis(controller, 1000), 0);
+		FlowRequest request = new FlowRequest(h1, h2, 1e5, 1000, 0.01);
+		AtomicInteger admitted = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for(int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for(int i = 0; i < 5; i++)
+					if(admissionController.admit(request) != null)
+						admitted.incrementAndGet();
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		assertEquals(3, admitted.get());
+	}
+
+	@Test
+	public void testFlowRegistry() {
+		AdmissionController admissionController = new AdmissionController(controller, network, new PerHopAnalysis(controller, 1000), 0);
+		FlowRegistry registry = admissionController.getFlowRegistry();
+		Flow first = admissionController.admit(new FlowRequest(h1, h2, 1e5, 1000, 0.01));
+		Flow second = admissionController.admit(new FlowRequest(h1, h2, 1e5, 1000, 0.01));
+		assertEquals(2, registry.size());
+		assertSame(first, registry.getFlow(first.getId()));
+		assertEquals(2, registry.getFlows(down).size());
+		assertEquals(2, registry.getFlowIds(up.getQueueEdges()[0]).length);
+		assertEquals(2, registry.getFlows(s).size());
+
+		assertTrue(admissionController.release(first));
+		assertFalse("A flow is only released once", admissionController.release(first));
+		assertArrayEquals(new int[]{second.getId()}, registry.getFlowIds(down));
+		assertNull(registry.getFlow(first.getId()));
+	}
+}
@@ -0,0 +1,59 @@
+package de.tum.ei.lkn.eces.network.calculus;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the end-to-end network-calculus analysis.
+ *
+ * @author Amaury Van Bemten
+ */
+public class EndToEndAnalysisTest {
+	@Test
+	public void testPayBurstsOnlyOnce() {
+		Controller controller = new Controller();
+		NetworkingSystem networkingSystem = new NetworkingSystem(controller);
+		Network network = networkingSystem.createNetwork();
+		NetworkNode a = networkingSystem.createNode(network, "a");
+		NetworkNode b = networkingSystem.createNode(network, "b");
+		NetworkNode c = networkingSystem.createNode(network, "c");
+		Edge ab = networkingSystem.createLink(a, b, 1e6, 0.001, 10000).getQueueEdges()[0];
+		Edge bc = networkingSystem.createLink(b, c, 1e6, 0.001, 10000).getQueueEdges()[0];
+		Edge[] path = new Edge[]{ab, bc};
+
+		PerHopAnalysis perHopAnalysis = new PerHopAnalysis(controller, 1000);
+		EndToEndAnalysis analysis = new EndToEndAnalysis(controller, perHopAnalysis);
+		TokenBucket crossTraffic = new TokenBucket(1000, 1e5);
+		perHopAnalysis.setArrivalCurve(ab, crossTraffic);
+		perHopAnalysis.setArrivalCurve(bc, crossTraffic);
+
+		// Left-over per hop: 900 kB/s after 1/900 s.
+		TokenBucket flow = new TokenBucket(2000, 1e5);
+		RateLatency service = analysis.getServiceCurve(path, flow, false);
+		assertEquals(9e5, service.getRate(), 1e-6);
+		assertEquals(2.0 / 900, service.getLatency(), 1e-12);
+		assertEquals(0.002, analysis.getPropagationDelay(path), 1e-12);
+		double bound = analysis.getDelayBound(path, flow);
+		assertEquals(4000 / 9e5 + 0.002, bound, 1e-12);
+
+		// Once the flow is part of the Queues, it is not its own cross traffic.
+		perHopAnalysis.addArrivalCurve(ab, flow);
+		perHopAnalysis.addArrivalCurve(bc, flow);
+		assertEquals(bound, analysis.getDelayBound(path, flow, true), 1e-12);
+		double summed = perHopAnalysis.getBound(ab).getDelayBound() + perHopAnalysis.getBound(bc).getDelayBound() + 0.002;
+		assertTrue(bound < summed);
+
+		double[] bounds = analysis.getDelayBounds(Arrays.asList(path, new Edge[]{ab}), Arrays.asList(flow, flow), true);
+		assertEquals(bound, bounds[0], 1e-12);
+		assertEquals(0.001 + 3000 / 9e5, bounds[1], 1e-12);
+
+		// Overload.
+		assertEquals(Double.POSITIVE_INFINITY, analysis.getDelayBound(path, new TokenBucket(0, 1e6)), 0);
+	}
+}
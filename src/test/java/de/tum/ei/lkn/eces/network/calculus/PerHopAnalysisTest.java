@@ -0,0 +1,80 @@
+package de.tum.ei.lkn.eces.network.calculus;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.mappers.SchedulerMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the per-hop network-calculus analysis.
+ *
+ * @author Amaury Van Bemten
+ */
+public class PerHopAnalysisTest {
+	private Controller controller;
+	private NetworkingSystem networkingSystem;
+	private NetworkNode a, b;
+
+	@Before
+	public void setUp() {
+		controller = new Controller();
+		networkingSystem = new NetworkingSystem(controller);
+		Network network = networkingSystem.createNetwork();
+		a = networkingSystem.createNode(network, "a");
+		b = networkingSystem.createNode(network, "b");
+	}
+
+	@Test
+	public void testPriority() {
+		Link link = networkingSystem.createLinkWithPriorityScheduling(a, b, 1e6, 0.001, new double[]{10000, 10000});
+		PerHopAnalysis analysis = new PerHopAnalysis(controller, 1000);
+		analysis.setArrivalCurve(link.getQueueEdges()[0], new TokenBucket(2000, 1e5));
+		analysis.addArrivalCurve(link.getQueueEdges()[1], new TokenBucket(1000, 2e5));
+
+		// High priority: blocked by one lower-priority packet.
+		HopBound high = analysis.getBound(link.getQueueEdges()[0]);
+		assertEquals(1e6, high.getServiceCurve().getRate(), 1e-6);
+		assertEquals(0.001, high.getServiceCurve().getLatency(), 1e-12);
+		assertEquals(0.003, high.getDelayBound(), 1e-12);
+		assertEquals(2100, high.getBacklogBound(), 1e-9);
+
+		// Low priority: served at the leftover rate after the higher burst.
+		HopBound low = analysis.getBound(link, 1);
+		assertEquals(9e5, low.getServiceCurve().getRate(), 1e-6);
+		assertEquals(3000 / 9e5, low.getDelayBound(), 1e-12);
+		assertSame(low, analysis.getBound(link.getQueueEdges()[1]));
+
+		// Changing the high-priority traffic invalidates the low-priority bound.
+		analysis.removeArrivalCurve(link.getQueueEdges()[0], new TokenBucket(2000, 1e5));
+		assertEquals(TokenBucket.ZERO, analysis.getArrivalCurve(link.getQueueEdges()[0]));
+		assertEquals(1000 / 1e6, analysis.getBound(link, 1).getDelayBound(), 1e-12);
+
+		// Overload.
+		analysis.setArrivalCurve(link.getQueueEdges()[0], new TokenBucket(0, 2e6));
+		assertEquals(Double.POSITIVE_INFINITY, analysis.getBound(link, 0).getDelayBound(), 0);
+		assertEquals(Double.POSITIVE_INFINITY, analysis.getBound(link, 1).getDelayBound(), 0);
+	}
+
+	@Test
+	public void testWFQ() {
+		Link link = networkingSystem.createLinkWithWFQScheduling(a, b, 1e6, 0.001, new double[]{10000, 10000}, new double[]{1, 3});
+		PerHopAnalysis analysis = new PerHopAnalysis(controller, 1000);
+		analysis.setArrivalCurve(link.getQueueEdges()[0], new TokenBucket(2000, 1e5));
+
+		HopBound bound = analysis.getBound(link, 0);
+		assertEquals(2.5e5, bound.getServiceCurve().getRate(), 1e-6);
+		assertEquals(0.005, bound.getServiceCurve().getLatency(), 1e-12);
+		assertEquals(0.013, bound.getDelayBound(), 1e-12);
+
+		HopBound[] bounds = analysis.getBounds(link);
+		assertEquals(7.5e5, bounds[1].getServiceCurve().getRate(), 1e-6);
+		assertEquals(0, bounds[1].getBacklogBound(), 0);
+
+		// New weights are detected.
+		((WFQScheduler) new SchedulerMapper(controller).get(link.getLinkEdge().getEntity())).setWeights(new double[]{1, 1});
+		assertEquals(5e5, analysis.getBound(link, 0).getServiceCurve().getRate(), 1e-6);
+	}
+}
@@ -0,0 +1,75 @@
+package de.tum.ei.lkn.eces.network.compact;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the CSR snapshots.
+ *
+ * @author Amaury Van Bemten
+ */
+public class CompactTopologyTest {
+	private Controller controller;
+	private NetworkingSystem networkingSystem;
+
+	@Before
+	public void setUp() {
+		controller = new Controller();
+		networkingSystem = new NetworkingSystem(controller);
+	}
+
+	@Test
+	public void testBuild() {
+		Network network = networkingSystem.createNetwork(true);
+		NetworkNode n1 = networkingSystem.createNode(network, "n1");
+		NetworkNode n2 = networkingSystem.createNode(network, "n2");
+		NetworkNode n3 = networkingSystem.createNode(network, "n3");
+		Link l12 = networkingSystem.createLinkWithPriorityScheduling(n1, n2, 1000, 0.01, new double[]{100, 200});
+		Link l23 = networkingSystem.createLink(n2, n3, 2000, 0.02, 300);
+		Link l13 = networkingSystem.createLink(n1, n3, 3000, 0.03, 400);
+
+		CompactTopology topology = CompactTopology.build(controller, network);
+		assertEquals(3, topology.getNumberOfNodes());
+		assertEquals(3, topology.getNumberOfLinks());
+		assertEquals(4, topology.getNumberOfQueues());
+		assertFalse(network.isQueueGraphMaterialized());
+
+		int i1 = topology.getNodeIndex(n1);
+		int i2 = topology.getNodeIndex(n2);
+		int i3 = topology.getNodeIndex(n3);
+		assertSame(n2, topology.getNode(i2));
+		assertEquals(i3, topology.getNodeIndex(n3.getQueueNode()));
+		assertEquals(2, topology.getOutDegree(i1));
+		assertEquals(1, topology.getOutDegree(i2));
+		assertEquals(0, topology.getOutDegree(i3));
+		assertEquals(3, topology.getFirstLink(topology.getNumberOfNodes()));
+
+		for(int n = 0; n < topology.getNumberOfNodes(); n++)
+			for(int l = topology.getFirstLink(n); l < topology.getFirstLink(n + 1); l++)
+				assertEquals(n, topology.getSource(l));
+
+		int l = topology.getLinkIndex(l12);
+		assertSame(l12, topology.getLink(l));
+		assertSame(l12.getLinkEdge(), topology.getLinkEdge(l));
+		assertEquals(i2, topology.getDestination(l));
+		assertEquals(1000, topology.getRate(l), 0);
+		assertEquals(0.01, topology.getDelay(l), 0);
+		assertEquals(2, topology.getNumberOfQueues(l));
+		int q = topology.getFirstQueue(l) + 1;
+		assertEquals(l, topology.getQueueLink(q));
+		assertEquals(1, topology.getQueuePosition(q));
+		assertEquals(200, topology.getQueueSize(q), 0);
+
+		l = topology.getLinkIndex(l23);
+		assertEquals(0.02, topology.getDelay(l), 0);
+		assertEquals(300, topology.getQueueSize(topology.getFirstQueue(l)), 0);
+		assertEquals(3000, topology.getRate(topology.getLinkIndex(l13)), 0);
+
+		// Queue-level Edges are created on demand.
+		assertSame(l12.getQueueEdges()[1], topology.getQueueEdge(q));
+	}
+}
@@ -0,0 +1,134 @@
+package de.tum.ei.lkn.eces.network.events;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the topology change events.
+ *
+ * @author Amaury Van Bemten
+ */
+public class NetworkEventDispatcherTest {
+	@Test
+	public void testNetworkingSystemEvents() throws InterruptedException {
+		Controller controller = new Controller();
+		NetworkingSystem networkingSystem = new NetworkingSystem(controller);
+		List<NetworkEvent> received = Collections.synchronizedList(new ArrayList<>());
+		networkingSystem.addEventListener(received::addAll);
+
+		Network network = networkingSystem.createNetwork();
+		NetworkNode s = networkingSystem.createNode(network, "s");
+		Host host = networkingSystem.createHost(network, "h");
+		NetworkInterface ifc = new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1");
+		NetworkNode ifcNode = networkingSystem.addInterface(host, ifc);
+		Link link = networkingSystem.createLink(ifcNode, s, 1e6, 0.001, 10000);
+		networkingSystem.deleteHost(host);
+		networkingSystem.getEventDispatcher().flush();
+
+		List<NetworkEventType> types = new ArrayList<>();
+		for(NetworkEvent event : received)
+			types.add(event.getType());
+		assertEquals(Arrays.asList(
+				NetworkEventType.NETWORK_CREATED,
+				NetworkEventType.NODE_CREATED,
+				NetworkEventType.HOST_CREATED,
+				NetworkEventType.NODE_CREATED,
+				NetworkEventType.INTERFACE_ADDED,
+				NetworkEventType.LINK_CREATED,
+				NetworkEventType.INTERFACE_REMOVED,
+				NetworkEventType.LINK_DELETED,
+				NetworkEventType.NODE_DELETED,
+				NetworkEventType.HOST_DELETED), types);
+		assertSame(s, received.get(1).getNode());
+		assertSame(ifc, received.get(4).getNetworkInterface());
+		assertSame(ifcNode, received.get(4).getNode());
+		assertSame(link, received.get(5).getLink());
+		assertSame(network, received.get(9).getNetwork());
+
+		// No events for an operation whose deferred updates fail.
+		Host other = networkingSystem.createHost(network, "h2");
+		networkingSystem.addInterface(other, new NetworkInterface("eth0", "00:00:00:00:00:02", "10.0.0.2"));
+		try {
+			networkingSystem.addInterface(other, new NetworkInterface("eth1", "00:00:00:00:00:03", "10.0.0.2"));
+			fail("Duplicate IP address");
+		} catch(NetworkException e) {
+			// expected
+		}
+		networkingSystem.getEventDispatcher().flush();
+		assertEquals(13, received.size());
+		assertEquals(NetworkEventType.INTERFACE_ADDED, received.get(12).getType());
+
+		// The events of a transaction are dropped on rollback.
+		try(NetworkTransaction transaction = networkingSystem.beginTransaction(network)) {
+			transaction.createNode("rolled back");
+		}
+		try(NetworkTransaction transaction = networkingSystem.beginTransaction(network)) {
+			transaction.createNode("committed");
+			transaction.commit();
+		}
+		networkingSystem.getEventDispatcher().flush();
+		assertEquals(14, received.size());
+		assertEquals("committed", received.get(13).getNode().getName());
+
+		// Updates of the delay and weights of a Link.
+		Link wfq = networkingSystem.createLinkWithWFQScheduling(s, received.get(13).getNode(), 1e6, 0.001, new double[]{1000, 1000}, new double[]{1, 1});
+		networkingSystem.setDelay(wfq, 0.002);
+		networkingSystem.setWeights(wfq, new double[]{1, 3});
+		try {
+			networkingSystem.setWeights(wfq, new double[]{1});
+			fail("One weight per queue");
+		} catch(NetworkException e) {
+			// expected
+		}
+		networkingSystem.getEventDispatcher().flush();
+		assertEquals(17, received.size());
+		assertEquals(NetworkEventType.LINK_UPDATED, received.get(15).getType());
+		assertSame(wfq, received.get(15).getLink());
+		assertEquals(NetworkEventType.LINK_UPDATED, received.get(16).getType());
+	}
+
+	@Test
+	public void testConcurrentPublishing() throws InterruptedException {
+		NetworkEventDispatcher dispatcher = new NetworkEventDispatcher(16);
+		List<NetworkEvent> received = Collections.synchronizedList(new ArrayList<>());
+		dispatcher.addListener(received::addAll);
+
+		NetworkEvent event = NetworkEvent.network(true, null);
+		Thread[] threads = new Thread[4];
+		for(int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for(int i = 0; i < 10000; i++)
+					dispatcher.publish(event);
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		// Held back events are published when the outermost Scope is closed.
+		try(NetworkEventDispatcher.Scope outer = dispatcher.open()) {
+			try(NetworkEventDispatcher.Scope inner = dispatcher.open()) {
+				dispatcher.publish(event);
+			}
+			try(NetworkEventDispatcher.Scope discarded = dispatcher.open()) {
+				dispatcher.publish(event);
+				discarded.discard();
+			}
+			dispatcher.flush();
+			assertEquals(40000, received.size());
+		}
+		dispatcher.flush();
+		assertEquals(40001, received.size());
+		dispatcher.close();
+	}
+}
@@ -0,0 +1,120 @@
+package de.tum.ei.lkn.eces.network.generators;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.graph.Node;
+import de.tum.ei.lkn.eces.network.Host;
+import de.tum.ei.lkn.eces.network.Network;
+import de.tum.ei.lkn.eces.network.NetworkingSystem;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the topology generators.
+ *
+ * @author Amaury Van Bemten
+ */
+public class TopologyGeneratorTest {
+	private NetworkingSystem networkingSystem;
+
+	@Before
+	public void setUp() {
+		networkingSystem = new NetworkingSystem(new Controller());
+	}
+
+	@Test
+	public void testFatTree() {
+		for(int parallelism : new int[]{1, 4}) {
+			Network network = networkingSystem.createNetwork();
+			FatTreeGenerator generator = new FatTreeGenerator(networkingSystem, 4);
+			generator.setParallelism(parallelism);
+			GeneratedTopology topology = generator.generate(network);
+
+			// 4 core, 8 aggregation, 8 edge switches and 16 hosts.
+			assertEquals(20, topology.getSwitches().size());
+			assertEquals(16, topology.getHosts().size());
+			assertEquals(36, network.getLinkGraph().getNodes().size());
+			assertEquals(36, network.getQueueGraph().getNodes().size());
+			// 16 edge-agg, 16 agg-core and 16 host connections, bidirectional.
+			assertEquals(96, network.getLinkGraph().getEdges().size());
+			assertEquals(96, network.getQueueGraph().getEdges().size());
+			checkHosts(network, topology);
+			for(Node node : network.getLinkGraph().getNodes())
+				assertEquals(node.getOutgoingConnections().size(), node.getIncomingConnections().size());
+		}
+	}
+
+	@Test
+	public void testLeafSpine() {
+		Network network = networkingSystem.createNetwork();
+		LeafSpineGenerator generator = new LeafSpineGenerator(networkingSystem, 6, 3, 2);
+		generator.setLinkParameters(1.25e9, 1e-6, new double[]{1000, 2000});
+		GeneratedTopology topology = generator.generate(network);
+
+		assertEquals(9, topology.getSwitches().size());
+		assertEquals(12, topology.getHosts().size());
+		assertEquals(2 * (6 * 3 + 12), network.getLinkGraph().getEdges().size());
+		assertEquals(2 * (2 * 6 * 3 + 12), network.getQueueGraph().getEdges().size());
+		checkHosts(network, topology);
+	}
+
+	@Test
+	public void testTorus() {
+		Network network = networkingSystem.createNetwork();
+		GeneratedTopology topology = new TorusGenerator(networkingSystem, 1, 3, 4, 2).generate(network);
+
+		assertEquals(24, topology.getSwitches().size());
+		// Each switch has degree 2 + 2 + 1 (the last dimension has size 2).
+		for(int i = 0; i < topology.getSwitches().size(); i++)
+			assertEquals(6, topology.getSwitches().get(i).getLinkNode().getOutgoingConnections().size());
+		checkHosts(network, topology);
+	}
+
+	@Test
+	public void testDragonfly() {
+		Network network = networkingSystem.createNetwork();
+		GeneratedTopology topology = new DragonflyGenerator(networkingSystem, 4, 2, 2).generate(network);
+
+		// 9 groups of 4 routers.
+		assertEquals(36, topology.getSwitches().size());
+		assertEquals(72, topology.getHosts().size());
+		// 3 local, 2 global and 2 host connections per router.
+		for(int i = 0; i < topology.getSwitches().size(); i++)
+			assertEquals(7, topology.getSwitches().get(i).getLinkNode().getOutgoingConnections().size());
+		checkHosts(network, topology);
+	}
+
+	@Test
+	public void testRandomRegular() {
+		Network network = networkingSystem.createNetwork();
+		GeneratedTopology topology = new RandomRegularGenerator(networkingSystem, 100, 5, 0, 42).generate(network);
+
+		assertEquals(100, topology.getSwitches().size());
+		assertEquals(500, network.getLinkGraph().getEdges().size());
+		for(int i = 0; i < topology.getSwitches().size(); i++) {
+			Set<Node> neighbors = new HashSet<>();
+			topology.getSwitches().get(i).getLinkNode().getOutgoingConnections().forEach(edge -> neighbors.add(edge.getDestination()));
+			assertEquals("Switches should have 5 distinct neighbors", 5, neighbors.size());
+			assertFalse(neighbors.contains(topology.getSwitches().get(i).getLinkNode()));
+		}
+	}
+
+	private void checkHosts(Network network, GeneratedTopology topology) {
+		assertEquals(topology.getHosts().size(), network.getHosts().size());
+		for(int i = 0; i < topology.getHosts().size(); i++) {
+			Host host = topology.getHosts().get(i);
+			assertEquals("h" + i, host.getName());
+			NetworkInterface ifc = host.getInterfaces().iterator().next();
+			assertTrue(networkingSystem.isAHost(network, host.getNetworkNode(ifc).getLinkNode()));
+			assertEquals(1, host.getNetworkNode(ifc).getLinkNode().getOutgoingConnections().size());
+			assertEquals(1, host.getNetworkNode(ifc).getLinkNode().getIncomingConnections().size());
+		}
+		assertEquals("10.0.0.1", topology.getHosts().get(0).getInterfaces().iterator().next().getIPAddress().toString());
+		assertEquals("02:00:00:00:00:01", topology.getHosts().get(0).getInterfaces().iterator().next().getMACAddress().toString());
+	}
+}
@@ -0,0 +1,113 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.mappers.DelayMapper;
+import de.tum.ei.lkn.eces.network.mappers.RateMapper;
+import de.tum.ei.lkn.eces.network.mappers.SchedulerMapper;
+import de.tum.ei.lkn.eces.network.util.NetworkInterface;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the binary snapshots.
+ *
+ * @author Amaury Van Bemten
+ */
+public class NetworkSnapshotTest {
+	private NetworkingSystem networkingSystem;
+	private NetworkSnapshot snapshot;
+	private RateMapper rateMapper;
+	private DelayMapper delayMapper;
+	private SchedulerMapper schedulerMapper;
+
+	@Before
+	public void setUp() {
+		Controller controller = new Controller();
+		networkingSystem = new NetworkingSystem(controller);
+		snapshot = new NetworkSnapshot(controller, networkingSystem);
+		rateMapper = new RateMapper(controller);
+		delayMapper = new DelayMapper(controller);
+		schedulerMapper = new SchedulerMapper(controller);
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		Network network = networkingSystem.createNetwork();
+		NetworkNode n1 = networkingSystem.createNode(network, "n1");
+		NetworkNode n2 = networkingSystem.createNode(network, "n2");
+		networkingSystem.createNode(network);
+		Host host = networkingSystem.createHost(network, "h1");
+		NetworkNode h1 = networkingSystem.addInterface(host, new NetworkInterface("eth0", "00:00:00:00:00:01", "10.0.0.1"));
+		networkingSystem.addInterface(host, new NetworkInterface("eth1", "00:00:00:00:00:02"));
+		networkingSystem.createLink(n1, n2, 1000, 0.01, 1500);
+		networkingSystem.createLinkWithPriorityScheduling(n2, n1, Double.POSITIVE_INFINITY, 0.02, new double[]{1500, Double.POSITIVE_INFINITY});
+		networkingSystem.createLinkWithWFQScheduling(h1, n1, 2000, 0.03, new double[]{100, 200}, new double[]{1, 3});
+
+		Path file = Files.createTempFile("network", ".snapshot");
+		try {
+			snapshot.save(network, file);
+			Network loaded = snapshot.load(file);
+
+			assertEquals(5, loaded.getLinkGraph().getNodes().size());
+			assertEquals(5, loaded.getQueueGraph().getNodes().size());
+			assertEquals(3, loaded.getLinkGraph().getEdges().size());
+			assertEquals(5, loaded.getQueueGraph().getEdges().size());
+			assertEquals(1, loaded.getHosts().size());
+			Host loadedHost = loaded.getHosts().iterator().next();
+			assertEquals("h1", loadedHost.getName());
+			assertEquals(describe(host), describe(loadedHost));
+
+			Map<String, Edge> edges = new HashMap<>();
+			for(Edge edge : loaded.getLinkGraph().getEdges())
+				edges.put(edge.getSource().getName() + "->" + edge.getDestination().getName(), edge);
+
+			Edge edge = edges.get("n1->n2");
+			assertEquals(1000, rateMapper.get(edge.getEntity()).getRate(), 1e-9);
+			assertEquals(0.01, delayMapper.get(edge.getEntity()).getDelay(), 1e-12);
+			assertEquals(Scheduler.class, schedulerMapper.get(edge.getEntity()).getClass());
+
+			edge = edges.get("n2->n1");
+			assertTrue(Double.isInfinite(rateMapper.get(edge.getEntity()).getRate()));
+			assertTrue(schedulerMapper.get(edge.getEntity()) instanceof PriorityScheduler);
+			assertTrue(Double.isInfinite(schedulerMapper.get(edge.getEntity()).getQueues()[1].getSize()));
+
+			edge = edges.get("h1:eth0->n1");
+			assertTrue(networkingSystem.isAHost(loaded, edge.getSource()));
+			WFQScheduler scheduler = (WFQScheduler) schedulerMapper.get(edge.getEntity());
+			assertArrayEquals(new double[]{1, 3}, scheduler.getWeights(), 0);
+			assertEquals(200, scheduler.getQueues()[1].getSize(), 0);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException {
+		Path file = Files.createTempFile("network", ".snapshot");
+		try {
+			Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+			snapshot.load(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private Set<String> describe(Host host) {
+		Set<String> interfaces = new HashSet<>();
+		for(NetworkInterface ifc : host.getInterfaces())
+			interfaces.add(ifc.getName() + " " + ifc.getMACAddress() + " " + ifc.getIPAddress());
+		return interfaces;
+	}
+}
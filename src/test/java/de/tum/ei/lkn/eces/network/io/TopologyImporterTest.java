@@ -0,0 +1,210 @@
+package de.tum.ei.lkn.eces.network.io;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.graph.Edge;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.exceptions.NetworkException;
+import de.tum.ei.lkn.eces.network.mappers.DelayMapper;
+import de.tum.ei.lkn.eces.network.mappers.RateMapper;
+import de.tum.ei.lkn.eces.network.mappers.SchedulerMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the topology importers and exporter.
+ *
+ * @author Amaury Van Bemten
+ */
+public class TopologyImporterTest {
+	private static final String JSON = "{\n" +
+			"  \"version\": {\"major\": 1, \"tags\": [true, null, \"x\"]},\n" +
+			"  \"nodes\": [{\"id\": \"s1\", \"name\": \"switch 1\"}, {\"name\": \"s2\"}, {\"id\": \"s3\"}],\n" +
+			"  \"hosts\": [{\"interfaces\": [{\"name\": \"eth0\", \"mac\": \"00:00:00:00:00:01\", \"ip\": \"10.0.0.1\"}], \"name\": \"h1\"},\n" +
+			"            {\"name\": \"h2\", \"interfaces\": [{\"id\": \"h2-eth0\", \"name\": \"eth0\", \"mac\": \"00:00:00:00:00:02\"}]}],\n" +
+			"  \"links\": [\n" +
+			"    {\"source\": \"s1\", \"destination\": \"s2\", \"rate\": 8000, \"delay\": 1.5, \"scheduler\": {\"queues\": [{\"size\": 1500}]}},\n" +
+			"    {\"source\": \"s2\", \"destination\": \"s1\", \"rate\": \"infinite\", \"delay\": 0, \"scheduler\": {\"type\": \"priority\", \"queues\": [{\"size\": 1500}, {\"size\": \"infinite\"}]}},\n" +
+			"    {\"source\": \"h1:eth0\", \"destination\": \"s1\", \"rate\": 8000, \"delay\": 1, \"scheduler\": {\"type\": \"wfq\", \"queues\": [{\"size\": 1}, {\"size\": 2}], \"weights\": [1, 3]}},\n" +
+			"    {\"source\": \"s1\", \"destination\": \"h1:eth0\", \"rate\": 8e3, \"delay\": 1, \"scheduler\": {\"queues\": [{\"size\": 1}]}},\n" +
+			"    {\"source\": \"s3\", \"destination\": \"h2-eth0\", \"rate\": 8000, \"delay\": 1, \"scheduler\": {\"queues\": [{\"size\": 1}]}, \"comment\": \"a \\\"quoted\\\" \\u00e9\"}\n" +
+			"  ]\n" +
+			"}";
+
+	private static final String GRAPHML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n" +
+			"  <key id=\"d0\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>\n" +
+			"  <key id=\"d1\" for=\"node\" attr.name=\"host\" attr.type=\"string\"/>\n" +
+			"  <key id=\"d2\" for=\"node\" attr.name=\"interface\" attr.type=\"string\"/>\n" +
+			"  <key id=\"d3\" for=\"node\" attr.name=\"mac\" attr.type=\"string\"/>\n" +
+			"  <key id=\"d4\" for=\"node\" attr.name=\"ip\" attr.type=\"string\"/>\n" +
+			"  <key id=\"d5\" for=\"edge\" attr.name=\"rate\" attr.type=\"double\"><default>8000</default></key>\n" +
+			"  <key id=\"d6\" for=\"edge\" attr.name=\"delay\" attr.type=\"double\"><default>1</default></key>\n" +
+			"  <key id=\"d7\" for=\"edge\" attr.name=\"queues\" attr.type=\"string\"/>\n" +
+			"  <key id=\"d8\" for=\"edge\" attr.name=\"scheduler\" attr.type=\"string\"/>\n" +
+			"  <key id=\"d9\" for=\"edge\" attr.name=\"weights\" attr.type=\"string\"/>\n" +
+			"  <graph id=\"G\" edgedefault=\"directed\">\n" +
+			"    <node id=\"s1\"><data key=\"d0\">switch 1</data></node>\n" +
+			"    <node id=\"s2\"/>\n" +
+			"    <node id=\"h1-eth0\"><data key=\"d1\">h1</data><data key=\"d2\">eth0</data><data key=\"d3\">00:00:00:00:00:01</data><data key=\"d4\">10.0.0.1</data></node>\n" +
+			"    <node id=\"h1-eth1\"><data key=\"d1\">h1</data><data key=\"d2\">eth1</data><data key=\"d3\">00:00:00:00:00:02</data></node>\n" +
+			"    <edge source=\"s1\" target=\"s2\"><data key=\"d7\">1500</data></edge>\n" +
+			"    <edge source=\"s2\" target=\"s1\"><data key=\"d5\">infinite</data><data key=\"d7\">1500, infinite</data><data key=\"d8\">priority</data></edge>\n" +
+			"    <edge source=\"h1-eth0\" target=\"s1\"><data key=\"d7\">1 2</data><data key=\"d8\">wfq</data><data key=\"d9\">1,3</data></edge>\n" +
+			"    <edge source=\"s1\" target=\"h1-eth1\"><data key=\"d7\">1</data></edge>\n" +
+			"  </graph>\n" +
+			"</graphml>";
+
+	private Controller controller;
+	private NetworkingSystem networkingSystem;
+	private RateMapper rateMapper;
+	private DelayMapper delayMapper;
+	private SchedulerMapper schedulerMapper;
+
+	@Before
+	public void setUp() {
+		controller = new Controller();
+		networkingSystem = new NetworkingSystem(controller);
+		rateMapper = new RateMapper(controller);
+		delayMapper = new DelayMapper(controller);
+		schedulerMapper = new SchedulerMapper(controller);
+	}
+
+	@Test
+	public void testJSON() throws IOException {
+		for(int chunkSize : new int[]{1, 2, TopologyImporter.DEFAULT_CHUNK_SIZE}) {
+			Network network = networkingSystem.createNetwork();
+			JSONTopologyImporter importer = new JSONTopologyImporter(networkingSystem);
+			importer.setChunkSize(chunkSize);
+			Map<String, NetworkNode> nodes = importer.importTopology(network, new StringReader(JSON));
+
+			assertEquals(5, nodes.size());
+			assertEquals("switch 1", nodes.get("s1").getLinkNode().getName());
+			assertEquals(2, network.getHosts().size());
+			assertTrue(networkingSystem.isAHost(network, nodes.get("h1:eth0").getLinkNode()));
+			for(Host host : network.getHosts())
+				assertEquals(1, host.getInterfaces().size());
+			assertEquals(5, network.getLinkGraph().getEdges().size());
+			assertEquals(7, network.getQueueGraph().getEdges().size());
+
+			Edge edge = getEdge(nodes.get("s1"), nodes.get("s2"));
+			assertEquals(1000000, rateMapper.get(edge.getEntity()).getRate(), 1e-6);
+			assertEquals(0.0015, delayMapper.get(edge.getEntity()).getDelay(), 1e-9);
+			assertEquals(1500, schedulerMapper.get(edge.getEntity()).getQueues()[0].getSize(), 1e-9);
+
+			Edge priorityEdge = getEdge(nodes.get("s2"), nodes.get("s1"));
+			assertTrue(Double.isInfinite(rateMapper.get(priorityEdge.getEntity()).getRate()));
+			assertTrue(schedulerMapper.get(priorityEdge.getEntity()) instanceof PriorityScheduler);
+			assertTrue(Double.isInfinite(schedulerMapper.get(priorityEdge.getEntity()).getQueues()[1].getSize()));
+
+			Scheduler wfq = schedulerMapper.get(getEdge(nodes.get("h1:eth0"), nodes.get("s1")).getEntity());
+			assertTrue(wfq instanceof WFQScheduler);
+			assertArrayEquals(new double[]{0.25, 0.75}, ((WFQScheduler) wfq).getNormalizedWeights(), 1e-9);
+		}
+	}
+
+	@Test
+	public void testGraphML() throws IOException {
+		Network network = networkingSystem.createNetwork();
+		GraphMLTopologyImporter importer = new GraphMLTopologyImporter(networkingSystem);
+		importer.setChunkSize(3);
+		Map<String, NetworkNode> nodes = importer.importTopology(network, new ByteArrayInputStream(GRAPHML.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(4, nodes.size());
+		assertEquals("switch 1", nodes.get("s1").getLinkNode().getName());
+		// Both interfaces belong to the same host although they are in different chunks.
+		assertEquals(1, network.getHosts().size());
+		assertEquals(2, network.getHosts().iterator().next().getInterfaces().size());
+		assertEquals(4, network.getLinkGraph().getEdges().size());
+		assertEquals(6, network.getQueueGraph().getEdges().size());
+
+		Edge edge = getEdge(nodes.get("s1"), nodes.get("s2"));
+		assertEquals(1000000, rateMapper.get(edge.getEntity()).getRate(), 1e-6);
+		assertEquals(0.001, delayMapper.get(edge.getEntity()).getDelay(), 1e-9);
+		assertTrue(schedulerMapper.get(getEdge(nodes.get("h1-eth0"), nodes.get("s1")).getEntity()) instanceof WFQScheduler);
+	}
+
+	@Test
+	public void testExportRoundTrip() throws IOException {
+		Network network = networkingSystem.createNetwork();
+		Map<String, NetworkNode> nodes = new JSONTopologyImporter(networkingSystem).importTopology(network, new StringReader(JSON));
+
+		StringWriter writer = new StringWriter();
+		new JSONTopologyExporter(controller).export(network, writer);
+		Network copy = networkingSystem.createNetwork();
+		Map<String, NetworkNode> copiedNodes = new JSONTopologyImporter(networkingSystem).importTopology(copy, new StringReader(writer.toString()));
+
+		assertEquals(nodes.size(), copiedNodes.size());
+		assertEquals(2, copy.getHosts().size());
+		assertEquals(5, copy.getLinkGraph().getEdges().size());
+		assertEquals(7, copy.getQueueGraph().getEdges().size());
+		for(Edge edge : copy.getLinkGraph().getEdges()) {
+			if(edge.getSource().getName().equals("switch 1") && edge.getDestination().getName().equals("s2")) {
+				assertEquals(1000000, rateMapper.get(edge.getEntity()).getRate(), 1e-6);
+				assertEquals(0.0015, delayMapper.get(edge.getEntity()).getDelay(), 1e-9);
+			}
+			if(edge.getSource().getName().equals("s2")) {
+				assertTrue(Double.isInfinite(rateMapper.get(edge.getEntity()).getRate()));
+				assertTrue(schedulerMapper.get(edge.getEntity()) instanceof PriorityScheduler);
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidDocuments() throws IOException {
+		JSONTopologyImporter importer = new JSONTopologyImporter(networkingSystem);
+		String[] malformed = {
+				"{\"nodes\": [{\"id\": \"a\"},]}",
+				"{\"nodes\": [{\"id\": \"a\"}]",
+				"{\"nodes\": [{\"id\" \"a\"}]}",
+				"{\"nodes\": []} x",
+				"{\"hosts\": [{\"name\": \"h\", \"interfaces\": [{\"id\": \"i\", \"name\": \"eth0\", \"mac\": \"00:11:22:33:44\"}]}]}",
+				"{\"hosts\": [{\"name\": \"h\", \"interfaces\": [{\"id\": \"i\", \"name\": \"eth0\", \"mac\": \"00:11:22:33:44:55\", \"ip\": \"10.0.0.256\"}]}]}"
+		};
+		for(String document : malformed) {
+			try {
+				importer.importTopology(networkingSystem.createNetwork(), new StringReader(document));
+				fail("Malformed document accepted: " + document);
+			} catch(IOException e) {
+				// expected
+			}
+		}
+
+		String graphML = GRAPHML.replace("00:00:00:00:00:02", "00:00:00:00:00:0g");
+		try {
+			new GraphMLTopologyImporter(networkingSystem).importTopology(networkingSystem.createNetwork(), new ByteArrayInputStream(graphML.getBytes(StandardCharsets.UTF_8)));
+			fail("Malformed MAC address accepted");
+		} catch(IOException e) {
+			// expected
+		}
+
+		String[] invalid = {
+				"{\"nodes\": [{\"id\": \"a\"}, {\"id\": \"a\"}]}",
+				"{\"nodes\": [{\"id\": \"a\"}], \"links\": [{\"source\": \"a\", \"destination\": \"b\", \"rate\": 1, \"delay\": 1, \"scheduler\": {\"queues\": [{\"size\": 1}]}}]}",
+				"{\"nodes\": [{\"id\": \"a\"}, {\"id\": \"b\"}], \"links\": [{\"source\": \"a\", \"destination\": \"b\", \"rate\": 1, \"delay\": 1, \"scheduler\": {\"type\": \"wfq\", \"queues\": [{\"size\": 1}]}}]}"
+		};
+		for(String document : invalid) {
+			try {
+				importer.importTopology(networkingSystem.createNetwork(), new StringReader(document));
+				fail("Invalid document accepted: " + document);
+			} catch(NetworkException e) {
+				// expected
+			}
+		}
+	}
+
+	private Edge getEdge(NetworkNode source, NetworkNode destination) {
+		for(Edge edge : source.getLinkNode().getOutgoingConnections())
+			if(edge.getDestination() == destination.getLinkNode())
+				return edge;
+		throw new AssertionError("No edge from " + source + " to " + destination);
+	}
+}
@@ -0,0 +1,85 @@
+package de.tum.ei.lkn.eces.network.routing;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.core.MapperSpace;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.mappers.DelayMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the all-pairs latency matrix.
+ *
+ * @author Amaury Van Bemten
+ */
+public class LatencyMatrixTest {
+	private Controller controller;
+	private NetworkingSystem networkingSystem;
+	private Network network;
+	private NetworkNode a, b, c, d, e;
+	private Link ab, cd;
+
+	@Before
+	public void setUp() {
+		controller = new Controller();
+		networkingSystem = new NetworkingSystem(controller);
+		network = networkingSystem.createNetwork();
+		a = networkingSystem.createNode(network, "a");
+		b = networkingSystem.createNode(network, "b");
+		c = networkingSystem.createNode(network, "c");
+		d = networkingSystem.createNode(network, "d");
+		e = networkingSystem.createNode(network, "e");
+		ab = networkingSystem.createLink(a, b, 1e9, 0.001, 1000);
+		networkingSystem.createLink(b, c, 1e9, 0.001, 1000);
+		cd = networkingSystem.createLink(c, d, 1e9, 0.001, 1000);
+	}
+
+	@Test
+	public void testMatrix() {
+		LatencyMatrix matrix = new LatencyMatrix(controller, network, new ForkJoinPool(2));
+		assertEquals(5, matrix.size());
+		assertEquals(0.003, matrix.getDelay(a, d), 1e-9);
+		assertEquals(3, matrix.getHops(a, d));
+		assertEquals(0, matrix.getDelay(a, a), 0);
+		assertEquals(0, matrix.getHops(a, a));
+		assertEquals(Float.POSITIVE_INFINITY, matrix.getDelay(d, a), 0);
+		assertEquals(-1, matrix.getHops(a, e));
+		assertSame(c, matrix.getNode(matrix.getIndex(c)));
+	}
+
+	@Test
+	public void testIncrementalRefresh() {
+		LatencyMatrix matrix = new LatencyMatrix(controller, network);
+		assertEquals(0, matrix.refresh());
+
+		// Only the row of a can use a new a->d Link.
+		networkingSystem.createLink(a, d, 1e9, 0.001, 1000);
+		assertEquals(1, matrix.refresh());
+		assertEquals(0.001, matrix.getDelay(a, d), 1e-9);
+		assertEquals(1, matrix.getHops(a, d));
+
+		// Only the row of a used a->b.
+		networkingSystem.deleteLink(ab);
+		assertEquals(1, matrix.refresh());
+		assertEquals(Float.POSITIVE_INFINITY, matrix.getDelay(a, b), 0);
+		assertEquals(-1, matrix.getHops(a, c));
+		assertEquals(0.002, matrix.getDelay(b, d), 1e-9);
+
+		try(MapperSpace ms = controller.startMapperSpace()) {
+			new DelayMapper(controller).get(cd.getLinkEdge().getEntity()).setDelay(0.0005);
+		}
+		assertTrue(matrix.refresh() > 0);
+		assertEquals(0.0015, matrix.getDelay(b, d), 1e-9);
+		assertEquals(0.001, matrix.getDelay(a, d), 1e-9);
+
+		// New Nodes: everything is recomputed.
+		networkingSystem.createNode(network, "f");
+		assertEquals(6, matrix.refresh());
+		assertEquals(6, matrix.size());
+		assertEquals(0.001, matrix.getDelay(a, d), 1e-9);
+	}
+}
@@ -0,0 +1,111 @@
+package de.tum.ei.lkn.eces.network.routing;
+
+import de.tum.ei.lkn.eces.core.Controller;
+import de.tum.ei.lkn.eces.network.*;
+import de.tum.ei.lkn.eces.network.compact.CompactTopology;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the shortest-path engine.
+ *
+ * @author Amaury Van Bemten
+ */
+public class ShortestPathEngineTest {
+	private Controller controller;
+	private NetworkingSystem networkingSystem;
+	private Network network;
+	private NetworkNode a, b, c, d, e;
+	private Link ab, bd, ac, cd, ad;
+
+	@Before
+	public void setUp() {
+		controller = new Controller();
+		networkingSystem = new NetworkingSystem(controller);
+		network = networkingSystem.createNetwork();
+		a = networkingSystem.createNode(network, "a");
+		b = networkingSystem.createNode(network, "b");
+		c = networkingSystem.createNode(network, "c");
+		d = networkingSystem.createNode(network, "d");
+		e = networkingSystem.createNode(network, "e");
+		// For 1000-byte packets, a->b->d: 2 ms + 2 ms, a->c->d: 1 ms + 4 ms and
+		// a->d: 9 ms + 1 s (slow link).
+		ab = networkingSystem.createLinkWithPriorityScheduling(a, b, 1e6, 0.001, new double[]{1000, 1000});
+		bd = networkingSystem.createLinkWithPriorityScheduling(b, d, 1e6, 0.001, new double[]{1000, 1000});
+		ac = networkingSystem.createLink(a, c, 1e9, 0.001, 1000);
+		cd = networkingSystem.createLink(c, d, 1e9, 0.004, 1000);
+		ad = networkingSystem.createLink(a, d, 1e3, 0.009, 1000);
+		networkingSystem.createLink(d, a, 1e9, 0.001, 1000);
+	}
+
+	@Test
+	public void testShortestPath() {
+		CompactTopology topology = CompactTopology.build(controller, network);
+		ShortestPathEngine engine = new ShortestPathEngine(topology, 1000);
+
+		Path path = engine.getShortestPath(a, d);
+		assertArrayEquals(new Link[]{ab, bd}, path.getLinks());
+		assertArrayEquals(new NetworkNode[]{a, b, d}, path.getNodes());
+		assertEquals(0.004, path.getWeight(), 1e-12);
+		assertSame(ab.getQueueEdges()[0], path.getQueueEdges()[0]);
+
+		int[] links = new int[4];
+		assertEquals(2, engine.getShortestPath(topology.getNodeIndex(a), topology.getNodeIndex(d), links));
+		assertSame(bd, topology.getLink(links[1]));
+		assertEquals(0.004, engine.getDistance(topology.getNodeIndex(a), topology.getNodeIndex(d)), 1e-12);
+		assertNull(engine.getShortestPath(a, e));
+		assertEquals(0, engine.getShortestPath(a, a).getNumberOfHops());
+
+		// Without transmission times, only the delays count.
+		assertEquals(0.001, new ShortestPathEngine(topology, 0).getShortestPath(a, b).getWeight(), 1e-12);
+	}
+
+	@Test
+	public void testQueueRestriction() {
+		CompactTopology topology = CompactTopology.build(controller, network);
+		ShortestPathEngine engine = new ShortestPathEngine(topology, 1000, 1);
+		Path path = engine.getShortestPath(a, d);
+		assertArrayEquals(new Link[]{ab, bd}, path.getLinks());
+		assertSame(bd.getQueueEdges()[1], path.getQueueEdges()[1]);
+		assertNull(engine.getShortestPath(a, c));
+		assertEquals(Double.POSITIVE_INFINITY, engine.getWeight(topology.getLinkIndex(ac)), 0);
+	}
+
+	@Test
+	public void testTree() {
+		CompactTopology topology = CompactTopology.build(controller, network);
+		ShortestPathEngine engine = new ShortestPathEngine(topology, 1000);
+		engine.computeTree(topology.getNodeIndex(a));
+		assertEquals(0, engine.getTreeDistance(topology.getNodeIndex(a)), 0);
+		assertEquals(0.001 + 1e-6, engine.getTreeDistance(topology.getNodeIndex(c)), 1e-12);
+		assertEquals(topology.getLinkIndex(bd), engine.getTreePredecessor(topology.getNodeIndex(d)));
+		assertEquals(-1, engine.getTreePredecessor(topology.getNodeIndex(e)));
+		assertEquals(Double.POSITIVE_INFINITY, engine.getTreeDistance(topology.getNodeIndex(e)), 0);
+		assertArrayEquals(new Link[]{ac}, engine.getTreePath(topology.getNodeIndex(c)).getLinks());
+
+		engine.getDistance(0, 1);
+		try {
+			engine.getTreeDistance(0);
+			fail("The tree should have been invalidated");
+		} catch(IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testKShortestPaths() {
+		CompactTopology topology = CompactTopology.build(controller, network);
+		ShortestPathEngine engine = new ShortestPathEngine(topology, 1000);
+		List<Path> paths = engine.getKShortestPaths(topology.getNodeIndex(a), topology.getNodeIndex(d), 5);
+		assertEquals(3, paths.size());
+		assertArrayEquals(new Link[]{ab, bd}, paths.get(0).getLinks());
+		assertArrayEquals(new Link[]{ac, cd}, paths.get(1).getLinks());
+		assertArrayEquals(new Link[]{ad}, paths.get(2).getLinks());
+		assertEquals(2, engine.getKShortestPaths(topology.getNodeIndex(a), topology.getNodeIndex(d), 2).size());
+		assertTrue(engine.getKShortestPaths(topology.getNodeIndex(a), topology.getNodeIndex(e), 3).isEmpty());
+	}
+}
@@ -0,0 +1,61 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the address pools.
+ *
+ * @author Amaury Van Bemten
+ */
+public class AddressPoolTest {
+	@Test
+	public void testIPv4Blocks() {
+		AddressPool pool = new AddressPool()
+				.addIPv4Block(IPv4Address.valueOf("10.0.0.0"), 24)
+				.addIPv4Block(IPv4Address.valueOf("10.0.1.0"), 31);
+		assertEquals(256, pool.getFreeIPv4Count());
+		assertTrue(pool.reserve(IPAddress.valueOf("10.0.0.1")));
+		assertFalse(pool.reserve(IPAddress.valueOf("10.0.0.1")));
+		assertFalse(pool.reserve(IPAddress.valueOf("10.0.0.0")));
+		assertFalse(pool.reserve(IPAddress.valueOf("11.0.0.1")));
+
+		Set<IPv4Address> allocated = new HashSet<>();
+		IPv4Address ip;
+		while((ip = pool.allocateIPv4()) != null)
+			assertTrue(allocated.add(ip));
+		assertEquals(255, allocated.size());
+		assertTrue(allocated.contains(IPv4Address.valueOf("10.0.1.1")));
+		assertFalse(allocated.contains(IPv4Address.valueOf("10.0.0.255")));
+		assertEquals(0, pool.getFreeIPv4Count());
+
+		assertTrue(pool.release(IPAddress.valueOf("10.0.0.77")));
+		assertFalse(pool.release(IPAddress.valueOf("10.0.0.77")));
+		assertEquals(IPv4Address.valueOf("10.0.0.77"), pool.allocateIPv4());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOverlappingBlocks() {
+		new AddressPool().addIPv4Block(IPv4Address.valueOf("10.0.0.0"), 16).addIPv4Block(IPv4Address.valueOf("10.0.3.0"), 24);
+	}
+
+	@Test
+	public void testMACRange() {
+		AddressPool pool = new AddressPool().setMACRange(0x0a1b2c);
+		assertEquals(1 << 24, pool.getFreeMACCount());
+		assertTrue(pool.reserve(MACAddress.valueOf("0a:1b:2c:00:00:00")));
+		assertEquals(MACAddress.valueOf("0a:1b:2c:00:00:01"), pool.allocateMAC());
+		assertFalse(pool.reserve(MACAddress.valueOf("0a:1b:2d:00:00:00")));
+
+		pool.setMACRange(MACAddress.valueOf("00:00:00:00:00:fe"), 130);
+		for(int i = 0; i < 130; i++)
+			assertNotNull(pool.allocateMAC());
+		assertNull(pool.allocateMAC());
+		assertTrue(pool.release(MACAddress.valueOf("00:00:00:00:01:7f")));
+		assertEquals(MACAddress.valueOf("00:00:00:00:01:7f"), pool.allocateMAC());
+	}
+}
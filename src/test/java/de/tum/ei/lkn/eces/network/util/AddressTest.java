@@ -0,0 +1,99 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the Addresses.
+ *
+ * @author Amaury Van Bemten
+ */
+public class AddressTest {
+	@Test
+	public void testMACAddress() {
+		MACAddress mac = MACAddress.valueOf("0a:1B:2c:3d:4e:ff");
+		assertEquals(0x0a1b2c3d4effL, mac.toLong());
+		assertEquals("0A:1B:2C:3D:4E:FF", mac.toString());
+		assertArrayEquals(new byte[]{0x0a, 0x1b, 0x2c, 0x3d, 0x4e, (byte) 0xff}, mac.toBytes());
+		assertEquals(mac, MACAddress.valueOf(mac.toBytes()));
+		assertEquals(mac, MACAddress.valueOf(0x0a1b2c3d4effL));
+		assertEquals(mac.hashCode(), MACAddress.valueOf(0x0a1b2c3d4effL).hashCode());
+		assertNotEquals(mac, MACAddress.valueOf(0x0a1b2c3d4efeL));
+		assertEquals(6, mac.getLength());
+
+		assertTrue(MACAddress.valueOf("ff:ff:ff:ff:ff:ff").isBroadcast());
+		assertFalse(MACAddress.valueOf("ff:ff:ff:ff:ff:ff").isMulticast());
+		assertTrue(MACAddress.valueOf("01:00:5e:00:00:01").isMulticast());
+		assertFalse(mac.isMulticast());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMACValue() {
+		MACAddress.valueOf(1L << 48);
+	}
+
+	@Test
+	public void testIPv4Address() {
+		IPv4Address ip = IPv4Address.valueOf("192.168.0.254");
+		assertEquals(0xc0a800fe, ip.toInt());
+		assertEquals("192.168.0.254", ip.toString());
+		assertArrayEquals(new byte[]{(byte) 192, (byte) 168, 0, (byte) 254}, ip.toBytes());
+		assertEquals(ip, IPAddress.valueOf(ip.toBytes()));
+		assertEquals(ip, IPv4Address.valueOf(0xc0a800fe));
+		assertEquals(ip.hashCode(), IPv4Address.valueOf(0xc0a800fe).hashCode());
+		assertNotEquals(ip, IPAddress.valueOf("::c0a8:fe"));
+		assertNotEquals(IPAddress.valueOf("::c0a8:fe"), ip);
+	}
+
+	@Test
+	public void testInterner() {
+		AddressInterner<MACAddress> interner = new AddressInterner<>();
+		MACAddress mac = interner.intern(MACAddress.valueOf(42));
+		assertSame(mac, interner.intern(MACAddress.valueOf("00:00:00:00:00:2a")));
+		assertEquals(1, interner.size());
+		interner.clear();
+		assertEquals(0, interner.size());
+	}
+
+	@Test
+	public void testParser() {
+		assertEquals(0x0a000001L, AddressParser.parseIPv4("10.0.0.1"));
+		assertEquals(0xffffffffL, AddressParser.parseIPv4("255.255.255.255"));
+		assertEquals(0x0a000101L, AddressParser.parseIPv4("10.257"));
+		assertEquals(0x7f000001L, AddressParser.parseIPv4("2130706433"));
+		assertEquals(0x0a000001L, AddressParser.parseIPv4("ip 10.0.0.1;", 3, 11));
+		assertEquals(-1, AddressParser.parseIPv4("10.0.0.256"));
+		assertEquals(-1, AddressParser.parseIPv4("10..0.1"));
+		assertEquals(-1, AddressParser.parseIPv4("10.0.0.1."));
+		assertEquals(-1, AddressParser.parseIPv4("1.2.3.4.5"));
+		assertEquals(-1, AddressParser.parseIPv4(""));
+
+		assertEquals(0x0a1b2c3d4effL, AddressParser.parseMAC("0a:1B:2c:3d:4e:ff"));
+		assertEquals(0x010203040506L, AddressParser.parseMAC("1:2:3:4:5:6"));
+		assertEquals(-1, AddressParser.parseMAC("0a:1b:2c:3d:4e"));
+		assertEquals(-1, AddressParser.parseMAC("0a:1b:2c:3d:4e:ff:00"));
+		assertEquals(-1, AddressParser.parseMAC("0a:1b:2c:3d:4e:fff"));
+		assertEquals(-1, AddressParser.parseMAC("0a:1b::3d:4e:ff"));
+
+		byte[] dst = new byte[16];
+		for(String ip : new String[]{"::", "::1", "fe80::1%eth0", "2001:db8::ff00:42:8329", "1:2:3:4:5:6:7:8", "::1.2.3.4"}) {
+			assertEquals(16, AddressParser.parseIPv6(ip, dst));
+			assertArrayEquals(IPAddressUtil.textToNumericFormatV6(ip), dst);
+		}
+		assertEquals(4, AddressParser.parseIPv6("::ffff:10.0.0.1", dst));
+		assertEquals(IPAddress.valueOf("10.0.0.1"), IPAddress.valueOf("::ffff:10.0.0.1"));
+		for(String ip : new String[]{":", ":1", "1:2:3:4:5:6:7:8:9", "1::2::3", "1:", "12345::", "::1.2.3", "fe80::1%"})
+			assertEquals(-1, AddressParser.parseIPv6(ip, dst));
+
+		ByteBuffer buffer = ByteBuffer.wrap("x 10.0.0.1 2001:db8::1 0a:1b:2c:3d:4e:ff".getBytes(StandardCharsets.US_ASCII));
+		assertEquals(0x0a000001L, AddressParser.parseIPv4(buffer, 2, 10));
+		assertEquals(16, AddressParser.parseIPv6(buffer, 11, 22, dst));
+		assertArrayEquals(IPAddress.valueOf("2001:db8::1").toBytes(), dst);
+		assertEquals(0x0a1b2c3d4effL, AddressParser.parseMAC(buffer, 23, 40));
+		assertEquals(0, buffer.position());
+	}
+}
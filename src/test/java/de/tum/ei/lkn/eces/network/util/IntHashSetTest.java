@@ -0,0 +1,42 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the primitive int set.
+ *
+ * @author Amaury Van Bemten
+ */
+public class IntHashSetTest {
+	@Test
+	public void testAgainstHashSet() {
+		Random random = new Random(42);
+		IntHashSet set = new IntHashSet();
+		Set<Integer> reference = new HashSet<>();
+		for(int i = 0; i < 100000; i++) {
+			int value = random.nextInt(512) - 16;
+			if(random.nextInt(3) == 0)
+				assertEquals(reference.remove(value), set.remove(value));
+			else
+				assertEquals(reference.add(value), set.add(value));
+			assertEquals(reference.size(), set.size());
+		}
+		for(int value = -16; value < 496; value++)
+			assertEquals(reference.contains(value), set.contains(value));
+
+		int[] elements = set.toArray();
+		Arrays.sort(elements);
+		assertArrayEquals(reference.stream().mapToInt(Integer::intValue).sorted().toArray(), elements);
+
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+	}
+}
@@ -0,0 +1,69 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the lock stripes granted in the order of tickets.
+ *
+ * @author Amaury Van Bemten
+ */
+public class OrderedLockStripesTest {
+	@Test
+	public void testTicketOrder() throws InterruptedException {
+		OrderedLockStripes locks = new OrderedLockStripes(16);
+		assertArrayEquals(locks.getStripes(new long[]{42}), locks.getStripes(new long[]{42, 42}));
+		int[] shared = locks.getStripes(new long[]{1});
+		List<Long> order = Collections.synchronizedList(new ArrayList<>());
+
+		long first = locks.nextTicket();
+		long second = locks.nextTicket();
+		long third = locks.nextTicket();
+		locks.lock(first, shared);
+
+		// The third ticket waits before the second one but gets the stripe after it.
+		Thread late = lockAndRecord(locks, third, shared, order);
+		waitUntilWaiting(late);
+		Thread early = lockAndRecord(locks, second, shared, order);
+		waitUntilWaiting(early);
+
+		// Disjoint stripes are not ordered.
+		int[] other = {(shared[0] + 1) % 16};
+		locks.lock(locks.nextTicket(), other);
+		locks.unlock(other);
+
+		order.add(first);
+		locks.unlock(shared);
+		early.join();
+		late.join();
+		assertEquals(3, order.size());
+		assertEquals(first, (long) order.get(0));
+		assertEquals(second, (long) order.get(1));
+		assertEquals(third, (long) order.get(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCount() {
+		new OrderedLockStripes(12);
+	}
+
+	private static Thread lockAndRecord(OrderedLockStripes locks, long ticket, int[] stripes, List<Long> order) {
+		Thread thread = new Thread(() -> {
+			locks.lock(ticket, stripes);
+			order.add(ticket);
+			locks.unlock(stripes);
+		});
+		thread.start();
+		return thread;
+	}
+
+	private static void waitUntilWaiting(Thread thread) throws InterruptedException {
+		while(thread.getState() != Thread.State.WAITING)
+			Thread.sleep(1);
+	}
+}
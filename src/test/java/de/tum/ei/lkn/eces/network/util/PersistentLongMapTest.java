@@ -0,0 +1,53 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the persistent long map.
+ *
+ * @author Amaury Van Bemten
+ */
+public class PersistentLongMapTest {
+	@Test
+	public void testAgainstHashMap() {
+		Random random = new Random(42);
+		PersistentLongMap<Integer> map = PersistentLongMap.empty();
+		Map<Long, Integer> reference = new HashMap<>();
+		PersistentLongMap<Integer> old = null;
+		Map<Long, Integer> oldReference = null;
+		for(int i = 0; i < 100000; i++) {
+			long key = random.nextInt(2048) - 64;
+			if(random.nextInt(3) == 0) {
+				map = map.without(key);
+				reference.remove(key);
+			}
+			else {
+				map = map.with(key, i);
+				reference.put(key, i);
+			}
+			assertEquals(reference.size(), map.size());
+			if(i == 50000) {
+				old = map;
+				oldReference = new HashMap<>(reference);
+			}
+		}
+		for(long key = -64; key < 1984; key++) {
+			assertEquals(reference.get(key), map.get(key));
+			assertEquals("Older versions are not modified", oldReference.get(key), old.get(key));
+		}
+		int[] count = new int[1];
+		map.forEachValue(value -> count[0]++);
+		assertEquals(reference.size(), count[0]);
+
+		PersistentLongMap<Integer> same = map.with(Long.MIN_VALUE, 1);
+		assertSame(same, same.with(Long.MIN_VALUE, same.get(Long.MIN_VALUE)));
+		assertSame(map, map.without(Long.MAX_VALUE));
+		assertEquals(Integer.valueOf(1), same.get(Long.MIN_VALUE));
+	}
+}
@@ -0,0 +1,101 @@
+package de.tum.ei.lkn.eces.network.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the prefix tries.
+ *
+ * @author Amaury Van Bemten
+ */
+public class PrefixTrieTest {
+	@Test
+	public void testIPv4() {
+		PrefixTrie<String> trie = new PrefixTrie<>(32);
+		assertNull(trie.put(ipv4("10.0.0.0"), 0, 8, "10/8"));
+		assertNull(trie.put(ipv4("10.1.0.0"), 0, 16, "10.1/16"));
+		assertNull(trie.put(ipv4("10.1.2.3"), 0, 32, "10.1.2.3"));
+		assertNull(trie.put(ipv4("192.168.0.0"), 0, 24, "192.168.0/24"));
+		assertEquals("10.1/16", trie.put(ipv4("10.1.255.255"), 0, 16, "10.1/16 bis"));
+		assertEquals(4, trie.size());
+
+		assertEquals("10.1.2.3", trie.getLongestPrefixMatch(ipv4("10.1.2.3"), 0));
+		assertEquals("10.1/16 bis", trie.getLongestPrefixMatch(ipv4("10.1.2.4"), 0));
+		assertEquals("10/8", trie.getLongestPrefixMatch(ipv4("10.2.0.1"), 0));
+		assertEquals("192.168.0/24", trie.getLongestPrefixMatch(ipv4("192.168.0.255"), 0));
+		assertNull(trie.getLongestPrefixMatch(ipv4("192.168.1.0"), 0));
+		assertNull(trie.get(ipv4("10.0.0.0"), 0, 9));
+
+		List<String> visited = new ArrayList<>();
+		assertEquals(3, trie.forEachInPrefix(ipv4("10.0.0.0"), 0, 8, (upper, lower, length, value) -> visited.add(value)));
+		assertEquals("10/8", visited.get(0));
+		assertEquals(2, trie.forEachInPrefix(ipv4("10.1.0.0"), 0, 15, null));
+		assertEquals(0, trie.forEachInPrefix(ipv4("11.0.0.0"), 0, 8, null));
+		assertEquals(4, trie.forEachInPrefix(0, 0, 0, null));
+
+		assertEquals("10.1/16 bis", trie.remove(ipv4("10.1.0.0"), 0, 16));
+		assertNull(trie.remove(ipv4("10.1.0.0"), 0, 16));
+		assertEquals("10/8", trie.getLongestPrefixMatch(ipv4("10.1.2.4"), 0));
+		assertEquals("10.1.2.3", trie.getLongestPrefixMatch(ipv4("10.1.2.3"), 0));
+		assertEquals(3, trie.size());
+	}
+
+	@Test
+	public void testRandomized() {
+		// Compares to a linear scan over random IPv6 prefixes.
+		Random random = new Random(42);
+		PrefixTrie<Integer> trie = new PrefixTrie<>(128);
+		TreeMap<String, Integer> reference = new TreeMap<>();
+		long[][] keys = new long[2000][];
+		for(int i = 0; i < keys.length; i++) {
+			int length = random.nextInt(129);
+			long upper = random.nextInt(4) == 0 ? random.nextLong() : random.nextLong() & 0xff00000000000000L;
+			long lower = random.nextLong();
+			keys[i] = new long[]{mask(upper, length, 0), mask(lower, length, 64), length};
+			trie.put(upper, lower, length, i);
+			reference.put(keys[i][0] + "/" + keys[i][1] + "/" + length, i);
+			if(i % 3 == 0) {
+				long[] removed = keys[random.nextInt(i + 1)];
+				trie.remove(removed[0], removed[1], (int) removed[2]);
+				reference.remove(removed[0] + "/" + removed[1] + "/" + removed[2]);
+			}
+		}
+		assertEquals(reference.size(), trie.size());
+
+		for(int i = 0; i < 2000; i++) {
+			long[] key = keys[random.nextInt(keys.length)];
+			long upper = random.nextBoolean() ? key[0] | (random.nextLong() & 0xffL) : random.nextLong();
+			long lower = random.nextLong();
+			Integer expected = null;
+			int bestLength = -1;
+			for(Integer value : reference.values()) {
+				long[] candidate = keys[value];
+				int length = (int) candidate[2];
+				if(length > bestLength && mask(upper, length, 0) == candidate[0] && mask(lower, length, 64) == candidate[1]) {
+					bestLength = length;
+					expected = value;
+				}
+			}
+			assertEquals(expected, trie.getLongestPrefixMatch(upper, lower));
+		}
+	}
+
+	private static long ipv4(String ip) {
+		return ((long) IPv4Address.valueOf(ip).toInt()) << 32;
+	}
+
+	private static long mask(long half, int length, int offset) {
+		int bits = length - offset;
+		if(bits <= 0)
+			return 0;
+		if(bits >= 64)
+			return half;
+		return half & (-1L << (64 - bits));
+	}
+}